@@ -0,0 +1,186 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.brickred.socialauth.util.HttpTransport;
+
+/**
+ * Transport which answers requests with recorded payloads instead of going to
+ * the network. A payload is chosen by the first rule whose text is contained
+ * in the request URL, requests matching no rule get an empty JSON object.
+ */
+public class FixtureTransport implements HttpTransport {
+
+	private static final byte[] EMPTY = "{}".getBytes();
+
+	private final List<String> patterns = new ArrayList<String>();
+	private final List<byte[]> payloads = new ArrayList<byte[]>();
+	private final List<String> contentTypes = new ArrayList<String>();
+
+	/**
+	 * Answers the URLs containing given text with given class path resource.
+	 * 
+	 * @param pattern
+	 *            text to look for in the URL
+	 * @param resource
+	 *            class path resource of the payload
+	 * @return this transport
+	 */
+	public FixtureTransport add(final String pattern, final String resource)
+			throws IOException {
+		InputStream in = FixtureTransport.class.getResourceAsStream(resource);
+		if (in == null) {
+			throw new IOException("Fixture not found : " + resource);
+		}
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				out.write(buf, 0, n);
+			}
+			return add(pattern, out.toByteArray(),
+					resource.endsWith(".xml") ? "text/xml" : "application/json");
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Answers the URLs containing given text with given payload.
+	 */
+	public FixtureTransport add(final String pattern, final byte[] payload,
+			final String contentType) {
+		patterns.add(pattern);
+		payloads.add(payload);
+		contentTypes.add(contentType);
+		return this;
+	}
+
+	@Override
+	public HttpURLConnection openConnection(final URL url, final Proxy proxy)
+			throws IOException {
+		String str = url.toString();
+		for (int i = 0; i < patterns.size(); i++) {
+			if (str.contains(patterns.get(i))) {
+				return new FixtureConnection(url, payloads.get(i),
+						contentTypes.get(i));
+			}
+		}
+		return new FixtureConnection(url, EMPTY, "application/json");
+	}
+
+	@Override
+	public void release(final HttpURLConnection connection,
+			final boolean reusable) {
+	}
+
+	@Override
+	public void shutdown() {
+	}
+
+	private static class FixtureConnection extends HttpURLConnection {
+
+		private final byte[] payload;
+		private final Map<String, List<String>> headers = new HashMap<String, List<String>>();
+
+		FixtureConnection(final URL url, final byte[] payload,
+				final String contentType) {
+			super(url);
+			this.payload = payload;
+			headers.put("Content-Type", Collections.singletonList(contentType));
+			headers.put("Content-Length",
+					Collections.singletonList(String.valueOf(payload.length)));
+		}
+
+		@Override
+		public void connect() {
+			connected = true;
+		}
+
+		@Override
+		public void disconnect() {
+		}
+
+		@Override
+		public boolean usingProxy() {
+			return false;
+		}
+
+		@Override
+		public int getResponseCode() {
+			return HTTP_OK;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(payload);
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			return null;
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return new ByteArrayOutputStream();
+		}
+
+		@Override
+		public int getContentLength() {
+			return payload.length;
+		}
+
+		@Override
+		public String getHeaderField(final String name) {
+			for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+				if (entry.getKey().equalsIgnoreCase(name)) {
+					return entry.getValue().get(0);
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public Map<String, List<String>> getHeaderFields() {
+			return headers;
+		}
+	}
+}
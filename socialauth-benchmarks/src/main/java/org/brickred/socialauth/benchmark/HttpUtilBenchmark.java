@@ -0,0 +1,155 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.benchmark;
+
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.brickred.socialauth.util.HttpUtil;
+import org.brickred.socialauth.util.PercentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * URL component encoding and query string building used while building
+ * redirect URLs and signing requests. The legacy benchmarks run the
+ * URLEncoder based implementation HttpUtil had before {@link PercentCodec}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HttpUtilBenchmark {
+
+	private static final String PLAIN = "SocialAuthBenchmarkPlainValue_0123456789";
+	private static final String MIXED = "http://opensource.brickred.com/socialauthdemo/socialAuthSuccessAction.do?provider=facebook&state=a b+c/d";
+	private static final String UNICODE = "Ladies + Gentlemen, café über 日本 ☃";
+
+	private String encodedMixed;
+	private String encodedUnicode;
+	private Map<String, String> params;
+	private final StringBuilder buffer = new StringBuilder(256);
+
+	@Setup
+	public void setUp() throws Exception {
+		encodedMixed = HttpUtil.encodeURIComponent(MIXED);
+		encodedUnicode = HttpUtil.encodeURIComponent(UNICODE);
+		params = new HashMap<String, String>();
+		params.put("oauth_consumer_key", "xvz1evFS4wEEPTGEFPHBog");
+		params.put("oauth_nonce", "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg");
+		params.put("oauth_signature_method", "HMAC-SHA1");
+		params.put("oauth_timestamp", "1318622958");
+		params.put("oauth_version", "1.0");
+		params.put("oauth_callback", MIXED);
+		params.put("status", UNICODE);
+		params.put("include_entities", "true");
+	}
+
+	@Benchmark
+	public String encodePlain() throws Exception {
+		return HttpUtil.encodeURIComponent(PLAIN);
+	}
+
+	@Benchmark
+	public String encodeMixed() throws Exception {
+		return HttpUtil.encodeURIComponent(MIXED);
+	}
+
+	@Benchmark
+	public String encodeUnicode() throws Exception {
+		return HttpUtil.encodeURIComponent(UNICODE);
+	}
+
+	@Benchmark
+	public String decodeMixed() {
+		return HttpUtil.decodeURIComponent(encodedMixed);
+	}
+
+	@Benchmark
+	public String decodeUnicode() {
+		return HttpUtil.decodeURIComponent(encodedUnicode);
+	}
+
+	@Benchmark
+	public String buildParams() throws Exception {
+		return HttpUtil.buildParams(params);
+	}
+
+	@Benchmark
+	public int appendEncoded() {
+		buffer.setLength(0);
+		PercentCodec.encode(MIXED, buffer);
+		return buffer.length();
+	}
+
+	@Benchmark
+	public String legacyEncodePlain() throws Exception {
+		return legacyEncode(PLAIN);
+	}
+
+	@Benchmark
+	public String legacyEncodeMixed() throws Exception {
+		return legacyEncode(MIXED);
+	}
+
+	@Benchmark
+	public String legacyEncodeUnicode() throws Exception {
+		return legacyEncode(UNICODE);
+	}
+
+	@Benchmark
+	public String legacyBuildParams() throws Exception {
+		List<String> argList = new ArrayList<String>();
+		for (String key : params.keySet()) {
+			String val = params.get(key);
+			if (val != null && val.length() > 0) {
+				argList.add(key + "=" + legacyEncode(val));
+			}
+		}
+		Collections.sort(argList);
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < argList.size(); i++) {
+			s.append(argList.get(i));
+			if (i != argList.size() - 1) {
+				s.append("&");
+			}
+		}
+		return s.toString();
+	}
+
+	private static String legacyEncode(final String value) throws Exception {
+		return URLEncoder.encode(value, "utf-8").replace("+", "%20")
+				.replace("*", "%2A").replace("%7E", "~");
+	}
+}
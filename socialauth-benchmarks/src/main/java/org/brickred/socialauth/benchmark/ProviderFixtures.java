@@ -0,0 +1,102 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.benchmark;
+
+import java.io.IOException;
+
+import org.brickred.socialauth.util.AccessGrant;
+import org.brickred.socialauth.util.Constants;
+
+/**
+ * Recorded profile and contacts payloads of the providers, and the access
+ * grant the provider needs to read them. Contact payloads hold 100 contacts.
+ */
+public final class ProviderFixtures {
+
+	/**
+	 * Providers which have fixtures
+	 */
+	public static final String[] PROVIDERS = { Constants.FACEBOOK,
+			Constants.GITHUB, Constants.GOOGLE_PLUS, Constants.HOTMAIL,
+			Constants.INSTAGRAM, Constants.FOURSQUARE, Constants.TWITTER,
+			Constants.LINKEDIN };
+
+	private static final String DIR = "/fixtures/";
+
+	private ProviderFixtures() {
+	}
+
+	/**
+	 * Creates the transport which serves the payloads of given provider. More
+	 * specific URLs come first as the first matching rule wins.
+	 */
+	public static FixtureTransport transport(final String providerId)
+			throws IOException {
+		FixtureTransport t = new FixtureTransport();
+		String dir = DIR + providerId + "/";
+		if (Constants.FACEBOOK.equals(providerId)) {
+			t.add("/me/friends", dir + "contacts.json");
+			t.add("/me?", dir + "profile.json");
+		} else if (Constants.GITHUB.equals(providerId)) {
+			t.add("/user/following", dir + "contacts.json");
+			t.add("/user?", dir + "profile.json");
+		} else if (Constants.GOOGLE_PLUS.equals(providerId)) {
+			t.add("/m8/feeds/contacts", dir + "contacts.xml");
+			t.add("/userinfo", dir + "profile.json");
+		} else if (Constants.HOTMAIL.equals(providerId)) {
+			t.add("/me/contacts", dir + "contacts.json");
+			t.add("/me?", dir + "profile.json");
+		} else if (Constants.INSTAGRAM.equals(providerId)) {
+			t.add("/users/self/follows", dir + "contacts.json");
+			t.add("/users/self", dir + "profile.json");
+		} else if (Constants.FOURSQUARE.equals(providerId)) {
+			t.add("/users/self/friends", dir + "contacts.json");
+			t.add("/users/self", dir + "profile.json");
+		} else if (Constants.TWITTER.equals(providerId)) {
+			t.add("/friends/ids.json", dir + "friends_ids.json");
+			t.add("/users/lookup.json", dir + "lookup.json");
+			t.add("/verify_credentials.json", dir + "profile.json");
+		} else if (Constants.LINKEDIN.equals(providerId)) {
+			t.add("/connections", dir + "contacts.xml");
+			t.add("/people/~", dir + "profile.xml");
+		} else {
+			throw new IllegalArgumentException("No fixtures for " + providerId);
+		}
+		return t;
+	}
+
+	/**
+	 * Creates the access grant given provider is connected with.
+	 */
+	public static AccessGrant grant(final String providerId) {
+		AccessGrant grant = new AccessGrant("fixture-token", "fixture-secret");
+		grant.setProviderId(providerId);
+		grant.setAttribute(Constants.EXPIRES, Integer.valueOf(3600));
+		if (Constants.TWITTER.equals(providerId)) {
+			grant.setAttribute("screen_name", "asmith");
+		}
+		return grant;
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.brickred.socialauth.AuthProvider;
+import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.Profile;
+import org.brickred.socialauth.ProviderRegistry;
+import org.brickred.socialauth.util.DefaultHttpTransport;
+import org.brickred.socialauth.util.HttpUtil;
+import org.brickred.socialauth.util.OAuthConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Profile and contact list of every provider with fixtures, fetched through
+ * the real strategy, HttpUtil and Response code from a {@link FixtureTransport}
+ * so the numbers cover everything but the network. The profile benchmark
+ * connects a new provider each time as providers keep the profile once read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProviderParsingBenchmark {
+
+	@Param({ "facebook", "github", "googleplus", "hotmail", "instagram",
+			"foursquare", "twitter", "linkedin" })
+	public String provider;
+
+	private Class<?> providerClass;
+	private OAuthConfig config;
+	private AuthProvider connected;
+
+	@Setup
+	public void setUp() throws Exception {
+		HttpUtil.setHttpTransport(ProviderFixtures.transport(provider));
+		providerClass = ProviderRegistry.getDefaultProviders().get(provider);
+		config = new OAuthConfig("fixture-key", "fixture-secret");
+		config.setId(provider);
+		connected = connect();
+	}
+
+	@TearDown
+	public void tearDown() {
+		HttpUtil.setHttpTransport(new DefaultHttpTransport());
+	}
+
+	@Benchmark
+	public Profile profile() throws Exception {
+		return connect().getUserProfile();
+	}
+
+	@Benchmark
+	public List<Contact> contacts() throws Exception {
+		return connected.getContactList();
+	}
+
+	private AuthProvider connect() throws Exception {
+		AuthProvider p = ProviderRegistry.newInstance(providerClass, config);
+		p.setAccessGrant(ProviderFixtures.grant(provider));
+		return p;
+	}
+}
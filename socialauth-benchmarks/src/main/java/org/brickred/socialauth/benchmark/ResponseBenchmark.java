@@ -0,0 +1,125 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reading a response body as String, bytes and Reader, plain and gzip
+ * encoded. The recorded Facebook contacts payload is repeated up to the
+ * wanted size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseBenchmark {
+
+	@Param({ "1024", "65536", "1048576" })
+	public int size;
+
+	@Param({ "identity", Constants.GZIP_CONTENT_ENCODING })
+	public String encoding;
+
+	private byte[] body;
+	private Map<String, String> headers;
+
+	@Setup
+	public void setUp() throws Exception {
+		InputStream in = ResponseBenchmark.class
+				.getResourceAsStream("/fixtures/facebook/contacts.json");
+		ByteArrayOutputStream fixture = new ByteArrayOutputStream();
+		try {
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				fixture.write(buf, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+		byte[] payload = fixture.toByteArray();
+		byte[] plain = new byte[size];
+		for (int i = 0; i < size; i += payload.length) {
+			System.arraycopy(payload, 0, plain, i,
+					Math.min(payload.length, size - i));
+		}
+		headers = new HashMap<String, String>();
+		if (Constants.GZIP_CONTENT_ENCODING.equals(encoding)) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			GZIPOutputStream gzip = new GZIPOutputStream(out);
+			gzip.write(plain);
+			gzip.close();
+			body = out.toByteArray();
+			headers.put(Constants.CONTENT_ENCODING_HEADER, encoding);
+		} else {
+			body = plain;
+		}
+	}
+
+	@Benchmark
+	public String asString() throws Exception {
+		return new Response(200, headers, body)
+				.getResponseBodyAsString(Constants.ENCODING);
+	}
+
+	@Benchmark
+	public byte[] asBytes() throws Exception {
+		return new Response(200, headers, body).getResponseBodyAsBytes();
+	}
+
+	@Benchmark
+	public int asReader() throws Exception {
+		Reader reader = new Response(200, headers, body)
+				.getResponseBodyAsReader(Constants.ENCODING);
+		char[] buf = new char[4096];
+		int total = 0;
+		int n;
+		try {
+			while ((n = reader.read(buf)) != -1) {
+				total += n;
+			}
+		} finally {
+			reader.close();
+		}
+		return total;
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.brickred.socialauth.util.AccessGrant;
+import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.MethodType;
+import org.brickred.socialauth.util.OAuthConfig;
+import org.brickred.socialauth.util.OAuthConsumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * OAuth 1.0a request signing as done for every request token, access token
+ * and feed call of OAuth1 providers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignatureBenchmark {
+
+	private static final String URL = "https://api.twitter.com/1.1/friends/ids.json";
+
+	@Param({ Constants.HMACSHA1_SIGNATURE, Constants.HMACSHA256_SIGNATURE,
+			Constants.PLAINTEXT_SIGNATURE })
+	public String signatureMethod;
+
+	private OAuthConsumer consumer;
+	private Map<String, String> params;
+	private AccessGrant token;
+
+	@Setup
+	public void setUp() {
+		consumer = new OAuthConsumer(new OAuthConfig(
+				"xvz1evFS4wEEPTGEFPHBog",
+				"kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw"));
+		token = new AccessGrant(
+				"370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb",
+				"LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE");
+		params = new HashMap<String, String>();
+		params.put(Constants.OAUTH_CONSUMER_KEY, "xvz1evFS4wEEPTGEFPHBog");
+		params.put(Constants.OAUTH_NONCE, "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg");
+		params.put(Constants.OAUTH_SIGNATURE_METHOD, signatureMethod);
+		params.put(Constants.OAUTH_TIMESTAMP, "1318622958");
+		params.put(Constants.OAUTH_TOKEN, token.getKey());
+		params.put(Constants.OAUTH_VERSION, "1.0");
+		params.put("screen_name", "asmith");
+		params.put("cursor", "-1");
+		params.put("include_entities", "true");
+	}
+
+	@Benchmark
+	public String generateSignature() throws Exception {
+		return consumer.generateSignature(signatureMethod,
+				MethodType.GET.toString(), URL, params, token);
+	}
+}
@@ -0,0 +1,336 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.benchmark.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.brickred.socialauth.AuthProvider;
+import org.brickred.socialauth.SocialAuthConfig;
+import org.brickred.socialauth.SocialAuthManager;
+import org.brickred.socialauth.metrics.InMemoryMetricsRecorder;
+import org.brickred.socialauth.metrics.LatencyHistogram;
+import org.brickred.socialauth.metrics.Metrics;
+import org.brickred.socialauth.metrics.OperationStats;
+import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.DefaultHttpTransport;
+import org.brickred.socialauth.util.HttpUtil;
+
+/**
+ * Load harness running complete login flows against a
+ * {@link MockProviderServer}. Every flow uses its own
+ * {@link SocialAuthManager}: it gets the authentication URL, follows it like a
+ * browser would to obtain the callback parameters, connects the provider
+ * (which exchanges the token and reads the profile) and optionally reads the
+ * contacts. Throughput and latency percentiles of the flows are reported per
+ * provider, followed by the per operation statistics of {@link Metrics}.
+ * 
+ * <pre>
+ * java -cp target/benchmarks.jar org.brickred.socialauth.benchmark.load.LoginLoadTest \
+ *     --providers facebook,twitter --threads 32 --duration 60 \
+ *     --latency 50 --jitter 20 --errors 0.01 --contacts
+ * </pre>
+ */
+public class LoginLoadTest {
+
+	private static final String SUCCESS_URL = "http://localhost:8080/socialauth/success";
+
+	private final MockProviderServer server;
+	private final SocialAuthConfig config;
+	private final String[] providers;
+	private final boolean contacts;
+	private final Map<String, Result> results;
+	private final AtomicLong counter = new AtomicLong();
+
+	public LoginLoadTest(final MockProviderServer server,
+			final SocialAuthConfig config, final String[] providers,
+			final boolean contacts) {
+		this.server = server;
+		this.config = config;
+		this.providers = providers;
+		this.contacts = contacts;
+		results = new LinkedHashMap<String, Result>();
+		for (String id : providers) {
+			results.put(id, new Result());
+		}
+	}
+
+	/**
+	 * Runs login flows from given number of threads until given time elapsed.
+	 * Providers are used in turn.
+	 */
+	public void run(final int threads, final long millis)
+			throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + millis;
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			Thread t = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (System.currentTimeMillis() < deadline) {
+							String id = providers[(int) (counter
+									.getAndIncrement() % providers.length)];
+							login(id);
+						}
+					} finally {
+						done.countDown();
+					}
+				}
+			}, "login-" + i);
+			t.setDaemon(true);
+			t.start();
+		}
+		done.await();
+	}
+
+	/**
+	 * Runs one login flow and records its outcome.
+	 */
+	public void login(final String providerId) {
+		Result result = results.get(providerId);
+		long start = System.nanoTime();
+		try {
+			SocialAuthManager manager = new SocialAuthManager();
+			manager.setSocialAuthConfig(config);
+			String url = manager.getAuthenticationUrl(providerId, SUCCESS_URL);
+			AuthProvider provider = manager.connect(authorize(url));
+			provider.getUserProfile();
+			if (contacts) {
+				provider.getContactList();
+			}
+			result.latency.record(System.nanoTime() - start);
+		} catch (Exception e) {
+			result.failed(e);
+		}
+	}
+
+	/**
+	 * Follows the authentication URL like the browser of the user, and returns
+	 * the parameters the provider redirects back with.
+	 */
+	private Map<String, String> authorize(final String url) throws IOException {
+		HttpURLConnection conn = (HttpURLConnection) server.rewrite(
+				new URL(url)).openConnection();
+		conn.setInstanceFollowRedirects(false);
+		try {
+			int status = conn.getResponseCode();
+			InputStream in = status < 400 ? conn.getInputStream() : conn
+					.getErrorStream();
+			if (in != null) {
+				while (in.read() != -1) {
+				}
+				in.close();
+			}
+			String location = conn.getHeaderField("Location");
+			if (status != HttpURLConnection.HTTP_MOVED_TEMP || location == null) {
+				throw new IOException("Authorization failed with status "
+						+ status);
+			}
+			Map<String, String> params = new HashMap<String, String>();
+			int q = location.indexOf('?');
+			if (q > 0) {
+				for (String pair : location.substring(q + 1).split("&")) {
+					int eq = pair.indexOf('=');
+					if (eq > 0) {
+						params.put(pair.substring(0, eq), URLDecoder.decode(
+								pair.substring(eq + 1), Constants.ENCODING));
+					}
+				}
+			}
+			return params;
+		} finally {
+			conn.disconnect();
+		}
+	}
+
+	public void reset() {
+		for (Result r : results.values()) {
+			r.reset();
+		}
+	}
+
+	/**
+	 * Prints the results of the flows run for given number of seconds.
+	 */
+	public void report(final PrintStream out, final double seconds) {
+		out.printf("%-12s %8s %8s %10s %9s %9s %9s %9s %9s%n", "provider",
+				"logins", "errors", "logins/s", "mean ms", "p50 ms", "p90 ms",
+				"p99 ms", "max ms");
+		for (Map.Entry<String, Result> entry : results.entrySet()) {
+			Result r = entry.getValue();
+			LatencyHistogram h = r.latency;
+			out.printf("%-12s %8d %8d %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+					entry.getKey(), h.getCount(), r.errors.get(),
+					h.getCount() / seconds, h.getMeanMillis(),
+					h.getPercentileMillis(50), h.getPercentileMillis(90),
+					h.getPercentileMillis(99), h.getMaxMillis());
+			for (Map.Entry<String, AtomicLong> cause : r.causes.entrySet()) {
+				out.printf("    %6d x %s%n", cause.getValue().get(),
+						cause.getKey());
+			}
+		}
+	}
+
+	private static class Result {
+		final LatencyHistogram latency = new LatencyHistogram();
+		final AtomicLong errors = new AtomicLong();
+		final ConcurrentMap<String, AtomicLong> causes = new ConcurrentHashMap<String, AtomicLong>();
+
+		void failed(final Exception e) {
+			errors.incrementAndGet();
+			Throwable root = e;
+			while (root.getCause() != null && root.getCause() != root) {
+				root = root.getCause();
+			}
+			String key = root.getClass().getSimpleName() + ": "
+					+ root.getMessage();
+			AtomicLong count = causes.get(key);
+			if (count == null) {
+				AtomicLong c = new AtomicLong();
+				count = causes.putIfAbsent(key, c);
+				if (count == null) {
+					count = c;
+				}
+			}
+			count.incrementAndGet();
+		}
+
+		void reset() {
+			latency.reset();
+			errors.set(0);
+			causes.clear();
+		}
+	}
+
+	/**
+	 * Application configuration with keys of the emulated providers.
+	 */
+	public static Properties configuration() {
+		Properties props = new Properties();
+		String[] domains = { "graph.facebook.com", "twitter.com",
+				"www.google.com", "googleapis.com", "api.github.com" };
+		for (String domain : domains) {
+			props.setProperty(domain + ".consumer_key", "loadtest-key");
+			props.setProperty(domain + ".consumer_secret", "loadtest-secret");
+		}
+		return props;
+	}
+
+	public static void main(final String[] args) throws Exception {
+		Map<String, String> options = new HashMap<String, String>();
+		options.put("providers", "facebook,twitter,google,googleplus,github");
+		options.put("threads", "16");
+		options.put("warmup", "5");
+		options.put("duration", "30");
+		options.put("latency", "0");
+		options.put("jitter", "0");
+		options.put("errors", "0");
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument "
+						+ args[i]);
+			}
+			String name = args[i].substring(2);
+			if ("contacts".equals(name)) {
+				options.put(name, "true");
+			} else if (i + 1 < args.length) {
+				options.put(name, args[++i]);
+			} else {
+				throw new IllegalArgumentException("Missing value of "
+						+ args[i]);
+			}
+		}
+		int threads = Integer.parseInt(options.get("threads"));
+
+		MockProviderServer server = new MockProviderServer(0);
+		server.setLatency(Integer.parseInt(options.get("latency")),
+				Integer.parseInt(options.get("jitter")));
+		server.setErrorRate(Double.parseDouble(options.get("errors")));
+		server.start();
+
+		SocialAuthConfig config = new SocialAuthConfig();
+		config.load(configuration());
+		DefaultHttpTransport transport = new DefaultHttpTransport();
+		transport.setMaxConnectionsPerRoute(threads * 2);
+		HttpUtil.setHttpTransport(new MockServerTransport(server, transport));
+		InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+		Metrics.setRecorder(recorder);
+
+		LoginLoadTest test = new LoginLoadTest(server, config, options.get(
+				"providers").split(","), options.containsKey("contacts"));
+		System.out.println("Mock provider server on port " + server.getPort()
+				+ ", " + threads + " threads");
+		test.run(threads, Long.parseLong(options.get("warmup")) * 1000);
+		test.reset();
+		recorder.reset();
+
+		long duration = Long.parseLong(options.get("duration")) * 1000;
+		long requests = server.getRequestCount();
+		long injected = server.getInjectedErrorCount();
+		long start = System.nanoTime();
+		test.run(threads, duration);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println();
+		test.report(System.out, seconds);
+		System.out.printf("%nServer requests: %d (%.1f/s), injected errors: %d%n",
+				server.getRequestCount() - requests,
+				(server.getRequestCount() - requests) / seconds,
+				server.getInjectedErrorCount() - injected);
+		System.out.println();
+		List<OperationStats> stats = recorder.getAllStats();
+		Collections.sort(stats, new Comparator<OperationStats>() {
+			@Override
+			public int compare(final OperationStats o1, final OperationStats o2) {
+				int c = o1.getProviderId().compareTo(o2.getProviderId());
+				return c != 0 ? c : o1.getOperation().compareTo(
+						o2.getOperation());
+			}
+		});
+		for (OperationStats s : stats) {
+			if (s.getCount() > 0) {
+				System.out.println(s);
+			}
+		}
+		HttpUtil.setHttpTransport(new DefaultHttpTransport());
+		server.stop();
+	}
+}
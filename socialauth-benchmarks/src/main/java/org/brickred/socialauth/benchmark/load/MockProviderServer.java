@@ -0,0 +1,458 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.benchmark.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.brickred.socialauth.benchmark.FixtureTransport;
+import org.brickred.socialauth.benchmark.ProviderFixtures;
+import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.HttpUtil;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP server emulating the endpoints of the providers, so that login
+ * flows can be load tested without going to the real providers. Requests are
+ * expected in the form <code>http://127.0.0.1:port/&lt;host&gt;/&lt;path&gt;</code>
+ * as produced by {@link #rewrite(URL)}, the host being the one of the real
+ * provider URL.
+ * 
+ * It answers the OAuth 1.0a request token, authorize and access token
+ * endpoints (Twitter), the OAuth 2.0 authorize and token endpoints including
+ * refresh and Facebook token exchange (Facebook, GitHub, Google Plus), the
+ * OpenID association and authentication endpoint and OAuth access token
+ * endpoint of the Google hybrid protocol, and the profile and contact API
+ * calls with the recorded payloads of {@link ProviderFixtures}. OAuth 1.0a
+ * calls must carry a signature and API calls an access token, else 401 is
+ * returned. Latency and 503 errors can be injected on every request.
+ */
+public class MockProviderServer {
+
+	private static final String FORM = "application/x-www-form-urlencoded";
+	private static final String JSON = "application/json";
+
+	static {
+		// headers and body are written separately, without TCP_NODELAY small
+		// responses wait for the delayed ACK of the client
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<String, FixtureTransport> apis;
+	private final ConcurrentMap<String, String> callbacks;
+	private final AtomicLong sequence;
+	private final AtomicLong requests;
+	private final AtomicLong injectedErrors;
+	private volatile int latency;
+	private volatile int jitter;
+	private volatile double errorRate;
+
+	/**
+	 * Creates the server on given port of the loopback interface.
+	 * 
+	 * @param port
+	 *            the port, 0 to choose a free one
+	 */
+	public MockProviderServer(final int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", port),
+				128);
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicLong count = new AtomicLong();
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				Thread t = new Thread(r, "mock-provider-"
+						+ count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		server.setExecutor(executor);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				MockProviderServer.this.handle(exchange);
+			}
+		});
+		apis = new ConcurrentHashMap<String, FixtureTransport>();
+		callbacks = new ConcurrentHashMap<String, String>();
+		sequence = new AtomicLong();
+		requests = new AtomicLong();
+		injectedErrors = new AtomicLong();
+		addApi("graph.facebook.com",
+				ProviderFixtures.transport(Constants.FACEBOOK));
+		addApi("api.github.com", ProviderFixtures.transport(Constants.GITHUB));
+		addApi("api.twitter.com",
+				ProviderFixtures.transport(Constants.TWITTER));
+		addApi("www.googleapis.com",
+				ProviderFixtures.transport(Constants.GOOGLE_PLUS));
+		// Google contacts feed is shared by the hybrid and OAuth 2 providers
+		addApi("www.google.com",
+				ProviderFixtures.transport(Constants.GOOGLE_PLUS));
+	}
+
+	/**
+	 * Serves the API calls made to given host from given fixtures.
+	 */
+	public void addApi(final String host, final FixtureTransport fixtures) {
+		apis.put(host, fixtures);
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Delays every response.
+	 * 
+	 * @param latency
+	 *            minimum delay in milliseconds
+	 * @param jitter
+	 *            maximum random delay in milliseconds added to the minimum
+	 */
+	public void setLatency(final int latency, final int jitter) {
+		this.latency = latency;
+		this.jitter = jitter;
+	}
+
+	/**
+	 * @param errorRate
+	 *            fraction of requests, between 0 and 1, answered with 503
+	 */
+	public void setErrorRate(final double errorRate) {
+		this.errorRate = errorRate;
+	}
+
+	/**
+	 * @return number of requests received
+	 */
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * @return number of requests answered with an injected error
+	 */
+	public long getInjectedErrorCount() {
+		return injectedErrors.get();
+	}
+
+	/**
+	 * Maps a provider URL to the URL of this server.
+	 */
+	public URL rewrite(final URL url) throws MalformedURLException {
+		StringBuilder sb = new StringBuilder("http://127.0.0.1:");
+		sb.append(getPort()).append('/').append(url.getHost());
+		sb.append(url.getPath().length() == 0 ? "/" : url.getPath());
+		if (url.getQuery() != null) {
+			sb.append('?').append(url.getQuery());
+		}
+		return new URL(sb.toString());
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try {
+			String path = exchange.getRequestURI().getRawPath();
+			int slash = path.indexOf('/', 1);
+			String host = slash < 0 ? path.substring(1) : path.substring(1,
+					slash);
+			String resource = slash < 0 ? "/" : path.substring(slash);
+			Map<String, String> params = new HashMap<String, String>();
+			parse(exchange.getRequestURI().getRawQuery(), params);
+			byte[] body = read(exchange.getRequestBody());
+			String contentType = exchange.getRequestHeaders().getFirst(
+					"Content-Type");
+			if (body.length > 0
+					&& (contentType == null || contentType.startsWith(FORM))) {
+				parse(new String(body, Constants.ENCODING), params);
+			}
+			delay();
+			if (errorRate > 0 && Math.random() < errorRate) {
+				injectedErrors.incrementAndGet();
+				send(exchange, 503, "text/plain", "Service Unavailable");
+				return;
+			}
+			route(exchange, host, resource, params);
+		} catch (Exception e) {
+			send(exchange, 500, "text/plain", String.valueOf(e));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void route(final HttpExchange exchange, final String host,
+			final String resource, final Map<String, String> params)
+			throws Exception {
+		boolean oauth1 = "api.twitter.com".equals(host);
+		if (resource.endsWith("/oauth/request_token")) {
+			if (!isSigned(exchange, params)) {
+				unauthorized(exchange);
+				return;
+			}
+			String token = "rt-" + sequence.incrementAndGet();
+			callbacks.put(token, params.get(Constants.OAUTH_CALLBACK));
+			send(exchange, 200, FORM, "oauth_token=" + token
+					+ "&oauth_token_secret=rs-" + sequence.incrementAndGet()
+					+ "&oauth_callback_confirmed=true");
+		} else if (oauth1
+				&& (resource.endsWith("/oauth/authenticate") || resource
+						.endsWith("/oauth/authorize"))) {
+			String token = params.get(Constants.OAUTH_TOKEN);
+			String callback = token == null ? null : callbacks.remove(token);
+			if (callback == null) {
+				unauthorized(exchange);
+				return;
+			}
+			redirect(exchange, callback, "oauth_token=" + token
+					+ "&oauth_verifier=v-" + sequence.incrementAndGet());
+		} else if (oauth1 && resource.endsWith("/oauth/access_token")) {
+			if (!isSigned(exchange, params)
+					|| params.get(Constants.OAUTH_VERIFIER) == null) {
+				unauthorized(exchange);
+				return;
+			}
+			send(exchange, 200, FORM, "oauth_token=at-"
+					+ sequence.incrementAndGet() + "&oauth_token_secret=as-"
+					+ sequence.incrementAndGet()
+					+ "&user_id=6253282&screen_name=asmith");
+		} else if (resource.endsWith("/oauth/authorize")
+				|| resource.endsWith("/o/oauth2/auth")) {
+			String redirectUri = params.get("redirect_uri");
+			if (redirectUri == null || params.get("client_id") == null) {
+				send(exchange, 400, JSON, "{\"error\":\"invalid_request\"}");
+				return;
+			}
+			String query = "code=c-" + sequence.incrementAndGet();
+			if (params.get("state") != null) {
+				query += "&state="
+						+ HttpUtil.encodeURIComponent(params.get("state"));
+			}
+			redirect(exchange, redirectUri, query);
+		} else if (resource.endsWith("/oauth/access_token")
+				|| resource.endsWith("/o/oauth2/token")) {
+			token(exchange, params);
+		} else if (resource.endsWith("/accounts/o8/ud")) {
+			openId(exchange, params);
+		} else if (resource.endsWith("/OAuthGetAccessToken")) {
+			if (!isSigned(exchange, params)) {
+				unauthorized(exchange);
+				return;
+			}
+			send(exchange, 200, FORM, "oauth_token=at-"
+					+ sequence.incrementAndGet() + "&oauth_token_secret=as-"
+					+ sequence.incrementAndGet());
+		} else {
+			api(exchange, host, resource, params);
+		}
+	}
+
+	private void token(final HttpExchange exchange,
+			final Map<String, String> params) throws IOException {
+		String grantType = params.get("grant_type");
+		if (params.get("client_id") == null
+				|| params.get("client_secret") == null) {
+			send(exchange, 401, JSON, "{\"error\":\"invalid_client\"}");
+		} else if ("authorization_code".equals(grantType)
+				&& params.get("code") != null) {
+			send(exchange, 200, JSON, "{\"access_token\":\"at-"
+					+ sequence.incrementAndGet()
+					+ "\",\"token_type\":\"bearer\",\"expires_in\":3600,"
+					+ "\"refresh_token\":\"rf-" + sequence.incrementAndGet()
+					+ "\"}");
+		} else if ("refresh_token".equals(grantType)
+				&& params.get("refresh_token") != null) {
+			send(exchange, 200, JSON, "{\"access_token\":\"at-"
+					+ sequence.incrementAndGet()
+					+ "\",\"token_type\":\"bearer\",\"expires_in\":3600}");
+		} else if ("fb_exchange_token".equals(grantType)
+				&& params.get("fb_exchange_token") != null) {
+			send(exchange, 200, FORM, "access_token=at-"
+					+ sequence.incrementAndGet() + "&expires=5184000");
+		} else {
+			send(exchange, 400, JSON, "{\"error\":\"invalid_grant\"}");
+		}
+	}
+
+	private void openId(final HttpExchange exchange,
+			final Map<String, String> params) throws Exception {
+		String mode = params.get("openid.mode");
+		if ("associate".equals(mode)) {
+			send(exchange, 200, "text/plain", "assoc_handle:h-"
+					+ sequence.incrementAndGet()
+					+ "\nns:http://specs.openid.net/auth/2.0"
+					+ "\nassoc_type:HMAC-SHA1\nexpires_in:46800\n");
+		} else if ("checkid_setup".equals(mode)
+				&& params.get("openid.return_to") != null) {
+			long id = sequence.incrementAndGet();
+			StringBuilder sb = new StringBuilder();
+			sb.append("openid.mode=id_res");
+			sb.append("&openid.identity=").append(
+					HttpUtil.encodeURIComponent(
+							"https://www.google.com/accounts/o8/id?id=" + id));
+			sb.append("&openid.ext2.request_token=rt-").append(id);
+			sb.append("&openid.ext1.value.email=asmith%40example.com");
+			sb.append("&openid.ext1.value.firstname=Alice");
+			sb.append("&openid.ext1.value.lastname=Smith");
+			sb.append("&openid.ext1.value.country=US");
+			sb.append("&openid.ext1.value.language=en");
+			redirect(exchange, params.get("openid.return_to"), sb.toString());
+		} else {
+			send(exchange, 400, "text/plain", "error:Unsupported mode\n");
+		}
+	}
+
+	private void api(final HttpExchange exchange, final String host,
+			final String resource, final Map<String, String> params)
+			throws IOException {
+		FixtureTransport fixtures = apis.get(host);
+		if (fixtures == null) {
+			send(exchange, 404, JSON, "{\"error\":\"not_found\"}");
+			return;
+		}
+		if (params.get("access_token") == null
+				&& params.get("oauth_token") == null
+				&& exchange.getRequestHeaders().getFirst("Authorization") == null) {
+			unauthorized(exchange);
+			return;
+		}
+		String query = exchange.getRequestURI().getRawQuery();
+		URL url = new URL("https://" + host + resource
+				+ (query == null ? "" : "?" + query));
+		HttpURLConnection conn = fixtures.openConnection(url, null);
+		byte[] payload = read(conn.getInputStream());
+		send(exchange, 200, conn.getContentType(), payload);
+	}
+
+	private boolean isSigned(final HttpExchange exchange,
+			final Map<String, String> params) {
+		if (params.get(Constants.OAUTH_SIGNATURE) != null) {
+			return true;
+		}
+		String header = exchange.getRequestHeaders().getFirst("Authorization");
+		return header != null && header.contains(Constants.OAUTH_SIGNATURE);
+	}
+
+	private void delay() throws InterruptedException {
+		int millis = latency;
+		if (jitter > 0) {
+			millis += new Random().nextInt(jitter + 1);
+		}
+		if (millis > 0) {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		}
+	}
+
+	private void unauthorized(final HttpExchange exchange) throws IOException {
+		send(exchange, 401, JSON, "{\"error\":\"unauthorized\"}");
+	}
+
+	private void redirect(final HttpExchange exchange, final String location,
+			final String query) throws IOException {
+		char separator = location.indexOf('?') == -1 ? '?' : '&';
+		exchange.getResponseHeaders().set("Location",
+				location + separator + query);
+		exchange.sendResponseHeaders(302, -1);
+	}
+
+	private void send(final HttpExchange exchange, final int status,
+			final String contentType, final String body) throws IOException {
+		send(exchange, status, contentType, body.getBytes(Constants.ENCODING));
+	}
+
+	private void send(final HttpExchange exchange, final int status,
+			final String contentType, final byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, body.length == 0 ? -1
+				: body.length);
+		if (body.length > 0) {
+			OutputStream out = exchange.getResponseBody();
+			out.write(body);
+			out.close();
+		}
+	}
+
+	private static void parse(final String query,
+			final Map<String, String> params) throws IOException {
+		if (query == null || query.length() == 0) {
+			return;
+		}
+		for (String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq > 0) {
+				params.put(URLDecoder.decode(pair.substring(0, eq),
+						Constants.ENCODING), URLDecoder.decode(
+						pair.substring(eq + 1), Constants.ENCODING));
+			}
+		}
+	}
+
+	private static byte[] read(final InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				out.write(buf, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+}
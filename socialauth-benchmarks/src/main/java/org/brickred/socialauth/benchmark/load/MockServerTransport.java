@@ -0,0 +1,72 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.benchmark.load;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+
+import org.brickred.socialauth.util.DefaultHttpTransport;
+import org.brickred.socialauth.util.HttpTransport;
+
+/**
+ * Transport sending every request to a {@link MockProviderServer} instead of
+ * the provider host. Connections are opened by a {@link DefaultHttpTransport},
+ * so pooling and keep-alive behave as against the real providers, except that
+ * all providers share one route.
+ */
+public class MockServerTransport implements HttpTransport {
+
+	private final MockProviderServer server;
+	private final DefaultHttpTransport delegate;
+
+	public MockServerTransport(final MockProviderServer server) {
+		this(server, new DefaultHttpTransport());
+	}
+
+	public MockServerTransport(final MockProviderServer server,
+			final DefaultHttpTransport delegate) {
+		this.server = server;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public HttpURLConnection openConnection(final URL url, final Proxy proxy)
+			throws IOException {
+		return delegate.openConnection(server.rewrite(url), null);
+	}
+
+	@Override
+	public void release(final HttpURLConnection connection,
+			final boolean reusable) {
+		delegate.release(connection, reusable);
+	}
+
+	@Override
+	public void shutdown() {
+		delegate.shutdown();
+	}
+}
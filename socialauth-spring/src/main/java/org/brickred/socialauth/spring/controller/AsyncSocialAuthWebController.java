@@ -0,0 +1,132 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.spring.controller;
+
+import java.util.function.BiConsumer;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+
+import org.brickred.socialauth.AuthProvider;
+import org.brickred.socialauth.SocialAuthManager;
+import org.brickred.socialauth.util.SocialAuthUtil;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Asynchronous variant of {@link SocialAuthWebController}. Provider callbacks
+ * return a DeferredResult which is completed once the access token and the
+ * profile have been retrieved, so the servlet container thread is given back
+ * while the provider is called. The dispatcher servlet and the filters in
+ * front of it must be configured with async support.
+ * 
+ * Configure either this controller or {@link SocialAuthWebController}, not
+ * both, as they are mapped on the same URLs.
+ */
+@Controller
+@RequestMapping("/socialauth")
+public class AsyncSocialAuthWebController extends
+		AbstractSocialAuthWebController {
+
+	/**
+	 * Constructs an AsyncSocialAuthWebController.
+	 * 
+	 * @param applicationUrl
+	 *            the base URL for this application (with context e.g
+	 *            http://opensource.brickred.com/socialauthdemo, used to
+	 *            construct the callback URL passed to the providers
+	 * @param successPageURL
+	 *            the URL of success page or controller, where you want to
+	 *            access sign in user details like profile, contacts etc.
+	 * @param accessDeniedPageURL
+	 *            the URL of page where you want to redirect when user denied
+	 *            the permission.
+	 */
+	@Inject
+	public AsyncSocialAuthWebController(final String applicationUrl,
+			final String successPageURL, final String accessDeniedPageURL) {
+		super(applicationUrl, successPageURL, accessDeniedPageURL);
+	}
+
+	@SuppressWarnings("unused")
+	@RequestMapping(params = "oauth_token")
+	private DeferredResult<String> oauthCallback(
+			final HttpServletRequest request) {
+		return callback(request);
+	}
+
+	@SuppressWarnings("unused")
+	@RequestMapping(params = "code")
+	private DeferredResult<String> oauth2Callback(
+			final HttpServletRequest request) {
+		return callback(request);
+	}
+
+	@SuppressWarnings("unused")
+	@RequestMapping(params = "wrap_verification_code")
+	private DeferredResult<String> hotmailCallback(
+			final HttpServletRequest request) {
+		return callback(request);
+	}
+
+	@SuppressWarnings("unused")
+	@RequestMapping(params = "openid.claimed_id")
+	private DeferredResult<String> openidCallback(
+			final HttpServletRequest request) {
+		return callback(request);
+	}
+
+	private DeferredResult<String> callback(final HttpServletRequest request) {
+		final DeferredResult<String> result = new DeferredResult<String>();
+		final String view = getSuccessView();
+		SocialAuthManager m = getTemplateSocialAuthManager();
+		if (m == null) {
+			LOG.debug("Unable to connect provider because SocialAuthManager object is null.");
+			result.setResult(view);
+			return result;
+		}
+		try {
+			m.connectAsync(SocialAuthUtil.getRequestParametersMap(request))
+					.whenComplete(new BiConsumer<AuthProvider, Throwable>() {
+						@Override
+						public void accept(final AuthProvider provider,
+								final Throwable error) {
+							if (error != null) {
+								LOG.error("Unable to connect provider", error);
+							} else {
+								LOG.debug("Connected Provider : "
+										+ provider.getProviderId());
+							}
+							result.setResult(view);
+						}
+					});
+		} catch (Exception e) {
+			LOG.error("Unable to connect provider", e);
+			result.setResult(view);
+		}
+		return result;
+	}
+}
@@ -23,21 +23,14 @@
  */
 package org.brickred.socialauth.spring.controller;
 
-import java.util.HashMap;
-
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
 import org.brickred.socialauth.AuthProvider;
 import org.brickred.socialauth.SocialAuthManager;
-import org.brickred.socialauth.spring.bean.SocialAuthTemplate;
 import org.brickred.socialauth.util.SocialAuthUtil;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
 
 /**
  * Generic controller for managing socialauth-provider connection flow. This is
@@ -56,16 +49,7 @@ import org.springframework.web.bind.annotation.RequestParam;
  */
 @Controller
 @RequestMapping("/socialauth")
-public class SocialAuthWebController {
-
-	private String baseCallbackUrl;
-	private String successPageURL;
-	private String accessDeniedPageURL;
-	@Autowired
-	private SocialAuthTemplate socialAuthTemplate;
-	@Autowired
-	private SocialAuthManager socialAuthManager;
-	private final Log LOG = LogFactory.getLog(getClass());
+public class SocialAuthWebController extends AbstractSocialAuthWebController {
 
 	/**
 	 * Constructs a SocialAuthWebController.
@@ -84,62 +68,39 @@ public class SocialAuthWebController {
 	@Inject
 	public SocialAuthWebController(final String applicationUrl,
 			final String successPageURL, final String accessDeniedPageURL) {
-		this.baseCallbackUrl = applicationUrl;
-		this.successPageURL = successPageURL;
-		this.accessDeniedPageURL = accessDeniedPageURL;
-	}
-
-	/**
-	 * Initiates the connection with required provider.It redirects the browser
-	 * to an appropriate URL which will be used for authentication with the
-	 * requested provider.
-	 */
-	@SuppressWarnings("unused")
-	@RequestMapping(params = "id")
-	private String connect(@RequestParam("id") final String providerId,
-			final HttpServletRequest request) throws Exception {
-		LOG.debug("Getting Authentication URL for :" + providerId);
-		String callbackURL = baseCallbackUrl + request.getServletPath();
-		String url = socialAuthManager.getAuthenticationUrl(providerId,
-				callbackURL);
-		if (callbackURL.equals(url)) {
-			url = successPageURL;
-			socialAuthManager.connect(new HashMap<String, String>());
-		}
-		socialAuthTemplate.setSocialAuthManager(socialAuthManager);
-		return "redirect:" + url;
+		super(applicationUrl, successPageURL, accessDeniedPageURL);
 	}
 
 	@SuppressWarnings("unused")
 	@RequestMapping(params = "oauth_token")
 	private String oauthCallback(final HttpServletRequest request) {
 		callback(request);
-		return "redirect:/" + successPageURL;
+		return getSuccessView();
 	}
 
 	@SuppressWarnings("unused")
 	@RequestMapping(params = "code")
 	private String oauth2Callback(final HttpServletRequest request) {
 		callback(request);
-		return "redirect:/" + successPageURL;
+		return getSuccessView();
 	}
 
 	@SuppressWarnings("unused")
 	@RequestMapping(params = "wrap_verification_code")
 	private String hotmailCallback(final HttpServletRequest request) {
 		callback(request);
-		return "redirect:/" + successPageURL;
+		return getSuccessView();
 	}
 
 	@SuppressWarnings("unused")
 	@RequestMapping(params = "openid.claimed_id")
 	private String openidCallback(final HttpServletRequest request) {
 		callback(request);
-		return "redirect:/" + successPageURL;
+		return getSuccessView();
 	}
 
 	private void callback(final HttpServletRequest request) {
-		SocialAuthManager m = socialAuthTemplate.getSocialAuthManager();
+		SocialAuthManager m = getTemplateSocialAuthManager();
 		if (m != null) {
 			try {
 				AuthProvider provider = m.connect(SocialAuthUtil
@@ -152,56 +113,4 @@ public class SocialAuthWebController {
 			LOG.debug("Unable to connect provider because SocialAuthManager object is null.");
 		}
 	}
-
-	@SuppressWarnings("unused")
-	@RequestMapping(params = { "error", "error_reason" })
-	private String fbCancel(@RequestParam("error_reason") final String error) {
-		LOG.debug("Facebook send an error : " + error);
-		if ("user_denied".equals(error)) {
-			return "redirect:/" + accessDeniedPageURL;
-		}
-		return "redirect:/";
-	}
-
-	@SuppressWarnings("unused")
-	@RequestMapping(params = "openid.mode=cancel")
-	private String googleCancel(@RequestParam("openid.mode") final String error) {
-		LOG.debug("Google send an error : " + error);
-		if ("cancel".equals(error)) {
-			return "redirect:/" + accessDeniedPageURL;
-		}
-		return "redirect:/";
-	}
-
-	@SuppressWarnings("unused")
-	@RequestMapping(params = "wrap_error_reason")
-	private String hotmailCancel(
-			@RequestParam("wrap_error_reason") final String error) {
-		LOG.debug("Hotmail send an error : " + error);
-		if ("user_denied".equals(error)) {
-			return "redirect:/" + accessDeniedPageURL;
-		}
-		return "redirect:/";
-	}
-
-	@SuppressWarnings("unused")
-	@RequestMapping(params = "oauth_problem")
-	private String myspaceCancel(
-			@RequestParam("oauth_problem") final String error) {
-		LOG.debug("MySpace send an error : " + error);
-		if ("user_refused".equals(error)) {
-			return "redirect:/" + accessDeniedPageURL;
-		}
-		return "redirect:/";
-	}
-
-	@SuppressWarnings("unused")
-	@RequestMapping(params = "error")
-	private String gitHubCancel(@RequestParam("error") final String error) {
-		LOG.debug("Provider send an error : " + error);
-		if ("access_denied".equals(error)) {
-			return "redirect:/" + accessDeniedPageURL;
-		}
-		return "redirect:/";
-	}
 }
@@ -0,0 +1,104 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.brickred.socialauth.exception.SocialAuthException;
+
+/**
+ * Base class of {@link ContactCursor} implementations. Providers implement
+ * {@link #fetchPage(int, String, List)} which fetches one page for the given
+ * token and returns the token of the next page.
+ */
+public abstract class AbstractContactCursor implements ContactCursor {
+
+	private final int pageSize;
+	private String continuationToken;
+	private boolean hasNextPage = true;
+
+	/**
+	 * @param pageSize
+	 *            number of contacts to fetch per page
+	 * @param continuationToken
+	 *            token of the page to start from, or null to start from the
+	 *            first page
+	 */
+	public AbstractContactCursor(final int pageSize,
+			final String continuationToken) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive");
+		}
+		this.pageSize = pageSize;
+		this.continuationToken = continuationToken;
+	}
+
+	@Override
+	public boolean hasNextPage() {
+		return hasNextPage;
+	}
+
+	@Override
+	public List<Contact> nextPage() throws Exception {
+		if (!hasNextPage) {
+			throw new SocialAuthException("There are no more contacts to fetch");
+		}
+		List<Contact> page = new ArrayList<Contact>();
+		String token = fetchPage(pageSize, continuationToken, page);
+		continuationToken = token;
+		hasNextPage = token != null;
+		return page;
+	}
+
+	@Override
+	public String getContinuationToken() {
+		return continuationToken;
+	}
+
+	/**
+	 * Returns the number of contacts fetched per page.
+	 * 
+	 * @return the page size
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Fetches a page of contacts.
+	 * 
+	 * @param pageSize
+	 *            number of contacts to fetch
+	 * @param token
+	 *            token of the page to fetch, null for the first page
+	 * @param page
+	 *            list to add the fetched contacts to
+	 * @return token of the next page, or null if this is the last page
+	 * @throws Exception
+	 */
+	protected abstract String fetchPage(int pageSize, String token,
+			List<Contact> page) throws Exception;
+}
@@ -25,9 +25,11 @@ package org.brickred.socialauth;
 
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -49,21 +51,46 @@ public abstract class AbstractProvider implements AuthProvider, Serializable {
 
 	private static final long serialVersionUID = -7827145708317886744L;
 
+	/**
+	 * Plugin constructors and interfaces of each plugin class, shared by all
+	 * the providers so a plugin class is loaded and scanned only once.
+	 */
+	private static final Map<String, PluginMetadata> PLUGINS_METADATA = new ConcurrentHashMap<String, PluginMetadata>();
+
 	private Map<Class<? extends Plugin>, Class<? extends Plugin>> pluginsMap;
 
+	private transient Map<Class<?>, Plugin> pluginInstances;
+	private transient OAuthStrategyBase pluginsStrategy;
+
 	private final Log LOG = LogFactory.getLog(this.getClass());
 
 	public AbstractProvider() throws Exception {
 		pluginsMap = new HashMap<Class<? extends Plugin>, Class<? extends Plugin>>();
 	}
 
+	/**
+	 * Returns the plugin of given type. Plugin is created on first call and
+	 * the same instance is returned afterwards by this provider.
+	 */
 	@Override
-	public <T> T getPlugin(final Class<T> clazz) throws Exception {
-		Class<? extends Plugin> plugin = pluginsMap.get(clazz);
-		Constructor<? extends Plugin> cons = plugin
-				.getConstructor(ProviderSupport.class);
-		ProviderSupport support = new ProviderSupport(getOauthStrategy());
-		Plugin obj = cons.newInstance(support);
+	public synchronized <T> T getPlugin(final Class<T> clazz) throws Exception {
+		OAuthStrategyBase strategy = getOauthStrategy();
+		if (pluginInstances == null || pluginsStrategy != strategy) {
+			pluginInstances = new HashMap<Class<?>, Plugin>();
+			pluginsStrategy = strategy;
+		}
+		Plugin obj = pluginInstances.get(clazz);
+		if (obj == null) {
+			Class<? extends Plugin> plugin = pluginsMap.get(clazz);
+			if (plugin == null) {
+				throw new SocialAuthException(clazz.getName()
+						+ " plugin is not supported by this provider");
+			}
+			ProviderSupport support = new ProviderSupport(strategy);
+			obj = getPluginMetadata(plugin.getName()).constructor
+					.newInstance(support);
+			pluginInstances.put(clazz, obj);
+		}
 		return (T) obj;
 	}
 
@@ -83,21 +110,25 @@ public abstract class AbstractProvider implements AuthProvider, Serializable {
 		if (pluginsList != null && !pluginsList.isEmpty()) {
 			for (String s : pluginsList) {
 				LOG.info("Loading plugin :: " + s);
-				Class<? extends Plugin> clazz = Class.forName(s).asSubclass(
-						Plugin.class);
-				// getting constructor only for checking
-				Constructor<? extends Plugin> cons = clazz
-						.getConstructor(ProviderSupport.class);
-				Class<?> interfaces[] = clazz.getInterfaces();
-				for (Class<?> c : interfaces) {
-					if (Plugin.class.isAssignableFrom(c)) {
-						pluginsMap.put(c.asSubclass(Plugin.class), clazz);
-					}
+				PluginMetadata metadata = getPluginMetadata(s);
+				for (Class<? extends Plugin> c : metadata.interfaces) {
+					pluginsMap.put(c, metadata.pluginClass);
 				}
 			}
 		}
 	}
 
+	private static PluginMetadata getPluginMetadata(final String className)
+			throws Exception {
+		PluginMetadata metadata = PLUGINS_METADATA.get(className);
+		if (metadata == null) {
+			metadata = new PluginMetadata(Class.forName(className).asSubclass(
+					Plugin.class));
+			PLUGINS_METADATA.put(className, metadata);
+		}
+		return metadata;
+	}
+
 	@Override
 	public void refreshToken(AccessGrant accessGrant)
 			throws SocialAuthException {
@@ -139,4 +170,23 @@ public abstract class AbstractProvider implements AuthProvider, Serializable {
 	 * @return OAuthStrategyBase of a provider.
 	 */
 	protected abstract OAuthStrategyBase getOauthStrategy();
+
+	private static class PluginMetadata {
+		private final Class<? extends Plugin> pluginClass;
+		private final Constructor<? extends Plugin> constructor;
+		private final List<Class<? extends Plugin>> interfaces;
+
+		PluginMetadata(final Class<? extends Plugin> pluginClass)
+				throws NoSuchMethodException {
+			this.pluginClass = pluginClass;
+			this.constructor = pluginClass
+					.getConstructor(ProviderSupport.class);
+			this.interfaces = new ArrayList<Class<? extends Plugin>>();
+			for (Class<?> c : pluginClass.getInterfaces()) {
+				if (Plugin.class.isAssignableFrom(c)) {
+					interfaces.add(c.asSubclass(Plugin.class));
+				}
+			}
+		}
+	}
 }
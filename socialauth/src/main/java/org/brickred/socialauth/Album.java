@@ -35,6 +35,22 @@ import java.util.List;
  */
 public class Album implements Serializable {
 
+	/**
+	 * Loads the photos of an album when they are first requested
+	 */
+	public interface PhotosLoader {
+
+		/**
+		 * Fetches the photos of given album from the provider
+		 * 
+		 * @param album
+		 *            the album
+		 * @return list of photos
+		 * @throws Exception
+		 */
+		public List<Photo> loadPhotos(Album album) throws Exception;
+	}
+
 	private static final long serialVersionUID = 4987858003739130638L;
 
 	private String id;
@@ -43,6 +59,7 @@ public class Album implements Serializable {
 	private String coverPhoto;
 	private int photosCount;
 	List<Photo> photos;
+	private transient PhotosLoader photosLoader;
 
 	/**
 	 * Retrieves the album id
@@ -140,11 +157,23 @@ public class Album implements Serializable {
 	}
 
 	/**
-	 * Retrieves the list of albmun photos
+	 * Retrieves the list of albmun photos. If a {@link PhotosLoader} is set,
+	 * photos are fetched from the provider on first call.
 	 * 
 	 * @return
+	 * @throws IllegalStateException
+	 *             if photos could not be loaded
 	 */
-	public List<Photo> getPhotos() {
+	public synchronized List<Photo> getPhotos() {
+		if (photos == null && photosLoader != null) {
+			try {
+				photos = photosLoader.loadPhotos(this);
+			} catch (Exception e) {
+				throw new IllegalStateException(
+						"Failed to load photos of album " + id, e);
+			}
+			photosLoader = null;
+		}
 		return photos;
 	}
 
@@ -153,10 +182,30 @@ public class Album implements Serializable {
 	 * 
 	 * @param photos
 	 */
-	public void setPhotos(final List<Photo> photos) {
+	public synchronized void setPhotos(final List<Photo> photos) {
 		this.photos = photos;
 	}
 
+	/**
+	 * Sets the loader to fetch the photos when {@link #getPhotos()} is first
+	 * called
+	 * 
+	 * @param photosLoader
+	 *            the photos loader
+	 */
+	public synchronized void setPhotosLoader(final PhotosLoader photosLoader) {
+		this.photosLoader = photosLoader;
+	}
+
+	/**
+	 * Checks if the photos are fetched
+	 * 
+	 * @return true if photos are available without calling the provider
+	 */
+	public synchronized boolean isPhotosLoaded() {
+		return photos != null || photosLoader == null;
+	}
+
 	/**
 	 * Retrieves the Album as a string
 	 * 
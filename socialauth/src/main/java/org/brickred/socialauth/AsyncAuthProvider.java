@@ -0,0 +1,265 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+
+package org.brickred.socialauth;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.brickred.socialauth.util.Response;
+
+/**
+ * Asynchronous counterpart of {@link AuthProvider}. Every call which makes a
+ * round trip to the provider is run on an executor and returns a
+ * CompletableFuture, so that the calling thread (e.g. a servlet container
+ * thread) is not parked while the provider answers.
+ * 
+ * Provider calls are still made over HttpURLConnection, so each pending call
+ * occupies a thread of the given executor instead of the caller thread. By
+ * default a shared pool of daemon threads is used, its size can be changed
+ * with the "socialauth.async.threads" system property. Calls waiting for a
+ * thread are queued up to "socialauth.async.queue" (default 256); beyond that
+ * the returned future fails with a RejectedExecutionException.
+ * 
+ */
+public class AsyncAuthProvider {
+
+	private static final int DEFAULT_THREADS = 32;
+	private static final int DEFAULT_QUEUE_SIZE = 256;
+	private static ExecutorService defaultExecutor;
+
+	private final AuthProvider provider;
+	private final Executor executor;
+
+	/**
+	 * Wraps the given provider and runs its calls on the default executor.
+	 * 
+	 * @param provider
+	 *            the provider to wrap
+	 */
+	public AsyncAuthProvider(final AuthProvider provider) {
+		this(provider, null);
+	}
+
+	/**
+	 * Wraps the given provider and runs its calls on the given executor.
+	 * 
+	 * @param provider
+	 *            the provider to wrap
+	 * @param executor
+	 *            executor used to make provider calls. If null, the default
+	 *            executor is used.
+	 */
+	public AsyncAuthProvider(final AuthProvider provider,
+			final Executor executor) {
+		this.provider = provider;
+		this.executor = executor != null ? executor : getDefaultExecutor();
+	}
+
+	/**
+	 * Retrieves the wrapped provider.
+	 * 
+	 * @return the wrapped provider
+	 */
+	public AuthProvider getProvider() {
+		return provider;
+	}
+
+	/**
+	 * Verifies the user asynchronously when the external provider redirects
+	 * back to our application.
+	 * 
+	 * @param requestParams
+	 *            Request parameters received from the provider
+	 * @return future of the user profile
+	 */
+	public CompletableFuture<Profile> verifyResponse(
+			final Map<String, String> requestParams) {
+		return submit(new Callable<Profile>() {
+			@Override
+			public Profile call() throws Exception {
+				return provider.verifyResponse(requestParams);
+			}
+		});
+	}
+
+	/**
+	 * Retrieves the user profile asynchronously.
+	 * 
+	 * @return future of the user profile
+	 */
+	public CompletableFuture<Profile> getUserProfile() {
+		return submit(new Callable<Profile>() {
+			@Override
+			public Profile call() throws Exception {
+				return provider.getUserProfile();
+			}
+		});
+	}
+
+	/**
+	 * Retrieves the contacts of the user asynchronously.
+	 * 
+	 * @return future of the list of contacts
+	 */
+	public CompletableFuture<List<Contact>> getContactList() {
+		return submit(new Callable<List<Contact>>() {
+			@Override
+			public List<Contact> call() throws Exception {
+				return provider.getContactList();
+			}
+		});
+	}
+
+	/**
+	 * Updates the status asynchronously.
+	 * 
+	 * @param msg
+	 *            Message to be shown as user's status
+	 * @return future of the response
+	 */
+	public CompletableFuture<Response> updateStatus(final String msg) {
+		return submit(new Callable<Response>() {
+			@Override
+			public Response call() throws Exception {
+				return provider.updateStatus(msg);
+			}
+		});
+	}
+
+	/**
+	 * Makes a provider specific call asynchronously. See
+	 * {@link AuthProvider#api(String, String, Map, Map, String)}.
+	 * 
+	 * @param url
+	 *            URL to make HTTP request.
+	 * @param methodType
+	 *            Method type can be GET, POST or PUT
+	 * @param params
+	 *            Any additional parameters whose signature need to compute.
+	 * @param headerParams
+	 *            Any additional parameters need to pass as Header Parameters
+	 * @param body
+	 *            Request Body
+	 * @return future of the response
+	 */
+	public CompletableFuture<Response> api(final String url,
+			final String methodType, final Map<String, String> params,
+			final Map<String, String> headerParams, final String body) {
+		return submit(new Callable<Response>() {
+			@Override
+			public Response call() throws Exception {
+				return provider.api(url, methodType, params, headerParams,
+						body);
+			}
+		});
+	}
+
+	/**
+	 * Uploads the image and message asynchronously.
+	 * 
+	 * @param message
+	 *            Status Message
+	 * @param fileName
+	 *            Image file name
+	 * @param inputStream
+	 *            Input Stream of image
+	 * @return future of the response
+	 */
+	public CompletableFuture<Response> uploadImage(final String message,
+			final String fileName, final InputStream inputStream) {
+		return submit(new Callable<Response>() {
+			@Override
+			public Response call() throws Exception {
+				return provider.uploadImage(message, fileName, inputStream);
+			}
+		});
+	}
+
+	private <T> CompletableFuture<T> submit(final Callable<T> task) {
+		return submit(task, executor);
+	}
+
+	static <T> CompletableFuture<T> submit(final Callable<T> task,
+			final Executor executor) {
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						future.complete(task.call());
+					} catch (Throwable t) {
+						future.completeExceptionally(t);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Returns the shared executor used when no executor is given.
+	 * 
+	 * @return the default executor
+	 */
+	public static synchronized ExecutorService getDefaultExecutor() {
+		if (defaultExecutor == null) {
+			int threads = Integer.getInteger("socialauth.async.threads",
+					DEFAULT_THREADS);
+			int queueSize = Integer.getInteger("socialauth.async.queue",
+					DEFAULT_QUEUE_SIZE);
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+					60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+							queueSize), new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(final Runnable r) {
+							Thread t = new Thread(r, "socialauth-async-"
+									+ count.incrementAndGet());
+							t.setDaemon(true);
+							return t;
+						}
+					}, new ThreadPoolExecutor.AbortPolicy());
+			pool.allowCoreThreadTimeOut(true);
+			defaultExecutor = pool;
+		}
+		return defaultExecutor;
+	}
+}
@@ -105,6 +105,43 @@ public interface AuthProvider {
 	 */
 	public List<Contact> getContactList() throws Exception;
 
+	/**
+	 * Gets the contacts of the user page by page. Pages are fetched from the
+	 * provider only when requested from the cursor. Providers which do not
+	 * support paging fetch the whole list on first page and return it in
+	 * pages, which is what the default implementation does through
+	 * {@link #getContactList()}.
+	 * 
+	 * @param pageSize
+	 *            number of contacts per page. Provider may return less if it
+	 *            has a lower limit.
+	 * @param continuationToken
+	 *            token returned by {@link ContactCursor#getContinuationToken()}
+	 *            to resume from, or null to start from the first page
+	 * @return the contact cursor
+	 * @throws Exception
+	 */
+	public default ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		return new AbstractContactCursor(pageSize, continuationToken) {
+			private List<Contact> contacts;
+
+			@Override
+			protected String fetchPage(final int pageSize, final String token,
+					final List<Contact> page) throws Exception {
+				if (contacts == null) {
+					contacts = getContactList();
+				}
+				int offset = token == null ? 0 : Integer.parseInt(token);
+				int end = Math.min(offset + pageSize, contacts.size());
+				if (offset < end) {
+					page.addAll(contacts.subList(offset, end));
+				}
+				return end < contacts.size() ? String.valueOf(end) : null;
+			}
+		};
+	}
+
 	/**
 	 * Retrieves the user profile.
 	 * 
@@ -220,6 +257,16 @@ public interface AuthProvider {
 	 */
 	public void registerPlugins() throws Exception;
 
+	/**
+	 * Tells whether provider can refresh its access token through
+	 * {@link #refreshToken(AccessGrant)}. Default is false.
+	 * 
+	 * @return true if refresh is supported
+	 */
+	public default boolean isRefreshSupported() {
+		return false;
+	}
+
 	/**
 	 * Makes a call for a provider to get RefreshToken and returns object of
 	 * that provider
@@ -28,16 +28,15 @@ package org.brickred.socialauth;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Constructor;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.brickred.socialauth.exception.SocialAuthConfigurationException;
 import org.brickred.socialauth.exception.SocialAuthException;
 import org.brickred.socialauth.util.OAuthConfig;
 
@@ -55,31 +54,12 @@ import org.brickred.socialauth.util.OAuthConfig;
 public class AuthProviderFactory {
 
 	private static String propFileName = "oauth_consumer.properties";
-	private static Map<String, Class> providerMap;
+	private static final Map<String, Class<?>> registeredProviders = new ConcurrentHashMap<String, Class<?>>();
 	private static Map<String, String> domainMap;
-	private static final Log LOG = LogFactory.getLog(AuthProviderFactory.class);
+	private static final Map<ClassLoader, Map<String, Properties>> PROPERTIES_CACHE = Collections
+			.synchronizedMap(new WeakHashMap<ClassLoader, Map<String, Properties>>());
 
 	static {
-		providerMap = new HashMap<String, Class>();
-		providerMap.put("facebook",
-				org.brickred.socialauth.provider.FacebookImpl.class);
-		providerMap.put("foursquare",
-				org.brickred.socialauth.provider.FourSquareImpl.class);
-		providerMap.put("google",
-				org.brickred.socialauth.provider.GoogleImpl.class);
-		providerMap.put("hotmail",
-				org.brickred.socialauth.provider.HotmailImpl.class);
-		providerMap.put("linkedin",
-				org.brickred.socialauth.provider.LinkedInImpl.class);
-		providerMap.put("myspace",
-				org.brickred.socialauth.provider.MySpaceImpl.class);
-		providerMap.put("openid",
-				org.brickred.socialauth.provider.OpenIdImpl.class);
-		providerMap.put("twitter",
-				org.brickred.socialauth.provider.TwitterImpl.class);
-		providerMap.put("yahoo",
-				org.brickred.socialauth.provider.YahooImpl.class);
-
 		domainMap = new HashMap<String, String>();
 		domainMap.put("google", "www.google.com");
 		domainMap.put("yahoo", "api.login.yahoo.com");
@@ -179,62 +159,85 @@ public class AuthProviderFactory {
 	 */
 	public static AuthProvider getInstance(final String id,
 			final Properties properties) throws Exception {
-		for (Object key : properties.keySet()) {
-			String str = key.toString();
-			if (str.startsWith("socialauth.")) {
-				String val = str.substring("socialauth.".length());
-				registerProvider(val,
-						Class.forName(properties.get(str).toString()));
-			}
-		}
+		registerProviders(properties);
 		return loadProvider(id, properties);
 	}
 
 	private static AuthProvider getProvider(final String id,
 			final String fileName, final ClassLoader classLoader)
 			throws Exception {
-		Properties props = new Properties();
-		AuthProvider provider;
 		ClassLoader loader = null;
 		if (classLoader != null) {
 			loader = classLoader;
 		} else {
 			loader = AuthProviderFactory.class.getClassLoader();
 		}
-		try {
-			InputStream in = loader.getResourceAsStream(fileName);
-			props.load(in);
-			for (Object key : props.keySet()) {
-				String str = key.toString();
-				if (str.startsWith("socialauth.")) {
-					String val = str.substring("socialauth.".length());
-					registerProvider(val,
-							Class.forName(props.get(str).toString()));
-				}
+		return loadProvider(id, getProperties(fileName, loader));
+	}
+
+	/**
+	 * Returns the properties of given file. File is read and its providers are
+	 * registered only on first call for a class loader, afterwards the parsed
+	 * properties are returned from cache.
+	 */
+	private static Properties getProperties(final String fileName,
+			final ClassLoader loader) throws Exception {
+		Map<String, Properties> files;
+		synchronized (PROPERTIES_CACHE) {
+			files = PROPERTIES_CACHE.get(loader);
+			if (files == null) {
+				files = new ConcurrentHashMap<String, Properties>();
+				PROPERTIES_CACHE.put(loader, files);
 			}
-		} catch (NullPointerException ne) {
+		}
+		Properties props = files.get(fileName);
+		if (props != null) {
+			return props;
+		}
+		props = new Properties();
+		InputStream in = loader.getResourceAsStream(fileName);
+		if (in == null) {
 			throw new FileNotFoundException(fileName
 					+ " file is not found in your class path");
+		}
+		try {
+			props.load(in);
 		} catch (IOException ie) {
 			throw new IOException("Could not load configuration from "
 					+ fileName);
+		} finally {
+			in.close();
 		}
+		registerProviders(props);
+		files.put(fileName, props);
+		return props;
+	}
 
-		provider = loadProvider(id, props);
-		return provider;
+	private static void registerProviders(final Properties props)
+			throws ClassNotFoundException {
+		for (Object key : props.keySet()) {
+			String str = key.toString();
+			if (str.startsWith("socialauth.")) {
+				String val = str.substring("socialauth.".length());
+				String className = props.get(str).toString();
+				Class<?> registered = getProviderClass(val);
+				if (registered == null
+						|| !registered.getName().equals(className)) {
+					registerProvider(val, Class.forName(className));
+				}
+			}
+		}
 	}
 
 	private static AuthProvider loadProvider(final String id,
 			final Properties props) throws Exception {
-		Class<?> obj = providerMap.get(id);
-		props.setProperty("id", id);
-		AuthProvider provider;
+		Class<?> obj = getProviderClass(id);
 		OAuthConfig conf;
 
 		if (obj == null) {
 			try {
 				new URL(id); // just validating, don't need the value
-				obj = providerMap.get("openid");
+				obj = getProviderClass("openid");
 				conf = new OAuthConfig(null, null);
 				conf.setId(id);
 			} catch (MalformedURLException me) {
@@ -263,17 +266,7 @@ public class AuthProviderFactory {
 			conf.setId(id);
 		}
 
-		try {
-			Constructor<?> cons = obj.getConstructor(OAuthConfig.class);
-			provider = (AuthProvider) cons.newInstance(conf);
-		} catch (NoSuchMethodException me) {
-			LOG.warn(obj.getName() + " does not implement a constructor "
-					+ obj.getName() + "(OAuthConfig providerConfig)");
-			provider = (AuthProvider) obj.newInstance();
-		} catch (Exception e) {
-			throw new SocialAuthConfigurationException(e);
-		}
-		return provider;
+		return ProviderRegistry.newInstance(obj, conf);
 	}
 
 	/**
@@ -285,6 +278,18 @@ public class AuthProviderFactory {
 	 *            class name of the provider implementation.
 	 */
 	public static void registerProvider(final String pname, final Class clazz) {
-		providerMap.put(pname, clazz);
+		registeredProviders.put(pname, clazz);
+	}
+
+	/**
+	 * Returns the registered class of given provider, falling back to the
+	 * providers shipped with socialauth.
+	 */
+	private static Class<?> getProviderClass(final String id) {
+		Class<?> clazz = registeredProviders.get(id);
+		if (clazz == null) {
+			clazz = ProviderRegistry.getDefaultProviders().get(id);
+		}
+		return clazz;
 	}
 }
@@ -0,0 +1,64 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth;
+
+import java.util.List;
+
+/**
+ * Iterates the contacts of a user page by page. A cursor is obtained from
+ * {@link AuthProvider#getContactCursor(int, String)} and fetches a page from
+ * the provider only when {@link #nextPage()} is called, so the caller can stop
+ * importing at any point without fetching all the contacts.
+ * 
+ * The continuation token can be stored and given later to
+ * {@link AuthProvider#getContactCursor(int, String)} to resume from the next
+ * page.
+ */
+public interface ContactCursor {
+
+	/**
+	 * Checks if there are more contacts to fetch.
+	 * 
+	 * @return true if {@link #nextPage()} can be called
+	 */
+	public boolean hasNextPage();
+
+	/**
+	 * Fetches the next page of contacts from the provider. A page may contain
+	 * less contacts than the page size, or none at all, while there are still
+	 * more pages.
+	 * 
+	 * @return list of contacts of next page
+	 * @throws Exception
+	 */
+	public List<Contact> nextPage() throws Exception;
+
+	/**
+	 * Returns the token to resume from the next page.
+	 * 
+	 * @return the continuation token, or null if there are no more pages
+	 */
+	public String getContinuationToken();
+}
@@ -0,0 +1,187 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth;
+
+import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.exception.SocialAuthConfigurationException;
+import org.brickred.socialauth.provider.AmazonImpl;
+import org.brickred.socialauth.provider.FacebookImpl;
+import org.brickred.socialauth.provider.FlickerImpl;
+import org.brickred.socialauth.provider.FourSquareImpl;
+import org.brickred.socialauth.provider.GitHubImpl;
+import org.brickred.socialauth.provider.GoogleImpl;
+import org.brickred.socialauth.provider.GooglePlusImpl;
+import org.brickred.socialauth.provider.HotmailImpl;
+import org.brickred.socialauth.provider.InstagramImpl;
+import org.brickred.socialauth.provider.LinkedInImpl;
+import org.brickred.socialauth.provider.LinkedInOAuth2Impl;
+import org.brickred.socialauth.provider.MendeleyImpl;
+import org.brickred.socialauth.provider.MySpaceImpl;
+import org.brickred.socialauth.provider.NimbleImpl;
+import org.brickred.socialauth.provider.OpenIdImpl;
+import org.brickred.socialauth.provider.RunkeeperImpl;
+import org.brickred.socialauth.provider.SalesForceImpl;
+import org.brickred.socialauth.provider.StackExchangeImpl;
+import org.brickred.socialauth.provider.TwitterImpl;
+import org.brickred.socialauth.provider.YahooImpl;
+import org.brickred.socialauth.provider.YammerImpl;
+import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.OAuthConfig;
+
+/**
+ * Registry of the provider implementations shipped with socialauth. It also
+ * creates provider instances. Shipped providers are created through
+ * constructor references; for other classes the constructor is looked up by
+ * reflection only once.
+ */
+public final class ProviderRegistry {
+
+	/**
+	 * Creates a provider from its configuration
+	 */
+	public interface ProviderFactory {
+
+		/**
+		 * @param config
+		 *            configuration of provider
+		 * @return the provider
+		 * @throws Exception
+		 */
+		public AuthProvider create(OAuthConfig config) throws Exception;
+	}
+
+	private static final Log LOG = LogFactory.getLog(ProviderRegistry.class);
+	private static final Map<String, Class<?>> DEFAULT_PROVIDERS;
+	private static final Map<Class<?>, ProviderFactory> FACTORIES = new ConcurrentHashMap<>();
+
+	static {
+		Map<String, Class<?>> map = new HashMap<>();
+		register(map, Constants.FACEBOOK, FacebookImpl.class, FacebookImpl::new);
+		register(map, Constants.FOURSQUARE, FourSquareImpl.class,
+				FourSquareImpl::new);
+		register(map, Constants.GOOGLE, GoogleImpl.class, GoogleImpl::new);
+		register(map, Constants.HOTMAIL, HotmailImpl.class, HotmailImpl::new);
+		register(map, Constants.LINKEDIN, LinkedInImpl.class, LinkedInImpl::new);
+		register(map, Constants.MYSPACE, MySpaceImpl.class, MySpaceImpl::new);
+		register(map, Constants.OPENID, OpenIdImpl.class, OpenIdImpl::new);
+		register(map, Constants.TWITTER, TwitterImpl.class, TwitterImpl::new);
+		register(map, Constants.YAHOO, YahooImpl.class, YahooImpl::new);
+		register(map, Constants.SALESFORCE, SalesForceImpl.class,
+				SalesForceImpl::new);
+		register(map, Constants.YAMMER, YammerImpl.class, YammerImpl::new);
+		register(map, Constants.MENDELEY, MendeleyImpl.class, MendeleyImpl::new);
+		register(map, Constants.RUNKEEPER, RunkeeperImpl.class,
+				RunkeeperImpl::new);
+		register(map, Constants.GOOGLE_PLUS, GooglePlusImpl.class,
+				GooglePlusImpl::new);
+		register(map, Constants.INSTAGRAM, InstagramImpl.class,
+				InstagramImpl::new);
+		register(map, Constants.GITHUB, GitHubImpl.class, GitHubImpl::new);
+		register(map, Constants.FLICKR, FlickerImpl.class, FlickerImpl::new);
+		register(map, Constants.NIMBLE, NimbleImpl.class, NimbleImpl::new);
+		register(map, Constants.LINKEDINOAUTH2, LinkedInOAuth2Impl.class,
+				LinkedInOAuth2Impl::new);
+		register(map, Constants.AMAZON, AmazonImpl.class, AmazonImpl::new);
+		register(map, Constants.STACK_EXCHANGE, StackExchangeImpl.class,
+				StackExchangeImpl::new);
+		DEFAULT_PROVIDERS = Collections.unmodifiableMap(map);
+	}
+
+	private ProviderRegistry() {
+	}
+
+	private static void register(final Map<String, Class<?>> map,
+			final String id, final Class<?> clazz,
+			final ProviderFactory factory) {
+		map.put(id, clazz);
+		FACTORIES.put(clazz, factory);
+	}
+
+	/**
+	 * Returns the provider implementations shipped with socialauth
+	 * 
+	 * @return unmodifiable map of provider id and implementation class
+	 */
+	public static Map<String, Class<?>> getDefaultProviders() {
+		return DEFAULT_PROVIDERS;
+	}
+
+	/**
+	 * Creates an instance of given provider implementation. For classes not
+	 * shipped with socialauth, the constructor taking OAuthConfig is used if
+	 * the class has one, otherwise the default constructor.
+	 * 
+	 * @param clazz
+	 *            provider implementation class
+	 * @param config
+	 *            configuration of provider
+	 * @return the provider
+	 * @throws SocialAuthConfigurationException
+	 *             if provider could not be created
+	 */
+	public static AuthProvider newInstance(final Class<?> clazz,
+			final OAuthConfig config) throws SocialAuthConfigurationException {
+		ProviderFactory factory = getFactory(clazz);
+		try {
+			return factory.create(config);
+		} catch (Exception e) {
+			throw new SocialAuthConfigurationException(e);
+		}
+	}
+
+	private static ProviderFactory getFactory(final Class<?> clazz)
+			throws SocialAuthConfigurationException {
+		ProviderFactory factory = FACTORIES.get(clazz);
+		if (factory != null) {
+			return factory;
+		}
+		if (!AuthProvider.class.isAssignableFrom(clazz)) {
+			throw new SocialAuthConfigurationException(clazz.getName()
+					+ " does not implement " + AuthProvider.class.getName());
+		}
+		try {
+			Constructor<?> cons = clazz.getConstructor(OAuthConfig.class);
+			factory = config -> (AuthProvider) cons.newInstance(config);
+		} catch (NoSuchMethodException me) {
+			LOG.warn(clazz.getName() + " does not implement a constructor "
+					+ clazz.getName() + "(OAuthConfig providerConfig)");
+			try {
+				Constructor<?> cons = clazz.getConstructor();
+				factory = config -> (AuthProvider) cons.newInstance();
+			} catch (NoSuchMethodException e) {
+				throw new SocialAuthConfigurationException(e);
+			}
+		}
+		FACTORIES.putIfAbsent(clazz, factory);
+		return factory;
+	}
+}
@@ -0,0 +1,521 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.exception.AccessTokenExpireException;
+import org.brickred.socialauth.exception.SocialAuthConfigurationException;
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.exception.SocialAuthManagerStateException;
+import org.brickred.socialauth.store.TokenStore;
+import org.brickred.socialauth.util.AccessGrant;
+import org.brickred.socialauth.util.OAuthConfig;
+
+/**
+ * Thread safe variant of {@link SocialAuthManager} which can be shared by all
+ * the users of an application. Per user state is kept in a
+ * {@link SocialAuthHandle}, which the application stores in the user session
+ * and passes to every call.
+ * 
+ * Connected providers are kept in a bounded cache keyed by access grant, so
+ * the provider of a user is not rebuilt on every request. If a provider has
+ * been evicted, it is created again from the access grant of the handle.
+ * Providers without an access grant (e.g. OpenID) are never shared; they are
+ * kept by the handle of their user.
+ * 
+ * <pre>
+ * SharedSocialAuthManager manager = new SharedSocialAuthManager(config);
+ * SocialAuthHandle handle = new SocialAuthHandle();
+ * session.setAttribute(&quot;socialAuthHandle&quot;, handle);
+ * String url = manager.getAuthenticationUrl(handle, &quot;facebook&quot;, successUrl);
+ * ...
+ * AuthProvider provider = manager.connect(handle, paramsMap);
+ * </pre>
+ */
+public class SharedSocialAuthManager {
+
+	/**
+	 * Default number of connected providers kept in cache
+	 */
+	public static final int DEFAULT_MAX_CACHED_PROVIDERS = 1000;
+
+	private static final Log LOG = LogFactory
+			.getLog(SharedSocialAuthManager.class);
+
+	private final SocialAuthConfig socialAuthConfig;
+	private final Map<String, Permission> permissionsMap;
+	private final Map<String, AuthProvider> providersCache;
+	private volatile TokenStore tokenStore;
+
+	/**
+	 * @param socialAuthConfig
+	 *            the SocialAuthConfig object which contains the configuration
+	 *            for providers
+	 * @throws SocialAuthConfigurationException
+	 *             if configuration is not loaded
+	 */
+	public SharedSocialAuthManager(final SocialAuthConfig socialAuthConfig)
+			throws SocialAuthConfigurationException {
+		this(socialAuthConfig, DEFAULT_MAX_CACHED_PROVIDERS);
+	}
+
+	/**
+	 * @param socialAuthConfig
+	 *            the SocialAuthConfig object which contains the configuration
+	 *            for providers
+	 * @param maxCachedProviders
+	 *            maximum number of connected providers kept in cache
+	 * @throws SocialAuthConfigurationException
+	 *             if configuration is not loaded
+	 */
+	public SharedSocialAuthManager(final SocialAuthConfig socialAuthConfig,
+			final int maxCachedProviders)
+			throws SocialAuthConfigurationException {
+		if (socialAuthConfig == null) {
+			throw new SocialAuthConfigurationException(
+					"SocialAuthConfig is null");
+		}
+		if (!socialAuthConfig.isConfigSetup()) {
+			throw new SocialAuthConfigurationException(
+					"Configuration is not provided. Call load() method of SocialAuthConfig class to set up configuration");
+		}
+		this.socialAuthConfig = socialAuthConfig;
+		this.permissionsMap = new ConcurrentHashMap<String, Permission>();
+		this.providersCache = new LinkedHashMap<String, AuthProvider>(16,
+				0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, AuthProvider> eldest) {
+				return size() > maxCachedProviders;
+			}
+		};
+	}
+
+	/**
+	 * Retrieves the socialauth config
+	 * 
+	 * @return the socialauth config
+	 */
+	public SocialAuthConfig getSocialAuthConfig() {
+		return socialAuthConfig;
+	}
+
+	/**
+	 * Provides the URL which will be used for authentication with the provider
+	 * 
+	 * @param handle
+	 *            the state of user
+	 * @param id
+	 *            the provider id
+	 * @param successUrl
+	 *            success page URL on which provider will redirect after
+	 *            authentication
+	 * @return the URL string which will be used for authentication with
+	 *         provider
+	 * @throws Exception
+	 */
+	public String getAuthenticationUrl(final SocialAuthHandle handle,
+			final String id, final String successUrl) throws Exception {
+		return getAuthenticationUrl(handle, id, successUrl, null);
+	}
+
+	/**
+	 * Provides the URL which will be used for authentication with the provider
+	 * 
+	 * @param handle
+	 *            the state of user
+	 * @param id
+	 *            the provider id
+	 * @param successUrl
+	 *            success page URL on which provider will redirect after
+	 *            authentication
+	 * @param permission
+	 *            Permission object which can be Permission.AUHTHENTICATE_ONLY,
+	 *            Permission.ALL, Permission.DEFAULT
+	 * @return the URL string which will be used for authentication with
+	 *         provider. If provider is already connected, success URL is
+	 *         returned.
+	 * @throws Exception
+	 */
+	public String getAuthenticationUrl(final SocialAuthHandle handle,
+			final String id, final String successUrl,
+			final Permission permission) throws Exception {
+		LOG.debug("Getting Authentication URL for provider " + id
+				+ ", with success url : " + successUrl);
+		if (handle.isConnected(id)) {
+			handle.startLogin(id, null);
+			return successUrl;
+		}
+		AuthProvider provider = getProviderInstance(id);
+		if (permissionsMap.get(id) != null) {
+			provider.setPermission(permissionsMap.get(id));
+		}
+		if (permission != null) {
+			provider.setPermission(permission);
+		}
+		String url = provider.getLoginRedirectURL(successUrl);
+		handle.startLogin(id, provider);
+		return url;
+	}
+
+	/**
+	 * Verifies the user when the external provider redirects back to our
+	 * application.
+	 * 
+	 * @param handle
+	 *            the state of user on which authentication URL was requested
+	 * @param requestParams
+	 *            the request parameters
+	 * @return object of the connected provider
+	 * @throws Exception
+	 */
+	public AuthProvider connect(final SocialAuthHandle handle,
+			final Map<String, String> requestParams) throws Exception {
+		String id;
+		AuthProvider provider;
+		synchronized (handle) {
+			id = handle.getPendingProviderId();
+			provider = handle.finishLogin();
+		}
+		if (id == null) {
+			throw new SocialAuthManagerStateException();
+		}
+		LOG.info("Connecting provider : " + id);
+		if (provider == null) {
+			provider = getProvider(handle, id);
+			if (provider == null) {
+				throw new SocialAuthManagerStateException();
+			}
+			handle.connected(id, handle.getAccessGrant(id));
+			return provider;
+		}
+		provider.verifyResponse(requestParams);
+		connected(handle, id, provider);
+		persist(handle, id, provider);
+		return provider;
+	}
+
+	/**
+	 * Creates the provider with given access grant. The grant is saved in
+	 * token store if a store and the user id of handle are set.
+	 * 
+	 * @param handle
+	 *            the state of user
+	 * @param accessGrant
+	 *            the access grant object
+	 * @return the AuthProvider
+	 * @throws Exception
+	 */
+	public AuthProvider connect(final SocialAuthHandle handle,
+			final AccessGrant accessGrant)
+			throws SocialAuthConfigurationException,
+			AccessTokenExpireException, SocialAuthException {
+		AuthProvider provider = connectWith(handle, accessGrant);
+		persist(handle, accessGrant.getProviderId(), provider);
+		return provider;
+	}
+
+	/**
+	 * Connects the provider of given user with the access grant saved in token
+	 * store, without authentication. Given user id becomes the user id of
+	 * handle.
+	 * 
+	 * @param handle
+	 *            the state of user
+	 * @param userId
+	 *            the user id with which grant was saved
+	 * @param providerId
+	 *            the provider id
+	 * @return the AuthProvider
+	 * @throws SocialAuthException
+	 *             if token store is not set or it has no grant for given user
+	 *             and provider
+	 */
+	public AuthProvider connect(final SocialAuthHandle handle,
+			final String userId, final String providerId)
+			throws SocialAuthConfigurationException,
+			AccessTokenExpireException, SocialAuthException {
+		TokenStore store = tokenStore;
+		if (store == null) {
+			throw new SocialAuthException("Token store is not set");
+		}
+		AccessGrant accessGrant = store.load(userId, providerId);
+		if (accessGrant == null) {
+			throw new SocialAuthException("No access grant of " + providerId
+					+ " is saved for user " + userId);
+		}
+		handle.setUserId(userId);
+		return connectWith(handle, accessGrant);
+	}
+
+	private AuthProvider connectWith(final SocialAuthHandle handle,
+			final AccessGrant accessGrant)
+			throws SocialAuthConfigurationException,
+			AccessTokenExpireException, SocialAuthException {
+		if (accessGrant.getProviderId() == null || accessGrant.getKey() == null) {
+			throw new SocialAuthException("access grant is not valid");
+		}
+		LOG.debug("Connecting provider : " + accessGrant.getProviderId()
+				+ ", from given access grant");
+		AuthProvider provider = getProviderInstance(accessGrant.getProviderId());
+		provider.setAccessGrant(accessGrant);
+		connected(handle, accessGrant.getProviderId(), provider);
+		return provider;
+	}
+
+	/**
+	 * Makes a call for a provider to get RefreshToken and returns object of
+	 * that provider. The refreshed grant is saved in token store if a store
+	 * and the user id of handle are set.
+	 * 
+	 * @param handle
+	 *            the state of user
+	 * @param accessGrant
+	 *            AccessGrant object which contains access token
+	 * @return the provider object
+	 * @throws SocialAuthConfigurationException
+	 * @throws SocialAuthException
+	 */
+	public AuthProvider refreshToken(final SocialAuthHandle handle,
+			final AccessGrant accessGrant)
+			throws SocialAuthConfigurationException, SocialAuthException {
+		if (accessGrant.getProviderId() == null || accessGrant.getKey() == null) {
+			throw new SocialAuthException("access grant is not valid");
+		}
+		String id = accessGrant.getProviderId();
+		AuthProvider provider = getProviderInstance(id);
+		provider.refreshToken(accessGrant);
+		evict(id, handle.getAccessGrant(id));
+		connected(handle, id, provider);
+		persist(handle, id, provider);
+		return provider;
+	}
+
+	/**
+	 * Retrieves the connected provider of given user. If the provider is not
+	 * in cache, it is created from the access grant kept by the handle.
+	 * 
+	 * @param handle
+	 *            the state of user
+	 * @param providerId
+	 *            the provider id
+	 * @return the provider or null if it is not connected
+	 * @throws SocialAuthConfigurationException
+	 * @throws AccessTokenExpireException
+	 * @throws SocialAuthException
+	 *             if provider could not be created from access grant
+	 */
+	public AuthProvider getProvider(final SocialAuthHandle handle,
+			final String providerId) throws SocialAuthConfigurationException,
+			AccessTokenExpireException, SocialAuthException {
+		AccessGrant grant = handle.getAccessGrant(providerId);
+		if (grant == null) {
+			return null;
+		}
+		if (grant.getKey() == null) {
+			AuthProvider provider = handle.getUngrantedProvider(providerId);
+			if (provider == null) {
+				// lost with the session, can not be rebuilt without a grant
+				LOG.debug("Provider " + providerId
+						+ " has no access grant and has to be connected again");
+				handle.disconnected(providerId);
+			}
+			return provider;
+		}
+		String key = getCacheKey(providerId, grant);
+		AuthProvider provider;
+		synchronized (providersCache) {
+			provider = providersCache.get(key);
+		}
+		if (provider == null) {
+			provider = getProviderInstance(providerId);
+			provider.setAccessGrant(grant);
+			synchronized (providersCache) {
+				AuthProvider existing = providersCache.get(key);
+				if (existing != null) {
+					return existing;
+				}
+				providersCache.put(key, provider);
+			}
+		}
+		return provider;
+	}
+
+	/**
+	 * Retrieves the provider which is last connected by given user.
+	 * 
+	 * @param handle
+	 *            the state of user
+	 * @return AuthProvider object or null if no provider is connected
+	 * @throws SocialAuthConfigurationException
+	 * @throws AccessTokenExpireException
+	 * @throws SocialAuthException
+	 *             if provider could not be created from access grant
+	 */
+	public AuthProvider getCurrentAuthProvider(final SocialAuthHandle handle)
+			throws SocialAuthConfigurationException,
+			AccessTokenExpireException, SocialAuthException {
+		String id = handle.getCurrentProviderId();
+		if (id == null) {
+			return null;
+		}
+		return getProvider(handle, id);
+	}
+
+	/**
+	 * It disconnects given user with provider
+	 * 
+	 * @param handle
+	 *            the state of user
+	 * @param id
+	 *            the provider id
+	 * @return True if provider is disconnected or false if not.
+	 */
+	public boolean disconnectProvider(final SocialAuthHandle handle,
+			final String id) {
+		AuthProvider ungranted = handle.removeUngrantedProvider(id);
+		AccessGrant grant = handle.disconnected(id);
+		if (grant == null) {
+			return false;
+		}
+		AuthProvider provider = ungranted != null ? ungranted : evict(id,
+				grant);
+		if (provider != null) {
+			provider.logout();
+		}
+		return true;
+	}
+
+	/**
+	 * Retrieves the token store in which access grants are saved
+	 * 
+	 * @return the token store or null if it is not set
+	 */
+	public TokenStore getTokenStore() {
+		return tokenStore;
+	}
+
+	/**
+	 * Sets the token store in which access grants are saved. Grants are saved
+	 * with the user id of the handle, so handles without a user id are not
+	 * saved.
+	 * 
+	 * @param tokenStore
+	 *            the token store
+	 */
+	public void setTokenStore(final TokenStore tokenStore) {
+		this.tokenStore = tokenStore;
+	}
+
+	/**
+	 * Sets the permission for given provider.
+	 * 
+	 * @param providerId
+	 *            the provider id for which permission need to be set
+	 * @param permission
+	 *            Permission object which can be Permission.AUHTHENTICATE_ONLY,
+	 *            Permission.ALL, Permission.DEFAULT
+	 */
+	public void setPermission(final String providerId,
+			final Permission permission) {
+		permissionsMap.put(providerId, permission);
+	}
+
+	private void connected(final SocialAuthHandle handle, final String id,
+			final AuthProvider provider) {
+		AccessGrant grant = provider.getAccessGrant();
+		if (grant == null) {
+			grant = new AccessGrant();
+			grant.setProviderId(id);
+		}
+		if (grant.getKey() == null) {
+			handle.connected(id, grant, provider);
+			return;
+		}
+		handle.removeUngrantedProvider(id);
+		handle.connected(id, grant);
+		synchronized (providersCache) {
+			providersCache.put(getCacheKey(id, grant), provider);
+		}
+	}
+
+	/**
+	 * Saves the grant of given provider in token store if a store and the
+	 * user id of handle are set. A failure to save is logged and the provider
+	 * stays connected.
+	 */
+	private void persist(final SocialAuthHandle handle, final String id,
+			final AuthProvider provider) {
+		TokenStore store = tokenStore;
+		String userId = handle.getUserId();
+		AccessGrant grant = provider.getAccessGrant();
+		if (store == null || userId == null || grant == null
+				|| grant.getKey() == null) {
+			return;
+		}
+		if (grant.getProviderId() == null) {
+			grant.setProviderId(id);
+		}
+		try {
+			store.save(userId, grant);
+		} catch (SocialAuthException e) {
+			LOG.warn("Could not save access grant of " + id + " for user "
+					+ userId, e);
+		}
+	}
+
+	private AuthProvider evict(final String id, final AccessGrant grant) {
+		if (grant == null || grant.getKey() == null) {
+			return null;
+		}
+		synchronized (providersCache) {
+			return providersCache.remove(getCacheKey(id, grant));
+		}
+	}
+
+	private static String getCacheKey(final String id, final AccessGrant grant) {
+		return id + ":" + grant.getKey();
+	}
+
+	private AuthProvider getProviderInstance(final String id)
+			throws SocialAuthConfigurationException, SocialAuthException {
+		OAuthConfig config = socialAuthConfig.getProviderConfig(id);
+		AuthProvider provider = ProviderRegistry.newInstance(
+				config.getProviderImplClass(), config);
+		try {
+			provider.registerPlugins();
+		} catch (Exception e) {
+			throw new SocialAuthConfigurationException(e);
+		}
+		return provider;
+	}
+}
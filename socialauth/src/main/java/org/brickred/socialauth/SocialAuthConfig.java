@@ -43,7 +43,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.brickred.socialauth.exception.SocialAuthConfigurationException;
 import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.metrics.JmxMetricsExporter;
+import org.brickred.socialauth.metrics.Metrics;
 import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.DefaultHttpTransport;
+import org.brickred.socialauth.util.HttpTransport;
 import org.brickred.socialauth.util.HttpUtil;
 import org.brickred.socialauth.util.OAuthConfig;
 
@@ -80,49 +84,8 @@ public class SocialAuthConfig implements Serializable {
 	}
 
 	public SocialAuthConfig() {
-		providersImplMap = new HashMap<String, Class<?>>();
-		providersImplMap.put(Constants.FACEBOOK,
-				org.brickred.socialauth.provider.FacebookImpl.class);
-		providersImplMap.put(Constants.FOURSQUARE,
-				org.brickred.socialauth.provider.FourSquareImpl.class);
-		providersImplMap.put(Constants.GOOGLE,
-				org.brickred.socialauth.provider.GoogleImpl.class);
-		providersImplMap.put(Constants.HOTMAIL,
-				org.brickred.socialauth.provider.HotmailImpl.class);
-		providersImplMap.put(Constants.LINKEDIN,
-				org.brickred.socialauth.provider.LinkedInImpl.class);
-		providersImplMap.put(Constants.MYSPACE,
-				org.brickred.socialauth.provider.MySpaceImpl.class);
-		providersImplMap.put(Constants.OPENID,
-				org.brickred.socialauth.provider.OpenIdImpl.class);
-		providersImplMap.put(Constants.TWITTER,
-				org.brickred.socialauth.provider.TwitterImpl.class);
-		providersImplMap.put(Constants.YAHOO,
-				org.brickred.socialauth.provider.YahooImpl.class);
-		providersImplMap.put(Constants.SALESFORCE,
-				org.brickred.socialauth.provider.SalesForceImpl.class);
-		providersImplMap.put(Constants.YAMMER,
-				org.brickred.socialauth.provider.YammerImpl.class);
-		providersImplMap.put(Constants.MENDELEY,
-				org.brickred.socialauth.provider.MendeleyImpl.class);
-		providersImplMap.put(Constants.RUNKEEPER,
-				org.brickred.socialauth.provider.RunkeeperImpl.class);
-		providersImplMap.put(Constants.GOOGLE_PLUS,
-				org.brickred.socialauth.provider.GooglePlusImpl.class);
-		providersImplMap.put(Constants.INSTAGRAM,
-				org.brickred.socialauth.provider.InstagramImpl.class);
-		providersImplMap.put(Constants.GITHUB,
-				org.brickred.socialauth.provider.GitHubImpl.class);
-		providersImplMap.put(Constants.FLICKR,
-				org.brickred.socialauth.provider.FlickerImpl.class);
-		providersImplMap.put(Constants.NIMBLE,
-				org.brickred.socialauth.provider.NimbleImpl.class);
-		providersImplMap.put(Constants.LINKEDINOAUTH2,
-				org.brickred.socialauth.provider.LinkedInOAuth2Impl.class);
-		providersImplMap.put(Constants.AMAZON,
-				org.brickred.socialauth.provider.AmazonImpl.class);
-		providersImplMap.put(Constants.STACK_EXCHANGE,
-				org.brickred.socialauth.provider.StackExchangeImpl.class);
+		providersImplMap = new HashMap<String, Class<?>>(
+				ProviderRegistry.getDefaultProviders());
 
 		domainMap = new HashMap<String, String>();
 		domainMap.put(Constants.GOOGLE, "www.google.com");
@@ -256,6 +219,24 @@ public class SocialAuthConfig implements Serializable {
 				}
 				HttpUtil.setConnectionTimeout(time);
 			}
+			int maxResponseSize = getIntProperty(Constants.HTTP_MAX_RESPONSE_SIZE);
+			if (maxResponseSize > 0) {
+				HttpUtil.setMaxResponseSize(maxResponseSize);
+			}
+			int readTimeout = getIntProperty(Constants.HTTP_READ_TIMEOUT);
+			if (readTimeout > 0) {
+				HttpUtil.setReadTimeout(readTimeout);
+			}
+			if (applicationProperties.containsKey(Constants.HTTP_MAX_RETRIES)) {
+				HttpUtil.setMaxRetries(getIntProperty(Constants.HTTP_MAX_RETRIES));
+			}
+			setCircuitBreaker();
+			if (Boolean.parseBoolean(applicationProperties.getProperty(
+					Constants.METRICS_JMX, "false").trim())
+					&& !(Metrics.getRecorder() instanceof JmxMetricsExporter)) {
+				Metrics.setRecorder(new JmxMetricsExporter());
+			}
+			setHttpTransport();
 			isConfigLoaded = true;
 		}
 	}
@@ -434,8 +415,10 @@ public class SocialAuthConfig implements Serializable {
 		if (config == null) {
 			try {
 				new URL(id);
-				config = getProviderConfig(Constants.OPENID);
+				config = providersConfig.get(Constants.OPENID);
 				if (config != null) {
+					// copy, so that shared OpenId config is not modified
+					config = new OAuthConfig(config);
 					config.setId(id);
 				}
 			} catch (MalformedURLException me) {
@@ -488,6 +471,60 @@ public class SocialAuthConfig implements Serializable {
 		}
 	}
 
+	private void setHttpTransport() throws Exception {
+		HttpTransport transport = HttpUtil.getHttpTransport();
+		if (applicationProperties.containsKey(Constants.HTTP_TRANSPORT)) {
+			String className = applicationProperties.getProperty(
+					Constants.HTTP_TRANSPORT).trim();
+			if (className.length() > 0) {
+				LOG.debug("Loading HTTP transport " + className);
+				try {
+					transport = (HttpTransport) Class.forName(className)
+							.newInstance();
+				} catch (Exception e) {
+					throw new SocialAuthConfigurationException(
+							"Unable to load HTTP transport " + className, e);
+				}
+			}
+		}
+		if (transport instanceof DefaultHttpTransport) {
+			DefaultHttpTransport defaultTransport = (DefaultHttpTransport) transport;
+			int maxConnections = getIntProperty(Constants.HTTP_MAX_CONNECTIONS_PER_ROUTE);
+			if (maxConnections > 0) {
+				defaultTransport.setMaxConnectionsPerRoute(maxConnections);
+			}
+			int requestTimeout = getIntProperty(Constants.HTTP_CONNECTION_REQUEST_TIMEOUT);
+			if (requestTimeout > 0) {
+				defaultTransport.setConnectionRequestTimeout(requestTimeout);
+			}
+		}
+		HttpUtil.setHttpTransport(transport);
+	}
+
+	private void setCircuitBreaker() {
+		boolean hasThreshold = applicationProperties
+				.containsKey(Constants.HTTP_CIRCUIT_FAILURE_THRESHOLD);
+		int openTime = getIntProperty(Constants.HTTP_CIRCUIT_OPEN_TIME);
+		if (hasThreshold || openTime > 0) {
+			int threshold = hasThreshold ? getIntProperty(Constants.HTTP_CIRCUIT_FAILURE_THRESHOLD)
+					: HttpUtil.getCircuitFailureThreshold();
+			HttpUtil.setCircuitBreaker(threshold, openTime > 0 ? openTime
+					: HttpUtil.getCircuitOpenTime());
+		}
+	}
+
+	private int getIntProperty(final String key) {
+		String value = applicationProperties.getProperty(key);
+		if (value != null && value.trim().length() > 0) {
+			try {
+				return Integer.parseInt(value.trim());
+			} catch (NumberFormatException ne) {
+				LOG.warn(key + " is not an integer in configuration");
+			}
+		}
+		return 0;
+	}
+
 	/**
 	 * Returns status to save the raw response for profile and contacts. Default
 	 * value is False.
@@ -0,0 +1,173 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.brickred.socialauth.util.AccessGrant;
+
+/**
+ * Per user state of a {@link SharedSocialAuthManager}. It only keeps the
+ * access grants of the connected providers, so it is small enough to be kept
+ * in HTTP session. While a login is in progress it also keeps the provider
+ * which has started the login, until {@link SharedSocialAuthManager#connect}
+ * is called.
+ * 
+ * Providers which do not use an access grant, such as OpenID, can not be
+ * created again from the handle, so the handle keeps them itself. These
+ * providers and the pending provider are not serialized; after the session
+ * is restored such a provider has to be connected again.
+ */
+public class SocialAuthHandle implements Serializable {
+
+	private static final long serialVersionUID = -6237183546573180457L;
+
+	private final Map<String, AccessGrant> accessGrants;
+	private volatile String currentProviderId;
+	private volatile String pendingProviderId;
+	private volatile String userId;
+	private transient volatile AuthProvider pendingProvider;
+	private transient volatile Map<String, AuthProvider> ungrantedProviders;
+
+	public SocialAuthHandle() {
+		accessGrants = new ConcurrentHashMap<String, AccessGrant>(4);
+	}
+
+	/**
+	 * Returns True if given provider is connected otherwise returns False
+	 * 
+	 * @param providerId
+	 *            the provider id
+	 * @return provider connected status
+	 */
+	public boolean isConnected(final String providerId) {
+		return accessGrants.containsKey(providerId);
+	}
+
+	/**
+	 * Retrieves the access grant of given connected provider
+	 * 
+	 * @param providerId
+	 *            the provider id
+	 * @return the access grant or null if provider is not connected
+	 */
+	public AccessGrant getAccessGrant(final String providerId) {
+		return accessGrants.get(providerId);
+	}
+
+	/**
+	 * Returns the list of connected providers ids.
+	 * 
+	 * @return List of connected providers ids string.
+	 */
+	public List<String> getConnectedProvidersIds() {
+		return new ArrayList<String>(accessGrants.keySet());
+	}
+
+	/**
+	 * Retrieves the id of provider which is last connected
+	 * 
+	 * @return the provider id or null if no provider is connected
+	 */
+	public String getCurrentProviderId() {
+		return currentProviderId;
+	}
+
+	/**
+	 * Retrieves the id of the user of this handle
+	 * 
+	 * @return the user id or null if it is not set
+	 */
+	public String getUserId() {
+		return userId;
+	}
+
+	/**
+	 * Sets the id of the user of this handle. Grants of providers connected
+	 * or refreshed afterwards are saved with this id in the token store of
+	 * {@link SharedSocialAuthManager}, if one is set.
+	 * 
+	 * @param userId
+	 *            the user id
+	 */
+	public void setUserId(final String userId) {
+		this.userId = userId;
+	}
+
+	void connected(final String providerId, final AccessGrant accessGrant) {
+		accessGrants.put(providerId, accessGrant);
+		currentProviderId = providerId;
+	}
+
+	synchronized void connected(final String providerId,
+			final AccessGrant accessGrant, final AuthProvider provider) {
+		if (ungrantedProviders == null) {
+			ungrantedProviders = new ConcurrentHashMap<String, AuthProvider>(
+					2);
+		}
+		ungrantedProviders.put(providerId, provider);
+		connected(providerId, accessGrant);
+	}
+
+	AuthProvider getUngrantedProvider(final String providerId) {
+		Map<String, AuthProvider> providers = ungrantedProviders;
+		return providers == null ? null : providers.get(providerId);
+	}
+
+	AuthProvider removeUngrantedProvider(final String providerId) {
+		Map<String, AuthProvider> providers = ungrantedProviders;
+		return providers == null ? null : providers.remove(providerId);
+	}
+
+	AccessGrant disconnected(final String providerId) {
+		removeUngrantedProvider(providerId);
+		AccessGrant grant = accessGrants.remove(providerId);
+		if (providerId.equals(currentProviderId)) {
+			currentProviderId = null;
+		}
+		return grant;
+	}
+
+	synchronized void startLogin(final String providerId,
+			final AuthProvider provider) {
+		pendingProviderId = providerId;
+		pendingProvider = provider;
+	}
+
+	synchronized AuthProvider finishLogin() {
+		AuthProvider provider = pendingProvider;
+		pendingProvider = null;
+		pendingProviderId = null;
+		return provider;
+	}
+
+	String getPendingProviderId() {
+		return pendingProviderId;
+	}
+}
@@ -26,11 +26,13 @@
 package org.brickred.socialauth;
 
 import java.io.Serializable;
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,6 +40,7 @@ import org.brickred.socialauth.exception.AccessTokenExpireException;
 import org.brickred.socialauth.exception.SocialAuthConfigurationException;
 import org.brickred.socialauth.exception.SocialAuthException;
 import org.brickred.socialauth.exception.SocialAuthManagerStateException;
+import org.brickred.socialauth.store.TokenStore;
 import org.brickred.socialauth.util.AccessGrant;
 import org.brickred.socialauth.util.OAuthConfig;
 
@@ -58,6 +61,10 @@ public class SocialAuthManager implements Serializable {
 	private final Map<String, AuthProvider> providersMap;
 	private SocialAuthConfig socialAuthConfig;
 	private final Map<String, Permission> permissionsMap;
+	private transient Executor executor;
+	private transient TokenStore tokenStore;
+	private String userId;
+	private transient TokenRefreshScheduler tokenRefreshScheduler;
 
 	public SocialAuthManager() {
 		providersMap = new HashMap<String, AuthProvider>();
@@ -183,12 +190,94 @@ public class SocialAuthManager implements Serializable {
 		if (providersMap.get(providerId) == null) {
 			authProvider.verifyResponse(requestParams);
 			providersMap.put(providerId, authProvider);
+			persist(providerId, authProvider);
+			scheduleRefresh(authProvider);
 		}
 		currentProviderId = providerId;
 		providerId = null;
 		return authProvider;
 	}
 
+	/**
+	 * Verifies the user asynchronously when the external provider redirects
+	 * back to our application. Request token exchange and profile retrieval
+	 * are made on the executor of this manager, so the calling thread is not
+	 * blocked.
+	 * 
+	 * @param requestParams
+	 *            the request parameters
+	 * @return future of the connected provider
+	 * @throws SocialAuthManagerStateException
+	 *             if authentication URL was not requested before
+	 */
+	public CompletableFuture<AuthProvider> connectAsync(
+			final Map<String, String> requestParams)
+			throws SocialAuthManagerStateException {
+		if (providerId == null || authProvider == null) {
+			throw new SocialAuthManagerStateException();
+		}
+		final String id = providerId;
+		final AuthProvider provider = authProvider;
+		providerId = null;
+		LOG.info("Connecting provider asynchronously : " + id);
+		if (providersMap.get(id) != null) {
+			currentProviderId = id;
+			return CompletableFuture.completedFuture(provider);
+		}
+		return AsyncAuthProvider.submit(new Callable<AuthProvider>() {
+			@Override
+			public AuthProvider call() throws Exception {
+				provider.verifyResponse(requestParams);
+				synchronized (SocialAuthManager.this) {
+					providersMap.put(id, provider);
+					currentProviderId = id;
+				}
+				persist(id, provider);
+				scheduleRefresh(provider);
+				return provider;
+			}
+		}, getExecutor());
+	}
+
+	/**
+	 * Retrieves the asynchronous view of given connected provider.
+	 * 
+	 * @param providerId
+	 *            the provider id
+	 * @return the asynchronous provider or null if given provider is not
+	 *         connected
+	 */
+	public AsyncAuthProvider getAsyncProvider(final String providerId) {
+		AuthProvider provider = providersMap.get(providerId);
+		if (provider == null) {
+			return null;
+		}
+		return new AsyncAuthProvider(provider, getExecutor());
+	}
+
+	/**
+	 * Retrieves the executor used for asynchronous calls.
+	 * 
+	 * @return the executor
+	 */
+	public Executor getExecutor() {
+		if (executor == null) {
+			return AsyncAuthProvider.getDefaultExecutor();
+		}
+		return executor;
+	}
+
+	/**
+	 * Sets the executor used for asynchronous calls. By default a shared pool
+	 * of daemon threads is used.
+	 * 
+	 * @param executor
+	 *            the executor
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
 	/**
 	 * Generates access token and creates a object of AccessGrant
 	 * 
@@ -247,6 +336,9 @@ public class SocialAuthManager implements Serializable {
 	public boolean disconnectProvider(final String id) {
 		if (providersMap.get(id) != null) {
 			AuthProvider p = providersMap.get(id);
+			if (tokenRefreshScheduler != null) {
+				tokenRefreshScheduler.cancel(p);
+			}
 			p.logout();
 			providersMap.remove(id);
 			return true;
@@ -256,7 +348,8 @@ public class SocialAuthManager implements Serializable {
 	}
 
 	/**
-	 * Creates the provider with given access grant
+	 * Creates the provider with given access grant. The grant is saved in
+	 * token store if a store and the user id are set.
 	 * 
 	 * @param accessGrant
 	 *            the access grant object which contains
@@ -266,6 +359,14 @@ public class SocialAuthManager implements Serializable {
 	public AuthProvider connect(final AccessGrant accessGrant)
 			throws SocialAuthConfigurationException,
 			AccessTokenExpireException, SocialAuthException {
+		AuthProvider provider = connectWith(accessGrant);
+		persist(currentProviderId, provider);
+		return provider;
+	}
+
+	private AuthProvider connectWith(final AccessGrant accessGrant)
+			throws SocialAuthConfigurationException,
+			AccessTokenExpireException, SocialAuthException {
 		if (accessGrant.getProviderId() == null || accessGrant.getKey() == null) {
 			throw new SocialAuthException("access grant is not valid");
 		}
@@ -275,13 +376,176 @@ public class SocialAuthManager implements Serializable {
 		provider.setAccessGrant(accessGrant);
 		authProvider = provider;
 		currentProviderId = accessGrant.getProviderId();
-		providersMap.put(currentProviderId, authProvider);
+		replaceProvider(currentProviderId, authProvider);
 		return provider;
 	}
 
+	/**
+	 * Connects the provider of given user with the access grant saved in token
+	 * store, without authentication. Given user id becomes the user id of this
+	 * manager.
+	 * 
+	 * @param userId
+	 *            the user id with which grant was saved
+	 * @param providerId
+	 *            the provider id
+	 * @return the AuthProvider
+	 * @throws SocialAuthException
+	 *             if token store is not set or it has no grant for given user
+	 *             and provider
+	 */
+	public AuthProvider connect(final String userId, final String providerId)
+			throws SocialAuthConfigurationException,
+			AccessTokenExpireException, SocialAuthException {
+		if (tokenStore == null) {
+			throw new SocialAuthException("Token store is not set");
+		}
+		AccessGrant accessGrant = tokenStore.load(userId, providerId);
+		if (accessGrant == null) {
+			throw new SocialAuthException("No access grant of " + providerId
+					+ " is saved for user " + userId);
+		}
+		this.userId = userId;
+		return connectWith(accessGrant);
+	}
+
+	/**
+	 * Saves the access grant of given connected provider in token store, so
+	 * that it can be connected again with {@link #connect(String, String)}.
+	 * 
+	 * @param userId
+	 *            the user id with which grant is saved
+	 * @param providerId
+	 *            the provider id
+	 * @return the saved access grant
+	 * @throws SocialAuthException
+	 *             if token store is not set or provider is not connected
+	 */
+	public AccessGrant saveAccessGrant(final String userId,
+			final String providerId) throws SocialAuthException {
+		if (tokenStore == null) {
+			throw new SocialAuthException("Token store is not set");
+		}
+		AuthProvider provider = providersMap.get(providerId);
+		if (provider == null || provider.getAccessGrant() == null) {
+			throw new SocialAuthException(providerId + " is not connected");
+		}
+		AccessGrant accessGrant = provider.getAccessGrant();
+		if (accessGrant.getProviderId() == null) {
+			accessGrant.setProviderId(providerId);
+		}
+		tokenStore.save(userId, accessGrant);
+		return accessGrant;
+	}
+
+	/**
+	 * Retrieves the scheduler which refreshes the tokens of connected
+	 * providers
+	 * 
+	 * @return the scheduler or null if it is not set
+	 */
+	public TokenRefreshScheduler getTokenRefreshScheduler() {
+		return tokenRefreshScheduler;
+	}
+
+	/**
+	 * Sets the scheduler which refreshes the tokens of connected providers
+	 * before they expire. Providers connected afterwards are scheduled, and
+	 * disconnected providers are cancelled. One scheduler can be shared by all
+	 * the managers of an application.
+	 * 
+	 * @param tokenRefreshScheduler
+	 *            the scheduler
+	 */
+	public void setTokenRefreshScheduler(
+			final TokenRefreshScheduler tokenRefreshScheduler) {
+		this.tokenRefreshScheduler = tokenRefreshScheduler;
+	}
+
+	private void replaceProvider(final String id, final AuthProvider provider) {
+		AuthProvider old = providersMap.put(id, provider);
+		if (old != null && old != provider && tokenRefreshScheduler != null) {
+			tokenRefreshScheduler.cancel(old);
+		}
+		scheduleRefresh(provider);
+	}
+
+	/**
+	 * Saves the grant of given provider in token store if a store and the
+	 * user id are set. A failure to save is logged and the provider stays
+	 * connected.
+	 */
+	private void persist(final String id, final AuthProvider provider) {
+		TokenStore store = tokenStore;
+		String user = userId;
+		AccessGrant accessGrant = provider.getAccessGrant();
+		if (store == null || user == null || accessGrant == null
+				|| accessGrant.getKey() == null) {
+			return;
+		}
+		if (accessGrant.getProviderId() == null) {
+			accessGrant.setProviderId(id);
+		}
+		try {
+			store.save(user, accessGrant);
+		} catch (SocialAuthException e) {
+			LOG.warn("Could not save access grant of " + id + " for user "
+					+ user, e);
+		}
+	}
+
+	private void scheduleRefresh(final AuthProvider provider) {
+		TokenRefreshScheduler scheduler = tokenRefreshScheduler;
+		if (scheduler != null) {
+			scheduler.schedule(userId, provider, tokenStore);
+		}
+	}
+
+	/**
+	 * Retrieves the id of the user whose providers this manager connects
+	 * 
+	 * @return the user id or null if it is not set
+	 */
+	public String getUserId() {
+		return userId;
+	}
+
+	/**
+	 * Sets the id of the user whose providers this manager connects. Grants of
+	 * providers connected or refreshed afterwards, including by the token
+	 * refresh scheduler, are saved in the token store with this id.
+	 * 
+	 * @param userId
+	 *            the user id
+	 */
+	public void setUserId(final String userId) {
+		this.userId = userId;
+	}
+
+	/**
+	 * Retrieves the token store in which access grants are saved
+	 * 
+	 * @return the token store or null if it is not set
+	 */
+	public TokenStore getTokenStore() {
+		return tokenStore;
+	}
+
+	/**
+	 * Sets the token store in which access grants are saved. One store can be
+	 * shared by all the managers of an application.
+	 * 
+	 * @param tokenStore
+	 *            the token store
+	 */
+	public void setTokenStore(final TokenStore tokenStore) {
+		this.tokenStore = tokenStore;
+	}
+
 	/**
 	 * Makes a call for a provider to get RefreshToken and returns object of
-	 * that provider
+	 * that provider. The refreshed grant is saved in token store if a store
+	 * and the user id are set.
 	 * 
 	 * @param accessGrant
 	 *            AccessGrant object which contains access token
@@ -300,7 +564,8 @@ public class SocialAuthManager implements Serializable {
 		provider.refreshToken(accessGrant);
 		authProvider = provider;
 		currentProviderId = accessGrant.getProviderId();
-		providersMap.put(currentProviderId, authProvider);
+		replaceProvider(currentProviderId, authProvider);
+		persist(currentProviderId, provider);
 		return provider;
 	}
 
@@ -332,22 +597,8 @@ public class SocialAuthManager implements Serializable {
 	private AuthProvider getProviderInstance(final String id)
 			throws SocialAuthConfigurationException, SocialAuthException {
 		OAuthConfig config = socialAuthConfig.getProviderConfig(id);
-		Class<?> obj = config.getProviderImplClass();
-		AuthProvider provider;
-		try {
-			Constructor<?> cons = obj.getConstructor(OAuthConfig.class);
-			provider = (AuthProvider) cons.newInstance(config);
-		} catch (NoSuchMethodException me) {
-			LOG.warn(obj.getName() + " does not implement a constructor "
-					+ obj.getName() + "(Poperties props)");
-			try {
-				provider = (AuthProvider) obj.newInstance();
-			} catch (Exception e) {
-				throw new SocialAuthConfigurationException(e);
-			}
-		} catch (Exception e) {
-			throw new SocialAuthConfigurationException(e);
-		}
+		AuthProvider provider = ProviderRegistry.newInstance(
+				config.getProviderImplClass(), config);
 		try {
 			provider.registerPlugins();
 		} catch (Exception e) {
@@ -0,0 +1,444 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.store.TokenStore;
+import org.brickred.socialauth.util.AccessGrant;
+import org.brickred.socialauth.util.Constants;
+
+/**
+ * Refreshes the access tokens of connected providers before they expire.
+ * Expiry is read from the {@value Constants#EXPIRES_AT} attribute which is
+ * recorded when access grant is issued, see {@link AccessGrant#getExpiresAt()}.
+ * Each token is refreshed a configured time ahead of expiry, with a random
+ * jitter so that tokens issued together are not refreshed together.
+ * 
+ * Refresh calls {@link AuthProvider#refreshToken(AccessGrant)}, which replaces
+ * the grant used by the provider, and the provider is scheduled again with
+ * its new grant, but not sooner than a minute later. If refresh fails, it is
+ * retried every minute until the token expires. Providers which do not
+ * support refresh, as told by {@link AuthProvider#isRefreshSupported()}, are
+ * not scheduled.
+ * 
+ * Providers are held weakly, so the provider of a session which ends without
+ * disconnecting is dropped from the schedule once it is garbage collected.
+ * 
+ * <pre>
+ * TokenRefreshScheduler scheduler = new TokenRefreshScheduler();
+ * manager.setTokenRefreshScheduler(scheduler);
+ * </pre>
+ */
+public class TokenRefreshScheduler {
+
+	/**
+	 * Default time before expiry at which token is refreshed, 5 minutes
+	 */
+	public static final long DEFAULT_REFRESH_AHEAD = 5 * 60 * 1000L;
+
+	/**
+	 * Default maximum number of refreshes running at same time
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT = 4;
+
+	private static final long RETRY_INTERVAL = 60 * 1000L;
+	private static final Log LOG = LogFactory
+			.getLog(TokenRefreshScheduler.class);
+
+	/**
+	 * Callback of refresh results, e.g. to persist new grants
+	 */
+	public interface Listener {
+
+		/**
+		 * Called after token of a provider has been refreshed
+		 * 
+		 * @param userId
+		 *            user id given while scheduling, may be null
+		 * @param provider
+		 *            the provider whose token is refreshed
+		 * @param oldGrant
+		 *            the replaced access grant
+		 */
+		public void refreshed(String userId, AuthProvider provider,
+				AccessGrant oldGrant);
+
+		/**
+		 * Called when token of a provider could not be refreshed and will not
+		 * be retried
+		 * 
+		 * @param userId
+		 *            user id given while scheduling, may be null
+		 * @param provider
+		 *            the provider
+		 * @param cause
+		 *            the last failure
+		 */
+		public void failed(String userId, AuthProvider provider,
+				Exception cause);
+	}
+
+	private final DelayQueue<Task> queue = new DelayQueue<Task>();
+	private final Map<AuthProvider, Task> tasks = Collections
+			.synchronizedMap(new WeakHashMap<AuthProvider, Task>());
+	private final Random random = new Random();
+	private final Executor executor;
+	private final Semaphore permits;
+	private volatile long refreshAhead = DEFAULT_REFRESH_AHEAD;
+	private volatile double jitter = 0.2;
+	private volatile Listener listener;
+	private volatile TokenStore tokenStore;
+	private Thread dispatcher;
+	private volatile boolean shutdown;
+
+	/**
+	 * Creates a scheduler which refreshes tokens on the shared pool of
+	 * {@link AsyncAuthProvider}, at most {@value #DEFAULT_MAX_CONCURRENT} at a
+	 * time.
+	 */
+	public TokenRefreshScheduler() {
+		this(AsyncAuthProvider.getDefaultExecutor(), DEFAULT_MAX_CONCURRENT);
+	}
+
+	/**
+	 * @param executor
+	 *            executor on which refresh calls are made
+	 * @param maxConcurrent
+	 *            maximum number of refreshes running at same time
+	 */
+	public TokenRefreshScheduler(final Executor executor,
+			final int maxConcurrent) {
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException(
+					"Max concurrent refreshes must be positive");
+		}
+		this.executor = executor;
+		this.permits = new Semaphore(maxConcurrent);
+	}
+
+	/**
+	 * Schedules refresh of the token of given provider. A provider whose grant
+	 * has no expiry, or which does not implement refresh, is not scheduled.
+	 * 
+	 * @param provider
+	 *            the connected provider
+	 * @return true if provider is scheduled
+	 */
+	public boolean schedule(final AuthProvider provider) {
+		return schedule(null, provider);
+	}
+
+	/**
+	 * Schedules refresh of the token of given provider. If a token store is
+	 * set, refreshed grants are saved in it with given user id.
+	 * 
+	 * @param userId
+	 *            the user id, may be null
+	 * @param provider
+	 *            the connected provider
+	 * @return true if provider is scheduled
+	 */
+	public boolean schedule(final String userId, final AuthProvider provider) {
+		return schedule(userId, provider, null, 0);
+	}
+
+	/**
+	 * Schedules refresh of the token of given provider. Refreshed grants are
+	 * saved in given store with given user id.
+	 * 
+	 * @param userId
+	 *            the user id, may be null
+	 * @param provider
+	 *            the connected provider
+	 * @param tokenStore
+	 *            store in which refreshed grants are saved, null to use the
+	 *            store of this scheduler
+	 * @return true if provider is scheduled
+	 */
+	public boolean schedule(final String userId, final AuthProvider provider,
+			final TokenStore tokenStore) {
+		return schedule(userId, provider, tokenStore, 0);
+	}
+
+	private boolean schedule(final String userId, final AuthProvider provider,
+			final TokenStore tokenStore, final long notBefore) {
+		if (shutdown) {
+			throw new IllegalStateException("Scheduler is shut down");
+		}
+		AccessGrant grant = provider.getAccessGrant();
+		long expiresAt = getExpiry(grant);
+		if (expiresAt <= 0 || !provider.isRefreshSupported()) {
+			cancel(provider);
+			return false;
+		}
+		Task task = new Task(userId, provider, tokenStore, grant, expiresAt,
+				Math.max(getRefreshTime(expiresAt), notBefore));
+		Task old = tasks.put(provider, task);
+		if (old != null) {
+			queue.remove(old);
+		}
+		startDispatcher();
+		queue.put(task);
+		return true;
+	}
+
+	/**
+	 * Stops refreshing the token of given provider
+	 * 
+	 * @param provider
+	 *            the provider
+	 */
+	public void cancel(final AuthProvider provider) {
+		Task task = tasks.remove(provider);
+		if (task != null) {
+			queue.remove(task);
+		}
+	}
+
+	/**
+	 * @return number of scheduled providers
+	 */
+	public int size() {
+		return tasks.size();
+	}
+
+	/**
+	 * Stops the scheduler. Refreshes already running are completed.
+	 */
+	public synchronized void shutdown() {
+		shutdown = true;
+		if (dispatcher != null) {
+			dispatcher.interrupt();
+		}
+		tasks.clear();
+		queue.clear();
+	}
+
+	/**
+	 * @param refreshAhead
+	 *            time before expiry at which token is refreshed, in
+	 *            milliseconds
+	 */
+	public void setRefreshAhead(final long refreshAhead) {
+		this.refreshAhead = refreshAhead;
+	}
+
+	/**
+	 * @param jitter
+	 *            fraction of refresh ahead time by which refresh is randomly
+	 *            moved earlier, between 0 and 1. Default is 0.2.
+	 */
+	public void setJitter(final double jitter) {
+		this.jitter = jitter;
+	}
+
+	/**
+	 * @param listener
+	 *            callback of refresh results
+	 */
+	public void setListener(final Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @param tokenStore
+	 *            store in which refreshed grants of providers scheduled with
+	 *            user id are saved
+	 */
+	public void setTokenStore(final TokenStore tokenStore) {
+		this.tokenStore = tokenStore;
+	}
+
+	private static long getExpiry(final AccessGrant grant) {
+		return grant == null ? 0 : grant.getExpiresAt();
+	}
+
+	private long getRefreshTime(final long expiresAt) {
+		long ahead = refreshAhead;
+		long spread = (long) (ahead * jitter);
+		if (spread > 0) {
+			synchronized (random) {
+				ahead += (long) (random.nextDouble() * spread);
+			}
+		}
+		return expiresAt - ahead;
+	}
+
+	private synchronized void startDispatcher() {
+		if (dispatcher != null || shutdown) {
+			return;
+		}
+		dispatcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				dispatch();
+			}
+		}, "socialauth-token-refresh");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	private void dispatch() {
+		while (!shutdown) {
+			try {
+				final Task task = queue.take();
+				if (!task.isCurrent()) {
+					continue;
+				}
+				permits.acquire();
+				try {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								refresh(task);
+							} finally {
+								permits.release();
+							}
+						}
+					});
+				} catch (RuntimeException e) {
+					permits.release();
+					LOG.warn("Could not submit token refresh", e);
+					retry(task, e);
+				}
+			} catch (InterruptedException e) {
+				if (shutdown) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void refresh(final Task task) {
+		AuthProvider provider = task.provider.get();
+		if (provider == null || tasks.get(provider) != task) {
+			return;
+		}
+		try {
+			LOG.debug("Refreshing token of " + provider.getProviderId());
+			provider.refreshToken(task.grant);
+		} catch (Exception e) {
+			LOG.warn("Could not refresh token of "
+					+ provider.getProviderId(), e);
+			retry(task, e);
+			return;
+		}
+		AccessGrant newGrant = provider.getAccessGrant();
+		if (newGrant != null && newGrant.getProviderId() == null) {
+			newGrant.setProviderId(task.grant.getProviderId());
+		}
+		TokenStore store = task.store != null ? task.store : tokenStore;
+		if (store != null && task.userId != null && newGrant != null) {
+			try {
+				store.save(task.userId, newGrant);
+			} catch (SocialAuthException e) {
+				LOG.warn("Could not save refreshed token", e);
+			}
+		}
+		Listener l = listener;
+		if (l != null) {
+			l.refreshed(task.userId, provider, task.grant);
+		}
+		if (tasks.get(provider) == task && !shutdown) {
+			// a grant which is already due, e.g. the same long lived token,
+			// must not be refreshed again right away
+			schedule(task.userId, provider, task.store,
+					System.currentTimeMillis() + RETRY_INTERVAL);
+		}
+	}
+
+	private void retry(final Task task, final Exception cause) {
+		AuthProvider provider = task.provider.get();
+		if (provider == null) {
+			return;
+		}
+		long next = System.currentTimeMillis() + RETRY_INTERVAL;
+		if (next < task.expiresAt && !shutdown) {
+			Task retry = new Task(task.userId, provider, task.store,
+					task.grant, task.expiresAt, next);
+			if (tasks.replace(provider, task, retry)) {
+				queue.put(retry);
+			}
+			return;
+		}
+		if (tasks.remove(provider, task)) {
+			Listener l = listener;
+			if (l != null) {
+				l.failed(task.userId, provider, cause);
+			}
+		}
+	}
+
+	private class Task implements Delayed {
+		private final String userId;
+		private final WeakReference<AuthProvider> provider;
+		private final TokenStore store;
+		private final AccessGrant grant;
+		private final long expiresAt;
+		private final long refreshAt;
+
+		Task(final String userId, final AuthProvider provider,
+				final TokenStore store, final AccessGrant grant,
+				final long expiresAt, final long refreshAt) {
+			this.userId = userId;
+			this.provider = new WeakReference<AuthProvider>(provider);
+			this.store = store;
+			this.grant = grant;
+			this.expiresAt = expiresAt;
+			this.refreshAt = refreshAt;
+		}
+
+		boolean isCurrent() {
+			AuthProvider p = provider.get();
+			return p != null && tasks.get(p) == this;
+		}
+
+		@Override
+		public long getDelay(final TimeUnit unit) {
+			return unit.convert(refreshAt - System.currentTimeMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(final Delayed o) {
+			long other = ((Task) o).refreshAt;
+			return refreshAt < other ? -1 : (refreshAt == other ? 0 : 1);
+		}
+	}
+}
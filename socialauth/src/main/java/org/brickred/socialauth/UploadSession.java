@@ -0,0 +1,300 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+import org.brickred.socialauth.util.UploadProgressListener;
+
+/**
+ * Contains the state of a chunked media upload. It is serializable so that
+ * an interrupted upload can be stored and resumed later from the last chunk
+ * acknowledged by the provider.
+ */
+public class UploadSession implements Serializable {
+
+	private static final long serialVersionUID = -2254915843046373816L;
+
+	private final String fileName;
+	private final String mediaType;
+	private final String message;
+	private final long totalBytes;
+	private final int chunkSize;
+	private String mediaId;
+	private String uploadId;
+	private final BitSet acknowledged = new BitSet();
+	private long offset;
+	private long endOffset;
+	private boolean finished;
+	private transient UploadProgressListener progressListener;
+
+	/**
+	 * @param fileName
+	 *            name of the uploaded file
+	 * @param mediaType
+	 *            MIME type of the file
+	 * @param message
+	 *            message to publish with the media, may be null
+	 * @param totalBytes
+	 *            size of the file
+	 * @param chunkSize
+	 *            size of each chunk in bytes
+	 */
+	public UploadSession(final String fileName, final String mediaType,
+			final String message, final long totalBytes, final int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+		this.fileName = fileName;
+		this.mediaType = mediaType;
+		this.message = message;
+		this.totalBytes = totalBytes;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Retrieves the uploaded file name
+	 * 
+	 * @return the file name
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * Retrieves the MIME type of the uploaded file
+	 * 
+	 * @return the media type
+	 */
+	public String getMediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * Retrieves the message published with the media
+	 * 
+	 * @return the message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * Retrieves the size of the uploaded file
+	 * 
+	 * @return total bytes
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Retrieves the chunk size
+	 * 
+	 * @return chunk size in bytes
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Retrieves the number of chunks the file is split into
+	 * 
+	 * @return chunk count
+	 */
+	public int getChunkCount() {
+		return (int) ((totalBytes + chunkSize - 1) / chunkSize);
+	}
+
+	/**
+	 * Retrieves the media id assigned by the provider
+	 * 
+	 * @return the media id
+	 */
+	public String getMediaId() {
+		return mediaId;
+	}
+
+	/**
+	 * Updates the media id assigned by the provider
+	 * 
+	 * @param mediaId
+	 *            the media id
+	 */
+	public void setMediaId(final String mediaId) {
+		this.mediaId = mediaId;
+	}
+
+	/**
+	 * Retrieves the upload session id assigned by the provider. Same as the
+	 * media id for providers which do not use a separate one.
+	 * 
+	 * @return the upload id
+	 */
+	public String getUploadId() {
+		return uploadId == null ? mediaId : uploadId;
+	}
+
+	/**
+	 * Updates the upload session id assigned by the provider
+	 * 
+	 * @param uploadId
+	 *            the upload id
+	 */
+	public void setUploadId(final String uploadId) {
+		this.uploadId = uploadId;
+	}
+
+	/**
+	 * Marks given chunk as acknowledged by the provider
+	 * 
+	 * @param index
+	 *            chunk index
+	 */
+	public synchronized void acknowledge(final int index) {
+		acknowledged.set(index);
+		int next = acknowledged.nextClearBit(0);
+		offset = Math.min((long) next * chunkSize, totalBytes);
+	}
+
+	/**
+	 * Returns true if given chunk has been acknowledged by the provider
+	 * 
+	 * @param index
+	 *            chunk index
+	 * @return true if the chunk need not be sent again
+	 */
+	public synchronized boolean isAcknowledged(final int index) {
+		return acknowledged.get(index);
+	}
+
+	/**
+	 * Retrieves the number of bytes acknowledged by the provider
+	 * 
+	 * @return acknowledged bytes
+	 */
+	public synchronized long getAcknowledgedBytes() {
+		if (acknowledged.isEmpty()) {
+			return offset;
+		}
+		long bytes = 0;
+		for (int i = acknowledged.nextSetBit(0); i >= 0; i = acknowledged
+				.nextSetBit(i + 1)) {
+			bytes += Math.min(chunkSize, totalBytes - (long) i * chunkSize);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Retrieves the offset of the first byte which has not been acknowledged
+	 * 
+	 * @return the offset
+	 */
+	public synchronized long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Retrieves the end offset of the next range requested by the provider,
+	 * for providers which dictate the chunk boundaries.
+	 * 
+	 * @return the end offset
+	 */
+	public synchronized long getEndOffset() {
+		return endOffset;
+	}
+
+	/**
+	 * Updates the range the provider expects next, for providers which
+	 * dictate the chunk boundaries.
+	 * 
+	 * @param offset
+	 *            start offset of the next range
+	 * @param endOffset
+	 *            end offset of the next range
+	 */
+	public synchronized void setRange(final long offset, final long endOffset) {
+		this.offset = offset;
+		this.endOffset = endOffset;
+	}
+
+	/**
+	 * Returns true if all the chunks are uploaded and the upload has been
+	 * finalized.
+	 * 
+	 * @return true if finished
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Updates the finished flag
+	 * 
+	 * @param finished
+	 *            true if the upload has been finalized
+	 */
+	public void setFinished(final boolean finished) {
+		this.finished = finished;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		String NEW_LINE = System.getProperty("line.separator");
+		result.append(this.getClass().getName() + " Object {" + NEW_LINE);
+		result.append(" fileName: " + fileName + NEW_LINE);
+		result.append(" mediaType: " + mediaType + NEW_LINE);
+		result.append(" mediaId: " + mediaId + NEW_LINE);
+		result.append(" totalBytes: " + totalBytes + NEW_LINE);
+		result.append(" acknowledgedBytes: " + getAcknowledgedBytes()
+				+ NEW_LINE);
+		result.append(" finished: " + finished + NEW_LINE);
+		result.append("}");
+		return result.toString();
+	}
+
+	/**
+	 * Retrieves the listener notified as chunks are acknowledged
+	 * 
+	 * @return the listener, or null
+	 */
+	public UploadProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	/**
+	 * Updates the listener notified as chunks are acknowledged. The listener
+	 * is not serialized with the session.
+	 * 
+	 * @param progressListener
+	 *            the listener, or null
+	 */
+	public void setProgressListener(
+			final UploadProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+}
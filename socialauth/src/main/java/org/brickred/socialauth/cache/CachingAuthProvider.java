@@ -0,0 +1,335 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.cache;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.brickred.socialauth.AuthProvider;
+import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.ContactCursor;
+import org.brickred.socialauth.Permission;
+import org.brickred.socialauth.Profile;
+import org.brickred.socialauth.exception.AccessTokenExpireException;
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.plugin.Plugin;
+import org.brickred.socialauth.util.AccessGrant;
+import org.brickred.socialauth.util.BirthDate;
+import org.brickred.socialauth.util.Response;
+
+/**
+ * Decorator of an {@link AuthProvider} which caches the user profile and the
+ * contact list in a {@link ResponseCache}. Values are cached per provider and
+ * access token, so one cache can be shared by all the providers of an
+ * application. Calls other than {@link #getUserProfile()} and
+ * {@link #getContactList()} are passed to the wrapped provider as it is.
+ * 
+ * <pre>
+ * ResponseCache cache = new InMemoryResponseCache(5000);
+ * AuthProvider provider = new CachingAuthProvider(
+ * 		manager.connect(paramsMap), cache);
+ * </pre>
+ */
+public class CachingAuthProvider implements AuthProvider {
+
+	/**
+	 * Default time to live of a cached profile, 10 minutes
+	 */
+	public static final long DEFAULT_PROFILE_TTL = 10 * 60 * 1000L;
+
+	/**
+	 * Default time to live of a cached contact list, 5 minutes
+	 */
+	public static final long DEFAULT_CONTACTS_TTL = 5 * 60 * 1000L;
+
+	private static final String PROFILE_RESOURCE = "profile";
+	private static final String CONTACTS_RESOURCE = "contacts";
+
+	private final AuthProvider provider;
+	private final ResponseCache cache;
+	private long profileTTL = DEFAULT_PROFILE_TTL;
+	private long contactsTTL = DEFAULT_CONTACTS_TTL;
+
+	/**
+	 * @param provider
+	 *            the provider whose responses are cached
+	 * @param cache
+	 *            the cache in which responses are kept
+	 */
+	public CachingAuthProvider(final AuthProvider provider,
+			final ResponseCache cache) {
+		if (provider == null || cache == null) {
+			throw new IllegalArgumentException(
+					"Provider and cache can not be null");
+		}
+		this.provider = provider;
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the user profile from cache if it is there, otherwise fetches it
+	 * from the wrapped provider and caches it. A copy of the cached profile is
+	 * returned on every call.
+	 */
+	@Override
+	public Profile getUserProfile() throws Exception {
+		String key = getCacheKey(PROFILE_RESOURCE);
+		if (key == null) {
+			return provider.getUserProfile();
+		}
+		Object cached = cache.get(key);
+		if (cached instanceof Profile) {
+			return copy((Profile) cached);
+		}
+		Profile profile = provider.getUserProfile();
+		if (profile != null) {
+			cache.put(key, copy(profile), profileTTL);
+		}
+		return profile;
+	}
+
+	/**
+	 * Returns the contact list from cache if it is there, otherwise fetches it
+	 * from the wrapped provider and caches it. A new list is returned on every
+	 * call.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<Contact> getContactList() throws Exception {
+		String key = getCacheKey(CONTACTS_RESOURCE);
+		if (key == null) {
+			return provider.getContactList();
+		}
+		Object cached = cache.get(key);
+		if (cached instanceof List) {
+			return new ArrayList<Contact>((List<Contact>) cached);
+		}
+		List<Contact> contacts = provider.getContactList();
+		if (contacts != null) {
+			cache.put(key, new ArrayList<Contact>(contacts), contactsTTL);
+		}
+		return contacts;
+	}
+
+	/**
+	 * Removes the cached responses of the current user
+	 */
+	public void evict() {
+		evict(getCacheKey(PROFILE_RESOURCE), getCacheKey(CONTACTS_RESOURCE));
+	}
+
+	@Override
+	public void logout() {
+		evict();
+		provider.logout();
+	}
+
+	@Override
+	public boolean isRefreshSupported() {
+		return provider.isRefreshSupported();
+	}
+
+	@Override
+	public void refreshToken(final AccessGrant accessGrant)
+			throws SocialAuthException {
+		String profileKey = getCacheKey(PROFILE_RESOURCE);
+		String contactsKey = getCacheKey(CONTACTS_RESOURCE);
+		provider.refreshToken(accessGrant);
+		evict(profileKey, contactsKey);
+	}
+
+	@Override
+	public String getLoginRedirectURL(final String successUrl)
+			throws Exception {
+		return provider.getLoginRedirectURL(successUrl);
+	}
+
+	@Override
+	public Profile verifyResponse(final Map<String, String> requestParams)
+			throws Exception {
+		return provider.verifyResponse(requestParams);
+	}
+
+	@Override
+	public Response updateStatus(final String msg) throws Exception {
+		return provider.updateStatus(msg);
+	}
+
+	@Override
+	public ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		return provider.getContactCursor(pageSize, continuationToken);
+	}
+
+	@Override
+	public void setPermission(final Permission p) {
+		provider.setPermission(p);
+	}
+
+	@Override
+	public Response api(final String url, final String methodType,
+			final Map<String, String> params,
+			final Map<String, String> headerParams, final String body)
+			throws Exception {
+		return provider.api(url, methodType, params, headerParams, body);
+	}
+
+	@Override
+	public AccessGrant getAccessGrant() {
+		return provider.getAccessGrant();
+	}
+
+	@Override
+	public String getProviderId() {
+		return provider.getProviderId();
+	}
+
+	@Override
+	public void setAccessGrant(final AccessGrant accessGrant)
+			throws AccessTokenExpireException, SocialAuthException {
+		provider.setAccessGrant(accessGrant);
+	}
+
+	@Override
+	public Response uploadImage(final String message, final String fileName,
+			final InputStream inputStream) throws Exception {
+		return provider.uploadImage(message, fileName, inputStream);
+	}
+
+	@Override
+	public boolean isSupportedPlugin(final Class<? extends Plugin> clazz) {
+		return provider.isSupportedPlugin(clazz);
+	}
+
+	@Override
+	public <T> T getPlugin(final Class<T> clazz) throws Exception {
+		return provider.getPlugin(clazz);
+	}
+
+	@Override
+	public void registerPlugins() throws Exception {
+		provider.registerPlugins();
+	}
+
+	/**
+	 * @return the wrapped provider
+	 */
+	public AuthProvider getProvider() {
+		return provider;
+	}
+
+	/**
+	 * @return the cache in which responses are kept
+	 */
+	public ResponseCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * @return the hit and miss counters of the cache
+	 */
+	public CacheStatistics getStatistics() {
+		return cache.getStatistics();
+	}
+
+	/**
+	 * @param profileTTL
+	 *            time to live of a cached profile in milliseconds. Profile is
+	 *            not cached if it is 0.
+	 */
+	public void setProfileTTL(final long profileTTL) {
+		this.profileTTL = profileTTL;
+	}
+
+	/**
+	 * @param contactsTTL
+	 *            time to live of a cached contact list in milliseconds.
+	 *            Contacts are not cached if it is 0.
+	 */
+	public void setContactsTTL(final long contactsTTL) {
+		this.contactsTTL = contactsTTL;
+	}
+
+	private void evict(final String... keys) {
+		for (String key : keys) {
+			if (key != null) {
+				cache.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Key is made of provider id, a digest of the access token and the
+	 * resource, so the token itself is never written to a cache backend.
+	 */
+	private String getCacheKey(final String resource) {
+		AccessGrant grant = provider.getAccessGrant();
+		if (grant == null || grant.getKey() == null) {
+			return null;
+		}
+		StringBuilder token = new StringBuilder(grant.getKey());
+		if (grant.getSecret() != null) {
+			token.append('&').append(grant.getSecret());
+		}
+		return provider.getProviderId() + ":" + CacheKeys.digest(token.toString()) + ":"
+				+ resource;
+	}
+
+	/**
+	 * Caches may hand out the stored instance, so callers get a copy which
+	 * they can change without touching the cached profile.
+	 */
+	private static Profile copy(final Profile profile) {
+		Profile p = new Profile();
+		p.setEmail(profile.getEmail());
+		p.setFirstName(profile.getFirstName());
+		p.setLastName(profile.getLastName());
+		p.setCountry(profile.getCountry());
+		p.setLanguage(profile.getLanguage());
+		p.setFullName(profile.getFullName());
+		p.setDisplayName(profile.getDisplayName());
+		if (profile.getDob() != null) {
+			BirthDate dob = new BirthDate();
+			dob.setDay(profile.getDob().getDay());
+			dob.setMonth(profile.getDob().getMonth());
+			dob.setYear(profile.getDob().getYear());
+			p.setDob(dob);
+		}
+		p.setGender(profile.getGender());
+		p.setLocation(profile.getLocation());
+		p.setValidatedId(profile.getValidatedId());
+		p.setProfileImageURL(profile.getProfileImageURL());
+		p.setProviderId(profile.getProviderId());
+		if (profile.getContactInfo() != null) {
+			p.setContactInfo(new HashMap<String, String>(profile
+					.getContactInfo()));
+		}
+		p.setRawResponse(profile.getRawResponse());
+		return p;
+	}
+}
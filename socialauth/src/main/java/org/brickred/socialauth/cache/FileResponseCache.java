@@ -0,0 +1,302 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link ResponseCache} which serializes the values to files in a directory,
+ * so that they stay out of heap and survive a restart. The name of each file
+ * is the SHA-256 digest of the key. When the cache is full, the least recently
+ * used value is deleted.
+ * 
+ * Only the in-memory index is locked, file I/O is done outside of the lock.
+ * A value is written to a temporary file which is then renamed over the
+ * cache file, so a reader sees either the old or the new value.
+ */
+public class FileResponseCache implements ResponseCache {
+
+	private static final String FILE_SUFFIX = ".cache";
+	private static final String TEMP_SUFFIX = ".tmp";
+	private static final Log LOG = LogFactory.getLog(FileResponseCache.class);
+
+	private final File directory;
+	private final int maxEntries;
+	private final LinkedHashMap<String, Long> index;
+	private final CacheStatistics statistics = new CacheStatistics();
+
+	/**
+	 * @param directory
+	 *            directory in which values are stored. It is created if it does
+	 *            not exist.
+	 * @param maxEntries
+	 *            maximum number of files kept in directory
+	 * @throws IOException
+	 *             if directory can not be created
+	 */
+	public FileResponseCache(final File directory, final int maxEntries)
+			throws IOException {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("Max entries must be positive");
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create cache directory "
+					+ directory.getAbsolutePath());
+		}
+		this.directory = directory;
+		this.maxEntries = maxEntries;
+		this.index = new LinkedHashMap<String, Long>(16, 0.75f, true);
+		loadIndex();
+	}
+
+	@Override
+	public Object get(final String key) {
+		String name = fileName(key);
+		Long expiresAt;
+		synchronized (index) {
+			expiresAt = index.get(name);
+			if (expiresAt != null
+					&& expiresAt.longValue() <= System.currentTimeMillis()) {
+				delete(name);
+				statistics.recordEviction();
+				expiresAt = null;
+			}
+		}
+		Object value = null;
+		if (expiresAt != null) {
+			value = read(name);
+		}
+		if (value == null) {
+			statistics.recordMiss();
+			return null;
+		}
+		statistics.recordHit();
+		return value;
+	}
+
+	@Override
+	public void put(final String key, final Serializable value, final long ttl) {
+		if (ttl <= 0) {
+			return;
+		}
+		String name = fileName(key);
+		long expiresAt = System.currentTimeMillis() + ttl;
+		File temp = null;
+		ObjectOutputStream out = null;
+		try {
+			temp = File.createTempFile("put", TEMP_SUFFIX, directory);
+			out = new ObjectOutputStream(new BufferedOutputStream(
+					new FileOutputStream(temp)));
+			out.writeLong(expiresAt);
+			out.writeObject(value);
+			out.close();
+			out = null;
+			replace(temp, new File(directory, name));
+		} catch (IOException e) {
+			LOG.warn("Could not write cache file " + name, e);
+			closeQuietly(out);
+			if (temp != null) {
+				temp.delete();
+			}
+			synchronized (index) {
+				delete(name);
+			}
+			return;
+		}
+		synchronized (index) {
+			index.put(name, Long.valueOf(expiresAt));
+			evict();
+		}
+	}
+
+	@Override
+	public void remove(final String key) {
+		synchronized (index) {
+			delete(fileName(key));
+		}
+	}
+
+	@Override
+	public void clear() {
+		synchronized (index) {
+			for (String name : index.keySet()) {
+				new File(directory, name).delete();
+			}
+			index.clear();
+		}
+	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * @return the directory in which values are stored
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	private void loadIndex() {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		for (File file : files) {
+			String name = file.getName();
+			if (name.endsWith(TEMP_SUFFIX)) {
+				// left over by a put which did not complete
+				file.delete();
+				continue;
+			}
+			if (!name.endsWith(FILE_SUFFIX)) {
+				continue;
+			}
+			long expiresAt = readExpiry(file);
+			if (expiresAt <= now) {
+				file.delete();
+			} else {
+				index.put(name, Long.valueOf(expiresAt));
+			}
+		}
+		evict();
+	}
+
+	/**
+	 * Called with the index locked.
+	 */
+	private void evict() {
+		if (index.size() <= maxEntries) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		for (Iterator<Map.Entry<String, Long>> it = index.entrySet()
+				.iterator(); it.hasNext();) {
+			Map.Entry<String, Long> entry = it.next();
+			if (entry.getValue().longValue() <= now) {
+				new File(directory, entry.getKey()).delete();
+				it.remove();
+				statistics.recordEviction();
+			}
+		}
+		Iterator<String> it = index.keySet().iterator();
+		while (index.size() > maxEntries && it.hasNext()) {
+			new File(directory, it.next()).delete();
+			it.remove();
+			statistics.recordEviction();
+		}
+	}
+
+	private Object read(final String name) {
+		ObjectInputStream in = null;
+		try {
+			in = new ObjectInputStream(new BufferedInputStream(
+					new FileInputStream(new File(directory, name))));
+			in.readLong();
+			return in.readObject();
+		} catch (FileNotFoundException e) {
+			// removed by another thread after the index was checked
+			return null;
+		} catch (Exception e) {
+			LOG.warn("Could not read cache file " + name, e);
+			closeQuietly(in);
+			in = null;
+			synchronized (index) {
+				delete(name);
+			}
+			return null;
+		} finally {
+			closeQuietly(in);
+		}
+	}
+
+	private long readExpiry(final File file) {
+		ObjectInputStream in = null;
+		try {
+			in = new ObjectInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			return in.readLong();
+		} catch (IOException e) {
+			return 0;
+		} finally {
+			closeQuietly(in);
+		}
+	}
+
+	private static void replace(final File source, final File target)
+			throws IOException {
+		try {
+			Files.move(source.toPath(), target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source.toPath(), target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Removes the value from index and disk. Called with the index locked.
+	 */
+	private void delete(final String name) {
+		index.remove(name);
+		new File(directory, name).delete();
+	}
+
+	private static String fileName(final String key) {
+		return CacheKeys.digest(key) + FILE_SUFFIX;
+	}
+
+	private static void closeQuietly(final Closeable c) {
+		if (c != null) {
+			try {
+				c.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.cache;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link ResponseCache} which keeps the values in memory. When the cache is
+ * full, the least recently used value is evicted. Expired values are dropped
+ * when they are read or when they become the least recently used one, so
+ * adding a value takes constant time. Values are kept by reference, so cached
+ * objects should not be modified by the caller.
+ */
+public class InMemoryResponseCache implements ResponseCache {
+
+	/**
+	 * Default maximum number of entries
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	private final int maxEntries;
+	private final LinkedHashMap<String, CacheEntry> entries;
+	private final CacheStatistics statistics = new CacheStatistics();
+
+	/**
+	 * Creates a cache of {@value #DEFAULT_MAX_ENTRIES} entries
+	 */
+	public InMemoryResponseCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            maximum number of entries kept in cache
+	 */
+	public InMemoryResponseCache(final int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("Max entries must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, CacheEntry> eldest) {
+				if (size() > InMemoryResponseCache.this.maxEntries
+						|| eldest.getValue().expiresAt <= System
+								.currentTimeMillis()) {
+					statistics.recordEviction();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public synchronized Object get(final String key) {
+		CacheEntry entry = entries.get(key);
+		if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+			entries.remove(key);
+			statistics.recordEviction();
+			entry = null;
+		}
+		if (entry == null) {
+			statistics.recordMiss();
+			return null;
+		}
+		statistics.recordHit();
+		return entry.value;
+	}
+
+	@Override
+	public synchronized void put(final String key, final Serializable value,
+			final long ttl) {
+		if (ttl <= 0) {
+			return;
+		}
+		entries.put(key, new CacheEntry(value, System.currentTimeMillis() + ttl));
+	}
+
+	@Override
+	public synchronized void remove(final String key) {
+		entries.remove(key);
+	}
+
+	@Override
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * @return number of entries currently in cache, including the expired
+	 *         ones not yet purged
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private static class CacheEntry {
+		private final Object value;
+		private final long expiresAt;
+
+		CacheEntry(final Object value, final long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.cache;
+
+import java.io.Serializable;
+
+/**
+ * Storage used by {@link CachingAuthProvider} to keep provider responses.
+ * Implementations should be thread safe, bound their size and never return an
+ * entry after its time to live is over.
+ * 
+ * Two implementations are available, {@link InMemoryResponseCache} and
+ * {@link FileResponseCache}.
+ */
+public interface ResponseCache {
+
+	/**
+	 * Gets a cached value
+	 * 
+	 * @param key
+	 *            the key of the value
+	 * @return the value or null if it is not cached or is expired
+	 */
+	public Object get(String key);
+
+	/**
+	 * Caches a value
+	 * 
+	 * @param key
+	 *            the key of the value
+	 * @param value
+	 *            the value to cache
+	 * @param ttl
+	 *            time to live of the value in milliseconds
+	 */
+	public void put(String key, Serializable value, long ttl);
+
+	/**
+	 * Removes a value from cache
+	 * 
+	 * @param key
+	 *            the key of the value
+	 */
+	public void remove(String key);
+
+	/**
+	 * Removes all the values from cache
+	 */
+	public void clear();
+
+	/**
+	 * Returns the hit, miss and eviction counters of this cache
+	 * 
+	 * @return the cache statistics
+	 */
+	public CacheStatistics getStatistics();
+}
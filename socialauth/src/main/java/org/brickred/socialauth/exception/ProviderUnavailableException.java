@@ -0,0 +1,69 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.exception;
+
+import java.util.Date;
+
+/**
+ * Thrown without making the request when the provider host has failed
+ * repeatedly and its circuit breaker is open.
+ */
+public class ProviderUnavailableException extends SocialAuthException {
+
+	private static final long serialVersionUID = -5360474251427386127L;
+
+	private final String host;
+	private final long retryTime;
+
+	/**
+	 * @param host
+	 *            the provider host
+	 * @param retryTime
+	 *            time in milliseconds since the epoch at which requests are
+	 *            tried again
+	 */
+	public ProviderUnavailableException(final String host,
+			final long retryTime) {
+		super(host + " is unavailable, requests are tried again after "
+				+ new Date(retryTime));
+		this.host = host;
+		this.retryTime = retryTime;
+	}
+
+	/**
+	 * @return the provider host
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return time in milliseconds since the epoch at which requests are
+	 *         tried again
+	 */
+	public long getRetryTime() {
+		return retryTime;
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.exception;
+
+import java.util.Date;
+
+/**
+ * Thrown when a call is not made because the rate limit of the provider is
+ * exhausted and it would have to wait longer than allowed.
+ */
+public class RateLimitExceededException extends SocialAuthException {
+
+	private static final long serialVersionUID = 2946207214843411650L;
+
+	private final long retryTime;
+
+	/**
+	 * @param message
+	 * @param retryTime
+	 *            time in milliseconds at which the call can be made again
+	 */
+	public RateLimitExceededException(final String message,
+			final long retryTime) {
+		super(message + ", retry after " + new Date(retryTime));
+		this.retryTime = retryTime;
+	}
+
+	/**
+	 * @return time in milliseconds at which the call can be made again
+	 */
+	public long getRetryTime() {
+		return retryTime;
+	}
+}
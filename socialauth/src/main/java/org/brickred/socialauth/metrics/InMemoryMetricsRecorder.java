@@ -0,0 +1,98 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps {@link OperationStats} in memory for every provider and operation
+ * recorded.
+ */
+public class InMemoryMetricsRecorder implements MetricsRecorder {
+
+	private final ConcurrentMap<String, OperationStats> stats = new ConcurrentHashMap<String, OperationStats>();
+
+	@Override
+	public void record(final String providerId, final Operation operation,
+			final long durationNanos, final int status, final long bytes,
+			final Throwable error) {
+		getOrCreate(providerId, operation).record(durationNanos, status,
+				bytes, error);
+	}
+
+	/**
+	 * @return the statistics of given provider and operation, or null if
+	 *         nothing is recorded
+	 */
+	public OperationStats getStats(final String providerId,
+			final Operation operation) {
+		return stats.get(key(providerId, operation));
+	}
+
+	/**
+	 * @return the statistics of all providers and operations
+	 */
+	public List<OperationStats> getAllStats() {
+		return new ArrayList<OperationStats>(stats.values());
+	}
+
+	/**
+	 * Resets all the statistics.
+	 */
+	public void reset() {
+		for (OperationStats s : stats.values()) {
+			s.reset();
+		}
+	}
+
+	/**
+	 * Called once when the statistics of a provider and operation are created.
+	 */
+	protected void created(final OperationStats operationStats) {
+	}
+
+	private OperationStats getOrCreate(final String providerId,
+			final Operation operation) {
+		String key = key(providerId, operation);
+		OperationStats s = stats.get(key);
+		if (s == null) {
+			s = new OperationStats(providerId, operation);
+			OperationStats existing = stats.putIfAbsent(key, s);
+			if (existing != null) {
+				return existing;
+			}
+			created(s);
+		}
+		return s;
+	}
+
+	private static String key(final String providerId,
+			final Operation operation) {
+		return providerId + " " + operation.name();
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Records metrics in memory and registers an {@link OperationStatsMBean} for
+ * every provider and operation with the platform MBean server, named
+ * <code>org.brickred.socialauth:type=Metrics,provider=...,operation=...</code>.
+ * It is enabled by setting "metrics.jmx" property to true.
+ */
+public class JmxMetricsExporter extends InMemoryMetricsRecorder {
+
+	/**
+	 * Domain of the registered MBeans
+	 */
+	public static final String DOMAIN = "org.brickred.socialauth";
+
+	private static final Log LOG = LogFactory.getLog(JmxMetricsExporter.class);
+
+	private final MBeanServer server;
+	private final List<ObjectName> registered = new CopyOnWriteArrayList<ObjectName>();
+
+	public JmxMetricsExporter() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	public JmxMetricsExporter(final MBeanServer server) {
+		this.server = server;
+	}
+
+	@Override
+	protected void created(final OperationStats operationStats) {
+		try {
+			ObjectName name = new ObjectName(DOMAIN + ":type=Metrics,provider="
+					+ ObjectName.quote(operationStats.getProviderId())
+					+ ",operation=" + operationStats.getOperation());
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(operationStats, name);
+			registered.add(name);
+		} catch (Exception e) {
+			LOG.warn("Could not register metrics MBean for "
+					+ operationStats.getProviderId(), e);
+		}
+	}
+
+	/**
+	 * Unregisters all the MBeans registered by this exporter.
+	 */
+	public void close() {
+		for (ObjectName name : registered) {
+			try {
+				server.unregisterMBean(name);
+			} catch (Exception e) {
+				LOG.debug("Could not unregister " + name, e);
+			}
+		}
+		registered.clear();
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.metrics;
+
+import java.util.concurrent.Callable;
+
+import org.brickred.socialauth.util.Response;
+
+/**
+ * Entry point used by the library to measure provider operations. Nothing is
+ * measured till a recorder is set, the no-op default only costs a volatile
+ * read per operation.
+ * 
+ * <pre>
+ * Metrics.setRecorder(new JmxMetricsExporter());
+ * </pre>
+ */
+public final class Metrics {
+
+	private static volatile MetricsRecorder recorder;
+
+	private Metrics() {
+	}
+
+	/**
+	 * Sets the recorder. Null disables the metrics.
+	 * 
+	 * @param metricsRecorder
+	 *            the recorder
+	 */
+	public static void setRecorder(final MetricsRecorder metricsRecorder) {
+		recorder = metricsRecorder;
+	}
+
+	/**
+	 * @return the recorder, or null if metrics are disabled
+	 */
+	public static MetricsRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * @return true if a recorder is set
+	 */
+	public static boolean isEnabled() {
+		return recorder != null;
+	}
+
+	/**
+	 * @return start time to pass to stop or failed, or 0 if metrics are
+	 *         disabled
+	 */
+	public static long start() {
+		return recorder == null ? 0 : System.nanoTime();
+	}
+
+	/**
+	 * Records an operation which returned given response.
+	 */
+	public static void stop(final String providerId,
+			final Operation operation, final long start,
+			final Response response) {
+		MetricsRecorder r = recorder;
+		if (r == null || start == 0) {
+			return;
+		}
+		int status = 0;
+		long bytes = 0;
+		if (response != null) {
+			status = response.getStatus();
+			String length = response.getHeader("Content-Length");
+			if (length != null) {
+				try {
+					bytes = Long.parseLong(length.trim());
+				} catch (NumberFormatException e) {
+					bytes = 0;
+				}
+			}
+		}
+		r.record(providerId, operation, System.nanoTime() - start, status,
+				bytes, null);
+	}
+
+	/**
+	 * Records an operation which failed.
+	 */
+	public static void failed(final String providerId,
+			final Operation operation, final long start, final Throwable error) {
+		MetricsRecorder r = recorder;
+		if (r == null || start == 0) {
+			return;
+		}
+		r.record(providerId, operation, System.nanoTime() - start, 0, 0,
+				error);
+	}
+
+	/**
+	 * Makes the call and records it. A {@link Response} result is recorded
+	 * with its status and size.
+	 * 
+	 * @param providerId
+	 *            the provider id
+	 * @param operation
+	 *            the operation
+	 * @param call
+	 *            the call
+	 * @return result of the call
+	 * @throws Exception
+	 *             exception thrown by the call
+	 */
+	public static <T> T time(final String providerId,
+			final Operation operation, final Callable<T> call)
+			throws Exception {
+		long start = start();
+		if (start == 0) {
+			return call.call();
+		}
+		T result;
+		try {
+			result = call.call();
+		} catch (Exception e) {
+			failed(providerId, operation, start, e);
+			throw e;
+		}
+		stop(providerId, operation, start,
+				result instanceof Response ? (Response) result : null);
+		return result;
+	}
+
+	/**
+	 * Wraps given call so that it is made through {@link #time}.
+	 */
+	public static Callable<Response> timed(final String providerId,
+			final Operation operation, final Callable<Response> call) {
+		return new Callable<Response>() {
+			@Override
+			public Response call() throws Exception {
+				return time(providerId, operation, call);
+			}
+		};
+	}
+}
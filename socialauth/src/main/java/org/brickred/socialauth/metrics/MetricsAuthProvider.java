@@ -0,0 +1,202 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.metrics;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.brickred.socialauth.AuthProvider;
+import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.ContactCursor;
+import org.brickred.socialauth.Permission;
+import org.brickred.socialauth.Profile;
+import org.brickred.socialauth.exception.AccessTokenExpireException;
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.plugin.Plugin;
+import org.brickred.socialauth.util.AccessGrant;
+import org.brickred.socialauth.util.Response;
+
+/**
+ * Decorator of an {@link AuthProvider} which records the time taken to fetch
+ * and parse the user profile and the contacts. Token calls, feeds and uploads
+ * are recorded by the OAuth strategies, so they are passed to the wrapped
+ * provider as it is.
+ * 
+ * <pre>
+ * AuthProvider provider = new MetricsAuthProvider(manager.connect(paramsMap));
+ * </pre>
+ */
+public class MetricsAuthProvider implements AuthProvider {
+
+	private final AuthProvider provider;
+
+	/**
+	 * @param provider
+	 *            the provider to measure
+	 */
+	public MetricsAuthProvider(final AuthProvider provider) {
+		if (provider == null) {
+			throw new IllegalArgumentException("Provider can not be null");
+		}
+		this.provider = provider;
+	}
+
+	@Override
+	public Profile getUserProfile() throws Exception {
+		long start = Metrics.start();
+		Profile profile;
+		try {
+			profile = provider.getUserProfile();
+		} catch (Exception e) {
+			Metrics.failed(provider.getProviderId(), Operation.PROFILE, start,
+					e);
+			throw e;
+		}
+		Metrics.stop(provider.getProviderId(), Operation.PROFILE, start, null);
+		return profile;
+	}
+
+	@Override
+	public List<Contact> getContactList() throws Exception {
+		long start = Metrics.start();
+		List<Contact> contacts;
+		try {
+			contacts = provider.getContactList();
+		} catch (Exception e) {
+			Metrics.failed(provider.getProviderId(), Operation.CONTACTS, start,
+					e);
+			throw e;
+		}
+		Metrics.stop(provider.getProviderId(), Operation.CONTACTS, start, null);
+		return contacts;
+	}
+
+	@Override
+	public ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		long start = Metrics.start();
+		ContactCursor cursor;
+		try {
+			cursor = provider.getContactCursor(pageSize, continuationToken);
+		} catch (Exception e) {
+			Metrics.failed(provider.getProviderId(), Operation.CONTACTS, start,
+					e);
+			throw e;
+		}
+		Metrics.stop(provider.getProviderId(), Operation.CONTACTS, start, null);
+		return cursor;
+	}
+
+	@Override
+	public String getLoginRedirectURL(final String successUrl)
+			throws Exception {
+		return provider.getLoginRedirectURL(successUrl);
+	}
+
+	@Override
+	public Profile verifyResponse(final Map<String, String> requestParams)
+			throws Exception {
+		return provider.verifyResponse(requestParams);
+	}
+
+	@Override
+	public Response updateStatus(final String msg) throws Exception {
+		return provider.updateStatus(msg);
+	}
+
+	@Override
+	public void logout() {
+		provider.logout();
+	}
+
+	@Override
+	public void setPermission(final Permission p) {
+		provider.setPermission(p);
+	}
+
+	@Override
+	public Response api(final String url, final String methodType,
+			final Map<String, String> params,
+			final Map<String, String> headerParams, final String body)
+			throws Exception {
+		return provider.api(url, methodType, params, headerParams, body);
+	}
+
+	@Override
+	public AccessGrant getAccessGrant() {
+		return provider.getAccessGrant();
+	}
+
+	@Override
+	public String getProviderId() {
+		return provider.getProviderId();
+	}
+
+	@Override
+	public void setAccessGrant(final AccessGrant accessGrant)
+			throws AccessTokenExpireException, SocialAuthException {
+		provider.setAccessGrant(accessGrant);
+	}
+
+	@Override
+	public Response uploadImage(final String message, final String fileName,
+			final InputStream inputStream) throws Exception {
+		return provider.uploadImage(message, fileName, inputStream);
+	}
+
+	@Override
+	public boolean isSupportedPlugin(final Class<? extends Plugin> clazz) {
+		return provider.isSupportedPlugin(clazz);
+	}
+
+	@Override
+	public <T> T getPlugin(final Class<T> clazz) throws Exception {
+		return provider.getPlugin(clazz);
+	}
+
+	@Override
+	public void registerPlugins() throws Exception {
+		provider.registerPlugins();
+	}
+
+	@Override
+	public boolean isRefreshSupported() {
+		return provider.isRefreshSupported();
+	}
+
+	@Override
+	public void refreshToken(final AccessGrant accessGrant)
+			throws SocialAuthException {
+		provider.refreshToken(accessGrant);
+	}
+
+	/**
+	 * @return the wrapped provider
+	 */
+	public AuthProvider getProvider() {
+		return provider;
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.metrics;
+
+/**
+ * Receives the measurements of provider operations. Implementations must be
+ * thread safe, they are called from every thread which talks to a provider.
+ * Set the recorder to use with {@link Metrics#setRecorder(MetricsRecorder)}.
+ */
+public interface MetricsRecorder {
+
+	/**
+	 * Records one operation.
+	 * 
+	 * @param providerId
+	 *            the provider id, or the host for {@link Operation#HTTP}
+	 * @param operation
+	 *            the operation
+	 * @param durationNanos
+	 *            time taken in nanoseconds
+	 * @param status
+	 *            HTTP status, or 0 if not known
+	 * @param bytes
+	 *            response size in bytes, or 0 if not known
+	 * @param error
+	 *            the error if operation failed, otherwise null
+	 */
+	public void record(String providerId, Operation operation,
+			long durationNanos, int status, long bytes, Throwable error);
+}
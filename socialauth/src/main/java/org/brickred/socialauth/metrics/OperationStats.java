@@ -0,0 +1,158 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency, byte, status and error counts of one operation of one provider.
+ */
+public class OperationStats implements OperationStatsMBean {
+
+	private final String providerId;
+	private final Operation operation;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong bytes = new AtomicLong();
+	// index is status / 100
+	private final AtomicLongArray statuses = new AtomicLongArray(6);
+
+	public OperationStats(final String providerId, final Operation operation) {
+		this.providerId = providerId;
+		this.operation = operation;
+	}
+
+	/**
+	 * Adds one measurement, see
+	 * {@link MetricsRecorder#record(String, Operation, long, int, long, Throwable)}
+	 */
+	public void record(final long durationNanos, final int status,
+			final long bytes, final Throwable error) {
+		latency.record(durationNanos);
+		if (error != null) {
+			errors.incrementAndGet();
+		}
+		if (bytes > 0) {
+			this.bytes.addAndGet(bytes);
+		}
+		int statusClass = status / 100;
+		if (statusClass > 0 && statusClass < 6) {
+			statuses.incrementAndGet(statusClass);
+		}
+	}
+
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	@Override
+	public String getProviderId() {
+		return providerId;
+	}
+
+	@Override
+	public String getOperation() {
+		return operation.name();
+	}
+
+	@Override
+	public long getCount() {
+		return latency.getCount();
+	}
+
+	@Override
+	public long getErrorCount() {
+		return errors.get();
+	}
+
+	@Override
+	public long getBytes() {
+		return bytes.get();
+	}
+
+	@Override
+	public double getMeanMillis() {
+		return latency.getMeanMillis();
+	}
+
+	@Override
+	public double getMaxMillis() {
+		return latency.getMaxMillis();
+	}
+
+	@Override
+	public double get50thPercentileMillis() {
+		return latency.getPercentileMillis(50);
+	}
+
+	@Override
+	public double get95thPercentileMillis() {
+		return latency.getPercentileMillis(95);
+	}
+
+	@Override
+	public double get99thPercentileMillis() {
+		return latency.getPercentileMillis(99);
+	}
+
+	@Override
+	public long getStatus2xxCount() {
+		return statuses.get(2);
+	}
+
+	@Override
+	public long getStatus3xxCount() {
+		return statuses.get(3);
+	}
+
+	@Override
+	public long getStatus4xxCount() {
+		return statuses.get(4);
+	}
+
+	@Override
+	public long getStatus5xxCount() {
+		return statuses.get(5);
+	}
+
+	@Override
+	public void reset() {
+		latency.reset();
+		errors.set(0);
+		bytes.set(0);
+		for (int i = 0; i < 6; i++) {
+			statuses.set(i, 0);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return providerId + " " + operation + " [count=" + getCount()
+				+ ", errors=" + getErrorCount() + ", mean=" + getMeanMillis()
+				+ "ms, p95=" + get95thPercentileMillis() + "ms, max="
+				+ getMaxMillis() + "ms, bytes=" + getBytes() + "]";
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.metrics;
+
+/**
+ * JMX view of {@link OperationStats}
+ */
+public interface OperationStatsMBean {
+
+	public String getProviderId();
+
+	public String getOperation();
+
+	public long getCount();
+
+	public long getErrorCount();
+
+	public long getBytes();
+
+	public double getMeanMillis();
+
+	public double getMaxMillis();
+
+	public double get50thPercentileMillis();
+
+	public double get95thPercentileMillis();
+
+	public double get99thPercentileMillis();
+
+	public long getStatus2xxCount();
+
+	public long getStatus3xxCount();
+
+	public long getStatus4xxCount();
+
+	public long getStatus5xxCount();
+
+	public void reset();
+}
@@ -0,0 +1,96 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.oauthstrategy;
+
+import java.util.concurrent.Callable;
+
+import org.brickred.socialauth.util.Response;
+import org.brickred.socialauth.util.SingleFlight;
+
+/**
+ * Coalesces identical GET feed requests made at the same time with the same
+ * access token, so that only one request goes to the provider and the other
+ * callers get a copy of its response. Responses which are shared are read
+ * fully into memory, a request which is not shared is not buffered.
+ */
+public final class FeedRequestCoalescer {
+
+	private static final SingleFlight<String, Response> FLIGHTS = new SingleFlight<String, Response>();
+	private static final SingleFlight.Sharer<Response> BUFFER = new SingleFlight.Sharer<Response>() {
+		@Override
+		public Response share(final Response response) throws Exception {
+			return response.buffer();
+		}
+	};
+	private static volatile boolean enabled = true;
+
+	private FeedRequestCoalescer() {
+	}
+
+	/**
+	 * Executes the GET request, or waits for the same request which is
+	 * already in flight.
+	 * 
+	 * @param url
+	 *            the feed URL
+	 * @param token
+	 *            the access token of the caller
+	 * @param call
+	 *            makes the request
+	 * @return the response
+	 * @throws Exception
+	 */
+	public static Response get(final String url, final String token,
+			final Callable<Response> call) throws Exception {
+		if (!enabled || token == null) {
+			return call.call();
+		}
+		return FLIGHTS.execute("GET " + url + " " + token, call, BUFFER);
+	}
+
+	/**
+	 * Enables or disables coalescing of requests. It is enabled by default.
+	 * 
+	 * @param enable
+	 *            false to send every request
+	 */
+	public static void setEnabled(final boolean enable) {
+		enabled = enable;
+	}
+
+	/**
+	 * @return true if requests are coalesced
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return number of requests which used the response of another request
+	 */
+	public static long getSharedCount() {
+		return FLIGHTS.getSharedCount();
+	}
+}
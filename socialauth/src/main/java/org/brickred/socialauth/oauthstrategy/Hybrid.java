@@ -29,6 +29,7 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,12 +37,15 @@ import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.exception.ProviderStateException;
 import org.brickred.socialauth.exception.SocialAuthConfigurationException;
 import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.metrics.Metrics;
+import org.brickred.socialauth.metrics.Operation;
 import org.brickred.socialauth.util.AccessGrant;
 import org.brickred.socialauth.util.Constants;
 import org.brickred.socialauth.util.HttpUtil;
 import org.brickred.socialauth.util.MethodType;
 import org.brickred.socialauth.util.OAuthConfig;
 import org.brickred.socialauth.util.OAuthConsumer;
+import org.brickred.socialauth.util.RateLimiter;
 import org.brickred.socialauth.util.OpenIdConsumer;
 import org.brickred.socialauth.util.Response;
 
@@ -70,17 +74,26 @@ public class Hybrid implements OAuthStrategyBase {
 	public String getLoginRedirectURL(final String successUrl) throws Exception {
 		String associationURL = OpenIdConsumer.getAssociationURL(endpoints
 				.get(Constants.OAUTH_REQUEST_TOKEN_URL));
-		Response r = HttpUtil.doHttpRequest(associationURL,
-				MethodType.GET.toString(), null, null);
+		long start = Metrics.start();
+		Response r;
+		try {
+			r = HttpUtil.doHttpRequest(associationURL,
+					MethodType.GET.toString(), null, null);
+		} catch (SocialAuthException e) {
+			Metrics.failed(providerId, Operation.REQUEST_TOKEN, start, e);
+			throw e;
+		}
+		Metrics.stop(providerId, Operation.REQUEST_TOKEN, start, r);
 		StringBuffer sb = new StringBuffer();
 		String assocHandle = "";
+		BufferedReader reader = null;
 		try {
-			BufferedReader reader = new BufferedReader(new InputStreamReader(
-					r.getInputStream(), "UTF-8"));
+			reader = new BufferedReader(new InputStreamReader(
+					r.getResponseBodyAsStream(), "UTF-8"));
 			String line = null;
 			while ((line = reader.readLine()) != null) {
 				sb.append(line).append("\n");
-				if ("assoc_handle:".equals(line.substring(0, 13))) {
+				if (line.startsWith("assoc_handle:")) {
 					assocHandle = line.substring(13);
 					break;
 				}
@@ -88,6 +101,12 @@ public class Hybrid implements OAuthStrategyBase {
 			LOG.debug("ASSOCCIATION : " + assocHandle);
 		} catch (Exception exc) {
 			throw new SocialAuthException("Failed to read response from  ");
+		} finally {
+			// gives the connection back even if the body is not read fully
+			if (reader != null) {
+				reader.close();
+			}
+			r.close();
 		}
 
 		String realm;
@@ -125,6 +144,18 @@ public class Hybrid implements OAuthStrategyBase {
 	@Override
 	public AccessGrant verifyResponse(final Map<String, String> requestParams,
 			final String methodType) throws Exception {
+		return Metrics.time(providerId, Operation.ACCESS_TOKEN,
+				new Callable<AccessGrant>() {
+					@Override
+					public AccessGrant call() throws Exception {
+						return doVerifyResponse(requestParams, methodType);
+					}
+				});
+	}
+
+	private AccessGrant doVerifyResponse(
+			final Map<String, String> requestParams, final String methodType)
+			throws Exception {
 		if (!providerState) {
 			throw new ProviderStateException();
 		}
@@ -175,7 +206,17 @@ public class Hybrid implements OAuthStrategyBase {
 			throw new SocialAuthException(
 					"Please call verifyResponse function first to get Access Token");
 		}
-		return oauth.httpGet(url, null, accessToken);
+		final AccessGrant token = accessToken;
+		return FeedRequestCoalescer.get(url, token.getKey(), RateLimiter
+				.getDefault().limit(
+						RateLimiter.key(providerId, token.getKey(), url),
+						Metrics.timed(providerId, Operation.FEED,
+								new Callable<Response>() {
+									@Override
+									public Response call() throws Exception {
+										return oauth.httpGet(url, null, token);
+									}
+								})));
 	}
 
 	@Override
@@ -183,11 +224,27 @@ public class Hybrid implements OAuthStrategyBase {
 			final Map<String, String> params,
 			final Map<String, String> headerParams, final String body)
 			throws Exception {
-		Response response = null;
 		if (accessToken == null) {
 			throw new SocialAuthException(
 					"Please call verifyResponse function first to get Access Token");
 		}
+		return RateLimiter.getDefault().execute(
+				RateLimiter.key(providerId, accessToken.getKey(), url),
+				Metrics.timed(providerId, Operation.FEED,
+						new Callable<Response>() {
+							@Override
+							public Response call() throws Exception {
+								return doExecuteFeed(url, methodType, params,
+										headerParams, body);
+							}
+						}));
+	}
+
+	private Response doExecuteFeed(final String url, final String methodType,
+			final Map<String, String> params,
+			final Map<String, String> headerParams, final String body)
+			throws Exception {
+		Response response = null;
 		if (MethodType.GET.toString().equals(methodType)) {
 			try {
 				response = oauth.httpGet(url, headerParams, accessToken);
@@ -243,8 +300,15 @@ public class Hybrid implements OAuthStrategyBase {
 			final Map<String, String> headerParams, final String fileName,
 			final InputStream inputStream, final String fileParamName)
 			throws Exception {
-		return oauth.uploadImage(url, params, headerParams, inputStream,
-				fileParamName, fileName, methodType, accessToken, true);
+		return Metrics.time(providerId, Operation.UPLOAD,
+				new Callable<Response>() {
+					@Override
+					public Response call() throws Exception {
+						return oauth.uploadImage(url, params, headerParams,
+								inputStream, fileParamName, fileName,
+								methodType, accessToken, true);
+					}
+				});
 	}
 
 	@Override
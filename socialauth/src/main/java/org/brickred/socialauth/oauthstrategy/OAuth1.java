@@ -27,17 +27,21 @@ package org.brickred.socialauth.oauthstrategy;
 
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.exception.ProviderStateException;
 import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.metrics.Metrics;
+import org.brickred.socialauth.metrics.Operation;
 import org.brickred.socialauth.util.AccessGrant;
 import org.brickred.socialauth.util.Constants;
 import org.brickred.socialauth.util.MethodType;
 import org.brickred.socialauth.util.OAuthConfig;
 import org.brickred.socialauth.util.OAuthConsumer;
+import org.brickred.socialauth.util.RateLimiter;
 import org.brickred.socialauth.util.Response;
 
 public class OAuth1 implements OAuthStrategyBase {
@@ -72,8 +76,16 @@ public class OAuth1 implements OAuthStrategyBase {
 		LOG.info("Determining URL for redirection");
 		providerState = true;
 		LOG.debug("Call to fetch Request Token");
-		requestToken = oauth.getRequestToken(
-				endpoints.get(Constants.OAUTH_REQUEST_TOKEN_URL), successUrl);
+		long start = Metrics.start();
+		try {
+			requestToken = oauth.getRequestToken(
+					endpoints.get(Constants.OAUTH_REQUEST_TOKEN_URL),
+					successUrl);
+		} catch (Exception e) {
+			Metrics.failed(providerId, Operation.REQUEST_TOKEN, start, e);
+			throw e;
+		}
+		Metrics.stop(providerId, Operation.REQUEST_TOKEN, start, null);
 		String authUrl = endpoints.get(Constants.OAUTH_AUTHORIZATION_URL);
 		if (scope != null) {
 			if (scope.contains("=")) {
@@ -99,6 +111,18 @@ public class OAuth1 implements OAuthStrategyBase {
 	@Override
 	public AccessGrant verifyResponse(final Map<String, String> requestParams,
 			final String methodType) throws Exception {
+		return Metrics.time(providerId, Operation.ACCESS_TOKEN,
+				new Callable<AccessGrant>() {
+					@Override
+					public AccessGrant call() throws Exception {
+						return doVerifyResponse(requestParams, methodType);
+					}
+				});
+	}
+
+	private AccessGrant doVerifyResponse(
+			final Map<String, String> requestParams, final String methodType)
+			throws Exception {
 		LOG.info("Verifying the authentication response from provider");
 		if (!providerState) {
 			throw new ProviderStateException();
@@ -136,7 +160,17 @@ public class OAuth1 implements OAuthStrategyBase {
 
 	@Override
 	public Response executeFeed(final String url) throws Exception {
-		return oauth.httpGet(url, null, accessToken);
+		final AccessGrant token = accessToken;
+		String tokenKey = token == null ? null : token.getKey();
+		return FeedRequestCoalescer.get(url, tokenKey, RateLimiter.getDefault()
+				.limit(RateLimiter.key(providerId, tokenKey, url),
+						Metrics.timed(providerId, Operation.FEED,
+								new Callable<Response>() {
+									@Override
+									public Response call() throws Exception {
+										return oauth.httpGet(url, null, token);
+									}
+								})));
 	}
 
 	@Override
@@ -144,11 +178,27 @@ public class OAuth1 implements OAuthStrategyBase {
 			final Map<String, String> params,
 			final Map<String, String> headerParams, final String body)
 			throws Exception {
-		Response response = null;
 		if (accessToken == null) {
 			throw new SocialAuthException(
 					"Please call verifyResponse function first to get Access Token");
 		}
+		return RateLimiter.getDefault().execute(
+				RateLimiter.key(providerId, accessToken.getKey(), urlStr),
+				Metrics.timed(providerId, Operation.FEED,
+						new Callable<Response>() {
+							@Override
+							public Response call() throws Exception {
+								return doExecuteFeed(urlStr, methodType, params,
+										headerParams, body);
+							}
+						}));
+	}
+
+	private Response doExecuteFeed(final String urlStr, final String methodType,
+			final Map<String, String> params,
+			final Map<String, String> headerParams, final String body)
+			throws Exception {
+		Response response = null;
 		if (MethodType.GET.toString().equals(methodType)) {
 			try {
 				response = oauth.httpGet(urlStr, headerParams, accessToken);
@@ -200,8 +250,15 @@ public class OAuth1 implements OAuthStrategyBase {
 			final Map<String, String> headerParams, final String fileName,
 			final InputStream inputStream, final String fileParamName)
 			throws Exception {
-		return oauth.uploadImage(url, params, headerParams, inputStream,
-				fileParamName, fileName, methodType, accessToken, true);
+		return Metrics.time(providerId, Operation.UPLOAD,
+				new Callable<Response>() {
+					@Override
+					public Response call() throws Exception {
+						return oauth.uploadImage(url, params, headerParams,
+								inputStream, fileParamName, fileName,
+								methodType, accessToken, true);
+					}
+				});
 	}
 
 	@Override
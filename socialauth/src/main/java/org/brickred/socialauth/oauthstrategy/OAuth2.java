@@ -30,6 +30,8 @@ import org.apache.commons.logging.LogFactory;
 import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.exception.ProviderStateException;
 import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.metrics.Metrics;
+import org.brickred.socialauth.metrics.Operation;
 import org.brickred.socialauth.util.*;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -41,12 +43,13 @@ import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 public class OAuth2 implements OAuthStrategyBase {
 
 	private static final long serialVersionUID = -8431902665718727947L;
 	private final Log LOG = LogFactory.getLog(OAuth2.class);
-	private AccessGrant accessGrant;
+	private volatile AccessGrant accessGrant;
 	private OAuthConsumer oauth;
 	private boolean providerState;
 	private Map<String, String> endpoints;
@@ -113,6 +116,18 @@ public class OAuth2 implements OAuthStrategyBase {
 	@Override
 	public AccessGrant verifyResponse(final Map<String, String> requestParams,
 			final String methodType) throws Exception {
+		return Metrics.time(providerId, Operation.ACCESS_TOKEN,
+				new Callable<AccessGrant>() {
+					@Override
+					public AccessGrant call() throws Exception {
+						return doVerifyResponse(requestParams, methodType);
+					}
+				});
+	}
+
+	private AccessGrant doVerifyResponse(
+			final Map<String, String> requestParams, final String methodType)
+			throws Exception {
 		LOG.info("Verifying the authentication response from provider");
 
 		if (requestParams.get("access_token") != null) {
@@ -124,7 +139,7 @@ public class OAuth2 implements OAuthStrategyBase {
 			}
 			accessGrant = new AccessGrant();
 			accessGrant.setKey(accessToken);
-			accessGrant.setAttribute(Constants.EXPIRES, expires);
+			accessGrant.setExpires(expires);
 			if (permission != null) {
 				accessGrant.setPermission(permission);
 			} else {
@@ -192,7 +207,8 @@ public class OAuth2 implements OAuthStrategyBase {
 		}
 		String result;
 		try {
-			result = response.getResponseBodyAsString(Constants.ENCODING);
+			result = response.getResponseBodyAsString(Constants.ENCODING)
+					.trim();
 		} catch (IOException io) {
 			throw new SocialAuthException(io);
 		}
@@ -254,7 +270,7 @@ public class OAuth2 implements OAuthStrategyBase {
 		if (accessToken != null) {
 			accessGrant = new AccessGrant();
 			accessGrant.setKey(accessToken);
-			accessGrant.setAttribute(Constants.EXPIRES, expires);
+			accessGrant.setExpires(expires);
 			if (attributes.size() > 0) {
 				accessGrant.setAttributes(attributes);
 			}
@@ -288,11 +304,21 @@ public class OAuth2 implements OAuthStrategyBase {
 					"Please call verifyResponse function first to get Access Token");
 		}
 		char separator = url.indexOf('?') == -1 ? '?' : '&';
-		String urlStr = url + separator + accessTokenParameterName + "="
-				+ accessGrant.getKey();
+		final String token = accessGrant.getKey();
+		final String urlStr = url + separator + accessTokenParameterName + "="
+				+ token;
 		LOG.debug("Calling URL : " + urlStr);
-		return HttpUtil.doHttpRequest(urlStr, MethodType.GET.toString(), null,
-				null);
+		return FeedRequestCoalescer.get(url, token, RateLimiter.getDefault()
+				.limit(RateLimiter.key(providerId, token, url),
+						Metrics.timed(providerId, Operation.FEED,
+								new Callable<Response>() {
+									@Override
+									public Response call() throws Exception {
+										return HttpUtil.doHttpRequest(urlStr,
+												MethodType.GET.toString(),
+												null, null);
+									}
+								})));
 	}
 
 	@Override
@@ -304,6 +330,22 @@ public class OAuth2 implements OAuthStrategyBase {
 			throw new SocialAuthException(
 					"Please call verifyResponse function first to get Access Token");
 		}
+		return RateLimiter.getDefault().execute(
+				RateLimiter.key(providerId, accessGrant.getKey(), url),
+				Metrics.timed(providerId, Operation.FEED,
+						new Callable<Response>() {
+							@Override
+							public Response call() throws Exception {
+								return doExecuteFeed(url, methodType, params,
+										headerParams, body);
+							}
+						}));
+	}
+
+	private Response doExecuteFeed(final String url, final String methodType,
+			final Map<String, String> params,
+			final Map<String, String> headerParams, final String body)
+			throws Exception {
 		String reqURL = url;
 		String bodyStr = body;
 		StringBuffer sb = new StringBuffer();
@@ -379,13 +421,19 @@ public class OAuth2 implements OAuthStrategyBase {
 			final Map<String, String> headerParams, final String fileName,
 			final InputStream inputStream, final String fileParamName)
 			throws Exception {
-		Map<String, String> map = new HashMap<String, String>();
+		final Map<String, String> map = new HashMap<String, String>();
 		map.put(accessTokenParameterName, accessGrant.getKey());
 		if (params != null && params.size() > 0) {
 			map.putAll(params);
 		}
-		return HttpUtil.doHttpRequest(url, methodType, map, headerParams,
-				inputStream, fileName, null);
+		return Metrics.time(providerId, Operation.UPLOAD,
+				new Callable<Response>() {
+					@Override
+					public Response call() throws Exception {
+						return HttpUtil.doHttpRequest(url, methodType, map,
+								headerParams, inputStream, fileName, null);
+					}
+				});
 	}
 
 	@Override
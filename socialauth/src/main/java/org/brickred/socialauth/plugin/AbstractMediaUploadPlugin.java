@@ -0,0 +1,219 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.plugin;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.UploadSession;
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.ProviderSupport;
+import org.brickred.socialauth.util.Response;
+import org.brickred.socialauth.util.UploadProgressListener;
+
+/**
+ * Base class for media upload plugins. It drives the init, transfer and
+ * finish phases of an upload and provides retries and progress reporting.
+ * Providers which accept independent chunks extend
+ * {@link ChunkedMediaUploadPlugin}; providers which tell the next range to
+ * send extend {@link SequentialMediaUploadPlugin}.
+ */
+public abstract class AbstractMediaUploadPlugin implements MediaUploadPlugin,
+		Serializable {
+
+	private static final long serialVersionUID = 3017263164431337447L;
+	private static final int MAX_CHUNK_RETRIES = 2;
+	private static final long RETRY_BACKOFF = 500;
+
+	protected final Log LOG = LogFactory.getLog(this.getClass());
+
+	protected ProviderSupport providerSupport;
+	private final int defaultChunkSize;
+
+	protected AbstractMediaUploadPlugin(final ProviderSupport providerSupport,
+			final int defaultChunkSize) {
+		this.providerSupport = providerSupport;
+		this.defaultChunkSize = defaultChunkSize;
+	}
+
+	@Override
+	public UploadSession upload(final File file, final String mediaType,
+			final String message) throws Exception {
+		return resume(start(file, mediaType, message), file);
+	}
+
+	@Override
+	public UploadSession start(final File file, final String mediaType,
+			final String message) throws Exception {
+		return start(file, mediaType, message, defaultChunkSize);
+	}
+
+	/**
+	 * Registers a new upload which is split into chunks of given size.
+	 */
+	protected UploadSession start(final File file, final String mediaType,
+			final String message, final int chunkSize) throws Exception {
+		if (!file.isFile()) {
+			throw new SocialAuthException("File not found : " + file);
+		}
+		UploadSession session = new UploadSession(file.getName(), mediaType,
+				message, file.length(), chunkSize);
+		init(session);
+		LOG.debug("Upload started for " + session.getFileName()
+				+ " with media id " + session.getMediaId());
+		return session;
+	}
+
+	@Override
+	public UploadSession resume(final UploadSession session, final File file)
+			throws Exception {
+		return resume(session, file, 1);
+	}
+
+	/**
+	 * Sends the remaining content with up to given number of concurrent
+	 * requests and finalizes the upload.
+	 */
+	protected UploadSession resume(final UploadSession session,
+			final File file, final int parallelism) throws Exception {
+		if (session.isFinished()) {
+			return session;
+		}
+		if (file.length() != session.getTotalBytes()) {
+			throw new SocialAuthException("Size of " + file
+					+ " does not match the upload session");
+		}
+		FileInputStream in = new FileInputStream(file);
+		try {
+			transfer(session, in.getChannel(), parallelism);
+		} finally {
+			in.close();
+		}
+		finish(session);
+		session.setFinished(true);
+		LOG.debug("Upload finished for " + session.getFileName());
+		return session;
+	}
+
+	/**
+	 * Registers the upload with the provider and stores the ids it returns in
+	 * the session.
+	 */
+	protected abstract void init(UploadSession session) throws Exception;
+
+	/**
+	 * Completes the upload once all the content is acknowledged.
+	 */
+	protected abstract void finish(UploadSession session) throws Exception;
+
+	/**
+	 * Sends the content of the file which has not been acknowledged yet,
+	 * using at most <code>parallelism</code> concurrent requests.
+	 */
+	protected abstract void transfer(UploadSession session,
+			FileChannel channel, int parallelism) throws Exception;
+
+	/**
+	 * Reads given range of the file into the buffer. Positional reads are
+	 * used so that concurrent chunks can share the channel.
+	 */
+	protected void read(final FileChannel channel, final long position,
+			final byte[] buffer, final int length) throws IOException {
+		ByteBuffer bb = ByteBuffer.wrap(buffer, 0, length);
+		while (bb.hasRemaining()) {
+			if (channel.read(bb, position + bb.position()) < 0) {
+				throw new EOFException("File is shorter than expected");
+			}
+		}
+	}
+
+	/**
+	 * Makes the call, retrying it with backoff if it fails.
+	 */
+	protected <T> T withRetries(final String name, final Callable<T> call)
+			throws Exception {
+		for (int attempt = 0;; attempt++) {
+			try {
+				return call.call();
+			} catch (Exception e) {
+				if (attempt >= MAX_CHUNK_RETRIES) {
+					throw e;
+				}
+				LOG.warn("Retrying " + name + " after error : "
+						+ e.getMessage());
+				Thread.sleep(RETRY_BACKOFF << attempt);
+			}
+		}
+	}
+
+	/**
+	 * Notifies the progress listener of the session, if any.
+	 */
+	protected void fireProgress(final UploadSession session) {
+		UploadProgressListener listener = session.getProgressListener();
+		if (listener != null) {
+			listener.progress(session.getFileName(),
+					session.getAcknowledgedBytes(), session.getTotalBytes());
+		}
+	}
+
+	/**
+	 * Returns the response body, failing if the provider returned an error
+	 * status.
+	 */
+	protected String readBody(final Response response, final String url)
+			throws Exception {
+		try {
+			int status = response.getStatus();
+			if (status >= 400) {
+				throw new SocialAuthException("Upload request to " + url
+						+ " failed with status " + status + " : "
+						+ response.getErrorStreamAsString(Constants.ENCODING));
+			}
+			return response.getResponseBodyAsString(Constants.ENCODING);
+		} finally {
+			response.close();
+		}
+	}
+
+	@Override
+	public ProviderSupport getProviderSupport() {
+		return providerSupport;
+	}
+
+	@Override
+	public void setProviderSupport(final ProviderSupport providerSupport) {
+		this.providerSupport = providerSupport;
+	}
+}
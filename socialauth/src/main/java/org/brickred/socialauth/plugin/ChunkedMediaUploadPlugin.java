@@ -0,0 +1,193 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.plugin;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+
+import org.brickred.socialauth.AsyncAuthProvider;
+import org.brickred.socialauth.UploadSession;
+import org.brickred.socialauth.util.BatchExecutor;
+import org.brickred.socialauth.util.ProviderSupport;
+
+/**
+ * Base class for providers which accept the chunks of a file by index. The
+ * file is read in chunks of the size given when the upload is started,
+ * independent chunks are sent concurrently when asked for, failed chunks are
+ * retried and the acknowledged ones are kept in the {@link UploadSession}.
+ * Concurrent chunks run on the shared
+ * {@link AsyncAuthProvider#getDefaultExecutor()} besides the calling thread.
+ */
+public abstract class ChunkedMediaUploadPlugin extends
+		AbstractMediaUploadPlugin {
+
+	private static final long serialVersionUID = -2289035470178531628L;
+
+	protected ChunkedMediaUploadPlugin(final ProviderSupport providerSupport,
+			final int defaultChunkSize) {
+		super(providerSupport, defaultChunkSize);
+	}
+
+	/**
+	 * Registers a new upload which is split into chunks of given size.
+	 * 
+	 * @param file
+	 *            the file to upload
+	 * @param mediaType
+	 *            MIME type of the file
+	 * @param message
+	 *            message to publish with the media, may be null
+	 * @param chunkSize
+	 *            chunk size in bytes
+	 * @return the upload session
+	 * @throws Exception
+	 */
+	@Override
+	public UploadSession start(final File file, final String mediaType,
+			final String message, final int chunkSize) throws Exception {
+		if (chunkSize <= 0 || chunkSize > getMaxChunkSize()) {
+			throw new IllegalArgumentException(
+					"Chunk size must be between 1 and " + getMaxChunkSize()
+							+ " bytes");
+		}
+		return super.start(file, mediaType, message, chunkSize);
+	}
+
+	/**
+	 * Sends the chunks which have not been acknowledged yet, up to given
+	 * number at a time, and finalizes the upload. The parallelism is capped
+	 * by what the provider accepts.
+	 * 
+	 * @param session
+	 *            session returned by {@link #start} or a previous attempt
+	 * @param file
+	 *            the file being uploaded
+	 * @param parallelism
+	 *            number of concurrent chunk requests
+	 * @return the finished upload session
+	 * @throws Exception
+	 */
+	@Override
+	public UploadSession resume(final UploadSession session, final File file,
+			final int parallelism) throws Exception {
+		return super.resume(session, file, parallelism);
+	}
+
+	/**
+	 * Sends one chunk. Called concurrently for different chunks if
+	 * parallelism is greater than one.
+	 * 
+	 * @param session
+	 *            the upload session
+	 * @param index
+	 *            chunk index
+	 * @param data
+	 *            chunk content
+	 * @param length
+	 *            number of bytes of data to send
+	 */
+	protected abstract void appendChunk(UploadSession session, int index,
+			byte[] data, int length) throws Exception;
+
+	/**
+	 * Returns the largest number of concurrent chunk requests the provider
+	 * accepts.
+	 */
+	protected int getMaxParallelism() {
+		return 1;
+	}
+
+	/**
+	 * Returns the largest chunk size the provider accepts.
+	 */
+	protected int getMaxChunkSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Sends all the chunks which have not been acknowledged yet.
+	 */
+	@Override
+	protected void transfer(final UploadSession session,
+			final FileChannel channel, final int parallelism) throws Exception {
+		final List<Integer> pending = new ArrayList<Integer>();
+		for (int i = 0; i < session.getChunkCount(); i++) {
+			if (!session.isAcknowledged(i)) {
+				pending.add(i);
+			}
+		}
+		int threads = Math.max(1, Math.min(
+				Math.min(parallelism, getMaxParallelism()), pending.size()));
+		if (threads == 1) {
+			byte[] buffer = new byte[session.getChunkSize()];
+			for (int index : pending) {
+				sendChunk(session, channel, index, buffer);
+			}
+			return;
+		}
+		final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(
+				threads);
+		new BatchExecutor(AsyncAuthProvider.getDefaultExecutor(), threads)
+				.execute(pending.size(), new BatchExecutor.Batch<Void>() {
+					@Override
+					public Void call(final int i) throws Exception {
+						byte[] buffer = buffers.poll();
+						if (buffer == null) {
+							buffer = new byte[session.getChunkSize()];
+						}
+						try {
+							sendChunk(session, channel, pending.get(i), buffer);
+						} finally {
+							buffers.offer(buffer);
+						}
+						return null;
+					}
+				});
+	}
+
+	private void sendChunk(final UploadSession session,
+			final FileChannel channel, final int index, final byte[] buffer)
+			throws Exception {
+		final long position = (long) index * session.getChunkSize();
+		final int length = (int) Math.min(session.getChunkSize(),
+				session.getTotalBytes() - position);
+		read(channel, position, buffer, length);
+		withRetries("chunk " + index + " of " + session.getFileName(),
+				new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						appendChunk(session, index, buffer, length);
+						return null;
+					}
+				});
+		session.acknowledge(index);
+		fireProgress(session);
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.plugin;
+
+import java.io.File;
+
+import org.brickred.socialauth.UploadSession;
+
+/**
+ * Provides the functionality to upload large media files in chunks. If an
+ * upload fails part way, the returned or stored {@link UploadSession} can be
+ * passed to {@link #resume(UploadSession, File)} to continue from the last
+ * chunk acknowledged by the provider. To follow the progress of an upload,
+ * set a listener on the session returned by {@link #start} before resuming
+ * it.
+ */
+public interface MediaUploadPlugin extends Plugin {
+
+	/**
+	 * Uploads the given file and publishes it with given message.
+	 * 
+	 * @param file
+	 *            the file to upload
+	 * @param mediaType
+	 *            MIME type of the file, for example video/mp4
+	 * @param message
+	 *            message to publish with the media, may be null
+	 * @return the finished upload session
+	 * @throws Exception
+	 */
+	public UploadSession upload(File file, String mediaType, String message)
+			throws Exception;
+
+	/**
+	 * Registers a new upload with the provider without sending any content.
+	 * 
+	 * @param file
+	 *            the file to upload
+	 * @param mediaType
+	 *            MIME type of the file
+	 * @param message
+	 *            message to publish with the media, may be null
+	 * @return the upload session
+	 * @throws Exception
+	 */
+	public UploadSession start(File file, String mediaType, String message)
+			throws Exception;
+
+	/**
+	 * Sends the chunks of the file which have not been acknowledged yet and
+	 * finalizes the upload.
+	 * 
+	 * @param session
+	 *            session returned by {@link #start} or a previous attempt
+	 * @param file
+	 *            the file being uploaded
+	 * @return the finished upload session
+	 * @throws Exception
+	 */
+	public UploadSession resume(UploadSession session, File file)
+			throws Exception;
+}
@@ -0,0 +1,143 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.plugin;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+import org.brickred.socialauth.UploadSession;
+import org.brickred.socialauth.util.ProviderSupport;
+
+/**
+ * Base class for providers which tell the range of the file to send next in
+ * the response to each request, so the ranges are sent one after another.
+ * Each range is streamed from the file rather than held in memory. As the
+ * provider sets the boundaries, the chunk size can not be chosen and the
+ * ranges are always sent one at a time.
+ */
+public abstract class SequentialMediaUploadPlugin extends
+		AbstractMediaUploadPlugin {
+
+	private static final long serialVersionUID = 6126493104856317094L;
+
+	protected SequentialMediaUploadPlugin(
+			final ProviderSupport providerSupport, final int chunkSize) {
+		super(providerSupport, chunkSize);
+	}
+
+	/**
+	 * Sends one range of the file.
+	 * 
+	 * @param session
+	 *            the upload session
+	 * @param start
+	 *            offset of the range in the file
+	 * @param data
+	 *            content of the range
+	 * @param length
+	 *            number of bytes in the range
+	 * @return the response body
+	 */
+	protected abstract String sendRange(UploadSession session, long start,
+			InputStream data, long length) throws Exception;
+
+	/**
+	 * Reads the next range from a response and sets it in the session.
+	 */
+	protected abstract void readRange(UploadSession session, String body)
+			throws Exception;
+
+	/**
+	 * Sends the ranges asked by the provider until it has the whole file.
+	 * Parallelism is ignored as each range is known only after the previous
+	 * one is sent.
+	 */
+	@Override
+	protected void transfer(final UploadSession session,
+			final FileChannel channel, final int parallelism) throws Exception {
+		while (session.getOffset() < session.getEndOffset()) {
+			final long start = session.getOffset();
+			final long length = session.getEndOffset() - start;
+			String body = withRetries("range " + start + " of "
+					+ session.getFileName(), new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return sendRange(session, start, new RangeInputStream(
+							channel, start, length), length);
+				}
+			});
+			readRange(session, body);
+			fireProgress(session);
+		}
+	}
+
+	/**
+	 * Reads a range of the file with positional reads, leaving the position
+	 * of the channel alone.
+	 */
+	private static class RangeInputStream extends InputStream {
+
+		private final FileChannel channel;
+		private long position;
+		private long remaining;
+
+		RangeInputStream(final FileChannel channel, final long position,
+				final long length) {
+			this.channel = channel;
+			this.position = position;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+				throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			if (len == 0) {
+				return 0;
+			}
+			int n = channel.read(
+					ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)),
+					position);
+			if (n < 0) {
+				throw new EOFException("File is shorter than expected");
+			}
+			position += n;
+			remaining -= n;
+			return n;
+		}
+	}
+}
@@ -34,11 +34,10 @@ import org.brickred.socialauth.Album;
 import org.brickred.socialauth.Photo;
 import org.brickred.socialauth.plugin.AlbumsPlugin;
 import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.JSONStreamReader;
 import org.brickred.socialauth.util.MethodType;
 import org.brickred.socialauth.util.ProviderSupport;
 import org.brickred.socialauth.util.Response;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 import static org.brickred.socialauth.provider.FacebookImpl.FB_API_URL;
 
@@ -51,89 +50,206 @@ import static org.brickred.socialauth.provider.FacebookImpl.FB_API_URL;
 public class AlbumsPluginImpl implements AlbumsPlugin, Serializable {
 
 	private static final long serialVersionUID = 5350785649768508189L;
-	private static final String ALBUMS_URL = FB_API_URL + "/me/albums";
-	private static final String ALBUM_PHOTOS_URL = FB_API_URL + "/%1$s/photos?fields=names,link,picture,images";
+	private static final String ALBUM_FIELDS = "id,name,link,count";
+	private static final String PHOTO_FIELDS = "id,name,link,picture,images";
+	private static final String ALBUMS_URL = FB_API_URL + "/me/albums?fields="
+			+ ALBUM_FIELDS;
+	private static final String ALBUMS_WITH_PHOTOS_URL = ALBUMS_URL
+			+ ",photos%7B" + PHOTO_FIELDS + "%7D";
+	private static final String ALBUM_PHOTOS_URL = FB_API_URL + "/%1$s/photos?fields=" + PHOTO_FIELDS;
 	private static final String ALBUM_COVER_URL = FB_API_URL + "/%1$s/picture?access_token=%2$s";
 	private final Log LOG = LogFactory.getLog(this.getClass());
 
 	private ProviderSupport providerSupport;
+	private boolean lazyPhotos;
 
 	public AlbumsPluginImpl(final ProviderSupport providerSupport) {
 		this.providerSupport = providerSupport;
 	}
 
+	/**
+	 * Returns the albums of the user. Photos of all the albums are fetched in
+	 * the same request using field expansion, unless lazy loading of photos
+	 * is enabled with {@link #setLazyPhotos(boolean)}.
+	 * 
+	 * @return list of albums
+	 * @throws Exception
+	 */
 	@Override
 	public List<Album> getAlbums() throws Exception {
-		Response response = providerSupport.api(ALBUMS_URL,
+		String url = lazyPhotos ? ALBUMS_URL : ALBUMS_WITH_PHOTOS_URL;
+		Response response = providerSupport.api(url,
 				MethodType.GET.toString(), null, null, null);
-		String respStr = response.getResponseBodyAsString(Constants.ENCODING);
-		LOG.debug("Albums JSON :: " + respStr);
 		List<Album> albums = new ArrayList<Album>();
-		JSONObject resp = new JSONObject(respStr);
-		JSONArray data = resp.getJSONArray("data");
-		LOG.debug("Albums count : " + data.length());
-		for (int i = 0; i < data.length(); i++) {
-			Album album = new Album();
-			JSONObject obj = data.getJSONObject(i);
-			String albumId = obj.optString("id", null);
-			album.setId(albumId);
-			album.setName(obj.optString("name", null));
-
-			album.setLink(obj.optString("link", null));
-			album.setCoverPhoto(obj.optString("cover_photo", null));
-			album.setPhotosCount(obj.optInt("count"));
-			if (albumId != null) {
-				album.setCoverPhoto(String.format(ALBUM_COVER_URL, albumId,
-						providerSupport.getAccessGrant().getKey()));
+		JSONStreamReader reader = new JSONStreamReader(
+				response.getResponseBodyAsReader(Constants.ENCODING));
+		try {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if ("data".equals(reader.nextName())) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						albums.add(readAlbum(reader));
+					}
+					reader.endArray();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+		} finally {
+			reader.close();
+		}
+		LOG.debug("Albums count : " + albums.size());
+		if (lazyPhotos) {
+			Album.PhotosLoader loader = new Album.PhotosLoader() {
+				@Override
+				public List<Photo> loadPhotos(final Album album)
+						throws Exception {
+					return getAlbumPhotos(album.getId());
+				}
+			};
+			for (Album album : albums) {
+				album.setPhotosLoader(loader);
 			}
-			List<Photo> photos = getAlbumPhotos(albumId);
-			album.setPhotos(photos);
-			albums.add(album);
 		}
 		return albums;
 	}
 
+	private Album readAlbum(final JSONStreamReader reader) throws Exception {
+		Album album = new Album();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("id".equals(name)) {
+				album.setId(reader.nextString());
+			} else if ("name".equals(name)) {
+				album.setName(reader.nextString());
+			} else if ("link".equals(name)) {
+				album.setLink(reader.nextString());
+			} else if ("count".equals(name)) {
+				album.setPhotosCount(reader.nextInt());
+			} else if ("photos".equals(name)
+					&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+				album.setPhotos(readPhotos(reader));
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		if (album.getId() != null) {
+			album.setCoverPhoto(String.format(ALBUM_COVER_URL, album.getId(),
+					providerSupport.getAccessGrant().getKey()));
+			if (!lazyPhotos && album.getPhotos() == null) {
+				// field expansion omits photos of empty albums
+				album.setPhotos(new ArrayList<Photo>());
+			}
+		}
+		return album;
+	}
+
 	private List<Photo> getAlbumPhotos(final String id) throws Exception {
+		LOG.info("Getting Photos of Album :: " + id);
 		Response response = providerSupport.api(
 				String.format(ALBUM_PHOTOS_URL, id), MethodType.GET.toString(),
 				null, null, null);
-		String respStr = response.getResponseBodyAsString(Constants.ENCODING);
-		LOG.info("Getting Photos of Album :: " + id);
-		JSONObject resp = new JSONObject(respStr);
-		JSONArray data = resp.getJSONArray("data");
-		LOG.debug("Photos count : " + data.length());
+		JSONStreamReader reader = new JSONStreamReader(
+				response.getResponseBodyAsReader(Constants.ENCODING));
+		try {
+			return readPhotos(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private List<Photo> readPhotos(final JSONStreamReader reader)
+			throws Exception {
 		List<Photo> photos = new ArrayList<Photo>();
-		for (int i = 0; i < data.length(); i++) {
-			Photo photo = new Photo();
-			JSONObject obj = data.getJSONObject(i);
-			photo.setId(obj.optString("id", null));
-			photo.setTitle(obj.optString("name", null));
-			photo.setLink(obj.optString("link", null));
-			photo.setThumbImage(obj.optString("picture", null));
-			JSONArray images = obj.getJSONArray("images");
-			for (int k = 0; k < images.length(); k++) {
-				JSONObject img = images.getJSONObject(k);
-				int ht = 0;
-				int wt = 0;
-				if (img.has("height")) {
-					ht = img.optInt("height");
-				}
-				if (img.has("width")) {
-					wt = img.optInt("width");
-				}
-				if (ht == 600 || wt == 600) {
-					photo.setLargeImage(img.optString("source"));
-				} else if (ht == 480 || wt == 480) {
-					photo.setMediumImage(img.optString("source"));
-				} else if (ht == 320 || wt == 320) {
-					photo.setSmallImage(img.optString("source"));
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if ("data".equals(reader.nextName())) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					photos.add(readPhoto(reader));
 				}
+				reader.endArray();
+			} else {
+				reader.skipValue();
 			}
-			photos.add(photo);
 		}
+		reader.endObject();
+		LOG.debug("Photos count : " + photos.size());
 		return photos;
 	}
 
+	private Photo readPhoto(final JSONStreamReader reader) throws Exception {
+		Photo photo = new Photo();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("id".equals(name)) {
+				photo.setId(reader.nextString());
+			} else if ("name".equals(name)) {
+				photo.setTitle(reader.nextString());
+			} else if ("link".equals(name)) {
+				photo.setLink(reader.nextString());
+			} else if ("picture".equals(name)) {
+				photo.setThumbImage(reader.nextString());
+			} else if ("images".equals(name)
+					&& reader.peek() == JSONStreamReader.Token.BEGIN_ARRAY) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					readImage(reader, photo);
+				}
+				reader.endArray();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return photo;
+	}
+
+	private void readImage(final JSONStreamReader reader, final Photo photo)
+			throws Exception {
+		int ht = 0;
+		int wt = 0;
+		String source = "";
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("height".equals(name)) {
+				ht = reader.nextInt();
+			} else if ("width".equals(name)) {
+				wt = reader.nextInt();
+			} else if ("source".equals(name)) {
+				source = reader.nextString();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		if (ht == 600 || wt == 600) {
+			photo.setLargeImage(source);
+		} else if (ht == 480 || wt == 480) {
+			photo.setMediumImage(source);
+		} else if (ht == 320 || wt == 320) {
+			photo.setSmallImage(source);
+		}
+	}
+
+	/**
+	 * Enables loading the photos of an album only when
+	 * {@link Album#getPhotos()} is first called. By default photos of all the
+	 * albums are fetched with the albums.
+	 * 
+	 * @param lazyPhotos
+	 *            true to load photos lazily
+	 */
+	public void setLazyPhotos(final boolean lazyPhotos) {
+		this.lazyPhotos = lazyPhotos;
+	}
+
 	@Override
 	public ProviderSupport getProviderSupport() {
 		return providerSupport;
@@ -28,6 +28,7 @@ import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
@@ -36,10 +37,9 @@ import org.brickred.socialauth.Feed;
 import org.brickred.socialauth.exception.SocialAuthException;
 import org.brickred.socialauth.plugin.FeedPlugin;
 import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.JSONStreamReader;
 import org.brickred.socialauth.util.ProviderSupport;
 import org.brickred.socialauth.util.Response;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 import static org.brickred.socialauth.provider.FacebookImpl.FB_API_URL;
 
@@ -55,6 +55,8 @@ public class FeedPluginImpl implements FeedPlugin, Serializable {
 	private static final String FEED_URL = FB_API_URL + "/me/feed?fields=from,message,story,name,caption,description,picture,created_time";
 	private static final DateFormat dateFormat = new SimpleDateFormat(
 			"yyyy-MM-dd'T'hh:mm:ssz");
+	private static final String[] MESSAGE_FIELDS = new String[] { "message",
+			"story", "name", "caption", "description", "picture" };
 	private final Log LOG = LogFactory.getLog(FeedPluginImpl.class);
 
 	private ProviderSupport providerSupport;
@@ -66,48 +68,80 @@ public class FeedPluginImpl implements FeedPlugin, Serializable {
 	@Override
 	public List<Feed> getFeeds() throws Exception {
 		List<Feed> list = new ArrayList<Feed>();
+		JSONStreamReader reader = null;
 		try {
 			Response response = providerSupport.api(FEED_URL);
-			String respStr = response
-					.getResponseBodyAsString(Constants.ENCODING);
-			JSONObject resp = new JSONObject(respStr);
-			JSONArray data = resp.getJSONArray("data");
-			LOG.debug("Feeds count : " + data.length());
-			for (int i = 0; i < data.length(); i++) {
-				Feed feed = new Feed();
-				JSONObject obj = data.getJSONObject(i);
-				if (obj.has("from")) {
-					JSONObject fobj = obj.getJSONObject("from");
-					feed.setFrom(fobj.optString("name", null));
-					feed.setId(fobj.optString("id", null));
+			reader = new JSONStreamReader(
+					response.getResponseBodyAsReader(Constants.ENCODING));
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if ("data".equals(reader.nextName())) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						list.add(readFeed(reader));
+					}
+					reader.endArray();
+				} else {
+					reader.skipValue();
 				}
-				if (obj.has("message")) {
-					feed.setMessage(obj.optString("message", null));
-				} else if (obj.has("story")) {
-					feed.setMessage(obj.optString("story", null));
-				} else if (obj.has("name")) {
-					feed.setMessage(obj.optString("name", null));
-				} else if (obj.has("caption")) {
-					feed.setMessage(obj.optString("caption", null));
-				} else if (obj.has("description")) {
-					feed.setMessage(obj.getString("description"));
-				} else if (obj.has("picture")) {
-					feed.setMessage(obj.optString("picture", null));
-				}
-
-				String createdTime = obj.optString("created_time", null);
-				if (createdTime != null) {
-					feed.setCreatedAt(dateFormat.parse(createdTime));
-				}
-				list.add(feed);
 			}
+			reader.endObject();
+			LOG.debug("Feeds count : " + list.size());
 		} catch (Exception e) {
 			throw new SocialAuthException("Error while getting Feeds from "
 					+ FEED_URL, e);
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
 		}
 		return list;
 	}
 
+	private Feed readFeed(final JSONStreamReader reader) throws Exception {
+		Feed feed = new Feed();
+		String[] messages = new String[MESSAGE_FIELDS.length];
+		String createdTime = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			int index = Arrays.asList(MESSAGE_FIELDS).indexOf(name);
+			if (index != -1) {
+				messages[index] = reader.nextString();
+			} else if ("from".equals(name)
+					&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String field = reader.nextName();
+					if ("name".equals(field)) {
+						feed.setFrom(reader.nextString());
+					} else if ("id".equals(field)) {
+						feed.setId(reader.nextString());
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else if ("created_time".equals(name)) {
+				createdTime = reader.nextString();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		// first available field in the order of MESSAGE_FIELDS is the message
+		for (String message : messages) {
+			if (message != null) {
+				feed.setMessage(message);
+				break;
+			}
+		}
+		if (createdTime != null) {
+			feed.setCreatedAt(dateFormat.parse(createdTime));
+		}
+		return feed;
+	}
+
 	@Override
 	public ProviderSupport getProviderSupport() {
 		return providerSupport;
@@ -0,0 +1,170 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.plugin.facebook;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.brickred.socialauth.UploadSession;
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.metrics.Metrics;
+import org.brickred.socialauth.metrics.Operation;
+import org.brickred.socialauth.plugin.SequentialMediaUploadPlugin;
+import org.brickred.socialauth.provider.FacebookImpl;
+import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.HttpUtil;
+import org.brickred.socialauth.util.JSONStreamReader;
+import org.brickred.socialauth.util.MethodType;
+import org.brickred.socialauth.util.MultipartBody;
+import org.brickred.socialauth.util.ProviderSupport;
+import org.brickred.socialauth.util.Response;
+
+/**
+ * Media upload plugin implementation for Facebook videos. Uses the start,
+ * transfer and finish phases of the resumable upload API. Facebook decides
+ * the boundaries of each chunk and expects them in order.
+ */
+public class MediaUploadPluginImpl extends SequentialMediaUploadPlugin {
+
+	private static final long serialVersionUID = 8452817604467231309L;
+	private static final String UPLOAD_URL = "https://graph-video.facebook.com/"
+			+ FacebookImpl.FB_API_VERSION + "/me/videos";
+	private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+	public MediaUploadPluginImpl(final ProviderSupport providerSupport) {
+		super(providerSupport, DEFAULT_CHUNK_SIZE);
+	}
+
+	@Override
+	protected void init(final UploadSession session) throws Exception {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("upload_phase", "start");
+		params.put("file_size", String.valueOf(session.getTotalBytes()));
+		LOG.info("Starting video upload : " + UPLOAD_URL);
+		readRange(session, post(params));
+		if (session.getMediaId() == null || session.getUploadId() == null) {
+			throw new SocialAuthException(
+					"Upload session not found in response");
+		}
+	}
+
+	@Override
+	protected void finish(final UploadSession session) throws Exception {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("upload_phase", "finish");
+		params.put("upload_session_id", session.getUploadId());
+		if (session.getMessage() != null) {
+			params.put("description",
+					HttpUtil.encodeURIComponent(session.getMessage()));
+		}
+		String body = post(params);
+		boolean success = false;
+		JSONStreamReader reader = new JSONStreamReader(body);
+		try {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if ("success".equals(reader.nextName())) {
+					success = "true".equals(reader.nextString());
+				} else {
+					reader.skipValue();
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		if (!success) {
+			throw new SocialAuthException("Video upload was not finished : "
+					+ body);
+		}
+	}
+
+	private String post(final Map<String, String> params) throws Exception {
+		return readBody(providerSupport.api(UPLOAD_URL,
+				MethodType.POST.toString(), params, null, null), UPLOAD_URL);
+	}
+
+	/**
+	 * Sends one range as multipart request. The access token goes in the
+	 * query string as the strategy does not allow naming the file field.
+	 */
+	@Override
+	protected String sendRange(final UploadSession session, final long start,
+			final InputStream data, final long length) throws Exception {
+		final String url = UPLOAD_URL + "?access_token="
+				+ providerSupport.getAccessGrant().getKey();
+		final Map<String, String> params = new HashMap<String, String>();
+		params.put("upload_phase", "transfer");
+		params.put("upload_session_id", session.getUploadId());
+		params.put("start_offset", String.valueOf(start));
+		final MultipartBody body = new MultipartBody(data, length,
+				session.getFileName(), "video_file_chunk", params);
+		Response response = Metrics.time(Constants.FACEBOOK,
+				Operation.UPLOAD, new Callable<Response>() {
+					@Override
+					public Response call() throws Exception {
+						return HttpUtil.doMultipartRequest(url,
+								MethodType.POST.toString(), null, body);
+					}
+				});
+		return readBody(response, UPLOAD_URL);
+	}
+
+	/**
+	 * Reads the ids and the next range from a start or transfer response.
+	 */
+	@Override
+	protected void readRange(final UploadSession session, final String body)
+			throws Exception {
+		long start = -1;
+		long end = -1;
+		JSONStreamReader reader = new JSONStreamReader(body);
+		try {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("video_id".equals(name)) {
+					session.setMediaId(reader.nextString());
+				} else if ("upload_session_id".equals(name)) {
+					session.setUploadId(reader.nextString());
+				} else if ("start_offset".equals(name)) {
+					start = reader.nextLong();
+				} else if ("end_offset".equals(name)) {
+					end = reader.nextLong();
+				} else {
+					reader.skipValue();
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		if (start < 0 || end < start || end > session.getTotalBytes()) {
+			throw new SocialAuthException("Invalid upload range in response : "
+					+ body);
+		}
+		session.setRange(start, end);
+	}
+}
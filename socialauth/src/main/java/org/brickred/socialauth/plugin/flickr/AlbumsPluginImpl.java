@@ -24,22 +24,27 @@
  */
 package org.brickred.socialauth.plugin.flickr;
 
+import java.io.InputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.brickred.socialauth.Album;
+import org.brickred.socialauth.AsyncAuthProvider;
 import org.brickred.socialauth.Photo;
 import org.brickred.socialauth.exception.ServerDataException;
 import org.brickred.socialauth.plugin.AlbumsPlugin;
+import org.brickred.socialauth.util.BatchExecutor;
 import org.brickred.socialauth.util.MethodType;
 import org.brickred.socialauth.util.ProviderSupport;
 import org.brickred.socialauth.util.Response;
 import org.brickred.socialauth.util.XMLParseUtil;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 /**
  * Album Plugin implementation for Flickr
@@ -56,11 +61,14 @@ public class AlbumsPluginImpl implements AlbumsPlugin, Serializable {
 	private static final String PHOTO_LINK = "https://www.flickr.com/photos/%1$s/%2$s";
 	private static final String SET_LINK = "https://www.flickr.com/photos/%1$s/sets/%2$s";
 
+	private static final int PHOTOS_PARALLELISM = 4;
+
 	private final Log LOG = LogFactory.getLog(this.getClass());
 
 	private ProviderSupport providerSupport;
 
 	private String userId = null;
+	private boolean lazyPhotos;
 
 	public AlbumsPluginImpl(final ProviderSupport providerSupport) {
 		this.providerSupport = providerSupport;
@@ -73,103 +81,138 @@ public class AlbumsPluginImpl implements AlbumsPlugin, Serializable {
 		Response response = providerSupport.api(albumUrl,
 				MethodType.GET.toString(), null, null, null);
 
-		Element root;
+		List<Album> albums = new ArrayList<Album>();
+		InputStream in = null;
 		try {
-			root = XMLParseUtil.loadXmlResource(response.getInputStream());
+			in = response.getResponseBodyAsStream();
+			XMLStreamReader reader = XMLParseUtil.createXMLStreamReader(in);
+			while (XMLParseUtil.nextElement(reader, "photoset")) {
+				Album album = readAlbum(reader);
+				if (album != null) {
+					albums.add(album);
+				}
+			}
+			reader.close();
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the albums from response." + albumUrl, e);
+		} finally {
+			if (in != null) {
+				in.close();
+			}
 		}
 
-		List<Album> albums = new ArrayList<Album>();
-		if (root != null) {
-			NodeList cList = root.getElementsByTagName("photosets");
-			if (cList != null && cList.getLength() > 0) {
-				Element photosets = (Element) cList.item(0);
-				NodeList photosetNodes = photosets
-						.getElementsByTagName("photoset");
-				if (photosetNodes != null && photosetNodes.getLength() > 0) {
-					LOG.debug("Found photo sets : " + photosetNodes.getLength());
-
-					for (int i = 0; i < photosetNodes.getLength(); i++) {
-						Element photoset = (Element) photosetNodes.item(i);
-						String id = photoset.getAttribute("id");
-						if (id != null) {
-							Album albumObj = new Album();
-							albumObj.setId(id);
-
-							String photoCount = photoset.getAttribute("photos");
-							if (photoCount != null) {
-								albumObj.setPhotosCount(Integer
-										.parseInt(photoCount));
-							}
-
-							NodeList titleList = photoset
-									.getElementsByTagName("title");
-							if (titleList != null && titleList.getLength() > 0) {
-								String title = titleList.item(0)
-										.getTextContent();
-								if (title != null) {
-									albumObj.setName(title);
-								}
-							}
-
-							NodeList coverList = photoset
-									.getElementsByTagName("primary_photo_extras");
-							if (coverList != null && coverList.getLength() > 0) {
-								Element cE = (Element) coverList.item(0);
-								String coverPhotoUrl = cE.getAttribute("url_m");
-								;
-								if (coverPhotoUrl != null) {
-									albumObj.setCoverPhoto(coverPhotoUrl);
-								}
-							}
-							String uId = this.getUserId();
-							if (uId != "") {
-								albumObj.setLink(String.format(SET_LINK,
-										this.getUserId(), id));
-							}
-							List<Photo> photos = getAlbumPhotos(id);
-							albumObj.setPhotos(photos);
-
-							albums.add(albumObj);
+		if (albums.isEmpty()) {
+			LOG.debug("No Albums were obtained from : " + albumUrl);
+			return albums;
+		}
+		LOG.debug("Found photo sets : " + albums.size());
+		String uId = this.getUserId();
+		for (Album album : albums) {
+			if (uId.length() > 0) {
+				album.setLink(String.format(SET_LINK, uId, album.getId()));
+			}
+		}
+		if (lazyPhotos) {
+			Album.PhotosLoader loader = new Album.PhotosLoader() {
+				@Override
+				public List<Photo> loadPhotos(final Album album)
+						throws Exception {
+					return getAlbumPhotos(album.getId());
+				}
+			};
+			for (Album album : albums) {
+				album.setPhotosLoader(loader);
+			}
+		} else {
+			final List<Album> list = albums;
+			BatchExecutor batchExecutor = new BatchExecutor(
+					AsyncAuthProvider.getDefaultExecutor(), PHOTOS_PARALLELISM);
+			List<List<Photo>> photos = batchExecutor.execute(list.size(),
+					new BatchExecutor.Batch<List<Photo>>() {
+						@Override
+						public List<Photo> call(final int index)
+								throws Exception {
+							return getAlbumPhotos(list.get(index).getId());
 						}
+					});
+			for (int i = 0; i < list.size(); i++) {
+				list.get(i).setPhotos(photos.get(i));
+			}
+		}
+		return albums;
+	}
+
+	/**
+	 * Enables loading the photos of an album only when
+	 * {@link Album#getPhotos()} is first called. By default photos of all the
+	 * photo sets are fetched with the albums, up to 4 photo sets at a time.
+	 * 
+	 * @param lazyPhotos
+	 *            true to load photos lazily
+	 */
+	public void setLazyPhotos(final boolean lazyPhotos) {
+		this.lazyPhotos = lazyPhotos;
+	}
+
+	private Album readAlbum(final XMLStreamReader reader)
+			throws XMLStreamException {
+		String id = XMLParseUtil.getAttribute(reader, "id");
+		Album albumObj = new Album();
+		albumObj.setId(id);
+		String photoCount = XMLParseUtil.getAttribute(reader, "photos");
+		if (photoCount.length() > 0) {
+			albumObj.setPhotosCount(Integer.parseInt(photoCount));
+		}
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = reader.getLocalName();
+				if ("title".equals(name) && albumObj.getName() == null) {
+					albumObj.setName(reader.getElementText());
+				} else {
+					if ("primary_photo_extras".equals(name)
+							&& albumObj.getCoverPhoto() == null) {
+						albumObj.setCoverPhoto(XMLParseUtil.getAttribute(
+								reader, "url_m"));
 					}
+					depth++;
 				}
-			} else {
-				LOG.debug("No Albums were obtained from : " + albumUrl);
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
 			}
 		}
-		return albums;
+		return id.length() > 0 ? albumObj : null;
 	}
 
 	private String getUserId() throws Exception {
 		if (this.userId != null) {
 			return this.userId;
-		} else {
-			String profileUrl = String.format(PROFILE_URL, providerSupport
-					.getAccessGrant().getKey());
-			Response response = providerSupport.api(profileUrl,
-					MethodType.GET.toString(), null, null, null);
-			Element root;
-			try {
-				root = XMLParseUtil.loadXmlResource(response.getInputStream());
-			} catch (Exception e) {
-				throw new ServerDataException(
-						"Failed to parse the User from response." + profileUrl,
-						e);
+		}
+		String profileUrl = String.format(PROFILE_URL, providerSupport
+				.getAccessGrant().getKey());
+		Response response = providerSupport.api(profileUrl,
+				MethodType.GET.toString(), null, null, null);
+		String id = "";
+		InputStream in = null;
+		try {
+			in = response.getResponseBodyAsStream();
+			XMLStreamReader reader = XMLParseUtil.createXMLStreamReader(in);
+			if (XMLParseUtil.nextElement(reader, "user")) {
+				id = XMLParseUtil.getAttribute(reader, "nsid");
 			}
-			String id = "";
-			if (root != null) {
-				NodeList uList = root.getElementsByTagName("user");
-				if (uList != null && uList.getLength() > 0) {
-					Element user = (Element) uList.item(0);
-					id = user.getAttribute("nsid");
-				}
-
+			reader.close();
+		} catch (Exception e) {
+			throw new ServerDataException(
+					"Failed to parse the User from response." + profileUrl, e);
+		} finally {
+			if (in != null) {
+				in.close();
 			}
-			return id;
 		}
+		this.userId = id;
+		return id;
 	}
 
 	private List<Photo> getAlbumPhotos(final String id) throws Exception {
@@ -179,45 +222,40 @@ public class AlbumsPluginImpl implements AlbumsPlugin, Serializable {
 				null, null, null);
 		LOG.info("Getting Photos of Album :: " + id);
 
-		Element root;
+		String uId = this.getUserId();
+		List<Photo> photos = new ArrayList<Photo>();
+		InputStream in = null;
 		try {
-			root = XMLParseUtil.loadXmlResource(response.getInputStream());
+			in = response.getResponseBodyAsStream();
+			XMLStreamReader reader = XMLParseUtil.createXMLStreamReader(in);
+			while (XMLParseUtil.nextElement(reader, "photo")) {
+				Photo photo = new Photo();
+				String photoId = XMLParseUtil.getAttribute(reader, "id");
+				photo.setId(photoId);
+				photo.setTitle(XMLParseUtil.getAttribute(reader, "title"));
+				if (uId.length() > 0) {
+					photo.setLink(String.format(PHOTO_LINK, uId, photoId));
+				}
+				photo.setLargeImage(XMLParseUtil.getAttribute(reader, "url_o"));
+				photo.setMediumImage(XMLParseUtil.getAttribute(reader, "url_m"));
+				photo.setSmallImage(XMLParseUtil.getAttribute(reader, "url_s"));
+				photo.setThumbImage(XMLParseUtil.getAttribute(reader, "url_t"));
+				photos.add(photo);
+			}
+			reader.close();
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the photos from response." + url + id, e);
-		}
-
-		List<Photo> photos = new ArrayList<Photo>();
-
-		if (root != null) {
-			NodeList photoList = root.getElementsByTagName("photo");
-			if (photoList != null && photoList.getLength() > 0) {
-				LOG.info("Found photos : " + photoList.getLength());
-				for (int i = 0; i < photoList.getLength(); i++) {
-					Photo photo = new Photo();
-					Element pl = (Element) photoList.item(i);
-
-					String photoId = pl.getAttribute("id");
-					photo.setId(photoId);
-
-					photo.setTitle(pl.getAttribute("title"));
-					String uId = this.getUserId();
-					if (uId != "") {
-						String link = String.format(PHOTO_LINK, uId, photoId);
-						photo.setLink(link);
-					}
-
-					photo.setLargeImage(pl.getAttribute("url_o"));
-					photo.setMediumImage(pl.getAttribute("url_m"));
-					photo.setSmallImage(pl.getAttribute("url_s"));
-					photo.setThumbImage(pl.getAttribute("url_t"));
-
-					photos.add(photo);
-				}
-			} else {
-				LOG.info("No photos were obtained from : " + url);
+		} finally {
+			if (in != null) {
+				in.close();
 			}
 		}
+		if (photos.isEmpty()) {
+			LOG.info("No photos were obtained from : " + url);
+		} else {
+			LOG.info("Found photos : " + photos.size());
+		}
 		return photos;
 	}
 
@@ -69,7 +69,7 @@ public class AlbumsPluginImpl implements AlbumsPlugin, Serializable {
 
 		Element root;
 		try {
-			root = XMLParseUtil.loadXmlResource(response.getInputStream());
+			root = XMLParseUtil.loadXmlResource(response.getResponseBodyAsStream());
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the albums from response." + ALBUMS_URL, e);
@@ -155,7 +155,7 @@ public class AlbumsPluginImpl implements AlbumsPlugin, Serializable {
 
 		Element root;
 		try {
-			root = XMLParseUtil.loadXmlResource(response.getInputStream());
+			root = XMLParseUtil.loadXmlResource(response.getResponseBodyAsStream());
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the photos from response." + PHOTOS_URL
@@ -28,7 +28,6 @@ import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -38,10 +37,9 @@ import org.brickred.socialauth.Feed;
 import org.brickred.socialauth.exception.SocialAuthException;
 import org.brickred.socialauth.plugin.FeedPlugin;
 import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.JSONStreamReader;
 import org.brickred.socialauth.util.ProviderSupport;
 import org.brickred.socialauth.util.Response;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 /**
  * Feed Plugin implementation for GooglePlus
@@ -78,35 +76,67 @@ public class FeedPluginImpl implements FeedPlugin, Serializable {
 	public List<Feed> getFeeds() throws Exception {
 		LOG.info("getting feeds for google plus");
 		List<Feed> list = new ArrayList<Feed>();
+		JSONStreamReader reader = null;
 		try {
 			Response response = providerSupport.api(FEED_URL);
-			String respStr = response
-					.getResponseBodyAsString(Constants.ENCODING);
-			System.out.println(respStr);
-			JSONObject resp = new JSONObject(respStr);
-			JSONArray items = resp.getJSONArray("items");
-			LOG.debug("Feeds count : " + items.length());
-			for (int i = 0; i < items.length(); i++) {
-				Feed feed = new Feed();
-				JSONObject obj = items.getJSONObject(i);
-				feed.setMessage(obj.optString("title", null));
-				feed.setId(obj.optString("id", null));
-				if (obj.has("actor")) {
-					JSONObject actor = obj.getJSONObject("actor");
-					feed.setFrom(actor.optString("displayName", null));
+			reader = new JSONStreamReader(
+					response.getResponseBodyAsReader(Constants.ENCODING));
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if ("items".equals(reader.nextName())) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						list.add(readFeed(reader));
+					}
+					reader.endArray();
+				} else {
+					reader.skipValue();
 				}
-				String pubDate = obj.optString("published", null);
-				if (pubDate != null) {
-					Date date = dateFormat.parse(pubDate);
-					feed.setCreatedAt(date);
-				}
-				list.add(feed);
 			}
+			reader.endObject();
+			LOG.debug("Feeds count : " + list.size());
 
 		} catch (Exception e) {
 			throw new SocialAuthException("Error while getting Feeds from "
 					+ FEED_URL, e);
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
 		}
 		return list;
 	}
+
+	private Feed readFeed(final JSONStreamReader reader) throws Exception {
+		Feed feed = new Feed();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("title".equals(name)) {
+				feed.setMessage(reader.nextString());
+			} else if ("id".equals(name)) {
+				feed.setId(reader.nextString());
+			} else if ("actor".equals(name)
+					&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if ("displayName".equals(reader.nextName())) {
+						feed.setFrom(reader.nextString());
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else if ("published".equals(name)) {
+				String pubDate = reader.nextString();
+				if (pubDate != null) {
+					feed.setCreatedAt(dateFormat.parse(pubDate));
+				}
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return feed;
+	}
 }
@@ -37,10 +37,9 @@ import org.brickred.socialauth.Feed;
 import org.brickred.socialauth.exception.SocialAuthException;
 import org.brickred.socialauth.plugin.FeedPlugin;
 import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.JSONStreamReader;
 import org.brickred.socialauth.util.ProviderSupport;
 import org.brickred.socialauth.util.Response;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 public class FeedPluginImpl implements FeedPlugin, Serializable {
 
@@ -66,43 +65,95 @@ public class FeedPluginImpl implements FeedPlugin, Serializable {
 	 */
 	public List<Feed> getFeeds() throws Exception {
 		List<Feed> list = new ArrayList<Feed>();
+		JSONStreamReader reader = null;
 		try {
 			Response response = providerSupport.api(FEED_URL);
-			String respStr = response
-					.getResponseBodyAsString(Constants.ENCODING);
-			LOG.debug("Feed Json response :: " + respStr);
-			JSONObject resp = new JSONObject(respStr);
-			JSONArray data = resp.getJSONArray("data");
-			LOG.debug("Feeds count : " + data.length());
-			for (int i = 0; i < data.length(); i++) {
-				Feed feed = new Feed();
-				JSONObject obj = data.getJSONObject(i);
-				if (obj.has("images")) {
-					JSONObject iobj = obj.getJSONObject("images");
-					if (iobj.has("low_resolution")) {
-						feed.setMessage(iobj.getJSONObject("low_resolution")
-								.optString("url"));
+			reader = new JSONStreamReader(
+					response.getResponseBodyAsReader(Constants.ENCODING));
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if ("data".equals(reader.nextName())) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						list.add(readFeed(reader));
 					}
+					reader.endArray();
+				} else {
+					reader.skipValue();
 				}
-				if (obj.has("user")) {
-					JSONObject iobj = obj.getJSONObject("user");
-					feed.setFrom(iobj.optString("full_name", null));
-					feed.setId(iobj.optString("id", null));
-					feed.setScreenName(iobj.optString("username", null));
-				}
-				String createdTime = obj.optString("created_time", null);
-				if (createdTime != null) {
-					feed.setCreatedAt(new Date(Integer.parseInt(createdTime)));
-				}
-				list.add(feed);
 			}
+			reader.endObject();
+			LOG.debug("Feeds count : " + list.size());
 		} catch (Exception e) {
 			throw new SocialAuthException("Error while getting Feeds from "
 					+ FEED_URL, e);
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
 		}
 		return list;
 	}
 
+	private Feed readFeed(final JSONStreamReader reader) throws Exception {
+		Feed feed = new Feed();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("images".equals(name)
+					&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if ("low_resolution".equals(reader.nextName())) {
+						feed.setMessage(readURL(reader));
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else if ("user".equals(name)
+					&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String field = reader.nextName();
+					if ("full_name".equals(field)) {
+						feed.setFrom(reader.nextString());
+					} else if ("id".equals(field)) {
+						feed.setId(reader.nextString());
+					} else if ("username".equals(field)) {
+						feed.setScreenName(reader.nextString());
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else if ("created_time".equals(name)) {
+				String createdTime = reader.nextString();
+				if (createdTime != null) {
+					feed.setCreatedAt(new Date(Integer.parseInt(createdTime)));
+				}
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return feed;
+	}
+
+	private String readURL(final JSONStreamReader reader) throws Exception {
+		String url = "";
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if ("url".equals(reader.nextName())) {
+				url = reader.nextString();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return url;
+	}
+
 	@Override
 	public ProviderSupport getProviderSupport() {
 		return providerSupport;
@@ -75,7 +75,7 @@ public class CareerPluginImpl implements CareerPlugin, Serializable {
 		Element root;
 		try {
 			root = XMLParseUtil.loadXmlResource(serviceResponse
-					.getInputStream());
+					.getResponseBodyAsStream());
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the career details from response."
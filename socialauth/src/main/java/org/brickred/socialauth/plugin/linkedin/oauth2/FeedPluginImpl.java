@@ -158,19 +158,25 @@ public class FeedPluginImpl implements FeedPlugin, Serializable {
 					+ FEED_URL, ie);
 		}
 
-		if (serviceResponse.getStatus() != 200) {
-			throw new SocialAuthException("Failed to retrieve the feeds from  "
-					+ FEED_URL + ". Staus :" + serviceResponse.getStatus());
-		}
-		Element root;
 		try {
-			root = XMLParseUtil.loadXmlResource(serviceResponse
-					.getInputStream());
-			list = getStatusFeed(root);
+			if (serviceResponse.getStatus() != 200) {
+				throw new SocialAuthException(
+						"Failed to retrieve the feeds from  " + FEED_URL
+								+ ". Staus :" + serviceResponse.getStatus());
+			}
+			Element root;
+			try {
+				root = XMLParseUtil.loadXmlResource(serviceResponse
+						.getResponseBodyAsStream());
+				list = getStatusFeed(root);
 
-		} catch (Exception e) {
-			throw new ServerDataException(
-					"Failed to parse the feeds from response." + FEED_URL, e);
+			} catch (Exception e) {
+				throw new ServerDataException(
+						"Failed to parse the feeds from response." + FEED_URL,
+						e);
+			}
+		} finally {
+			serviceResponse.close();
 		}
 		return list;
 	}
@@ -36,10 +36,9 @@ import org.brickred.socialauth.Feed;
 import org.brickred.socialauth.exception.SocialAuthException;
 import org.brickred.socialauth.plugin.FeedPlugin;
 import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.JSONStreamReader;
 import org.brickred.socialauth.util.ProviderSupport;
 import org.brickred.socialauth.util.Response;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 /**
  * Feed Plugin implementation for Twitter
@@ -70,38 +69,66 @@ public class FeedPluginImpl implements FeedPlugin, Serializable {
 	@Override
 	public List<Feed> getFeeds() throws Exception {
 		Response response = null;
+		JSONStreamReader reader = null;
 		List<Feed> list = new ArrayList<Feed>();
 		LOG.info("Getting feeds from URL : " + FEED_URL);
 		try {
 			response = providerSupport.api(FEED_URL);
-			String respStr = response
-					.getResponseBodyAsString(Constants.ENCODING);
-			LOG.debug("Feeds json string :: " + respStr);
-			JSONArray jarr = new JSONArray(respStr);
-			LOG.debug("Feeds count :: " + jarr.length());
-			for (int i = 0; i < jarr.length(); i++) {
-				JSONObject jobj = jarr.getJSONObject(i);
-				Feed feed = new Feed();
-				String dateStr = jobj.optString("created_at", null);
-				if (dateStr != null) {
-					feed.setCreatedAt(dateFormat.parse(dateStr));
-				}
-				feed.setMessage(jobj.optString("text", null));
-				if (jobj.has("user")) {
-					JSONObject userObj = jobj.getJSONObject("user");
-					feed.setId(userObj.optString("id_str", null));
-					feed.setFrom(userObj.optString("name", null));
-					feed.setScreenName(userObj.optString("screen_name", null));
-				}
-				list.add(feed);
+			reader = new JSONStreamReader(
+					response.getResponseBodyAsReader(Constants.ENCODING));
+			reader.beginArray();
+			while (reader.hasNext()) {
+				list.add(readFeed(reader));
 			}
+			reader.endArray();
+			LOG.debug("Feeds count :: " + list.size());
 		} catch (Exception e) {
 			throw new SocialAuthException("Error while getting feeds from "
 					+ FEED_URL, e);
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
 		}
 		return list;
 	}
 
+	private Feed readFeed(final JSONStreamReader reader) throws Exception {
+		Feed feed = new Feed();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("created_at".equals(name)) {
+				String dateStr = reader.nextString();
+				if (dateStr != null) {
+					feed.setCreatedAt(dateFormat.parse(dateStr));
+				}
+			} else if ("text".equals(name)) {
+				feed.setMessage(reader.nextString());
+			} else if ("user".equals(name)
+					&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String field = reader.nextName();
+					if ("id_str".equals(field)) {
+						feed.setId(reader.nextString());
+					} else if ("name".equals(field)) {
+						feed.setFrom(reader.nextString());
+					} else if ("screen_name".equals(field)) {
+						feed.setScreenName(reader.nextString());
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return feed;
+	}
+
 	@Override
 	public ProviderSupport getProviderSupport() {
 		return providerSupport;
@@ -0,0 +1,194 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.plugin.twitter;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.brickred.socialauth.UploadSession;
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.plugin.ChunkedMediaUploadPlugin;
+import org.brickred.socialauth.util.HttpUtil;
+import org.brickred.socialauth.util.JSONStreamReader;
+import org.brickred.socialauth.util.MethodType;
+import org.brickred.socialauth.util.ProviderSupport;
+
+/**
+ * Media upload plugin implementation for Twitter. Uses the INIT, APPEND and
+ * FINALIZE commands of the chunked media upload endpoint. Segments are
+ * indexed so they may be sent concurrently.
+ */
+public class MediaUploadPluginImpl extends ChunkedMediaUploadPlugin {
+
+	private static final long serialVersionUID = -6307420465513462112L;
+	private static final String UPLOAD_URL = "https://upload.twitter.com/1.1/media/upload.json";
+	private static final String UPDATE_STATUS_URL = "https://api.twitter.com/1.1/statuses/update.json";
+	private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+	private static final int MAX_CHUNK_SIZE = 5 * 1024 * 1024;
+	private static final int MAX_PARALLELISM = 4;
+	private static final long MAX_PROCESSING_WAIT = 10 * 60 * 1000;
+
+	public MediaUploadPluginImpl(final ProviderSupport providerSupport) {
+		super(providerSupport, DEFAULT_CHUNK_SIZE);
+	}
+
+	@Override
+	protected int getMaxChunkSize() {
+		return MAX_CHUNK_SIZE;
+	}
+
+	@Override
+	protected int getMaxParallelism() {
+		return MAX_PARALLELISM;
+	}
+
+	@Override
+	protected void init(final UploadSession session) throws Exception {
+		String url = UPLOAD_URL + "?command=INIT&total_bytes="
+				+ session.getTotalBytes() + "&media_type="
+				+ HttpUtil.encodeURIComponent(session.getMediaType());
+		LOG.info("Initializing media upload : " + url);
+		String body = post(url);
+		String mediaId = readField(body, "media_id_string");
+		if (mediaId == null) {
+			throw new SocialAuthException("Media id not found in response : "
+					+ body);
+		}
+		session.setMediaId(mediaId);
+	}
+
+	@Override
+	protected void appendChunk(final UploadSession session, final int index,
+			final byte[] data, final int length) throws Exception {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("command", "APPEND");
+		params.put("media_id", session.getMediaId());
+		params.put("segment_index", String.valueOf(index));
+		readBody(providerSupport.upload(UPLOAD_URL, MethodType.POST.toString(),
+				params, null, session.getFileName(), new ByteArrayInputStream(
+						data, 0, length), "media"), UPLOAD_URL);
+	}
+
+	@Override
+	protected void finish(final UploadSession session) throws Exception {
+		String body = post(UPLOAD_URL + "?command=FINALIZE&media_id="
+				+ session.getMediaId());
+		waitForProcessing(session, body);
+		if (session.getMessage() != null) {
+			String url = UPDATE_STATUS_URL + "?status="
+					+ HttpUtil.encodeURIComponent(session.getMessage())
+					+ "&media_ids=" + session.getMediaId();
+			LOG.info("Updating status with media : " + url);
+			post(url);
+		}
+	}
+
+	private String post(final String url) throws Exception {
+		return readBody(providerSupport.api(url, MethodType.POST.toString(),
+				null, null, null), url);
+	}
+
+	/**
+	 * Polls the STATUS command while the uploaded video is being processed.
+	 */
+	private void waitForProcessing(final UploadSession session, String body)
+			throws Exception {
+		long deadline = System.currentTimeMillis() + MAX_PROCESSING_WAIT;
+		String statusUrl = UPLOAD_URL + "?command=STATUS&media_id="
+				+ session.getMediaId();
+		while (true) {
+			String[] info = readProcessingInfo(body);
+			if (info == null || "succeeded".equals(info[0])) {
+				return;
+			}
+			if ("failed".equals(info[0])) {
+				throw new SocialAuthException("Media processing failed for "
+						+ session.getMediaId() + " : " + body);
+			}
+			if (System.currentTimeMillis() > deadline) {
+				throw new SocialAuthException(
+						"Timed out waiting for media processing of "
+								+ session.getMediaId());
+			}
+			long wait = info[1] == null ? 1 : Long.parseLong(info[1]);
+			LOG.debug("Media " + session.getMediaId() + " is " + info[0]
+					+ ", checking again in " + wait + "s");
+			Thread.sleep(wait * 1000);
+			body = readBody(providerSupport.api(statusUrl), statusUrl);
+		}
+	}
+
+	private String readField(final String body, final String field)
+			throws Exception {
+		JSONStreamReader reader = new JSONStreamReader(body);
+		try {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (field.equals(reader.nextName())) {
+					return reader.nextString();
+				}
+				reader.skipValue();
+			}
+			return null;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Returns state and check_after_secs of processing_info, or null if the
+	 * response has none.
+	 */
+	private String[] readProcessingInfo(final String body) throws Exception {
+		JSONStreamReader reader = new JSONStreamReader(body);
+		try {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if ("processing_info".equals(reader.nextName())
+						&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+					String[] info = new String[2];
+					reader.beginObject();
+					while (reader.hasNext()) {
+						String name = reader.nextName();
+						if ("state".equals(name)) {
+							info[0] = reader.nextString();
+						} else if ("check_after_secs".equals(name)) {
+							info[1] = reader.nextString();
+						} else {
+							reader.skipValue();
+						}
+					}
+					reader.endObject();
+					return info;
+				}
+				reader.skipValue();
+			}
+			return null;
+		} finally {
+			reader.close();
+		}
+	}
+}
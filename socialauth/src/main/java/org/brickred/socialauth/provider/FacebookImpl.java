@@ -25,6 +25,7 @@
 
 package org.brickred.socialauth.provider;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -32,11 +33,14 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.AbstractContactCursor;
 import org.brickred.socialauth.AbstractProvider;
 import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.ContactCursor;
 import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.Profile;
 import org.brickred.socialauth.exception.AccessTokenExpireException;
@@ -49,10 +53,11 @@ import org.brickred.socialauth.util.AccessGrant;
 import org.brickred.socialauth.util.BirthDate;
 import org.brickred.socialauth.util.Constants;
 import org.brickred.socialauth.util.HttpUtil;
+import org.brickred.socialauth.util.JSONStreamReader;
 import org.brickred.socialauth.util.MethodType;
 import org.brickred.socialauth.util.OAuthConfig;
 import org.brickred.socialauth.util.Response;
-import org.json.JSONArray;
+import org.brickred.socialauth.util.SingleFlight;
 import org.json.JSONObject;
 
 /**
@@ -67,6 +72,7 @@ public class FacebookImpl extends AbstractProvider {
 
 	public static final String FB_API_VERSION = "v3.2";
 	public static final String FB_API_URL = "https://graph.facebook.com/" + FB_API_VERSION;
+	private static final SingleFlight<String, AccessGrant> REFRESH_FLIGHTS = new SingleFlight<String, AccessGrant>();
 	private static final String PROFILE_URL = FB_API_URL + "/me?fields=id,name,picture,age_range,birthday,email,first_name,last_name,gender,location,locale";
 	private static final String CONTACTS_URL = FB_API_URL + "/me/friends";
 	private static final String UPDATE_STATUS_URL = FB_API_URL + "/me/feed";
@@ -79,7 +85,7 @@ public class FacebookImpl extends AbstractProvider {
 	private Permission scope;
 	private OAuthConfig config;
 	private Profile userProfile;
-	private AccessGrant accessGrant;
+	private volatile AccessGrant accessGrant;
 	private OAuthStrategyBase authenticationStrategy;
 
 	// set this to the list of extended permissions you want
@@ -151,7 +157,17 @@ public class FacebookImpl extends AbstractProvider {
 			LOG.error("Unable to check token expire");
 			LOG.error(e.getMessage());
 		}
-		checkTokenExpiry(response);
+		if (response != null) {
+			try {
+				checkTokenExpiry(response);
+			} finally {
+				try {
+					response.close();
+				} catch (IOException e) {
+					LOG.debug("Unable to close response", e);
+				}
+			}
+		}
 	}
 
 	/**
@@ -199,52 +215,75 @@ public class FacebookImpl extends AbstractProvider {
 	}
 
 	private Profile authFacebookLogin() throws Exception {
-		String presp;
-
+		Response response;
 		try {
-			Response response = authenticationStrategy.executeFeed(PROFILE_URL);
-			presp = response.getResponseBodyAsString(Constants.ENCODING);
+			response = authenticationStrategy.executeFeed(PROFILE_URL);
 		} catch (Exception e) {
 			throw new SocialAuthException("Error while getting profile from "
 					+ PROFILE_URL, e);
 		}
+		String presp = null;
+		JSONStreamReader reader = null;
 		try {
-			LOG.debug("User Profile : " + presp);
-			JSONObject resp = new JSONObject(presp);
-			Profile p = new Profile();
-			p.setValidatedId(resp.optString("id", null));
-			p.setFullName(resp.optString("name", null));
-			p.setFirstName(resp.optString("first_name", null));
-			p.setLastName(resp.optString("last_name", null));
-			p.setEmail(resp.optString("email", null));
-			if (resp.has("location")) {
-				p.setLocation(resp.getJSONObject("location").optString("name",
-						null));
+			if (config.isSaveRawResponse()) {
+				presp = response.getResponseBodyAsString(Constants.ENCODING);
+				LOG.debug("User Profile : " + presp);
+				reader = new JSONStreamReader(presp);
+			} else {
+				reader = new JSONStreamReader(
+						response.getResponseBodyAsReader(Constants.ENCODING));
 			}
-			if (resp.has("birthday")) {
-				String bstr = resp.optString("birthday");
-				String[] arr = bstr.split("/");
-				BirthDate bd = new BirthDate();
-				if (arr.length > 0) {
-					bd.setMonth(Integer.parseInt(arr[0]));
-				}
-				if (arr.length > 1) {
-					bd.setDay(Integer.parseInt(arr[1]));
-				}
-				if (arr.length > 2) {
-					bd.setYear(Integer.parseInt(arr[2]));
+			Profile p = new Profile();
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("id".equals(name)) {
+					p.setValidatedId(reader.nextString());
+				} else if ("name".equals(name)) {
+					p.setFullName(reader.nextString());
+				} else if ("first_name".equals(name)) {
+					p.setFirstName(reader.nextString());
+				} else if ("last_name".equals(name)) {
+					p.setLastName(reader.nextString());
+				} else if ("email".equals(name)) {
+					p.setEmail(reader.nextString());
+				} else if ("gender".equals(name)) {
+					p.setGender(reader.nextString());
+				} else if ("location".equals(name)) {
+					p.setLocation(readName(reader));
+				} else if ("birthday".equals(name)) {
+					String bstr = reader.nextString();
+					if (bstr != null) {
+						String[] arr = bstr.split("/");
+						BirthDate bd = new BirthDate();
+						if (arr.length > 0) {
+							bd.setMonth(Integer.parseInt(arr[0]));
+						}
+						if (arr.length > 1) {
+							bd.setDay(Integer.parseInt(arr[1]));
+						}
+						if (arr.length > 2) {
+							bd.setYear(Integer.parseInt(arr[2]));
+						}
+						p.setDob(bd);
+					}
+				} else if ("locale".equals(name)) {
+					String locale = reader.nextString();
+					if (locale != null) {
+						String a[] = locale.split("_");
+						p.setLanguage(a[0]);
+						p.setCountry(a[1]);
+					}
+				} else {
+					reader.skipValue();
 				}
-				p.setDob(bd);
 			}
-			p.setGender(resp.optString("gender", null));
-			p.setProfileImageURL(String.format(PROFILE_IMAGE_URL,
-					resp.getString("id")));
-			String locale = resp.optString("locale", null);
-			if (locale != null) {
-				String a[] = locale.split("_");
-				p.setLanguage(a[0]);
-				p.setCountry(a[1]);
+			reader.endObject();
+			if (p.getValidatedId() == null) {
+				throw new ServerDataException("User id not found in response");
 			}
+			p.setProfileImageURL(String.format(PROFILE_IMAGE_URL,
+					p.getValidatedId()));
 			p.setProviderId(getProviderId());
 			if (config.isSaveRawResponse()) {
 				p.setRawResponse(presp);
@@ -254,10 +293,34 @@ public class FacebookImpl extends AbstractProvider {
 
 		} catch (Exception ex) {
 			throw new ServerDataException(
-					"Failed to parse the user profile json : " + presp, ex);
+					"Failed to parse the user profile json from " + PROFILE_URL,
+					ex);
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+			response.close();
 		}
 	}
 
+	private String readName(final JSONStreamReader reader) throws Exception {
+		if (reader.peek() != JSONStreamReader.Token.BEGIN_OBJECT) {
+			reader.skipValue();
+			return null;
+		}
+		String value = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if ("name".equals(reader.nextName())) {
+				value = reader.nextString();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return value;
+	}
+
 	/**
 	 * Updates the status on the chosen provider if available. This may not be
 	 * implemented for all providers.
@@ -283,6 +346,7 @@ public class FacebookImpl extends AbstractProvider {
 					UPDATE_STATUS_URL, MethodType.POST.toString(), null, null,
 					strb.toString());
 			if (serviceResponse.getStatus() != 200) {
+				serviceResponse.close();
 				throw new SocialAuthException(
 						"Status not updated. Return Status code :"
 								+ serviceResponse.getStatus());
@@ -306,51 +370,145 @@ public class FacebookImpl extends AbstractProvider {
 	public List<Contact> getContactList() throws Exception {
 		List<Contact> plist = new ArrayList<Contact>();
 		LOG.info("Fetching contacts from " + CONTACTS_URL);
-		String respStr;
+		readContacts(CONTACTS_URL, plist);
+		LOG.debug("Found contacts : " + plist.size());
+		return plist;
+	}
+
+	/**
+	 * Gets the friends of the user page by page using the cursors of graph
+	 * API paging.
+	 *
+	 * @param pageSize
+	 *            number of contacts per page
+	 * @param continuationToken
+	 *            the after cursor of the page to start from
+	 * @return the contact cursor
+	 */
+	@Override
+	public ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		return new AbstractContactCursor(pageSize, continuationToken) {
+			@Override
+			protected String fetchPage(final int pageSize, final String token,
+					final List<Contact> page) throws Exception {
+				String url = CONTACTS_URL + "?limit=" + pageSize;
+				if (token != null) {
+					url += "&after=" + HttpUtil.encodeURIComponent(token);
+				}
+				LOG.info("Fetching contacts from " + url);
+				return readContacts(url, page);
+			}
+		};
+	}
+
+	/**
+	 * Reads the friends from given url into the list and returns the after
+	 * cursor if there is a next page.
+	 */
+	private String readContacts(final String url, final List<Contact> plist)
+			throws Exception {
+		Response response;
 		try {
-			Response response = authenticationStrategy
-					.executeFeed(CONTACTS_URL);
-			respStr = response.getResponseBodyAsString(Constants.ENCODING);
+			response = authenticationStrategy.executeFeed(url);
 		} catch (Exception e) {
 			throw new SocialAuthException("Error while getting contacts from "
-					+ CONTACTS_URL, e);
+					+ url, e);
 		}
+		String after = null;
+		boolean hasNext = false;
+		JSONStreamReader reader = null;
 		try {
-			LOG.debug("User Contacts list in json : " + respStr);
-			JSONObject resp = new JSONObject(respStr);
-			JSONArray data = resp.getJSONArray("data");
-			LOG.debug("Found contacts : " + data.length());
-			for (int i = 0; i < data.length(); i++) {
-				JSONObject obj = data.getJSONObject(i);
-				Contact p = new Contact();
-				String name = obj.optString("name", null);
-				if (name != null) {
-					String nameArr[] = name.split(" ");
-					if (nameArr.length > 1) {
-						p.setFirstName(nameArr[0]);
-						p.setLastName(nameArr[1]);
-					} else {
-						p.setFirstName(obj.optString("name"));
+			reader = new JSONStreamReader(
+					response.getResponseBodyAsReader(Constants.ENCODING));
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("data".equals(name)) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						plist.add(readContact(reader));
 					}
-					p.setDisplayName(name);
-				}
-				String id = obj.optString("id", null);
-				p.setId(id);
-				if (id != null) {
-					p.setProfileUrl(PUBLIC_PROFILE_URL + id);
-					p.setProfileImageURL(String.format(PROFILE_IMAGE_URL, id));
-				}
-
-				if (config.isSaveRawResponse()) {
-					p.setRawResponse(obj.toString());
+					reader.endArray();
+				} else if ("paging".equals(name)
+						&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+					reader.beginObject();
+					while (reader.hasNext()) {
+						String field = reader.nextName();
+						if ("next".equals(field)) {
+							hasNext = reader.nextString() != null;
+						} else if ("cursors".equals(field)
+								&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+							reader.beginObject();
+							while (reader.hasNext()) {
+								if ("after".equals(reader.nextName())) {
+									after = reader.nextString();
+								} else {
+									reader.skipValue();
+								}
+							}
+							reader.endObject();
+						} else {
+							reader.skipValue();
+						}
+					}
+					reader.endObject();
+				} else {
+					reader.skipValue();
 				}
-				plist.add(p);
 			}
+			reader.endObject();
 		} catch (Exception e) {
 			throw new ServerDataException(
-					"Failed to parse the user profile json : " + respStr, e);
+					"Failed to parse the user contacts json from " + url, e);
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+			response.close();
 		}
-		return plist;
+		return hasNext ? after : null;
+	}
+
+	private Contact readContact(final JSONStreamReader reader)
+			throws Exception {
+		Contact p = new Contact();
+		JSONStreamReader r = reader;
+		if (config.isSaveRawResponse()) {
+			String raw = reader.nextRaw();
+			p.setRawResponse(raw);
+			r = new JSONStreamReader(raw);
+		}
+		String name = null;
+		String id = null;
+		r.beginObject();
+		while (r.hasNext()) {
+			String field = r.nextName();
+			if ("name".equals(field)) {
+				name = r.nextString();
+			} else if ("id".equals(field)) {
+				id = r.nextString();
+			} else {
+				r.skipValue();
+			}
+		}
+		r.endObject();
+		if (name != null) {
+			String nameArr[] = name.split(" ");
+			if (nameArr.length > 1) {
+				p.setFirstName(nameArr[0]);
+				p.setLastName(nameArr[1]);
+			} else {
+				p.setFirstName(name);
+			}
+			p.setDisplayName(name);
+		}
+		p.setId(id);
+		if (id != null) {
+			p.setProfileUrl(PUBLIC_PROFILE_URL + id);
+			p.setProfileImageURL(String.format(PROFILE_IMAGE_URL, id));
+		}
+		return p;
 	}
 
 	/**
@@ -473,6 +631,7 @@ public class FacebookImpl extends AbstractProvider {
 		List<String> list = new ArrayList<String>();
 		list.add("org.brickred.socialauth.plugin.facebook.AlbumsPluginImpl");
 		list.add("org.brickred.socialauth.plugin.facebook.FeedPluginImpl");
+		list.add("org.brickred.socialauth.plugin.facebook.MediaUploadPluginImpl");
 		if (config.getRegisteredPlugins() != null
 				&& config.getRegisteredPlugins().length > 0) {
 			list.addAll(Arrays.asList(config.getRegisteredPlugins()));
@@ -524,9 +683,43 @@ public class FacebookImpl extends AbstractProvider {
 		}
 	}
 
+	@Override
+	public boolean isRefreshSupported() {
+		return true;
+	}
+
 	@Override
 	public void refreshToken(final AccessGrant expireAccessGrant)
 			throws SocialAuthException {
+		AccessGrant refreshed;
+		try {
+			refreshed = REFRESH_FLIGHTS.execute(config.get_consumerKey() + ":"
+					+ expireAccessGrant.getKey(), new Callable<AccessGrant>() {
+				@Override
+				public AccessGrant call() throws Exception {
+					return exchangeToken(expireAccessGrant);
+				}
+			});
+		} catch (SocialAuthException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SocialAuthException(e);
+		}
+		// every caller gets its own copy of the grant which is shared
+		AccessGrant ag = new AccessGrant(refreshed.getKey(),
+				refreshed.getSecret());
+		if (refreshed.getAttributes() != null) {
+			ag.setAttributes(refreshed.getAttributes());
+		}
+		ag.setProviderId(getProviderId());
+		ag.setPermission(expireAccessGrant.getPermission());
+		LOG.debug("Refresh token Access Grant ::" + ag);
+		authenticationStrategy.setAccessGrant(ag);
+		accessGrant = ag;
+	}
+
+	private AccessGrant exchangeToken(final AccessGrant expireAccessGrant)
+			throws SocialAuthException {
 		LOG.debug("Getting refrash token");
 		String url = ENDPOINTS.get(Constants.OAUTH_ACCESS_TOKEN_URL)
 				+ "?grant_type=fb_exchange_token&client_id=%1$s&client_secret=%2$s&fb_exchange_token=%3$s";
@@ -540,10 +733,16 @@ public class FacebookImpl extends AbstractProvider {
 			result = response.getResponseBodyAsString(Constants.ENCODING);
 		} catch (Exception e) {
 			throw new SocialAuthException(e);
+		} finally {
+			try {
+				response.close();
+			} catch (IOException e) {
+				LOG.debug("Unable to close response", e);
+			}
 		}
 
 		Map<String, Object> attributes = new HashMap<String, Object>();
-		String[] pairs = result.split("&");
+		String[] pairs = result.trim().split("&");
 		AccessGrant ag = new AccessGrant();
 		for (String pair : pairs) {
 			String[] kv = pair.split("=");
@@ -554,17 +753,15 @@ public class FacebookImpl extends AbstractProvider {
 				if (kv[0].equals("access_token")) {
 					ag.setKey(kv[1]);
 				} else if (kv[0].equals("expires")) {
-					ag.setAttribute(Constants.EXPIRES, Integer.valueOf(kv[1]));
+					ag.setExpires(Integer.valueOf(kv[1]));
 				} else if (kv[0].equals("expires_in")) {
-					ag.setAttribute(Constants.EXPIRES, Integer.valueOf(kv[1]));
+					ag.setExpires(Integer.valueOf(kv[1]));
 				} else {
 					attributes.put(kv[0], kv[1]);
 				}
 			}
 		}
 		ag.setAttributes(attributes);
-		LOG.debug("Refresh token Access Grant ::" + ag);
-		accessGrant = ag;
-		authenticationStrategy.setAccessGrant(ag);
+		return ag;
 	}
 }
\ No newline at end of file
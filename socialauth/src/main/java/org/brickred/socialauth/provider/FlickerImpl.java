@@ -207,6 +207,7 @@ public class FlickerImpl extends AbstractProvider implements AuthProvider,
 					e);
 		}
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			throw new SocialAuthException(
 					"Failed to retrieve the user profile from  " + profileUrl
 							+ ". Status :" + serviceResponse.getStatus());
@@ -215,7 +216,7 @@ public class FlickerImpl extends AbstractProvider implements AuthProvider,
 		Element root;
 		try {
 			root = XMLParseUtil.loadXmlResource(serviceResponse
-					.getInputStream());
+					.getResponseBodyAsStream());
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the profile from response." + profileUrl,
@@ -292,6 +293,7 @@ public class FlickerImpl extends AbstractProvider implements AuthProvider,
 					+ contactUrl, e);
 		}
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			throw new SocialAuthException("Failed to retrieve contacts from  "
 					+ contactUrl + ". Status :" + serviceResponse.getStatus());
 		}
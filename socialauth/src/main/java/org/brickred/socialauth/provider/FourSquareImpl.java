@@ -250,6 +250,7 @@ public class FourSquareImpl extends AbstractProvider {
 					+ CONTACTS_URL, e);
 		}
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			throw new SocialAuthException("Error while getting contacts from "
 					+ CONTACTS_URL + "Status : " + serviceResponse.getStatus());
 		}
@@ -34,8 +34,10 @@ import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.AbstractContactCursor;
 import org.brickred.socialauth.AbstractProvider;
 import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.ContactCursor;
 import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.Profile;
 import org.brickred.socialauth.exception.AccessTokenExpireException;
@@ -46,10 +48,10 @@ import org.brickred.socialauth.oauthstrategy.OAuth2;
 import org.brickred.socialauth.oauthstrategy.OAuthStrategyBase;
 import org.brickred.socialauth.util.AccessGrant;
 import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.JSONStreamReader;
 import org.brickred.socialauth.util.MethodType;
 import org.brickred.socialauth.util.OAuthConfig;
 import org.brickred.socialauth.util.Response;
-import org.json.JSONObject;
 
 /**
  * Provider implementation for GitHub
@@ -60,6 +62,8 @@ import org.json.JSONObject;
 public class GitHubImpl extends AbstractProvider {
 
 	private static final long serialVersionUID = -3529658778980357392L;
+	private static final String CONTACTS_URL = "%1$s/user/following?per_page=%2$d&page=%3$d";
+	private static final int MAX_PAGE_SIZE = 100;
 	private static final Map<String, String> ENDPOINTS;
 	private final Log LOG = LogFactory.getLog(this.getClass());
 
@@ -160,25 +164,46 @@ public class GitHubImpl extends AbstractProvider {
 	}
 
 	private Profile getProfile() throws Exception {
-		String presp;
-
+		String url = ENDPOINTS.get(Constants.API_URL) + "/user";
+		Response response;
 		try {
-			Response response = authenticationStrategy.executeFeed(ENDPOINTS.get(Constants.API_URL) + "/user");
-			presp = response.getResponseBodyAsString(Constants.ENCODING);
+			response = authenticationStrategy.executeFeed(url);
 		} catch (Exception e) {
 			throw new SocialAuthException("Error while getting profile from "
-					+ ENDPOINTS.get(Constants.API_URL) + "/user", e);
+					+ url, e);
 		}
+		String presp = null;
+		JSONStreamReader reader = null;
 		try {
-			LOG.debug("User Profile : " + presp);
-			JSONObject resp = new JSONObject(presp);
+			if (config.isSaveRawResponse()) {
+				presp = response.getResponseBodyAsString(Constants.ENCODING);
+				LOG.debug("User Profile : " + presp);
+				reader = new JSONStreamReader(presp);
+			} else {
+				reader = new JSONStreamReader(
+						response.getResponseBodyAsReader(Constants.ENCODING));
+			}
 			Profile p = new Profile();
-			p.setValidatedId(resp.optString("id", null));
-			p.setFullName(resp.optString("name", null));
-			p.setEmail(resp.optString("email", null));
-			p.setLocation(resp.optString("location", null));
-			p.setProfileImageURL(resp.optString("avatar_url", null));
-			p.setDisplayName(resp.optString("login", null));
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("id".equals(name)) {
+					p.setValidatedId(reader.nextString());
+				} else if ("name".equals(name)) {
+					p.setFullName(reader.nextString());
+				} else if ("email".equals(name)) {
+					p.setEmail(reader.nextString());
+				} else if ("location".equals(name)) {
+					p.setLocation(reader.nextString());
+				} else if ("avatar_url".equals(name)) {
+					p.setProfileImageURL(reader.nextString());
+				} else if ("login".equals(name)) {
+					p.setDisplayName(reader.nextString());
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
 			p.setProviderId(getProviderId());
 			if (config.isSaveRawResponse()) {
 				p.setRawResponse(presp);
@@ -187,7 +212,12 @@ public class GitHubImpl extends AbstractProvider {
 			return p;
 		} catch (Exception ex) {
 			throw new ServerDataException(
-					"Failed to parse the user profile json : " + presp, ex);
+					"Failed to parse the user profile json from " + url, ex);
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+			response.close();
 		}
 	}
 
@@ -198,11 +228,117 @@ public class GitHubImpl extends AbstractProvider {
 				"Update Status is not implemented for GitHub");
 	}
 
+	/**
+	 * Gets the users followed by the user.
+	 * 
+	 * @return List of contact objects representing Contacts. Only login name,
+	 *         profile URL and avatar will be available
+	 */
 	@Override
 	public List<Contact> getContactList() throws Exception {
-		LOG.warn("WARNING: Not implemented for GitHub");
-		throw new SocialAuthException(
-				"Get contact list is not implemented for GitHub");
+		List<Contact> plist = new ArrayList<Contact>();
+		ContactCursor cursor = getContactCursor(MAX_PAGE_SIZE, null);
+		while (cursor.hasNextPage()) {
+			plist.addAll(cursor.nextPage());
+		}
+		LOG.debug("Found contacts : " + plist.size());
+		return plist;
+	}
+
+	/**
+	 * Gets the users followed by the user page by page. GitHub returns at most
+	 * 100 users per page.
+	 * 
+	 * @param pageSize
+	 *            number of contacts per page
+	 * @param continuationToken
+	 *            page number to start from
+	 * @return the contact cursor
+	 */
+	@Override
+	public ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		return new AbstractContactCursor(pageSize, continuationToken) {
+			@Override
+			protected String fetchPage(final int pageSize, final String token,
+					final List<Contact> page) throws Exception {
+				int pageNo = token == null ? 1 : Integer.parseInt(token);
+				String url = String.format(CONTACTS_URL,
+						ENDPOINTS.get(Constants.API_URL),
+						Math.min(pageSize, MAX_PAGE_SIZE), pageNo);
+				return readContacts(url, page) ? String.valueOf(pageNo + 1)
+						: null;
+			}
+		};
+	}
+
+	/**
+	 * Reads the users from given url into the list and returns true if the
+	 * Link header of response has a next page.
+	 */
+	private boolean readContacts(final String url, final List<Contact> plist)
+			throws Exception {
+		LOG.info("Fetching contacts from " + url);
+		Response response;
+		try {
+			response = authenticationStrategy.executeFeed(url);
+		} catch (Exception e) {
+			throw new SocialAuthException("Error while getting contacts from "
+					+ url, e);
+		}
+		if (response.getStatus() != 200) {
+			response.close();
+			throw new SocialAuthException("Error while getting contacts from "
+					+ url + ". Status : " + response.getStatus());
+		}
+		String link = response.getHeader("Link");
+		JSONStreamReader reader = null;
+		try {
+			reader = new JSONStreamReader(
+					response.getResponseBodyAsReader(Constants.ENCODING));
+			reader.beginArray();
+			while (reader.hasNext()) {
+				plist.add(readContact(reader));
+			}
+			reader.endArray();
+		} catch (Exception e) {
+			throw new ServerDataException(
+					"Failed to parse the contacts json from " + url, e);
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+			response.close();
+		}
+		return link != null && link.contains("rel=\"next\"");
+	}
+
+	private Contact readContact(final JSONStreamReader reader)
+			throws Exception {
+		Contact cont = new Contact();
+		JSONStreamReader r = reader;
+		if (config.isSaveRawResponse()) {
+			String raw = reader.nextRaw();
+			cont.setRawResponse(raw);
+			r = new JSONStreamReader(raw);
+		}
+		r.beginObject();
+		while (r.hasNext()) {
+			String name = r.nextName();
+			if ("id".equals(name)) {
+				cont.setId(r.nextString());
+			} else if ("login".equals(name)) {
+				cont.setDisplayName(r.nextString());
+			} else if ("html_url".equals(name)) {
+				cont.setProfileUrl(r.nextString());
+			} else if ("avatar_url".equals(name)) {
+				cont.setProfileImageURL(r.nextString());
+			} else {
+				r.skipValue();
+			}
+		}
+		r.endObject();
+		return cont;
 	}
 
 	@Override
@@ -32,10 +32,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.AbstractContactCursor;
 import org.brickred.socialauth.AbstractProvider;
 import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.ContactCursor;
 import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.Profile;
 import org.brickred.socialauth.exception.AccessTokenExpireException;
@@ -51,8 +57,6 @@ import org.brickred.socialauth.util.OAuthConfig;
 import org.brickred.socialauth.util.OpenIdConsumer;
 import org.brickred.socialauth.util.Response;
 import org.brickred.socialauth.util.XMLParseUtil;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 /**
  * Provider implementation for Google. Now google supports OAuth2.0 protocol, so
@@ -70,6 +74,7 @@ public class GoogleImpl extends AbstractProvider {
 	private static final long serialVersionUID = -6075582192266022341L;
 	private static final String OAUTH_SCOPE = "https://www.google.com/m8/feeds/";
 	private static final String CONTACTS_FEED_URL = "https://www.google.com/m8/feeds/contacts/default/full/?max-results=1000";
+	private static final String CONTACTS_PAGE_URL = "https://www.google.com/m8/feeds/contacts/default/full/?max-results=%1$d&start-index=%2$d";
 	private static final String CONTACT_NAMESPACE = "http://schemas.google.com/g/2005";
 	private static final Map<String, String> ENDPOINTS;
 	private final Log LOG = LogFactory.getLog(GoogleImpl.class);
@@ -209,86 +214,148 @@ public class GoogleImpl extends AbstractProvider {
 			throw new SocialAuthException(
 					"You have not set Permission to get contacts.");
 		}
+		List<Contact> plist = new ArrayList<Contact>();
+		readContacts(CONTACTS_FEED_URL, plist);
+		if (plist.isEmpty()) {
+			LOG.debug("No contacts were obtained from the feed : "
+					+ CONTACTS_FEED_URL);
+		} else {
+			LOG.debug("Found contacts : " + plist.size());
+		}
+		return plist;
+	}
+
+	/**
+	 * Gets the contacts of the user page by page using start-index of the
+	 * contacts feed. Entries without email are skipped, so a page may have
+	 * less contacts than the page size.
+	 * 
+	 * @param pageSize
+	 *            number of entries per page
+	 * @param continuationToken
+	 *            start index of the page to start from
+	 * @return the contact cursor
+	 */
+	@Override
+	public ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		if (Permission.AUTHENTICATE_ONLY.equals(this.scope)) {
+			throw new SocialAuthException(
+					"You have not set Permission to get contacts.");
+		}
+		return new AbstractContactCursor(pageSize, continuationToken) {
+			@Override
+			protected String fetchPage(final int pageSize, final String token,
+					final List<Contact> page) throws Exception {
+				int start = token == null ? 1 : Integer.parseInt(token);
+				String url = String.format(CONTACTS_PAGE_URL, pageSize, start);
+				LOG.info("Fetching contacts from " + url);
+				int count = readContacts(url, page);
+				return count < pageSize ? null : String.valueOf(start + count);
+			}
+		};
+	}
+
+	/**
+	 * Reads the contacts from given feed url into the list and returns the
+	 * number of entries in the feed.
+	 */
+	private int readContacts(final String url, final List<Contact> plist)
+			throws Exception {
 		Response serviceResponse = null;
 		try {
-			serviceResponse = authenticationStrategy
-					.executeFeed(CONTACTS_FEED_URL);
+			serviceResponse = authenticationStrategy.executeFeed(url);
 		} catch (Exception ie) {
 			throw new SocialAuthException(
-					"Failed to retrieve the contacts from " + CONTACTS_FEED_URL,
-					ie);
+					"Failed to retrieve the contacts from " + url, ie);
 		}
-		List<Contact> plist = new ArrayList<Contact>();
-		Element root;
-
+		int count = 0;
+		InputStream in = null;
 		try {
-			root = XMLParseUtil.loadXmlResource(serviceResponse
-					.getInputStream());
+			in = serviceResponse.getResponseBodyAsStream();
+			XMLStreamReader reader = XMLParseUtil.createXMLStreamReader(in);
+			while (XMLParseUtil.nextElement(reader, "entry")) {
+				count++;
+				Contact p = readContact(reader);
+				if (p != null) {
+					plist.add(p);
+				}
+			}
+			reader.close();
 		} catch (Exception e) {
 			throw new ServerDataException(
-					"Failed to parse the contacts from response."
-							+ CONTACTS_FEED_URL, e);
+					"Failed to parse the contacts from response." + url, e);
+		} finally {
+			if (in != null) {
+				in.close();
+			}
 		}
-		NodeList contactsList = root.getElementsByTagName("entry");
-		if (contactsList != null && contactsList.getLength() > 0) {
-			LOG.debug("Found contacts : " + contactsList.getLength());
-			for (int i = 0; i < contactsList.getLength(); i++) {
-				Element contact = (Element) contactsList.item(i);
-				String fname = "";
-				NodeList l = contact.getElementsByTagNameNS(CONTACT_NAMESPACE,
-						"email");
-				String address = null;
-				String emailArr[] = null;
-				if (l != null && l.getLength() > 0) {
-					Element el = (Element) l.item(0);
-					if (el != null) {
-						address = el.getAttribute("address");
-					}
-					if (l.getLength() > 1) {
-						emailArr = new String[l.getLength() - 1];
-						for (int k = 1; k < l.getLength(); k++) {
-							Element e = (Element) l.item(k);
-							if (e != null) {
-								emailArr[k - 1] = e.getAttribute("address");
-							}
-						}
-					}
-				}
-				String lname = "";
-				String dispName = XMLParseUtil.getElementData(contact, "title");
-				if (dispName != null) {
-					String sarr[] = dispName.split(" ");
-					if (sarr.length > 0) {
-						if (sarr.length >= 1) {
-							fname = sarr[0];
-						}
-						if (sarr.length >= 2) {
-							StringBuilder sb = new StringBuilder();
-							for (int k = 1; k < sarr.length; k++) {
-								sb.append(sarr[k]).append(" ");
-							}
-							lname = sb.toString();
-						}
+		return count;
+	}
+
+	private Contact readContact(final XMLStreamReader reader)
+			throws XMLStreamException {
+		String address = null;
+		List<String> emails = new ArrayList<String>();
+		String dispName = null;
+		String id = null;
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = reader.getLocalName();
+				String prefix = reader.getPrefix();
+				boolean unprefixed = prefix == null || prefix.length() == 0;
+				if ("email".equals(name)
+						&& CONTACT_NAMESPACE.equals(reader.getNamespaceURI())) {
+					String email = XMLParseUtil
+							.getAttribute(reader, "address");
+					if (address == null) {
+						address = email;
+					} else {
+						emails.add(email);
 					}
+					depth++;
+				} else if (dispName == null && unprefixed
+						&& "title".equals(name)) {
+					dispName = reader.getElementText();
+				} else if (id == null && unprefixed && "id".equals(name)) {
+					id = reader.getElementText();
+				} else {
+					depth++;
 				}
-				String id = XMLParseUtil.getElementData(contact, "id");
-
-				if (address != null && address.length() > 0) {
-					Contact p = new Contact();
-					p.setFirstName(fname);
-					p.setLastName(lname);
-					p.setEmail(address);
-					p.setDisplayName(dispName);
-					p.setOtherEmails(emailArr);
-					p.setId(id);
-					plist.add(p);
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+		if (address == null || address.length() == 0) {
+			return null;
+		}
+		String fname = "";
+		String lname = "";
+		if (dispName != null) {
+			String sarr[] = dispName.split(" ");
+			if (sarr.length >= 1) {
+				fname = sarr[0];
+			}
+			if (sarr.length >= 2) {
+				StringBuilder sb = new StringBuilder();
+				for (int k = 1; k < sarr.length; k++) {
+					sb.append(sarr[k]).append(" ");
 				}
+				lname = sb.toString();
 			}
-		} else {
-			LOG.debug("No contacts were obtained from the feed : "
-					+ CONTACTS_FEED_URL);
 		}
-		return plist;
+		Contact p = new Contact();
+		p.setFirstName(fname);
+		p.setLastName(lname);
+		p.setEmail(address);
+		p.setDisplayName(dispName);
+		if (!emails.isEmpty()) {
+			p.setOtherEmails(emails.toArray(new String[emails.size()]));
+		}
+		p.setId(id);
+		return p;
 	}
 
 	/**
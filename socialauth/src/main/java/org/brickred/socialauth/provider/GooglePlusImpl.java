@@ -291,7 +291,7 @@ public class GooglePlusImpl extends AbstractProvider {
 
 		try {
 			root = XMLParseUtil.loadXmlResource(serviceResponse
-					.getInputStream());
+					.getResponseBodyAsStream());
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the contacts from response."
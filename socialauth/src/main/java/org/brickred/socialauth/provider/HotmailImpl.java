@@ -27,8 +27,10 @@ package org.brickred.socialauth.provider;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.AbstractContactCursor;
 import org.brickred.socialauth.AbstractProvider;
 import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.ContactCursor;
 import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.Profile;
 import org.brickred.socialauth.exception.AccessTokenExpireException;
@@ -38,7 +40,6 @@ import org.brickred.socialauth.exception.UserDeniedPermissionException;
 import org.brickred.socialauth.oauthstrategy.OAuth2;
 import org.brickred.socialauth.oauthstrategy.OAuthStrategyBase;
 import org.brickred.socialauth.util.*;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.InputStream;
@@ -208,10 +209,51 @@ public class HotmailImpl extends AbstractProvider {
 					"You have not set permission to get contacts");
 		}
 		LOG.info("Fetching contacts from " + CONTACTS_URL);
-		return getContacts(CONTACTS_URL);
+		List<Contact> plist = new ArrayList<Contact>();
+		readContacts(CONTACTS_URL, plist);
+		LOG.debug("Contacts Found : " + plist.size());
+		return plist;
 	}
 
-	private List<Contact> getContacts(final String url) throws Exception {
+	/**
+	 * Gets the contacts of the user page by page using limit and offset of
+	 * the contacts API.
+	 * 
+	 * @param pageSize
+	 *            number of contacts per page
+	 * @param continuationToken
+	 *            offset of the page to start from
+	 * @return the contact cursor
+	 */
+	@Override
+	public ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		if (Permission.AUTHENTICATE_ONLY.equals(scope)) {
+			throw new SocialAuthException(
+					"You have not set permission to get contacts");
+		}
+		return new AbstractContactCursor(pageSize, continuationToken) {
+			@Override
+			protected String fetchPage(final int pageSize, final String token,
+					final List<Contact> page) throws Exception {
+				int offset = token == null ? 0 : Integer.parseInt(token);
+				String url = CONTACTS_URL + "?limit=" + pageSize + "&offset="
+						+ offset;
+				LOG.info("Fetching contacts from " + url);
+				int size = page.size();
+				boolean hasNext = readContacts(url, page);
+				return hasNext ? String.valueOf(offset + page.size() - size)
+						: null;
+			}
+		};
+	}
+
+	/**
+	 * Reads the contacts from given url into the list and returns true if
+	 * there is a next page.
+	 */
+	private boolean readContacts(final String url, final List<Contact> plist)
+			throws Exception {
 		Response serviceResponse;
 		try {
 			serviceResponse = authenticationStrategy.executeFeed(url);
@@ -220,44 +262,87 @@ public class HotmailImpl extends AbstractProvider {
 					+ url, e);
 		}
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			throw new SocialAuthException("Error while getting contacts from "
 					+ url + "Status : " + serviceResponse.getStatus());
 		}
-		String result;
+		JSONStreamReader reader;
 		try {
-			result = serviceResponse
-					.getResponseBodyAsString(Constants.ENCODING);
+			reader = new JSONStreamReader(
+					serviceResponse.getResponseBodyAsReader(Constants.ENCODING));
 		} catch (Exception e) {
 			throw new ServerDataException("Failed to get response from " + url,
 					e);
 		}
-		LOG.debug("User Contacts list in JSON " + result);
-		JSONObject resp = new JSONObject(result);
-		List<Contact> plist = new ArrayList<Contact>();
-		if (resp.has("data")) {
-			JSONArray addArr = resp.getJSONArray("data");
-			LOG.debug("Contacts Found : " + addArr.length());
-			for (int i = 0; i < addArr.length(); i++) {
-				JSONObject obj = addArr.getJSONObject(i);
-				Contact p = new Contact();
-				if (obj.has("email_hashes")) {
-					JSONArray emailArr = obj.getJSONArray("email_hashes");
-					if (emailArr.length() > 0) {
-						p.setEmailHash(emailArr.getString(0));
+		boolean hasNext = false;
+		try {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("data".equals(name)) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						plist.add(readContact(reader));
+					}
+					reader.endArray();
+				} else if ("paging".equals(name)
+						&& reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT) {
+					reader.beginObject();
+					while (reader.hasNext()) {
+						if ("next".equals(reader.nextName())) {
+							hasNext = reader.nextString() != null;
+						} else {
+							reader.skipValue();
+						}
 					}
+					reader.endObject();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+		} finally {
+			reader.close();
+		}
+		return hasNext;
+	}
+
+	private Contact readContact(final JSONStreamReader reader)
+			throws Exception {
+		Contact p = new Contact();
+		JSONStreamReader r = reader;
+		if (config.isSaveRawResponse()) {
+			String raw = reader.nextRaw();
+			p.setRawResponse(raw);
+			r = new JSONStreamReader(raw);
+		}
+		r.beginObject();
+		while (r.hasNext()) {
+			String name = r.nextName();
+			if ("email_hashes".equals(name)
+					&& r.peek() == JSONStreamReader.Token.BEGIN_ARRAY) {
+				r.beginArray();
+				if (r.hasNext()) {
+					p.setEmailHash(r.nextString());
 				}
-				p.setDisplayName(obj.optString("name", null));
-				p.setFirstName(obj.optString("first_name", null));
-				p.setLastName(obj.optString("last_name", null));
-				p.setId(obj.optString("id", null));
-				if (config.isSaveRawResponse()) {
-					p.setRawResponse(obj.toString());
+				while (r.hasNext()) {
+					r.skipValue();
 				}
-				plist.add(p);
+				r.endArray();
+			} else if ("name".equals(name)) {
+				p.setDisplayName(r.nextString());
+			} else if ("first_name".equals(name)) {
+				p.setFirstName(r.nextString());
+			} else if ("last_name".equals(name)) {
+				p.setLastName(r.nextString());
+			} else if ("id".equals(name)) {
+				p.setId(r.nextString());
+			} else {
+				r.skipValue();
 			}
 		}
-		serviceResponse.close();
-		return plist;
+		r.endObject();
+		return p;
 	}
 
 	/**
@@ -425,6 +510,7 @@ public class HotmailImpl extends AbstractProvider {
 					"Error while making request to URL : " + url, e);
 		}
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			LOG.debug("Return statuc for URL " + url + " is "
 					+ serviceResponse.getStatus());
 			throw new SocialAuthException("Error while making request to URL :"
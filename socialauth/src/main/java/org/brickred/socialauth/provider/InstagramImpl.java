@@ -159,6 +159,7 @@ public class InstagramImpl extends AbstractProvider {
 		}
 
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			throw new SocialAuthException("Error while getting contacts from "
 					+ CONTACTS_URL + "Status : " + serviceResponse.getStatus());
 		}
@@ -231,8 +232,12 @@ public class InstagramImpl extends AbstractProvider {
 		}
 
 		if (response.getStatus() == 200) {
-			String respStr = response
-					.getResponseBodyAsString(Constants.ENCODING);
+			String respStr;
+			try {
+				respStr = response.getResponseBodyAsString(Constants.ENCODING);
+			} finally {
+				response.close();
+			}
 			LOG.debug("Profile JSON string :: " + respStr);
 			JSONObject obj = new JSONObject(respStr);
 			JSONObject data = obj.getJSONObject("data");
@@ -256,6 +261,7 @@ public class InstagramImpl extends AbstractProvider {
 			}
 			return p;
 		} else {
+			response.close();
 			throw new SocialAuthException(
 					"Failed to retrieve the user profile from " + PROFILE_URL
 							+ ". Server response " + response.getStatus());
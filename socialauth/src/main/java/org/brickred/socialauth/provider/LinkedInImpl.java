@@ -32,10 +32,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.AbstractContactCursor;
 import org.brickred.socialauth.AbstractProvider;
 import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.ContactCursor;
 import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.Profile;
 import org.brickred.socialauth.exception.AccessTokenExpireException;
@@ -216,66 +220,115 @@ public class LinkedInImpl extends AbstractProvider {
 	@Override
 	public List<Contact> getContactList() throws Exception {
 		LOG.info("Fetching contacts from " + CONNECTION_URL);
+		List<Contact> contactList = new ArrayList<Contact>();
+		readConnections(CONNECTION_URL, contactList);
+		if (contactList.isEmpty()) {
+			LOG.debug("No connections were obtained from : "
+					+ CONNECTION_URL);
+		} else {
+			LOG.debug("Found contacts : " + contactList.size());
+		}
+		return contactList;
+	}
+
+	/**
+	 * Gets the connections of the user page by page using start and count of
+	 * the connections API.
+	 * 
+	 * @param pageSize
+	 *            number of connections per page
+	 * @param continuationToken
+	 *            start of the page to start from
+	 * @return the contact cursor
+	 */
+	@Override
+	public ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		return new AbstractContactCursor(pageSize, continuationToken) {
+			@Override
+			protected String fetchPage(final int pageSize, final String token,
+					final List<Contact> page) throws Exception {
+				int start = token == null ? 0 : Integer.parseInt(token);
+				String url = CONNECTION_URL + "?start=" + start + "&count=" + pageSize;
+				LOG.info("Fetching contacts from " + url);
+				int total = readConnections(url, page);
+				int next = start + pageSize;
+				return next < total ? String.valueOf(next) : null;
+			}
+		};
+	}
+
+	/**
+	 * Reads the connections from given url into the list and returns the
+	 * total number of connections.
+	 */
+	private int readConnections(final String url, final List<Contact> plist)
+			throws Exception {
 		Response serviceResponse = null;
 		try {
-			serviceResponse = authenticationStrategy
-					.executeFeed(CONNECTION_URL);
+			serviceResponse = authenticationStrategy.executeFeed(url);
 		} catch (Exception ie) {
 			throw new SocialAuthException(
 					"Failed to retrieve the contacts from " + CONNECTION_URL,
 					ie);
 		}
-		Element root;
+		int total = 0;
+		InputStream in = null;
 		try {
-			root = XMLParseUtil.loadXmlResource(serviceResponse
-					.getInputStream());
+			in = serviceResponse.getResponseBodyAsStream();
+			XMLStreamReader reader = XMLParseUtil.createXMLStreamReader(in);
+			if (XMLParseUtil.nextElement(reader, "connections")) {
+				String str = XMLParseUtil.getAttribute(reader, "total");
+				if (str.length() > 0) {
+					total = Integer.parseInt(str);
+				}
+			}
+			while (XMLParseUtil.nextElement(reader, "person")) {
+				String raw = null;
+				Map<String, String> data;
+				if (config.isSaveRawResponse()) {
+					raw = XMLParseUtil.readElementAsString(reader);
+					XMLStreamReader r = XMLParseUtil.createXMLStreamReader(raw);
+					r.nextTag();
+					data = XMLParseUtil.readElementData(r);
+				} else {
+					data = XMLParseUtil.readElementData(reader);
+				}
+				String id = data.get("id");
+				if (id != null) {
+					Contact cont = new Contact();
+					String fname = data.get("first-name");
+					if (fname != null) {
+						cont.setFirstName(fname);
+					}
+					String lname = data.get("last-name");
+					if (lname != null) {
+						cont.setLastName(lname);
+					}
+					String profileUrl = data.get("public-profile-url");
+					if (profileUrl != null) {
+						cont.setProfileUrl(profileUrl);
+					}
+					String pictureUrl = data.get("picture-url");
+					if (pictureUrl != null) {
+						cont.setProfileImageURL(pictureUrl);
+					}
+					cont.setId(id);
+					cont.setRawResponse(raw);
+					plist.add(cont);
+				}
+			}
+			reader.close();
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the contacts from response."
 							+ CONNECTION_URL, e);
-		}
-		List<Contact> contactList = new ArrayList<Contact>();
-		if (root != null) {
-			NodeList pList = root.getElementsByTagName("person");
-			if (pList != null && pList.getLength() > 0) {
-				LOG.debug("Found contacts : " + pList.getLength());
-				for (int i = 0; i < pList.getLength(); i++) {
-					Element p = (Element) pList.item(i);
-					String fname = XMLParseUtil.getElementData(p, "first-name");
-					String lname = XMLParseUtil.getElementData(p, "last-name");
-					String id = XMLParseUtil.getElementData(p, "id");
-					String profileUrl = XMLParseUtil.getElementData(p,
-							"public-profile-url");
-					String pictureUrl = XMLParseUtil.getElementData(p,
-							"picture-url");
-					if (id != null) {
-						Contact cont = new Contact();
-						if (fname != null) {
-							cont.setFirstName(fname);
-						}
-						if (lname != null) {
-							cont.setLastName(lname);
-						}
-						if (profileUrl != null) {
-							cont.setProfileUrl(profileUrl);
-						}
-						if (pictureUrl != null) {
-							cont.setProfileImageURL(pictureUrl);
-						}
-						cont.setId(id);
-						if (config.isSaveRawResponse()) {
-							cont.setRawResponse(XMLParseUtil
-									.getStringFromElement(p));
-						}
-						contactList.add(cont);
-					}
-				}
-			} else {
-				LOG.debug("No connections were obtained from : "
-						+ CONNECTION_URL);
+		} finally {
+			if (in != null) {
+				in.close();
 			}
 		}
-		return contactList;
+		return total;
 	}
 
 	@Override
@@ -330,6 +383,7 @@ public class LinkedInImpl extends AbstractProvider {
 					e);
 		}
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			throw new SocialAuthException(
 					"Failed to retrieve the user profile from  " + PROFILE_URL
 							+ ". Staus :" + serviceResponse.getStatus());
@@ -338,7 +392,7 @@ public class LinkedInImpl extends AbstractProvider {
 		Element root;
 		try {
 			root = XMLParseUtil.loadXmlResource(serviceResponse
-					.getInputStream());
+					.getResponseBodyAsStream());
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the profile from response." + PROFILE_URL,
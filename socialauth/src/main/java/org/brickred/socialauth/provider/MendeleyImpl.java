@@ -175,6 +175,7 @@ public class MendeleyImpl extends AbstractProvider {
 					"Failed to retrieve the user profile from  " + url, e);
 		}
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			throw new SocialAuthException(
 					"Failed to retrieve the user profile from  " + url
 							+ ". Staus :" + serviceResponse.getStatus());
@@ -45,6 +45,7 @@ import org.brickred.socialauth.exception.SocialAuthException;
 import org.brickred.socialauth.oauthstrategy.OAuthStrategyBase;
 import org.brickred.socialauth.util.AccessGrant;
 import org.brickred.socialauth.util.OAuthConfig;
+import org.brickred.socialauth.util.OpenIdDiscoveryCache;
 import org.brickred.socialauth.util.Response;
 import org.openid4java.OpenIDException;
 import org.openid4java.consumer.ConsumerException;
@@ -70,7 +71,6 @@ public class OpenIdImpl extends AbstractProvider implements AuthProvider,
 	private static final long serialVersionUID = 7694191649303094756L;
 	private final Log LOG = LogFactory.getLog(OpenIdImpl.class);
 
-	private ConsumerManager manager;
 	private DiscoveryInformation discovered;
 	private String id;
 	private AccessGrant accessGrant;
@@ -80,14 +80,12 @@ public class OpenIdImpl extends AbstractProvider implements AuthProvider,
 
 	public OpenIdImpl(final Properties props) throws ConsumerException,
 			Exception {
-		manager = new ConsumerManager();
 		discovered = null;
 		this.id = props.getProperty("id");
 	}
 
 	public OpenIdImpl(final OAuthConfig config) throws ConsumerException,
 			Exception {
-		manager = new ConsumerManager();
 		this.id = config.getId();
 		discovered = null;
 	}
@@ -95,11 +93,6 @@ public class OpenIdImpl extends AbstractProvider implements AuthProvider,
 	@Override
 	public void setAccessGrant(final AccessGrant accessGrant)
 			throws AccessTokenExpireException {
-		try {
-			manager = new ConsumerManager();
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
 		discovered = null;
 		this.accessGrant = accessGrant;
 	}
@@ -124,12 +117,11 @@ public class OpenIdImpl extends AbstractProvider implements AuthProvider,
 	private String authRequest(final String userSuppliedString,
 			final String returnToUrl) throws IOException {
 		try {
-			// perform discovery on the user-supplied identifier
-			List discoveries = manager.discover(userSuppliedString);
-
-			// attempt to associate with the OpenID provider
-			// and retrieve one service endpoint for authentication
-			discovered = manager.associate(discoveries);
+			// perform discovery on the user-supplied identifier, attempt to
+			// associate with the OpenID provider and retrieve one service
+			// endpoint for authentication. Discovery is cached per identifier.
+			ConsumerManager manager = OpenIdDiscoveryCache.getConsumerManager();
+			discovered = OpenIdDiscoveryCache.discover(userSuppliedString);
 
 			// // store the discovery information in the user's session
 			// httpReq.getSession().setAttribute("openid-disc", discovered);
@@ -215,8 +207,9 @@ public class OpenIdImpl extends AbstractProvider implements AuthProvider,
 
 			// verify the response; ConsumerManager needs to be the same
 			// (static) instance used to place the authentication request
-			VerificationResult verification = manager.verify(
-					receivingURL.toString(), response, discovered);
+			VerificationResult verification = OpenIdDiscoveryCache
+					.getConsumerManager().verify(receivingURL.toString(),
+							response, discovered);
 
 			// examine the verification result and extract the verified
 			// identifier
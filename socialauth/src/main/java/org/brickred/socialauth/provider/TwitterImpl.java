@@ -34,13 +34,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.AbstractContactCursor;
 import org.brickred.socialauth.AbstractProvider;
+import org.brickred.socialauth.AsyncAuthProvider;
 import org.brickred.socialauth.AuthProvider;
 import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.ContactCursor;
 import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.Profile;
 import org.brickred.socialauth.exception.AccessTokenExpireException;
@@ -50,12 +54,12 @@ import org.brickred.socialauth.exception.UserDeniedPermissionException;
 import org.brickred.socialauth.oauthstrategy.OAuth1;
 import org.brickred.socialauth.oauthstrategy.OAuthStrategyBase;
 import org.brickred.socialauth.util.AccessGrant;
+import org.brickred.socialauth.util.BatchExecutor;
 import org.brickred.socialauth.util.Constants;
+import org.brickred.socialauth.util.JSONStreamReader;
 import org.brickred.socialauth.util.MethodType;
 import org.brickred.socialauth.util.OAuthConfig;
 import org.brickred.socialauth.util.Response;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 /**
  * Twitter implementation of the provider.
@@ -70,6 +74,10 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 	private static final long serialVersionUID = 1908393649053616794L;
 	private static final String PROFILE_URL = "https://api.twitter.com/1.1/account/verify_credentials.json?include_email=%1$s&include_entities=%2$s&skip_status=%3$s";
 	private static final String CONTACTS_URL = "https://api.twitter.com/1.1/friends/ids.json?screen_name=%1$s&cursor=-1";
+	private static final String FRIENDS_LIST_URL = "https://api.twitter.com/1.1/friends/list.json?screen_name=%1$s&cursor=%2$s&count=%3$d&skip_status=true&include_user_entities=false";
+	private static final int FRIENDS_LIST_MAX_COUNT = 200;
+	private static final int LOOKUP_BATCH_SIZE = 100;
+	private static final int LOOKUP_PARALLELISM = 4;
 	private static final String LOOKUP_URL = "https://api.twitter.com/1.1/users/lookup.json?user_id=";
 	private static final String UPDATE_STATUS_URL = "https://api.twitter.com/1.1/statuses/update.json?status=";
 	private static final String IMAGE_UPLOAD_URL = "https://api.twitter.com/1.1/statuses/update_with_media.json";
@@ -83,6 +91,8 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 
 	private Permission scope;
 	private boolean isVerify;
+	private int lookupParallelism = LOOKUP_PARALLELISM;
+	private transient Executor lookupExecutor;
 	private AccessGrant accessToken;
 	private OAuthConfig config;
 	private Profile userProfile;
@@ -208,29 +218,52 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 					"Failed to retrieve the user profile from  " + url, e);
 		}
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			throw new SocialAuthException(
 					"Failed to retrieve the user profile from  " + url
 							+ ". Status :" + serviceResponse.getStatus());
 		}
-		String result;
+		String result = null;
+		JSONStreamReader reader = null;
 		try {
-			result = serviceResponse
-					.getResponseBodyAsString(Constants.ENCODING);
-			LOG.debug("User Profile :" + result);
+			if (config.isSaveRawResponse()) {
+				result = serviceResponse
+						.getResponseBodyAsString(Constants.ENCODING);
+				LOG.debug("User Profile :" + result);
+				reader = new JSONStreamReader(result);
+			} else {
+				reader = new JSONStreamReader(
+						serviceResponse
+								.getResponseBodyAsReader(Constants.ENCODING));
+			}
 		} catch (Exception exc) {
+			serviceResponse.close();
 			throw new SocialAuthException("Failed to read response from  "
 					+ url, exc);
 		}
 		try {
-			JSONObject pObj = new JSONObject(result);
-			profile.setValidatedId(pObj.optString("id_str", null));
-			profile.setFullName(pObj.optString("name", null));
-			profile.setLocation(pObj.optString("location", null));
-			profile.setDisplayName(pObj.optString("screen_name", null));
-			profile.setLanguage(pObj.optString("lang", null));
-			profile.setEmail(pObj.optString("email", null));
-			profile.setProfileImageURL(pObj
-					.optString("profile_image_url", null));
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("id_str".equals(name)) {
+					profile.setValidatedId(reader.nextString());
+				} else if ("name".equals(name)) {
+					profile.setFullName(reader.nextString());
+				} else if ("location".equals(name)) {
+					profile.setLocation(reader.nextString());
+				} else if ("screen_name".equals(name)) {
+					profile.setDisplayName(reader.nextString());
+				} else if ("lang".equals(name)) {
+					profile.setLanguage(reader.nextString());
+				} else if ("email".equals(name)) {
+					profile.setEmail(reader.nextString());
+				} else if ("profile_image_url".equals(name)) {
+					profile.setProfileImageURL(reader.nextString());
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
 			profile.setProviderId(getProviderId());
 			if (config.isSaveRawResponse()) {
 				profile.setRawResponse(result);
@@ -239,8 +272,10 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 			return profile;
 		} catch (Exception e) {
 			throw new ServerDataException(
-					"Failed to parse the user profile json : " + result, e);
+					"Failed to parse the user profile json from " + url, e);
 
+		} finally {
+			reader.close();
 		}
 	}
 
@@ -284,6 +319,8 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 						.getErrorStreamAsString(Constants.ENCODING);
 			} catch (Exception e) {
 				LOG.error(e.getMessage());
+			} finally {
+				serviceResponse.close();
 			}
 			throw new SocialAuthException("Failed to update status on " + url
 					+ ". Status :" + serviceResponse.getStatus()
@@ -293,7 +330,9 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 	}
 
 	/**
-	 * Gets the list of followers of the user and their screen name.
+	 * Gets the list of followers of the user and their screen name. Users are
+	 * looked up in batches of 100, running up to
+	 * {@link #setLookupParallelism(int)} batches concurrently.
 	 * 
 	 * @return List of contact objects representing Contacts. Only name, screen
 	 *         name and profile URL will be available
@@ -315,61 +354,147 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 			throw new SocialAuthException(
 					"Failed to retrieve the contacts from " + url, ie);
 		}
-		String result;
+		long ids[] = new long[0];
+		int flength = 0;
+		JSONStreamReader reader;
 		try {
-			result = serviceResponse
-					.getResponseBodyAsString(Constants.ENCODING);
+			reader = new JSONStreamReader(
+					serviceResponse.getResponseBodyAsReader(Constants.ENCODING));
 		} catch (Exception e) {
+			serviceResponse.close();
 			throw new ServerDataException("Failed to get response from " + url);
 		}
-		LOG.debug("User friends ids : " + result);
 		try {
-			JSONObject jobj = new JSONObject(result);
-			if (jobj.has("ids")) {
-				JSONArray idList = jobj.getJSONArray("ids");
-				int flength = idList.length();
-				int ids[] = new int[flength];
-				for (int i = 0; i < idList.length(); i++) {
-					ids[i] = idList.getInt(i);
-				}
-				if (flength > 0) {
-					if (flength > 100) {
-						int i = flength / 100;
-						int temparr[];
-						for (int j = 1; j <= i; j++) {
-							temparr = new int[100];
-							for (int k = (j - 1) * 100, c = 0; k < j * 100; k++, c++) {
-								temparr[c] = ids[k];
-							}
-							plist.addAll(lookupUsers(temparr));
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if ("ids".equals(reader.nextName())) {
+					ids = new long[LOOKUP_BATCH_SIZE];
+					reader.beginArray();
+					while (reader.hasNext()) {
+						if (flength == ids.length) {
+							ids = Arrays.copyOf(ids, flength * 2);
 						}
-						if (flength > i * 100) {
-							temparr = new int[flength - i * 100];
-							for (int k = i * 100, c = 0; k < flength; k++, c++) {
-								temparr[c] = ids[k];
-							}
-							plist.addAll(lookupUsers(temparr));
-						}
-					} else {
-						plist.addAll(lookupUsers(ids));
+						ids[flength++] = reader.nextLong();
 					}
+					reader.endArray();
+				} else {
+					reader.skipValue();
 				}
 			}
+			reader.endObject();
 		} catch (Exception e) {
 			throw new ServerDataException(
-					"Failed to parse the user friends json : " + result, e);
+					"Failed to parse the user friends json from " + url, e);
+		} finally {
+			reader.close();
+		}
+		LOG.debug("User friends ids count : " + flength);
+		final long fids[] = ids;
+		final int total = flength;
+		int batches = (total + LOOKUP_BATCH_SIZE - 1) / LOOKUP_BATCH_SIZE;
+		BatchExecutor batchExecutor = new BatchExecutor(getLookupExecutor(),
+				lookupParallelism);
+		List<List<Contact>> results = batchExecutor.execute(batches,
+				new BatchExecutor.Batch<List<Contact>>() {
+					@Override
+					public List<Contact> call(final int index) throws Exception {
+						int from = index * LOOKUP_BATCH_SIZE;
+						int to = Math.min(from + LOOKUP_BATCH_SIZE, total);
+						return lookupUsers(fids, from, to);
+					}
+				});
+		for (List<Contact> result : results) {
+			plist.addAll(result);
 		}
 		return plist;
 	}
 
-	private List<Contact> lookupUsers(final int fids[]) throws Exception {
+	/**
+	 * Gets the friends of the user page by page. Each page is fetched with a
+	 * single friends/list call, which returns at most 200 users.
+	 * 
+	 * @param pageSize
+	 *            number of contacts per page
+	 * @param continuationToken
+	 *            the Twitter cursor of the page to start from
+	 * @return the contact cursor
+	 */
+	@Override
+	public ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		if (!isVerify) {
+			throw new SocialAuthException(
+					"Please call verifyResponse function first to get Access Token");
+		}
+		return new AbstractContactCursor(pageSize, continuationToken) {
+			@Override
+			protected String fetchPage(final int pageSize, final String token,
+					final List<Contact> page) throws Exception {
+				String url = String.format(FRIENDS_LIST_URL,
+						accessToken.getAttribute("screen_name"),
+						token == null ? "-1" : token,
+						Math.min(pageSize, FRIENDS_LIST_MAX_COUNT));
+				return readFriends(url, page);
+			}
+		};
+	}
+
+	private String readFriends(final String url, final List<Contact> plist)
+			throws Exception {
+		LOG.info("Fetching contacts from " + url);
+		Response serviceResponse = null;
+		try {
+			serviceResponse = authenticationStrategy.executeFeed(url);
+		} catch (Exception ie) {
+			throw new SocialAuthException(
+					"Failed to retrieve the contacts from " + url, ie);
+		}
+		String nextCursor = null;
+		JSONStreamReader reader;
+		try {
+			reader = new JSONStreamReader(
+					serviceResponse.getResponseBodyAsReader(Constants.ENCODING));
+		} catch (Exception e) {
+			serviceResponse.close();
+			throw new ServerDataException("Failed to get response from " + url,
+					e);
+		}
+		try {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("users".equals(name)) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						plist.add(readContact(reader));
+					}
+					reader.endArray();
+				} else if ("next_cursor_str".equals(name)) {
+					nextCursor = reader.nextString();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+		} catch (Exception e) {
+			throw new ServerDataException(
+					"Failed to parse the user friends json from " + url, e);
+		} finally {
+			reader.close();
+		}
+		return nextCursor == null || "0".equals(nextCursor) ? null
+				: nextCursor;
+	}
+
+	private List<Contact> lookupUsers(final long fids[], final int from,
+			final int to) throws Exception {
 		StringBuilder strb = new StringBuilder();
 		List<Contact> plist = new ArrayList<Contact>();
-		for (int value : fids) {
+		for (int i = from; i < to; i++) {
 			if (strb.length() != 0) {
 				strb.append(",");
 			}
-			strb.append(value);
+			strb.append(fids[i]);
 		}
 		String url = LOOKUP_URL + strb.toString();
 		LOG.debug("Fetching info of following users : " + url);
@@ -380,39 +505,59 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 			throw new SocialAuthException(
 					"Failed to retrieve the contacts from " + url, ie);
 		}
-		String result;
+		JSONStreamReader reader;
 		try {
-			result = serviceResponse
-					.getResponseBodyAsString(Constants.ENCODING);
+			reader = new JSONStreamReader(
+					serviceResponse.getResponseBodyAsReader(Constants.ENCODING));
 		} catch (Exception e) {
+			serviceResponse.close();
 			throw new ServerDataException("Failed to get response from " + url,
 					e);
 		}
-		LOG.debug("Users info : " + result);
 		try {
-			JSONArray jarr = new JSONArray(result);
-			for (int i = 0; i < jarr.length(); i++) {
-				JSONObject jobj = jarr.getJSONObject(i);
-				Contact cont = new Contact();
-				cont.setFirstName(jobj.optString("name", null));
-				String sname = jobj.optString("screen_name", null);
+			reader.beginArray();
+			while (reader.hasNext()) {
+				plist.add(readContact(reader));
+			}
+			reader.endArray();
+		} finally {
+			reader.close();
+		}
+		LOG.debug("Users info count : " + plist.size());
+		return plist;
+	}
+
+	private Contact readContact(final JSONStreamReader reader)
+			throws Exception {
+		Contact cont = new Contact();
+		JSONStreamReader r = reader;
+		if (config.isSaveRawResponse()) {
+			String raw = reader.nextRaw();
+			cont.setRawResponse(raw);
+			r = new JSONStreamReader(raw);
+		}
+		r.beginObject();
+		while (r.hasNext()) {
+			String name = r.nextName();
+			if ("name".equals(name)) {
+				cont.setFirstName(r.nextString());
+			} else if ("screen_name".equals(name)) {
+				String sname = r.nextString();
 				if (sname != null) {
 					cont.setDisplayName(sname);
 					cont.setProfileUrl("https://" + PROPERTY_DOMAIN + "/"
 							+ sname);
 				}
-				cont.setProfileImageURL(jobj.optString("profile_image_url",
-						null));
-				cont.setId(jobj.optString("id_str", null));
-				if (config.isSaveRawResponse()) {
-					cont.setRawResponse(jobj.toString());
-				}
-				plist.add(cont);
+			} else if ("profile_image_url".equals(name)) {
+				cont.setProfileImageURL(r.nextString());
+			} else if ("id_str".equals(name)) {
+				cont.setId(r.nextString());
+			} else {
+				r.skipValue();
 			}
-		} catch (Exception e) {
-			throw e;
 		}
-		return plist;
+		r.endObject();
+		return cont;
 	}
 
 	/**
@@ -528,6 +673,7 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 	protected List<String> getPluginsList() {
 		List<String> list = new ArrayList<String>();
 		list.add("org.brickred.socialauth.plugin.twitter.FeedPluginImpl");
+		list.add("org.brickred.socialauth.plugin.twitter.MediaUploadPluginImpl");
 		list.add("org.brickred.socialauth.plugin.twitter.AlbumsPluginImpl");
 		if (config.getRegisteredPlugins() != null
 				&& config.getRegisteredPlugins().length > 0) {
@@ -540,4 +686,37 @@ public class TwitterImpl extends AbstractProvider implements AuthProvider,
 	protected OAuthStrategyBase getOauthStrategy() {
 		return authenticationStrategy;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Sets the maximum number of users/lookup calls made concurrently while
+	 * fetching the contacts. Default is 4.
+	 * 
+	 * @param lookupParallelism
+	 *            number of concurrent lookup calls
+	 */
+	public void setLookupParallelism(final int lookupParallelism) {
+		if (lookupParallelism < 1) {
+			throw new IllegalArgumentException(
+					"Lookup parallelism must be positive");
+		}
+		this.lookupParallelism = lookupParallelism;
+	}
+
+	/**
+	 * Sets the executor used for the concurrent users/lookup calls. If not
+	 * set, {@link AsyncAuthProvider#getDefaultExecutor()} is used.
+	 * 
+	 * @param lookupExecutor
+	 *            the executor
+	 */
+	public void setLookupExecutor(final Executor lookupExecutor) {
+		this.lookupExecutor = lookupExecutor;
+	}
+
+	private Executor getLookupExecutor() {
+		if (lookupExecutor == null) {
+			lookupExecutor = AsyncAuthProvider.getDefaultExecutor();
+		}
+		return lookupExecutor;
+	}
+}
@@ -25,6 +25,7 @@
 
 package org.brickred.socialauth.provider;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -33,11 +34,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.AbstractContactCursor;
 import org.brickred.socialauth.AbstractProvider;
 import org.brickred.socialauth.AuthProvider;
 import org.brickred.socialauth.Contact;
+import org.brickred.socialauth.ContactCursor;
 import org.brickred.socialauth.Permission;
 import org.brickred.socialauth.Profile;
 import org.brickred.socialauth.exception.AccessTokenExpireException;
@@ -54,8 +61,6 @@ import org.brickred.socialauth.util.Response;
 import org.brickred.socialauth.util.XMLParseUtil;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 /**
  * Provider implementation for Yahoo. This uses the oAuth API provided by Yahoo
@@ -70,6 +75,7 @@ public class YahooImpl extends AbstractProvider implements AuthProvider,
 	private static final long serialVersionUID = 903564874550419470L;
 	private static final String PROFILE_URL = "https://social.yahooapis.com/v1/user/%1$s/profile?format=json";
 	private static final String CONTACTS_URL = "https://social.yahooapis.com/v1/user/%1$s/contacts;count=max";
+	private static final String CONTACTS_PAGE_URL = "https://social.yahooapis.com/v1/user/%1$s/contacts;start=%2$d;count=%3$d";
 	private static final String UPDATE_STATUS_URL = "https://social.yahooapis.com/v1/user/%1$s/profile/status";
 	private final Log LOG = LogFactory.getLog(YahooImpl.class);
 	private static final Map<String, String> ENDPOINTS;
@@ -201,6 +207,7 @@ public class YahooImpl extends AbstractProvider implements AuthProvider,
 					"Failed to retrieve the user profile from  " + url, e);
 		}
 		if (serviceResponse.getStatus() != 200) {
+			serviceResponse.close();
 			throw new SocialAuthException(
 					"Failed to retrieve the user profile from  " + url
 							+ ". Staus :" + serviceResponse.getStatus());
@@ -283,7 +290,51 @@ public class YahooImpl extends AbstractProvider implements AuthProvider,
 		String url = String.format(CONTACTS_URL,
 				accessToken.getAttribute("xoauth_yahoo_guid"));
 		LOG.info("Fetching contacts from " + url);
+		List<Contact> plist = new ArrayList<Contact>();
+		readContacts(url, plist);
+		if (plist.isEmpty()) {
+			LOG.debug("No contacts were obtained from : " + url);
+		} else {
+			LOG.debug("Found contacts : " + plist.size());
+		}
+		return plist;
+	}
+
+	/**
+	 * Gets the contacts of the user page by page using start and count of the
+	 * contacts collection. Contacts without email are skipped, so a page may
+	 * have less contacts than the page size.
+	 * 
+	 * @param pageSize
+	 *            number of contacts per page
+	 * @param continuationToken
+	 *            start of the page to start from
+	 * @return the contact cursor
+	 */
+	@Override
+	public ContactCursor getContactCursor(final int pageSize,
+			final String continuationToken) throws Exception {
+		return new AbstractContactCursor(pageSize, continuationToken) {
+			@Override
+			protected String fetchPage(final int pageSize, final String token,
+					final List<Contact> page) throws Exception {
+				int start = token == null ? 0 : Integer.parseInt(token);
+				String url = String.format(CONTACTS_PAGE_URL,
+						accessToken.getAttribute("xoauth_yahoo_guid"), start,
+						pageSize);
+				LOG.info("Fetching contacts from " + url);
+				int count = readContacts(url, page);
+				return count < pageSize ? null : String.valueOf(start + count);
+			}
+		};
+	}
 
+	/**
+	 * Reads the contacts from given url into the list and returns the number
+	 * of contact elements in the response.
+	 */
+	private int readContacts(final String url, final List<Contact> plist)
+			throws Exception {
 		Response serviceResponse = null;
 		try {
 			serviceResponse = authenticationStrategy.executeFeed(url);
@@ -292,78 +343,89 @@ public class YahooImpl extends AbstractProvider implements AuthProvider,
 					"Failed to retrieve the contacts from " + url, ie);
 		}
 
-		List<Contact> plist = new ArrayList<Contact>();
-		Element root;
+		int count = 0;
+		InputStream in = null;
 		try {
-			root = XMLParseUtil.loadXmlResource(serviceResponse
-					.getInputStream());
+			in = serviceResponse.getResponseBodyAsStream();
+			XMLStreamReader reader = XMLParseUtil.createXMLStreamReader(in);
+			while (XMLParseUtil.nextElement(reader, "contact")) {
+				count++;
+				Contact p;
+				if (config.isSaveRawResponse()) {
+					String raw = XMLParseUtil.readElementAsString(reader);
+					XMLStreamReader r = XMLParseUtil.createXMLStreamReader(raw);
+					r.nextTag();
+					p = readContact(r);
+					if (p != null) {
+						p.setRawResponse(raw);
+					}
+				} else {
+					p = readContact(reader);
+				}
+				if (p != null) {
+					plist.add(p);
+				}
+			}
+			reader.close();
 		} catch (Exception e) {
 			throw new ServerDataException(
 					"Failed to parse the contacts from response." + url, e);
+		} finally {
+			if (in != null) {
+				in.close();
+			}
 		}
-		NodeList contactsList = root.getElementsByTagName("contact");
-		if (contactsList != null && contactsList.getLength() > 0) {
-			LOG.debug("Found contacts : " + contactsList.getLength());
-			for (int i = 0; i < contactsList.getLength(); i++) {
-				Element contact = (Element) contactsList.item(i);
-				NodeList fieldList = contact.getElementsByTagName("fields");
-				if (fieldList != null && fieldList.getLength() > 0) {
-					String fname = "";
-					String lname = "";
-					String dispName = "";
-					String address = "";
-					List<String> emailArr = new ArrayList<String>();
-					for (int j = 0; j < fieldList.getLength(); j++) {
-						Element field = (Element) fieldList.item(j);
-						String type = XMLParseUtil
-								.getElementData(field, "type");
-
-						if ("email".equalsIgnoreCase(type)) {
-							if (address.length() > 0) {
-								emailArr.add(XMLParseUtil.getElementData(field,
-										"value"));
-							} else {
-								address = XMLParseUtil.getElementData(field,
-										"value");
-							}
-						} else if ("name".equals(type)) {
-							fname = XMLParseUtil.getElementData(field,
-									"givenName");
-							lname = XMLParseUtil.getElementData(field,
-									"familyName");
-						} else if ("yahooid".equalsIgnoreCase(type)) {
-							dispName = XMLParseUtil.getElementData(field,
-									"value");
-						}
-					}
-					if (address != null && address.length() > 0) {
-						Contact p = new Contact();
-						p.setFirstName(fname);
-						p.setLastName(lname);
-						p.setEmail(address);
-						p.setDisplayName(dispName);
-						if (emailArr.size() > 0) {
-							String arr[] = new String[emailArr.size()];
-							int k = 0;
-							for (String s : emailArr) {
-								arr[k] = s;
-								k++;
-							}
-							p.setOtherEmails(arr);
-						}
-						p.setId(contact.getAttribute("yahoo:uri"));
-						if (config.isSaveRawResponse()) {
-							p.setRawResponse(XMLParseUtil
-									.getStringFromElement(contact));
-						}
-						plist.add(p);
+		return count;
+	}
+
+	private Contact readContact(final XMLStreamReader reader)
+			throws XMLStreamException {
+		String id = XMLParseUtil.getAttribute(reader, "yahoo:uri");
+		String fname = "";
+		String lname = "";
+		String dispName = "";
+		String address = "";
+		List<String> emailArr = new ArrayList<String>();
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (!"fields".equals(reader.getLocalName())) {
+					depth++;
+					continue;
+				}
+				Map<String, String> field = XMLParseUtil
+						.readElementData(reader);
+				String type = field.get("type");
+				if ("email".equalsIgnoreCase(type)) {
+					if (address.length() > 0) {
+						emailArr.add(field.get("value"));
+					} else {
+						address = field.get("value");
 					}
+				} else if ("name".equals(type)) {
+					fname = field.get("givenName");
+					lname = field.get("familyName");
+				} else if ("yahooid".equalsIgnoreCase(type)) {
+					dispName = field.get("value");
 				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
 			}
-		} else {
-			LOG.debug("No contacts were obtained from : " + CONTACTS_URL);
 		}
-		return plist;
+		if (address == null || address.length() == 0) {
+			return null;
+		}
+		Contact p = new Contact();
+		p.setFirstName(fname);
+		p.setLastName(lname);
+		p.setEmail(address);
+		p.setDisplayName(dispName);
+		if (emailArr.size() > 0) {
+			p.setOtherEmails(emailArr.toArray(new String[emailArr.size()]));
+		}
+		p.setId(id);
+		return p;
 	}
 
 	/**
@@ -393,6 +455,11 @@ public class YahooImpl extends AbstractProvider implements AuthProvider,
 		}
 
 		if (serviceResponse.getStatus() != 204) {
+			try {
+				serviceResponse.close();
+			} catch (IOException e) {
+				LOG.debug("Unable to close response", e);
+			}
 			throw new SocialAuthException(
 					"Failed to update status. Return status code :"
 							+ serviceResponse.getStatus());
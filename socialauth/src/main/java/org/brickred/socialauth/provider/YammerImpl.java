@@ -25,6 +25,7 @@
 
 package org.brickred.socialauth.provider;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
@@ -186,26 +187,32 @@ public class YammerImpl extends AbstractProvider implements AuthProvider,
 			throw new SocialAuthException("Error in url : " + e);
 		}
 		String result = null;
-		if (response.getStatus() == 200) {
-			try {
-				result = response.getResponseBodyAsString(Constants.ENCODING);
-			} catch (Exception exc) {
-				throw new SocialAuthException("Failed to parse response", exc);
-			}
-		}
-		if (result == null || result.length() == 0) {
-			String errorMessage = null;
-			try {
-				errorMessage = response
-						.getErrorStreamAsString(Constants.ENCODING);
-			} catch (Exception e) {
-				// do nothing
+		try {
+			if (response.getStatus() == 200) {
+				try {
+					result = response
+							.getResponseBodyAsString(Constants.ENCODING);
+				} catch (Exception exc) {
+					throw new SocialAuthException("Failed to parse response",
+							exc);
+				}
 			}
-			if (errorMessage == null) {
-				errorMessage = "Problem in getting Access Token. Application key or Secret key may be wrong."
-						+ "The server running the application should be same that was registered to get the keys.";
+			if (result == null || result.length() == 0) {
+				String errorMessage = null;
+				try {
+					errorMessage = response
+							.getErrorStreamAsString(Constants.ENCODING);
+				} catch (Exception e) {
+					// do nothing
+				}
+				if (errorMessage == null) {
+					errorMessage = "Problem in getting Access Token. Application key or Secret key may be wrong."
+							+ "The server running the application should be same that was registered to get the keys.";
+				}
+				throw new SocialAuthConfigurationException(errorMessage);
 			}
-			throw new SocialAuthConfigurationException(errorMessage);
+		} finally {
+			response.close();
 		}
 
 		JSONObject resp = new JSONObject(result);
@@ -325,6 +332,7 @@ public class YammerImpl extends AbstractProvider implements AuthProvider,
 					MethodType.POST.toString(), msgBody, headerParam);
 
 			if (serviceResponse.getStatus() != 201) {
+				serviceResponse.close();
 				throw new SocialAuthException(
 						"Status not updated. Return Status code :"
 								+ serviceResponse.getStatus());
@@ -484,6 +492,11 @@ public class YammerImpl extends AbstractProvider implements AuthProvider,
 				&& serviceResponse.getStatus() != 201) {
 			LOG.debug("Return statuc for URL " + url + " is "
 					+ serviceResponse.getStatus());
+			try {
+				serviceResponse.close();
+			} catch (IOException e) {
+				LOG.debug("Unable to close response", e);
+			}
 			throw new SocialAuthException("Error while making request to URL :"
 					+ url + "Status : " + serviceResponse.getStatus());
 		}
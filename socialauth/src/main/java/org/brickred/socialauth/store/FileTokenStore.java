@@ -0,0 +1,357 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.util.AccessGrant;
+
+/**
+ * {@link TokenStore} which writes every change to an append only log file and
+ * keeps the indexes of {@link InMemoryTokenStore}. On start the log is
+ * replayed to rebuild the indexes; a partly written last record is discarded.
+ * When the log has more replaced or removed records than live ones, it is
+ * compacted by writing the live grants to a new file.
+ * 
+ * Every record is written as its length followed by the operation, user id,
+ * provider id, expiry and, for save operations, the serialized access grant.
+ * A record which could not be written completely is cut off again, so the log
+ * and the indexes always hold the same grants.
+ * 
+ * Access grants are stored unencrypted. The log is created readable and
+ * writable by its owner only where the file system supports POSIX
+ * permissions; elsewhere the directory of the log has to be protected.
+ */
+public class FileTokenStore extends InMemoryTokenStore {
+
+	/**
+	 * Default minimum number of stale records before compaction
+	 */
+	public static final int DEFAULT_COMPACT_THRESHOLD = 10000;
+
+	private static final byte OP_SAVE = 1;
+	private static final byte OP_REMOVE = 2;
+	private static final Log LOG = LogFactory.getLog(FileTokenStore.class);
+
+	private final File file;
+	private FileOutputStream outStream;
+	private DataOutputStream out;
+	private int compactThreshold = DEFAULT_COMPACT_THRESHOLD;
+	private int staleRecords;
+	private boolean syncOnWrite;
+
+	/**
+	 * Opens the store in given file, replaying the existing records
+	 * 
+	 * @param file
+	 *            the log file. It is created if it does not exist.
+	 * @throws IOException
+	 *             if file could not be read or opened for writing
+	 */
+	public FileTokenStore(final File file) throws IOException {
+		this.file = file;
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Could not create directory "
+					+ dir.getAbsolutePath());
+		}
+		createOwnerOnly(file);
+		replay();
+		out = openLog();
+	}
+
+	@Override
+	public synchronized void save(final String userId,
+			final AccessGrant accessGrant) throws SocialAuthException {
+		validate(userId, accessGrant);
+		StoredToken token = StoredToken.of(userId, accessGrant);
+		append(OP_SAVE, token.getUserId(), token.getProviderId(),
+				token.getExpiresAt(), accessGrant);
+		if (put(token) != null) {
+			staleRecords++;
+		}
+		compactIfNeeded();
+	}
+
+	@Override
+	public synchronized boolean remove(final String userId,
+			final String providerId) throws SocialAuthException {
+		if (load(userId, providerId) == null) {
+			return false;
+		}
+		append(OP_REMOVE, userId, providerId, 0, null);
+		delete(userId, providerId);
+		staleRecords += 2;
+		compactIfNeeded();
+		return true;
+	}
+
+	/**
+	 * Rewrites the log with the live grants only
+	 * 
+	 * @throws IOException
+	 *             if log could not be rewritten. The existing log is kept in
+	 *             that case.
+	 */
+	public synchronized void compact() throws IOException {
+		File tmp = new File(file.getPath() + ".tmp");
+		tmp.delete();
+		createOwnerOnly(tmp);
+		DataOutputStream tmpOut = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			for (StoredToken token : getTokens()) {
+				writeRecord(tmpOut, OP_SAVE, token.getUserId(),
+						token.getProviderId(), token.getExpiresAt(),
+						token.getAccessGrant());
+			}
+			tmpOut.flush();
+		} finally {
+			tmpOut.close();
+		}
+		out.close();
+		Files.move(tmp.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		out = openLog();
+		staleRecords = 0;
+		LOG.debug("Compacted token store " + file + ", " + size()
+				+ " grants");
+	}
+
+	/**
+	 * Closes the log file. Store can not be modified afterwards.
+	 * 
+	 * @throws IOException
+	 */
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * @param compactThreshold
+	 *            minimum number of stale records before log is compacted
+	 */
+	public void setCompactThreshold(final int compactThreshold) {
+		this.compactThreshold = compactThreshold;
+	}
+
+	/**
+	 * @param syncOnWrite
+	 *            true to force every record to disk before returning. Default
+	 *            is false, which only flushes to operating system.
+	 */
+	public void setSyncOnWrite(final boolean syncOnWrite) {
+		this.syncOnWrite = syncOnWrite;
+	}
+
+	/**
+	 * @return the log file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	private void compactIfNeeded() {
+		if (staleRecords >= compactThreshold && staleRecords > size()) {
+			try {
+				compact();
+			} catch (IOException e) {
+				LOG.warn("Could not compact token store " + file, e);
+			}
+		}
+	}
+
+	private void append(final byte op, final String userId,
+			final String providerId, final long expiresAt,
+			final AccessGrant accessGrant) throws SocialAuthException {
+		long position = -1;
+		try {
+			out.flush();
+			position = outStream.getChannel().size();
+			writeRecord(out, op, userId, providerId, expiresAt, accessGrant);
+			out.flush();
+			if (syncOnWrite) {
+				outStream.getFD().sync();
+			}
+		} catch (IOException e) {
+			if (position >= 0) {
+				discardFrom(position);
+			}
+			throw new SocialAuthException("Could not write token store "
+					+ file, e);
+		}
+	}
+
+	private void discardFrom(final long position) {
+		try {
+			out.close();
+		} catch (IOException e) {
+			LOG.debug("Unable to close token store " + file, e);
+		}
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(position);
+			} finally {
+				raf.close();
+			}
+			out = openLog();
+		} catch (IOException e) {
+			LOG.warn("Could not discard incomplete record at " + position
+					+ " in " + file, e);
+		}
+	}
+
+	private static void createOwnerOnly(final File f) throws IOException {
+		if (f.exists()) {
+			return;
+		}
+		try {
+			Files.createFile(f.toPath(), PosixFilePermissions
+					.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} catch (UnsupportedOperationException e) {
+			if (f.createNewFile()) {
+				f.setReadable(false, false);
+				f.setWritable(false, false);
+				f.setReadable(true, true);
+				f.setWritable(true, true);
+			}
+		} catch (FileAlreadyExistsException e) {
+			// created meanwhile
+		}
+	}
+
+	private static void writeRecord(final DataOutputStream dos,
+			final byte op, final String userId, final String providerId,
+			final long expiresAt, final AccessGrant accessGrant)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream record = new DataOutputStream(bytes);
+		record.writeByte(op);
+		record.writeUTF(userId);
+		record.writeUTF(providerId);
+		record.writeLong(expiresAt);
+		if (accessGrant != null) {
+			ObjectOutputStream oos = new ObjectOutputStream(record);
+			oos.writeObject(accessGrant);
+			oos.flush();
+		}
+		dos.writeInt(bytes.size());
+		bytes.writeTo(dos);
+	}
+
+	private void replay() throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+		long size = file.length();
+		long valid = 0;
+		int records = 0;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)));
+		try {
+			while (true) {
+				int length;
+				try {
+					length = in.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				if (length <= 0 || length > size - valid - 4) {
+					LOG.warn("Discarding invalid record at " + valid + " in "
+							+ file);
+					break;
+				}
+				byte[] data = new byte[length];
+				try {
+					in.readFully(data);
+					readRecord(data);
+				} catch (Exception e) {
+					LOG.warn("Discarding incomplete record at " + valid
+							+ " in " + file);
+					break;
+				}
+				valid += 4 + length;
+				records++;
+			}
+		} finally {
+			in.close();
+		}
+		if (valid < size) {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(valid);
+			} finally {
+				raf.close();
+			}
+		}
+		staleRecords = records - size();
+		LOG.debug("Loaded " + size() + " grants from " + file);
+	}
+
+	private void readRecord(final byte[] data) throws Exception {
+		DataInputStream record = new DataInputStream(new ByteArrayInputStream(
+				data));
+		byte op = record.readByte();
+		String userId = record.readUTF();
+		String providerId = record.readUTF();
+		long expiresAt = record.readLong();
+		if (op == OP_SAVE) {
+			ObjectInputStream ois = new ObjectInputStream(record);
+			AccessGrant grant = (AccessGrant) ois.readObject();
+			put(new StoredToken(userId, grant, expiresAt));
+		} else if (op == OP_REMOVE) {
+			delete(userId, providerId);
+		} else {
+			throw new IOException("Unknown operation " + op);
+		}
+	}
+
+	private DataOutputStream openLog() throws IOException {
+		outStream = new FileOutputStream(file, true);
+		return new DataOutputStream(new BufferedOutputStream(outStream));
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.util.AccessGrant;
+
+/**
+ * {@link TokenStore} which keeps the grants in memory, indexed by user and by
+ * expiry. Grants are lost when the application stops; use
+ * {@link FileTokenStore} to keep them.
+ */
+public class InMemoryTokenStore implements TokenStore {
+
+	private static final Comparator<StoredToken> EXPIRY_ORDER = new Comparator<StoredToken>() {
+		@Override
+		public int compare(final StoredToken t1, final StoredToken t2) {
+			if (t1.getExpiresAt() != t2.getExpiresAt()) {
+				return t1.getExpiresAt() < t2.getExpiresAt() ? -1 : 1;
+			}
+			int c = t1.getUserId().compareTo(t2.getUserId());
+			if (c != 0) {
+				return c;
+			}
+			return t1.getProviderId().compareTo(t2.getProviderId());
+		}
+	};
+
+	private final Map<String, Map<String, StoredToken>> tokens = new HashMap<String, Map<String, StoredToken>>();
+	private final TreeSet<StoredToken> expiries = new TreeSet<StoredToken>(
+			EXPIRY_ORDER);
+	private int size;
+
+	@Override
+	public void save(final String userId, final AccessGrant accessGrant)
+			throws SocialAuthException {
+		validate(userId, accessGrant);
+		put(StoredToken.of(userId, accessGrant));
+	}
+
+	@Override
+	public synchronized AccessGrant load(final String userId,
+			final String providerId) {
+		Map<String, StoredToken> map = tokens.get(userId);
+		if (map == null) {
+			return null;
+		}
+		StoredToken token = map.get(providerId);
+		return token == null ? null : token.getAccessGrant();
+	}
+
+	@Override
+	public synchronized List<AccessGrant> loadAll(final String userId) {
+		Map<String, StoredToken> map = tokens.get(userId);
+		if (map == null) {
+			return Collections.emptyList();
+		}
+		List<AccessGrant> list = new ArrayList<AccessGrant>(map.size());
+		for (StoredToken token : map.values()) {
+			list.add(token.getAccessGrant());
+		}
+		return list;
+	}
+
+	@Override
+	public boolean remove(final String userId, final String providerId)
+			throws SocialAuthException {
+		return delete(userId, providerId) != null;
+	}
+
+	@Override
+	public synchronized List<StoredToken> findExpiringBefore(final long time) {
+		List<StoredToken> list = new ArrayList<StoredToken>();
+		for (StoredToken token : expiries) {
+			if (token.getExpiresAt() >= time) {
+				break;
+			}
+			list.add(token);
+		}
+		return list;
+	}
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Adds given token to indexes, replacing the token of same user and
+	 * provider.
+	 * 
+	 * @param token
+	 *            the token to add
+	 * @return the replaced token or null
+	 */
+	protected synchronized StoredToken put(final StoredToken token) {
+		Map<String, StoredToken> map = tokens.get(token.getUserId());
+		if (map == null) {
+			map = new HashMap<String, StoredToken>(4);
+			tokens.put(token.getUserId(), map);
+		}
+		StoredToken old = map.put(token.getProviderId(), token);
+		if (old != null) {
+			expiries.remove(old);
+		} else {
+			size++;
+		}
+		if (token.getExpiresAt() > 0) {
+			expiries.add(token);
+		}
+		return old;
+	}
+
+	/**
+	 * Removes the token of given user and provider from indexes
+	 * 
+	 * @return the removed token or null
+	 */
+	protected synchronized StoredToken delete(final String userId,
+			final String providerId) {
+		Map<String, StoredToken> map = tokens.get(userId);
+		if (map == null) {
+			return null;
+		}
+		StoredToken old = map.remove(providerId);
+		if (old != null) {
+			size--;
+			expiries.remove(old);
+			if (map.isEmpty()) {
+				tokens.remove(userId);
+			}
+		}
+		return old;
+	}
+
+	/**
+	 * Returns all the stored tokens. Caller must hold the lock of this store.
+	 */
+	protected Collection<StoredToken> getTokens() {
+		List<StoredToken> list = new ArrayList<StoredToken>(size);
+		for (Map<String, StoredToken> map : tokens.values()) {
+			list.addAll(map.values());
+		}
+		return list;
+	}
+
+	/**
+	 * Removes all the tokens from indexes
+	 */
+	protected synchronized void clearTokens() {
+		tokens.clear();
+		expiries.clear();
+		size = 0;
+	}
+
+	protected void validate(final String userId, final AccessGrant accessGrant)
+			throws SocialAuthException {
+		if (userId == null) {
+			throw new SocialAuthException("User id can not be null");
+		}
+		if (accessGrant == null || accessGrant.getProviderId() == null
+				|| accessGrant.getKey() == null) {
+			throw new SocialAuthException("access grant is not valid");
+		}
+	}
+}
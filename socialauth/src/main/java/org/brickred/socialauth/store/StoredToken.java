@@ -0,0 +1,101 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.store;
+
+import java.io.Serializable;
+
+import org.brickred.socialauth.util.AccessGrant;
+import org.brickred.socialauth.util.Constants;
+
+/**
+ * An access grant kept by a {@link TokenStore}, with its user and expiry
+ */
+public class StoredToken implements Serializable {
+
+	private static final long serialVersionUID = 4370212093185376452L;
+
+	private final String userId;
+	private final AccessGrant accessGrant;
+	private final long expiresAt;
+
+	/**
+	 * @param userId
+	 *            the user id
+	 * @param accessGrant
+	 *            the access grant
+	 * @param expiresAt
+	 *            expiry time in milliseconds, 0 if grant does not expire
+	 */
+	public StoredToken(final String userId, final AccessGrant accessGrant,
+			final long expiresAt) {
+		this.userId = userId;
+		this.accessGrant = accessGrant;
+		this.expiresAt = expiresAt;
+	}
+
+	/**
+	 * Creates a stored token which expires at the time recorded in the
+	 * {@value Constants#EXPIRES_AT} attribute of grant. See
+	 * {@link AccessGrant#getExpiresAt()}.
+	 * 
+	 * @param userId
+	 *            the user id
+	 * @param accessGrant
+	 *            the access grant
+	 * @return the stored token
+	 */
+	public static StoredToken of(final String userId,
+			final AccessGrant accessGrant) {
+		return new StoredToken(userId, accessGrant, accessGrant.getExpiresAt());
+	}
+
+	/**
+	 * @return the user id
+	 */
+	public String getUserId() {
+		return userId;
+	}
+
+	/**
+	 * @return the provider id of access grant
+	 */
+	public String getProviderId() {
+		return accessGrant.getProviderId();
+	}
+
+	/**
+	 * @return the access grant
+	 */
+	public AccessGrant getAccessGrant() {
+		return accessGrant;
+	}
+
+	/**
+	 * @return expiry time in milliseconds, 0 if grant does not expire
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+}
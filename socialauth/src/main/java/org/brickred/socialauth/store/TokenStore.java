@@ -0,0 +1,105 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.store;
+
+import java.util.List;
+
+import org.brickred.socialauth.exception.SocialAuthException;
+import org.brickred.socialauth.util.AccessGrant;
+
+/**
+ * Persists the access grants of users, so that providers can be connected
+ * again without authentication, e.g. after a restart. Grants are kept per
+ * user and provider id; saving a grant replaces the previous grant of that
+ * user and provider.
+ * 
+ * Implementations should be thread safe. Two implementations are available,
+ * {@link InMemoryTokenStore} and {@link FileTokenStore}.
+ */
+public interface TokenStore {
+
+	/**
+	 * Saves the access grant of a user. Provider id of access grant is
+	 * required.
+	 * 
+	 * @param userId
+	 *            the user id
+	 * @param accessGrant
+	 *            the access grant
+	 * @throws SocialAuthException
+	 *             if grant could not be saved
+	 */
+	public void save(String userId, AccessGrant accessGrant)
+			throws SocialAuthException;
+
+	/**
+	 * Loads the access grant of a user for given provider
+	 * 
+	 * @param userId
+	 *            the user id
+	 * @param providerId
+	 *            the provider id
+	 * @return the access grant or null if there is no grant
+	 */
+	public AccessGrant load(String userId, String providerId);
+
+	/**
+	 * Loads all the access grants of a user
+	 * 
+	 * @param userId
+	 *            the user id
+	 * @return list of access grants, empty if there is no grant
+	 */
+	public List<AccessGrant> loadAll(String userId);
+
+	/**
+	 * Removes the access grant of a user for given provider
+	 * 
+	 * @param userId
+	 *            the user id
+	 * @param providerId
+	 *            the provider id
+	 * @return true if a grant was removed
+	 * @throws SocialAuthException
+	 *             if grant could not be removed
+	 */
+	public boolean remove(String userId, String providerId)
+			throws SocialAuthException;
+
+	/**
+	 * Returns the grants which expire before given time. Grants without
+	 * expiry are never returned.
+	 * 
+	 * @param time
+	 *            time in milliseconds
+	 * @return list of stored tokens ordered by expiry
+	 */
+	public List<StoredToken> findExpiringBefore(long time);
+
+	/**
+	 * @return number of stored grants
+	 */
+	public int size();
+}
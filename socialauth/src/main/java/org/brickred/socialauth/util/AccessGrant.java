@@ -135,6 +135,62 @@ public class AccessGrant implements Serializable {
 		_attributes.putAll(attributes);
 	}
 
+	/**
+	 * Sets the lifetime of token as received from provider. The absolute
+	 * expiry time is recorded along with it, so that it does not move when
+	 * the grant is stored or scheduled later.
+	 * 
+	 * @param seconds
+	 *            lifetime of token in seconds, null if not known
+	 */
+	public void setExpires(final Integer seconds) {
+		setAttribute(Constants.EXPIRES, seconds);
+		if (seconds != null && seconds.intValue() > 0) {
+			setAttribute(Constants.EXPIRES_AT, Long.valueOf(System
+					.currentTimeMillis() + seconds.longValue() * 1000));
+		} else if (_attributes != null) {
+			_attributes.remove(Constants.EXPIRES_AT);
+		}
+	}
+
+	/**
+	 * Retrieves the expiry time of token. Grants without the
+	 * {@value Constants#EXPIRES_AT} attribute, e.g. ones stored by older
+	 * versions, are taken to expire {@value Constants#EXPIRES} seconds after
+	 * the first call, and that time is recorded in the grant so later calls
+	 * return the same.
+	 * 
+	 * @return expiry time in milliseconds, 0 if token does not expire
+	 */
+	public long getExpiresAt() {
+		Long expiresAt = toLong(getAttribute(Constants.EXPIRES_AT));
+		if (expiresAt != null && expiresAt.longValue() > 0) {
+			return expiresAt.longValue();
+		}
+		Long seconds = toLong(getAttribute(Constants.EXPIRES));
+		if (seconds != null && seconds.longValue() > 0) {
+			long time = System.currentTimeMillis() + seconds.longValue()
+					* 1000;
+			setAttribute(Constants.EXPIRES_AT, Long.valueOf(time));
+			return time;
+		}
+		return 0;
+	}
+
+	private static Long toLong(final Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Number) {
+			return Long.valueOf(((Number) value).longValue());
+		}
+		try {
+			return Long.valueOf(value.toString());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
 	/**
 	 * Retrieves the provider id.
 	 * 
@@ -0,0 +1,153 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Runs a number of independent batches concurrently and returns their results
+ * in the order of batches. At most <code>parallelism</code> batches run at a
+ * time. The calling thread takes part in running the batches, so the batches
+ * complete even if the executor is busy or is the one running the caller.
+ * 
+ * If a batch fails, batches which are not yet started are skipped and the
+ * first failure is thrown once the running batches are done.
+ */
+public class BatchExecutor {
+
+	private static final Log LOG = LogFactory.getLog(BatchExecutor.class);
+
+	/**
+	 * A unit of work identified by its index
+	 * 
+	 * @param <R>
+	 *            result type of the batch
+	 */
+	public interface Batch<R> {
+
+		/**
+		 * Runs the batch
+		 * 
+		 * @param index
+		 *            index of the batch, from 0 to batch count - 1
+		 * @return the result of the batch
+		 * @throws Exception
+		 */
+		R call(int index) throws Exception;
+	}
+
+	private final Executor executor;
+	private final int parallelism;
+
+	/**
+	 * @param executor
+	 *            executor to run the batches on besides the calling thread
+	 * @param parallelism
+	 *            maximum number of batches running at a time
+	 */
+	public BatchExecutor(final Executor executor, final int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive");
+		}
+		this.executor = executor;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Runs the given number of batches and returns their results in order.
+	 * 
+	 * @param count
+	 *            number of batches
+	 * @param batch
+	 *            the batch to run for each index
+	 * @return list of results, one per batch in the order of index
+	 * @throws Exception
+	 *             the first failure of a batch
+	 */
+	public <R> List<R> execute(final int count, final Batch<R> batch)
+			throws Exception {
+		if (count == 0) {
+			return new ArrayList<R>();
+		}
+		final Object[] results = new Object[count];
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+		final CountDownLatch done = new CountDownLatch(count);
+
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int i;
+				while ((i = next.getAndIncrement()) < count) {
+					try {
+						if (failure.get() == null) {
+							results[i] = batch.call(i);
+						}
+					} catch (Exception e) {
+						failure.compareAndSet(null, e);
+					} catch (Error e) {
+						failure.compareAndSet(null, new Exception(e));
+						throw e;
+					} finally {
+						done.countDown();
+					}
+				}
+			}
+		};
+
+		int helpers = Math.min(parallelism, count) - 1;
+		for (int i = 0; i < helpers && executor != null; i++) {
+			try {
+				executor.execute(worker);
+			} catch (RejectedExecutionException e) {
+				LOG.debug("Executor rejected the batch worker, running with "
+						+ (i + 1) + " threads");
+				break;
+			}
+		}
+		worker.run();
+		done.await();
+
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+		List<R> list = new ArrayList<R>(count);
+		for (Object result : results) {
+			@SuppressWarnings("unchecked")
+			R r = (R) result;
+			list.add(r);
+		}
+		return list;
+	}
+}
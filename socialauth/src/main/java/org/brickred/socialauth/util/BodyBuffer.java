@@ -0,0 +1,125 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer used to read response bodies. One buffer is kept per
+ * thread and reused across responses, so reading a body costs a single copy
+ * into the resulting String or byte array.
+ * 
+ */
+final class BodyBuffer {
+
+	static final int CHUNK_SIZE = 8192;
+	private static final int MAX_POOLED_SIZE = 512 * 1024;
+	private static final int MAX_SIZE_HINT = 1024 * 1024;
+	private static final ThreadLocal<BodyBuffer> POOL = new ThreadLocal<BodyBuffer>();
+
+	private byte[] buf;
+	private int count;
+	private boolean inUse;
+	private final boolean pooled;
+
+	private BodyBuffer(final int size, final boolean pooled) {
+		this.buf = new byte[size];
+		this.pooled = pooled;
+	}
+
+	/**
+	 * Returns the buffer of the current thread, or a new one if it is already
+	 * in use.
+	 * 
+	 * @param sizeHint
+	 *            expected number of bytes, or -1 if not known
+	 * @param maxSize
+	 *            maximum allowed body size, 0 for no limit. The hint comes
+	 *            from the server, so at most this much (or 1 MB without a
+	 *            limit) is allocated up front; the buffer grows from there.
+	 */
+	static BodyBuffer get(final int sizeHint, final int maxSize) {
+		BodyBuffer b = POOL.get();
+		if (b == null) {
+			b = new BodyBuffer(CHUNK_SIZE, true);
+			POOL.set(b);
+		} else if (b.inUse) {
+			b = new BodyBuffer(CHUNK_SIZE, false);
+		}
+		b.inUse = true;
+		if (sizeHint > 0) {
+			int limit = maxSize > 0 ? maxSize : MAX_SIZE_HINT;
+			// one more byte so that end of stream is seen without growing
+			b.ensureCapacity(Math.min(sizeHint, limit) + 1);
+		}
+		return b;
+	}
+
+	void readFrom(final InputStream in, final int maxSize) throws IOException {
+		int n;
+		do {
+			if (count == buf.length) {
+				ensureCapacity(count + CHUNK_SIZE);
+			}
+			n = in.read(buf, count, buf.length - count);
+			if (n > 0) {
+				count += n;
+				if (maxSize > 0 && count > maxSize) {
+					throw new IOException("Response body exceeds " + maxSize
+							+ " bytes");
+				}
+			}
+		} while (n != -1);
+	}
+
+	int size() {
+		return count;
+	}
+
+	byte[] toByteArray() {
+		return Arrays.copyOf(buf, count);
+	}
+
+	String toString(final Charset charset) {
+		return new String(buf, 0, count, charset);
+	}
+
+	void recycle() {
+		count = 0;
+		inUse = false;
+		if (pooled && buf.length > MAX_POOLED_SIZE) {
+			buf = new byte[CHUNK_SIZE];
+		}
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if (capacity > buf.length) {
+			buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+		}
+	}
+}
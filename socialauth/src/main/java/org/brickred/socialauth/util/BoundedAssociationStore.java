@@ -0,0 +1,145 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openid4java.association.Association;
+import org.openid4java.consumer.ConsumerAssociationStore;
+
+/**
+ * OpenID association store which keeps associations of a bounded number of
+ * OpenID endpoints. When the store is full, associations of the least
+ * recently used endpoint are dropped. Expired associations are removed when
+ * the endpoint is accessed.
+ */
+public class BoundedAssociationStore implements ConsumerAssociationStore {
+
+	/**
+	 * Default maximum number of endpoints
+	 */
+	public static final int DEFAULT_MAX_ENDPOINTS = 100;
+
+	private final LinkedHashMap<String, Map<String, Association>> endpoints;
+
+	/**
+	 * Creates a store of {@value #DEFAULT_MAX_ENDPOINTS} endpoints
+	 */
+	public BoundedAssociationStore() {
+		this(DEFAULT_MAX_ENDPOINTS);
+	}
+
+	/**
+	 * @param maxEndpoints
+	 *            maximum number of endpoints whose associations are kept
+	 */
+	public BoundedAssociationStore(final int maxEndpoints) {
+		endpoints = new LinkedHashMap<String, Map<String, Association>>(16,
+				0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, Map<String, Association>> eldest) {
+				return size() > maxEndpoints;
+			}
+		};
+	}
+
+	@Override
+	public synchronized void save(final String opUrl,
+			final Association association) {
+		Map<String, Association> handles = endpoints.get(opUrl);
+		if (handles == null) {
+			handles = new LinkedHashMap<String, Association>(4);
+			endpoints.put(opUrl, handles);
+		}
+		handles.put(association.getHandle(), association);
+	}
+
+	@Override
+	public synchronized Association load(final String opUrl,
+			final String handle) {
+		Map<String, Association> handles = getHandles(opUrl);
+		return handles == null ? null : handles.get(handle);
+	}
+
+	/**
+	 * Returns the association of given endpoint which expires last
+	 */
+	@Override
+	public synchronized Association load(final String opUrl) {
+		Map<String, Association> handles = getHandles(opUrl);
+		if (handles == null) {
+			return null;
+		}
+		Association latest = null;
+		for (Association association : handles.values()) {
+			if (latest == null
+					|| association.getExpiry().after(latest.getExpiry())) {
+				latest = association;
+			}
+		}
+		return latest;
+	}
+
+	@Override
+	public synchronized void remove(final String opUrl, final String handle) {
+		Map<String, Association> handles = endpoints.get(opUrl);
+		if (handles != null) {
+			handles.remove(handle);
+			if (handles.isEmpty()) {
+				endpoints.remove(opUrl);
+			}
+		}
+	}
+
+	/**
+	 * @return number of endpoints having associations
+	 */
+	public synchronized int size() {
+		return endpoints.size();
+	}
+
+	private Map<String, Association> getHandles(final String opUrl) {
+		Map<String, Association> handles = endpoints.get(opUrl);
+		if (handles == null) {
+			return null;
+		}
+		for (Iterator<Association> it = handles.values().iterator(); it
+				.hasNext();) {
+			if (it.next().hasExpired()) {
+				it.remove();
+			}
+		}
+		if (handles.isEmpty()) {
+			endpoints.remove(opUrl);
+			return null;
+		}
+		return handles;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+/**
+ * Circuit breaker of one provider host. It opens after a number of failures
+ * in a row and then rejects requests till the open time has passed. After
+ * that one trial request is let through, which closes the breaker if it
+ * succeeds or opens it again if it fails.
+ */
+public class CircuitBreaker {
+
+	/**
+	 * State of the breaker
+	 */
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final String host;
+	private final int failureThreshold;
+	private final long openTime;
+	private State state = State.CLOSED;
+	private int failures;
+	private long openUntil;
+	private boolean trialInFlight;
+
+	/**
+	 * @param host
+	 *            the host
+	 * @param failureThreshold
+	 *            number of failures in a row which opens the breaker
+	 * @param openTime
+	 *            time in milliseconds the breaker stays open
+	 */
+	public CircuitBreaker(final String host, final int failureThreshold,
+			final long openTime) {
+		this.host = host;
+		this.failureThreshold = failureThreshold;
+		this.openTime = openTime;
+	}
+
+	/**
+	 * Checks whether a request can be made now.
+	 * 
+	 * @return 0 if request can be made, otherwise the absolute time, in
+	 *         milliseconds since the epoch as returned by
+	 *         {@link System#currentTimeMillis()}, after which it should be
+	 *         tried again
+	 */
+	public synchronized long tryAcquire() {
+		long now = System.currentTimeMillis();
+		switch (state) {
+		case OPEN:
+			if (now < openUntil) {
+				return openUntil;
+			}
+			state = State.HALF_OPEN;
+			trialInFlight = true;
+			return 0;
+		case HALF_OPEN:
+			if (trialInFlight) {
+				return now + openTime;
+			}
+			trialInFlight = true;
+			return 0;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Records a successful request.
+	 */
+	public synchronized void success() {
+		state = State.CLOSED;
+		failures = 0;
+		trialInFlight = false;
+	}
+
+	/**
+	 * Records a failed request.
+	 */
+	public synchronized void failure() {
+		failures++;
+		trialInFlight = false;
+		if (state == State.HALF_OPEN || failures >= failureThreshold) {
+			state = State.OPEN;
+			openUntil = System.currentTimeMillis() + openTime;
+		}
+	}
+
+	/**
+	 * @return the host
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return the current state
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+}
@@ -92,6 +92,27 @@ public interface Constants {
 	 */
 	public static final String HMACSHA1_SIGNATURE = "HMAC-SHA1";
 
+	/**
+	 * HMAC-SHA256
+	 */
+	public static final String HMACSHA256_SIGNATURE = "HMAC-SHA256";
+
+	/**
+	 * RSA-SHA1
+	 */
+	public static final String RSASHA1_SIGNATURE = "RSA-SHA1";
+
+	/**
+	 * PLAINTEXT
+	 */
+	public static final String PLAINTEXT_SIGNATURE = "PLAINTEXT";
+
+	/**
+	 * Custom property of provider config which contains the Base64 encoded
+	 * PKCS#8 private key used for RSA-SHA1 signature
+	 */
+	public static final String RSA_PRIVATE_KEY = "rsa_private_key";
+
 	/**
 	 * request token url
 	 */
@@ -122,6 +143,11 @@ public interface Constants {
 	 */
 	public static final String EXPIRES = "expires";
 
+	/**
+	 * token expiry time in milliseconds, recorded when token is issued
+	 */
+	public static final String EXPIRES_AT = "expires_at";
+
 	/**
 	 * openid
 	 */
@@ -248,6 +274,21 @@ public interface Constants {
 	 */
 	public static final String HTTP_CONNECTION_TIMEOUT = "http.connectionTimeOut";
 
+	/**
+	 * HTTP transport implementation class property
+	 */
+	public static final String HTTP_TRANSPORT = "http.transport";
+
+	/**
+	 * Maximum concurrent connections per host property
+	 */
+	public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "http.maxConnectionsPerRoute";
+
+	/**
+	 * Time to wait for a free pooled connection property
+	 */
+	public static final String HTTP_CONNECTION_REQUEST_TIMEOUT = "http.connectionRequestTimeOut";
+
 	/**
 	 * Content Encoding Header
 	 */
@@ -258,6 +299,41 @@ public interface Constants {
 	 */
 	public static final String GZIP_CONTENT_ENCODING = "gzip";
 
+	/**
+	 * Deflate Content Encoding
+	 */
+	public static final String DEFLATE_CONTENT_ENCODING = "deflate";
+
+	/**
+	 * Maximum size of response body property
+	 */
+	public static final String HTTP_MAX_RESPONSE_SIZE = "http.maxResponseSize";
+
+	/**
+	 * HTTP read timeout property
+	 */
+	public static final String HTTP_READ_TIMEOUT = "http.readTimeOut";
+
+	/**
+	 * Maximum retries of idempotent requests property
+	 */
+	public static final String HTTP_MAX_RETRIES = "http.maxRetries";
+
+	/**
+	 * Failures in a row which open the circuit breaker of a host property
+	 */
+	public static final String HTTP_CIRCUIT_FAILURE_THRESHOLD = "http.circuitBreaker.failureThreshold";
+
+	/**
+	 * Time the circuit breaker of a host stays open property
+	 */
+	public static final String HTTP_CIRCUIT_OPEN_TIME = "http.circuitBreaker.openTime";
+
+	/**
+	 * Property to export metrics through JMX
+	 */
+	public static final String METRICS_JMX = "metrics.jmx";
+
 	/**
 	 * Constant for state paramter
 	 */
@@ -0,0 +1,267 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Default {@link HttpTransport} based on HttpURLConnection. Persistent
+ * connections are kept by the keep-alive cache of the JDK, so a connection is
+ * reused only if its response body is read completely and the stream is
+ * closed instead of disconnecting it. {@link Response} takes care of that
+ * before releasing the connection. Idle sockets are evicted by the JDK once the
+ * keep-alive timeout announced by the server (5 seconds if none) expires. TLS
+ * sessions are resumed by the SSL socket factory of HttpsURLConnection, which
+ * is left as configured by the application.
+ * 
+ * Number of connections opened concurrently for a route (scheme, host and
+ * port) is bounded by {@link #setMaxConnectionsPerRoute(int)}. A connection
+ * holds its place in the route until it is released. If a connection is
+ * dropped without being released, its place is given back once the
+ * connection is garbage collected.
+ * 
+ */
+public class DefaultHttpTransport implements HttpTransport {
+
+	/**
+	 * Default maximum number of concurrent connections per route
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+	/**
+	 * Default time in milliseconds to wait for a free connection of a route
+	 */
+	public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 10000;
+
+	private static final long RECLAIM_INTERVAL = 100;
+	private static final Log LOG = LogFactory
+			.getLog(DefaultHttpTransport.class);
+
+	private final ConcurrentMap<String, Semaphore> routes;
+	private final Map<HttpURLConnection, Lease> leases;
+	private final Set<Lease> active;
+	private final ReferenceQueue<HttpURLConnection> abandoned;
+	private int maxConnectionsPerRoute;
+	private int connectionRequestTimeout;
+
+	public DefaultHttpTransport() {
+		routes = new ConcurrentHashMap<String, Semaphore>();
+		leases = Collections
+				.synchronizedMap(new WeakHashMap<HttpURLConnection, Lease>());
+		active = Collections
+				.newSetFromMap(new ConcurrentHashMap<Lease, Boolean>());
+		abandoned = new ReferenceQueue<HttpURLConnection>();
+		maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+		connectionRequestTimeout = DEFAULT_CONNECTION_REQUEST_TIMEOUT;
+	}
+
+	@Override
+	public HttpURLConnection openConnection(final URL url, final Proxy proxy)
+			throws IOException {
+		Semaphore route = getRoute(url);
+		acquire(route, url);
+		HttpURLConnection conn;
+		try {
+			if (proxy != null) {
+				conn = (HttpURLConnection) url.openConnection(proxy);
+			} else {
+				conn = (HttpURLConnection) url.openConnection();
+			}
+		} catch (IOException e) {
+			route.release();
+			throw e;
+		}
+		Lease lease = new Lease(conn, route, url.getHost(), abandoned);
+		active.add(lease);
+		leases.put(conn, lease);
+		return conn;
+	}
+
+	@Override
+	public void release(final HttpURLConnection connection,
+			final boolean reusable) {
+		Lease lease = leases.remove(connection);
+		try {
+			if (!reusable) {
+				connection.disconnect();
+			}
+		} finally {
+			if (lease != null) {
+				lease.release();
+			}
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		HttpURLConnection[] conns;
+		synchronized (leases) {
+			conns = leases.keySet().toArray(new HttpURLConnection[0]);
+		}
+		for (HttpURLConnection conn : conns) {
+			release(conn, false);
+		}
+		routes.clear();
+	}
+
+	/**
+	 * Waits for a free place in the route, giving back the places of
+	 * connections which were garbage collected without being released.
+	 */
+	private void acquire(final Semaphore route, final URL url)
+			throws IOException {
+		long deadline = System.currentTimeMillis() + connectionRequestTimeout;
+		try {
+			while (true) {
+				reclaim();
+				long wait = Math.min(RECLAIM_INTERVAL,
+						deadline - System.currentTimeMillis());
+				if (route.tryAcquire(Math.max(wait, 0), TimeUnit.MILLISECONDS)) {
+					return;
+				}
+				if (wait <= 0) {
+					throw new IOException("No free connection for "
+							+ url.getHost() + " within "
+							+ connectionRequestTimeout + " ms");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for connection to "
+					+ url.getHost());
+		}
+	}
+
+	private void reclaim() {
+		Reference<? extends HttpURLConnection> ref;
+		while ((ref = abandoned.poll()) != null) {
+			Lease lease = (Lease) ref;
+			if (active.contains(lease)) {
+				LOG.warn("Connection to " + lease.host
+						+ " was not released, reclaiming it");
+				lease.release();
+			}
+		}
+	}
+
+	private Semaphore getRoute(final URL url) {
+		int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+		String key = url.getProtocol() + "://" + url.getHost() + ":" + port;
+		Semaphore route = routes.get(key);
+		if (route == null) {
+			Semaphore s = new Semaphore(maxConnectionsPerRoute);
+			route = routes.putIfAbsent(key, s);
+			if (route == null) {
+				route = s;
+			}
+		}
+		return route;
+	}
+
+	/**
+	 * Retrieves the maximum number of concurrent connections per route
+	 * 
+	 * @return the maximum number of connections per route
+	 */
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	/**
+	 * Updates the maximum number of concurrent connections per route. It
+	 * applies to the routes which are used after this call.
+	 * 
+	 * @param maxConnectionsPerRoute
+	 *            the maximum number of connections per route
+	 */
+	public void setMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+		if (maxConnectionsPerRoute > 0) {
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			routes.clear();
+		}
+	}
+
+	/**
+	 * Retrieves the time in milliseconds to wait for a free connection
+	 * 
+	 * @return the connection request timeout
+	 */
+	public int getConnectionRequestTimeout() {
+		return connectionRequestTimeout;
+	}
+
+	/**
+	 * Updates the time in milliseconds to wait for a free connection of a
+	 * route. If no connection is freed in this time, the request fails with
+	 * an IOException.
+	 * 
+	 * @param connectionRequestTimeout
+	 *            the connection request timeout
+	 */
+	public void setConnectionRequestTimeout(final int connectionRequestTimeout) {
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+
+	/**
+	 * Place of a connection in its route. It is queued when the connection is
+	 * garbage collected, so that an unreleased place can be given back.
+	 */
+	private final class Lease extends WeakReference<HttpURLConnection> {
+
+		private final Semaphore route;
+		private final String host;
+
+		Lease(final HttpURLConnection conn, final Semaphore route,
+				final String host,
+				final ReferenceQueue<HttpURLConnection> queue) {
+			super(conn, queue);
+			this.route = route;
+			this.host = host;
+		}
+
+		void release() {
+			if (active.remove(this)) {
+				route.release();
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+
+/**
+ * Transport used by {@link HttpUtil} to obtain and give back HTTP connections.
+ * Implementations decide how connections are opened, pooled and reused. The
+ * default implementation is {@link DefaultHttpTransport}. A custom transport
+ * can be configured through the "http.transport" property or by calling
+ * {@link HttpUtil#setHttpTransport(HttpTransport)}.
+ * 
+ */
+public interface HttpTransport {
+
+	/**
+	 * Opens a connection for the given URL. Request method, headers and
+	 * timeouts are applied by the caller on the returned connection.
+	 * 
+	 * @param url
+	 *            the URL to connect to
+	 * @param proxy
+	 *            proxy to use, or null for a direct connection
+	 * @return the HTTP connection
+	 * @throws IOException
+	 */
+	public HttpURLConnection openConnection(URL url, Proxy proxy)
+			throws IOException;
+
+	/**
+	 * Gives back a connection which was obtained from
+	 * {@link #openConnection(URL, Proxy)}. It is called once per connection,
+	 * either when the response has been fully read or when the response is
+	 * closed.
+	 * 
+	 * @param connection
+	 *            the connection to release
+	 * @param reusable
+	 *            true if the response body has been consumed and the
+	 *            underlying socket can be kept alive for further requests,
+	 *            false if the connection should be torn down
+	 */
+	public void release(HttpURLConnection connection, boolean reusable);
+
+	/**
+	 * Releases all the resources held by this transport.
+	 */
+	public void shutdown();
+}
@@ -28,24 +28,25 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.Proxy.Type;
 import java.net.URL;
-import java.net.URLEncoder;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
@@ -57,6 +58,9 @@ import javax.net.ssl.X509TrustManager;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.exception.ProviderUnavailableException;
+import org.brickred.socialauth.metrics.Metrics;
+import org.brickred.socialauth.metrics.Operation;
 import org.brickred.socialauth.exception.SocialAuthException;
 
 /**
@@ -77,9 +81,25 @@ public class HttpUtil {
 	private static final Log LOG = LogFactory.getLog(HttpUtil.class);
 	private static Proxy proxyObj = null;
 	private static int timeoutValue = 0;
+	private static int maxResponseSize = 0;
+	private static volatile HttpTransport transport = new DefaultHttpTransport();
+	private static int readTimeoutValue = 0;
+	private static volatile int maxRetries = 2;
+	private static volatile long initialBackoff = 200;
+	private static volatile long maxBackoff = 5000;
+	private static volatile int circuitFailureThreshold = 5;
+	private static volatile long circuitOpenTime = 30000;
+	private static volatile UploadProgressListener uploadProgressListener;
+	private static final ConcurrentMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<String, CircuitBreaker>();
+	private static final Random RANDOM = new Random();
 
 	/**
-	 * Makes HTTP request using java.net.HTTPURLConnection
+	 * Makes HTTP request using java.net.HTTPURLConnection. Idempotent requests
+	 * which fail with an I/O error or with status 429, 502, 503 or 504 are
+	 * retried with jittered exponential backoff, honoring Retry-After. Requests
+	 * to a host whose circuit breaker is open fail right away with
+	 * {@link ProviderUnavailableException}. OAuth 1.0 signed requests are not
+	 * retried, as their nonce may be used only once.
 	 * 
 	 * @param urlStr
 	 *            the URL String
@@ -95,15 +115,63 @@ public class HttpUtil {
 	public static Response doHttpRequest(final String urlStr,
 			final String requestMethod, final String body,
 			final Map<String, String> header) throws SocialAuthException {
-		HttpURLConnection conn;
+		URL url;
 		try {
-
-			URL url = new URL(urlStr);
-			if (proxyObj != null) {
-				conn = (HttpURLConnection) url.openConnection(proxyObj);
-			} else {
-				conn = (HttpURLConnection) url.openConnection();
+			url = new URL(urlStr);
+		} catch (MalformedURLException e) {
+			throw new SocialAuthException(e);
+		}
+		CircuitBreaker breaker = getCircuitBreaker(url);
+		boolean idempotent = isIdempotent(requestMethod)
+				&& !isOAuth1Signed(url, header);
+		for (int attempt = 0;; attempt++) {
+			acquire(breaker);
+			Response response;
+			try {
+				response = send(url, requestMethod, body, header);
+			} catch (SocialAuthException e) {
+				if (breaker != null) {
+					breaker.failure();
+				}
+				if (!idempotent || attempt >= maxRetries) {
+					throw e;
+				}
+				LOG.debug("Retrying " + url + " after error : " + e);
+				sleep(backoff(attempt));
+				continue;
+			}
+			int status = response.getStatus();
+			record(breaker, status);
+			if (!idempotent || attempt >= maxRetries || !isRetryable(status)) {
+				return response;
+			}
+			long delay = backoff(attempt);
+			RateLimitState rateLimit = response.getRateLimitState();
+			if (rateLimit != null && rateLimit.getRetryTime() > 0) {
+				delay = rateLimit.getRetryTime() - System.currentTimeMillis();
+				if (delay > maxBackoff) {
+					return response;
+				}
+			}
+			LOG.debug("Retrying " + url + " after status " + status);
+			try {
+				response.close();
+			} catch (IOException e) {
+				LOG.debug("Could not close response : " + e);
 			}
+			sleep(delay);
+		}
+	}
+
+	private static Response send(final URL url, final String requestMethod,
+			final String body, final Map<String, String> header)
+			throws SocialAuthException {
+		HttpURLConnection conn = null;
+		HttpTransport t = transport;
+		long start = Metrics.start();
+		try {
+
+			conn = t.openConnection(url, proxyObj);
 
 			if (MethodType.POST.toString().equalsIgnoreCase(requestMethod)
 					|| MethodType.PUT.toString()
@@ -118,6 +186,9 @@ public class HttpUtil {
 				LOG.debug("Setting connection timeout : " + timeoutValue);
 				conn.setConnectTimeout(timeoutValue);
 			}
+			if (readTimeoutValue > 0) {
+				conn.setReadTimeout(readTimeoutValue);
+			}
 			if (requestMethod != null) {
 				conn.setRequestMethod(requestMethod);
 			}
@@ -140,10 +211,17 @@ public class HttpUtil {
 				}
 			}
 			conn.connect();
+			conn.getResponseCode();
 		} catch (Exception e) {
+			if (conn != null) {
+				t.release(conn, false);
+			}
+			Metrics.failed(url.getHost(), Operation.HTTP, start, e);
 			throw new SocialAuthException(e);
 		}
-		return new Response(conn);
+		Response response = new Response(conn, t);
+		Metrics.stop(url.getHost(), Operation.HTTP, start, response);
+		return response;
 
 	}
 
@@ -171,15 +249,52 @@ public class HttpUtil {
 			final Map<String, String> header, final InputStream inputStream,
 			final String fileName, final String fileParamName)
 			throws SocialAuthException {
-		HttpURLConnection conn;
+		MultipartBody body = null;
+		if (inputStream != null && requestMethod != null
+				&& !MethodType.GET.toString().equals(requestMethod)
+				&& !MethodType.DELETE.toString().equals(requestMethod)) {
+			try {
+				body = new MultipartBody(inputStream, fileName, fileParamName,
+						params);
+			} catch (IOException e) {
+				throw new SocialAuthException(e);
+			}
+			body.setProgressListener(uploadProgressListener);
+		}
+		return doMultipartRequest(urlStr, requestMethod, header, body);
+	}
+
+	/**
+	 * Sends a multipart request. The body is streamed to the connection with
+	 * a fixed length when its size is known, chunked otherwise, so the file is
+	 * never held in memory. Upload requests are not retried.
+	 * 
+	 * @param urlStr
+	 *            the URL String
+	 * @param requestMethod
+	 *            Method type
+	 * @param header
+	 *            Header parameters
+	 * @param body
+	 *            the multipart body, or null to send none
+	 * @return Response object
+	 * @throws SocialAuthException
+	 */
+	public static Response doMultipartRequest(final String urlStr,
+			final String requestMethod, final Map<String, String> header,
+			final MultipartBody body) throws SocialAuthException {
+		HttpURLConnection conn = null;
+		HttpTransport t = transport;
+		CircuitBreaker breaker = null;
+		String host = null;
+		long start = Metrics.start();
 		try {
 
 			URL url = new URL(urlStr);
-			if (proxyObj != null) {
-				conn = (HttpURLConnection) url.openConnection(proxyObj);
-			} else {
-				conn = (HttpURLConnection) url.openConnection();
-			}
+			host = url.getHost();
+			breaker = getCircuitBreaker(url);
+			acquire(breaker);
+			conn = t.openConnection(url, proxyObj);
 
 			if (requestMethod.equalsIgnoreCase(MethodType.POST.toString())
 					|| requestMethod
@@ -194,6 +309,9 @@ public class HttpUtil {
 				LOG.debug("Setting connection timeout : " + timeoutValue);
 				conn.setConnectTimeout(timeoutValue);
 			}
+			if (readTimeoutValue > 0) {
+				conn.setReadTimeout(readTimeoutValue);
+			}
 			if (requestMethod != null) {
 				conn.setRequestMethod(requestMethod);
 			}
@@ -203,64 +321,38 @@ public class HttpUtil {
 				}
 			}
 
-			// If use POST or PUT must use this
-			OutputStream os = null;
-			if (inputStream != null) {
-				if (requestMethod != null
-						&& !MethodType.GET.toString().equals(requestMethod)
-						&& !MethodType.DELETE.toString().equals(requestMethod)) {
-					LOG.debug(requestMethod + " request");
-					String boundary = "----Socialauth-posting"
-							+ System.currentTimeMillis();
-					conn.setRequestProperty("Content-Type",
-							"multipart/form-data; boundary=" + boundary);
-					boundary = "--" + boundary;
-
-					os = conn.getOutputStream();
-					DataOutputStream out = new DataOutputStream(os);
-					write(out, boundary + "\r\n");
-
-					if (fileParamName != null) {
-						write(out, "Content-Disposition: form-data; name=\""
-								+ fileParamName + "\"; filename=\"" + fileName
-								+ "\"\r\n");
-					} else {
-						write(out,
-								"Content-Disposition: form-data;  filename=\""
-										+ fileName + "\"\r\n");
-					}
-					write(out, "Content-Type: " + "multipart/form-data"
-							+ "\r\n\r\n");
-					int b;
-					while ((b = inputStream.read()) != -1) {
-						out.write(b);
-					}
-					// out.write(imageFile);
-					write(out, "\r\n");
-
-					Iterator<Map.Entry<String, String>> entries = params
-							.entrySet().iterator();
-					while (entries.hasNext()) {
-						Map.Entry<String, String> entry = entries.next();
-						write(out, boundary + "\r\n");
-						write(out, "Content-Disposition: form-data; name=\""
-								+ entry.getKey() + "\"\r\n\r\n");
-						// write(out,
-						// "Content-Type: text/plain;charset=UTF-8 \r\n\r\n");
-						LOG.debug(entry.getValue());
-						out.write(entry.getValue().getBytes("UTF-8"));
-						write(out, "\r\n");
-					}
-
-					write(out, boundary + "--\r\n");
-					write(out, "\r\n");
+			if (body != null) {
+				LOG.debug(requestMethod + " multipart request");
+				conn.setRequestProperty("Content-Type", body.getContentType());
+				long length = body.getContentLength();
+				if (length >= 0) {
+					conn.setFixedLengthStreamingMode(length);
+				} else {
+					conn.setChunkedStreamingMode(0);
 				}
+				OutputStream os = conn.getOutputStream();
+				body.writeTo(os);
+				os.close();
 			}
 			conn.connect();
+			record(breaker, conn.getResponseCode());
+		} catch (ProviderUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
+			if (conn != null) {
+				t.release(conn, false);
+			}
+			if (breaker != null) {
+				breaker.failure();
+			}
+			if (host != null) {
+				Metrics.failed(host, Operation.HTTP, start, e);
+			}
 			throw new SocialAuthException(e);
 		}
-		return new Response(conn);
+		Response response = new Response(conn, t);
+		Metrics.stop(host, Operation.HTTP, start, response);
+		return response;
 
 	}
 
@@ -275,68 +367,78 @@ public class HttpUtil {
 	 */
 	public static String buildParams(final Map<String, String> params)
 			throws Exception {
-		List<String> argList = new ArrayList<String>();
-
-		for (String key : params.keySet()) {
-			String val = params.get(key);
+		String[] keys = new String[params.size()];
+		String[] values = new String[keys.length];
+		int n = 0;
+		int length = 0;
+		for (Map.Entry<String, String> entry : params.entrySet()) {
+			String val = entry.getValue();
 			if (val != null && val.length() > 0) {
-				String arg = key + "=" + encodeURIComponent(val);
-				argList.add(arg);
+				keys[n] = entry.getKey();
+				values[n] = PercentCodec.encode(val);
+				length += keys[n].length() + values[n].length() + 2;
+				n++;
 			}
 		}
-		Collections.sort(argList);
-		StringBuilder s = new StringBuilder();
-		for (int i = 0; i < argList.size(); i++) {
-			s.append(argList.get(i));
-			if (i != argList.size() - 1) {
-				s.append("&");
+		// sorts "key=value" pairs without building them
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = Integer.valueOf(i);
+		}
+		final String[] k = keys;
+		final String[] v = values;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer a, final Integer b) {
+				return comparePairs(k[a], v[a], k[b], v[b]);
 			}
+		});
+		StringBuilder s = new StringBuilder(length);
+		for (int i = 0; i < n; i++) {
+			if (i > 0) {
+				s.append('&');
+			}
+			s.append(keys[order[i]]).append('=').append(values[order[i]]);
 		}
 		return s.toString();
 	}
 
-	private static final String ALLOWED_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_.!~*'()";
-
-	public static String encodeURIComponent(final String value)
-			throws Exception {
-		if (value == null) {
-			return "";
+	private static int comparePairs(final String k1, final String v1,
+			final String k2, final String v2) {
+		int l1 = k1.length() + 1 + v1.length();
+		int l2 = k2.length() + 1 + v2.length();
+		int min = Math.min(l1, l2);
+		for (int i = 0; i < min; i++) {
+			char c1 = pairChar(k1, v1, i);
+			char c2 = pairChar(k2, v2, i);
+			if (c1 != c2) {
+				return c1 - c2;
+			}
 		}
+		return l1 - l2;
+	}
 
-		try {
-			return URLEncoder.encode(value, "utf-8")
-					// OAuth encodes some characters differently:
-					.replace("+", "%20").replace("*", "%2A")
-					.replace("%7E", "~");
-			// This could be done faster with more hand-crafted code.
-		} catch (UnsupportedEncodingException wow) {
-			throw new SocialAuthException(wow.getMessage(), wow);
+	private static char pairChar(final String key, final String value,
+			final int i) {
+		int kl = key.length();
+		if (i < kl) {
+			return key.charAt(i);
 		}
+		return i == kl ? '=' : value.charAt(i - kl - 1);
 	}
 
-	/*
-	 * public static String encodeURIComponent(final String input) { if (input
-	 * == null || input.trim().length() == 0) { return input; }
+	/**
+	 * Percent encodes given value as per RFC 3986, see
+	 * {@link PercentCodec#encode(String)}.
 	 * 
-	 * int l = input.length(); StringBuilder o = new StringBuilder(l * 3); try {
-	 * for (int i = 0; i < l; i++) { String e = input.substring(i, i + 1); if
-	 * (ALLOWED_CHARS.indexOf(e) == -1) { byte[] b = e.getBytes("utf-8");
-	 * o.append(getHex(b)); continue; } o.append(e); } return o.toString(); }
-	 * catch (UnsupportedEncodingException e) { e.printStackTrace(); } return
-	 * input; }
+	 * @param value
+	 *            the value to encode
+	 * @return the encoded value, or an empty string if value is null
+	 * @throws Exception
 	 */
-
-	private static String getHex(final byte buf[]) {
-		StringBuilder o = new StringBuilder(buf.length * 3);
-		for (int i = 0; i < buf.length; i++) {
-			int n = buf[i] & 0xff;
-			o.append("%");
-			if (n < 0x10) {
-				o.append("0");
-			}
-			o.append(Long.toString(n, 16).toUpperCase());
-		}
-		return o.toString();
+	public static String encodeURIComponent(final String value)
+			throws Exception {
+		return PercentCodec.encode(value);
 	}
 
 	/**
@@ -346,60 +448,7 @@ public class HttpUtil {
 	 * @return decoded string
 	 */
 	public static String decodeURIComponent(final String encodedURI) {
-		char actualChar;
-
-		StringBuffer buffer = new StringBuffer();
-
-		int bytePattern, sumb = 0;
-
-		for (int i = 0, more = -1; i < encodedURI.length(); i++) {
-			actualChar = encodedURI.charAt(i);
-
-			switch (actualChar) {
-			case '%': {
-				actualChar = encodedURI.charAt(++i);
-				int hb = (Character.isDigit(actualChar) ? actualChar - '0'
-						: 10 + Character.toLowerCase(actualChar) - 'a') & 0xF;
-				actualChar = encodedURI.charAt(++i);
-				int lb = (Character.isDigit(actualChar) ? actualChar - '0'
-						: 10 + Character.toLowerCase(actualChar) - 'a') & 0xF;
-				bytePattern = (hb << 4) | lb;
-				break;
-			}
-			case '+': {
-				bytePattern = ' ';
-				break;
-			}
-			default: {
-				bytePattern = actualChar;
-			}
-			}
-
-			if ((bytePattern & 0xc0) == 0x80) { // 10xxxxxx
-				sumb = (sumb << 6) | (bytePattern & 0x3f);
-				if (--more == 0) {
-					buffer.append((char) sumb);
-				}
-			} else if ((bytePattern & 0x80) == 0x00) { // 0xxxxxxx
-				buffer.append((char) bytePattern);
-			} else if ((bytePattern & 0xe0) == 0xc0) { // 110xxxxx
-				sumb = bytePattern & 0x1f;
-				more = 1;
-			} else if ((bytePattern & 0xf0) == 0xe0) { // 1110xxxx
-				sumb = bytePattern & 0x0f;
-				more = 2;
-			} else if ((bytePattern & 0xf8) == 0xf0) { // 11110xxx
-				sumb = bytePattern & 0x07;
-				more = 3;
-			} else if ((bytePattern & 0xfc) == 0xf8) { // 111110xx
-				sumb = bytePattern & 0x03;
-				more = 4;
-			} else { // 1111110x
-				sumb = bytePattern & 0x01;
-				more = 5;
-			}
-		}
-		return buffer.toString();
+		return PercentCodec.decode(encodedURI);
 	}
 
 	/**
@@ -434,6 +483,238 @@ public class HttpUtil {
 		timeoutValue = timeout;
 	}
 
+	/**
+	 * Sets the maximum size in bytes of a response body read as String or
+	 * bytes. This will be implicitly called if "http.maxResponseSize" property
+	 * is given in properties file. Zero means no limit.
+	 * 
+	 * @param size
+	 *            maximum response body size in bytes
+	 */
+	public static void setMaxResponseSize(final int size) {
+		maxResponseSize = size;
+	}
+
+	/**
+	 * Retrieves the maximum size in bytes of a response body read as String or
+	 * bytes. Zero means no limit.
+	 * 
+	 * @return maximum response body size in bytes
+	 */
+	public static int getMaxResponseSize() {
+		return maxResponseSize;
+	}
+
+	/**
+	 * Sets the transport used to open HTTP connections. This will be
+	 * implicitly called if "http.transport" property is given in properties
+	 * file. The previous transport is shut down.
+	 * 
+	 * @param httpTransport
+	 *            the transport to use
+	 */
+	public static void setHttpTransport(final HttpTransport httpTransport) {
+		if (httpTransport != null && httpTransport != transport) {
+			LOG.debug("Setting HTTP transport : "
+					+ httpTransport.getClass().getName());
+			HttpTransport old = transport;
+			transport = httpTransport;
+			old.shutdown();
+		}
+	}
+
+	/**
+	 * Retrieves the transport used to open HTTP connections.
+	 * 
+	 * @return the HTTP transport
+	 */
+	public static HttpTransport getHttpTransport() {
+		return transport;
+	}
+
+	/**
+	 * Sets the listener notified of the progress of every multipart upload,
+	 * such as the ones of {@link org.brickred.socialauth.AuthProvider#uploadImage}.
+	 * 
+	 * @param listener
+	 *            the listener, or null to remove it
+	 */
+	public static void setUploadProgressListener(
+			final UploadProgressListener listener) {
+		uploadProgressListener = listener;
+	}
+
+	/**
+	 * Sets the read timeout. This will be implicitly called if
+	 * "http.readTimeOut" property is given in properties file
+	 * 
+	 * @param timeout
+	 *            read timeout in milliseconds, zero means no timeout
+	 */
+	public static void setReadTimeout(final int timeout) {
+		readTimeoutValue = timeout;
+	}
+
+	/**
+	 * Sets how many times an idempotent request is retried. This will be
+	 * implicitly called if "http.maxRetries" property is given in properties
+	 * file. Default is 2, zero disables retries.
+	 * 
+	 * @param retries
+	 *            maximum number of retries
+	 */
+	public static void setMaxRetries(final int retries) {
+		maxRetries = retries;
+	}
+
+	/**
+	 * Sets the backoff between retries. The delay before retry n is a random
+	 * time up to initial * 2^n, but not more than max. A Retry-After longer
+	 * than max is not waited for and the response is returned.
+	 * 
+	 * @param initial
+	 *            initial backoff in milliseconds, default is 200
+	 * @param max
+	 *            maximum backoff in milliseconds, default is 5000
+	 */
+	public static void setRetryBackoff(final long initial, final long max) {
+		initialBackoff = initial;
+		maxBackoff = max;
+	}
+
+	/**
+	 * Configures the circuit breaker kept for every provider host. This will
+	 * be implicitly called if "http.circuitBreaker.failureThreshold" or
+	 * "http.circuitBreaker.openTime" property is given in properties file.
+	 * 
+	 * @param failureThreshold
+	 *            failures in a row which open the breaker, default is 5. Zero
+	 *            disables the breaker.
+	 * @param openTime
+	 *            time in milliseconds requests fail fast once the breaker is
+	 *            open, default is 30000
+	 */
+	public static void setCircuitBreaker(final int failureThreshold,
+			final long openTime) {
+		circuitFailureThreshold = failureThreshold;
+		circuitOpenTime = openTime;
+		BREAKERS.clear();
+	}
+
+	/**
+	 * @return failures in a row which open the circuit breaker of a host
+	 */
+	public static int getCircuitFailureThreshold() {
+		return circuitFailureThreshold;
+	}
+
+	/**
+	 * @return time in milliseconds the circuit breaker of a host stays open
+	 */
+	public static long getCircuitOpenTime() {
+		return circuitOpenTime;
+	}
+
+	/**
+	 * Retrieves the circuit breaker of given host.
+	 * 
+	 * @param host
+	 *            the host
+	 * @return the circuit breaker, or null if no request has been made to the
+	 *         host or breakers are disabled
+	 */
+	public static CircuitBreaker getCircuitBreaker(final String host) {
+		return BREAKERS.get(host);
+	}
+
+	private static CircuitBreaker getCircuitBreaker(final URL url) {
+		if (circuitFailureThreshold <= 0) {
+			return null;
+		}
+		String host = url.getHost();
+		CircuitBreaker breaker = BREAKERS.get(host);
+		if (breaker == null) {
+			breaker = new CircuitBreaker(host, circuitFailureThreshold,
+					circuitOpenTime);
+			CircuitBreaker existing = BREAKERS.putIfAbsent(host, breaker);
+			if (existing != null) {
+				breaker = existing;
+			}
+		}
+		return breaker;
+	}
+
+	private static void acquire(final CircuitBreaker breaker)
+			throws ProviderUnavailableException {
+		if (breaker != null) {
+			long retryTime = breaker.tryAcquire();
+			if (retryTime > 0) {
+				throw new ProviderUnavailableException(breaker.getHost(),
+						retryTime);
+			}
+		}
+	}
+
+	private static void record(final CircuitBreaker breaker, final int status) {
+		if (breaker != null) {
+			if (status >= 500) {
+				breaker.failure();
+			} else {
+				breaker.success();
+			}
+		}
+	}
+
+	private static boolean isIdempotent(final String requestMethod) {
+		return requestMethod == null
+				|| MethodType.GET.toString().equalsIgnoreCase(requestMethod)
+				|| MethodType.PUT.toString().equalsIgnoreCase(requestMethod)
+				|| MethodType.DELETE.toString().equalsIgnoreCase(requestMethod)
+				|| "HEAD".equalsIgnoreCase(requestMethod);
+	}
+
+	private static boolean isOAuth1Signed(final URL url,
+			final Map<String, String> header) {
+		String query = url.getQuery();
+		if (query != null && query.contains(Constants.OAUTH_NONCE + "=")) {
+			return true;
+		}
+		if (header != null) {
+			for (Map.Entry<String, String> entry : header.entrySet()) {
+				if ("Authorization".equalsIgnoreCase(entry.getKey())
+						&& entry.getValue() != null
+						&& entry.getValue().contains(Constants.OAUTH_NONCE)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isRetryable(final int status) {
+		return status == 429 || status == 502 || status == 503
+				|| status == 504;
+	}
+
+	private static long backoff(final int attempt) {
+		long cap = Math.min(maxBackoff, initialBackoff << Math.min(attempt, 20));
+		synchronized (RANDOM) {
+			return (long) (RANDOM.nextDouble() * cap);
+		}
+	}
+
+	private static void sleep(final long delay) throws SocialAuthException {
+		if (delay <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SocialAuthException(e);
+		}
+	}
+
 	public static void write(final DataOutputStream out, final String outStr)
 			throws IOException {
 		out.writeBytes(outStr);
@@ -0,0 +1,566 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.json.JSONObject;
+
+/**
+ * Pull parser which reads JSON tokens one by one from a character stream. It
+ * is used by providers and plugins to map profile, contact and feed responses
+ * directly into the model objects without building a JSON tree of the whole
+ * response. Values which are not required can be skipped with
+ * {@link #skipValue()}.
+ * 
+ * <pre>
+ * JSONStreamReader reader = new JSONStreamReader(
+ * 		response.getResponseBodyAsReader(Constants.ENCODING));
+ * reader.beginObject();
+ * while (reader.hasNext()) {
+ * 	String name = reader.nextName();
+ * 	if (&quot;name&quot;.equals(name)) {
+ * 		contact.setDisplayName(reader.nextString());
+ * 	} else {
+ * 		reader.skipValue();
+ * 	}
+ * }
+ * reader.endObject();
+ * </pre>
+ * 
+ * This class is not thread safe.
+ */
+public class JSONStreamReader implements Closeable {
+
+	/**
+	 * Type of the next token in the stream
+	 */
+	public enum Token {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+	}
+
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_ARRAY = 2;
+	private static final int NONEMPTY_ARRAY = 3;
+	private static final int EMPTY_OBJECT = 4;
+	private static final int DANGLING_NAME = 5;
+	private static final int NONEMPTY_OBJECT = 6;
+
+	private final Reader in;
+	private final char[] buffer = new char[4096];
+	private int pos;
+	private int limit;
+	private long consumed;
+
+	private int[] stack = new int[32];
+	private int depth;
+	private Token peeked;
+
+	private final StringBuilder value = new StringBuilder();
+	private StringBuilder capture;
+	private int captureStart = -1;
+
+	/**
+	 * Creates a reader over the given character stream.
+	 * 
+	 * @param in
+	 *            the character stream to read JSON from
+	 */
+	public JSONStreamReader(final Reader in) {
+		if (in == null) {
+			throw new IllegalArgumentException("Reader can not be null");
+		}
+		this.in = in;
+		stack[depth++] = EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Creates a reader over the given JSON string.
+	 * 
+	 * @param json
+	 *            the JSON string
+	 */
+	public JSONStreamReader(final String json) {
+		this(new StringReader(json));
+	}
+
+	/**
+	 * Returns the type of the next token without consuming it.
+	 * 
+	 * @return the next token type
+	 * @throws IOException
+	 */
+	public Token peek() throws IOException {
+		if (peeked != null) {
+			return peeked;
+		}
+		int scope = stack[depth - 1];
+		int c;
+		switch (scope) {
+		case EMPTY_ARRAY:
+			stack[depth - 1] = NONEMPTY_ARRAY;
+			if (nextNonWhitespace() == ']') {
+				return peeked = Token.END_ARRAY;
+			}
+			break;
+		case NONEMPTY_ARRAY:
+			c = nextNonWhitespace();
+			if (c == ']') {
+				return peeked = Token.END_ARRAY;
+			} else if (c == ',') {
+				pos++;
+			} else {
+				throw syntaxError("Expected ',' or ']'");
+			}
+			break;
+		case EMPTY_OBJECT:
+		case NONEMPTY_OBJECT:
+			stack[depth - 1] = DANGLING_NAME;
+			c = nextNonWhitespace();
+			if (c == '}') {
+				return peeked = Token.END_OBJECT;
+			}
+			if (scope == NONEMPTY_OBJECT) {
+				if (c != ',') {
+					throw syntaxError("Expected ',' or '}'");
+				}
+				pos++;
+				c = nextNonWhitespace();
+			}
+			if (c != '"') {
+				throw syntaxError("Expected name");
+			}
+			return peeked = Token.NAME;
+		case DANGLING_NAME:
+			stack[depth - 1] = NONEMPTY_OBJECT;
+			if (nextNonWhitespace() != ':') {
+				throw syntaxError("Expected ':'");
+			}
+			pos++;
+			break;
+		case EMPTY_DOCUMENT:
+			stack[depth - 1] = NONEMPTY_DOCUMENT;
+			break;
+		default:
+			if (nextNonWhitespace() == -1) {
+				return peeked = Token.END_DOCUMENT;
+			}
+			throw syntaxError("Unexpected data after the end of document");
+		}
+
+		c = nextNonWhitespace();
+		switch (c) {
+		case '{':
+			return peeked = Token.BEGIN_OBJECT;
+		case '[':
+			return peeked = Token.BEGIN_ARRAY;
+		case '"':
+			return peeked = Token.STRING;
+		case 't':
+		case 'f':
+			return peeked = Token.BOOLEAN;
+		case 'n':
+			return peeked = Token.NULL;
+		case -1:
+			throw syntaxError("Unexpected end of document");
+		default:
+			if (c == '-' || (c >= '0' && c <= '9')) {
+				return peeked = Token.NUMBER;
+			}
+			throw syntaxError("Unexpected character '" + (char) c + "'");
+		}
+	}
+
+	/**
+	 * Consumes the opening brace of an object.
+	 * 
+	 * @throws IOException
+	 */
+	public void beginObject() throws IOException {
+		expect(Token.BEGIN_OBJECT);
+		pos++;
+		push(EMPTY_OBJECT);
+	}
+
+	/**
+	 * Consumes the closing brace of the current object.
+	 * 
+	 * @throws IOException
+	 */
+	public void endObject() throws IOException {
+		expect(Token.END_OBJECT);
+		pos++;
+		depth--;
+	}
+
+	/**
+	 * Consumes the opening bracket of an array.
+	 * 
+	 * @throws IOException
+	 */
+	public void beginArray() throws IOException {
+		expect(Token.BEGIN_ARRAY);
+		pos++;
+		push(EMPTY_ARRAY);
+	}
+
+	/**
+	 * Consumes the closing bracket of the current array.
+	 * 
+	 * @throws IOException
+	 */
+	public void endArray() throws IOException {
+		expect(Token.END_ARRAY);
+		pos++;
+		depth--;
+	}
+
+	/**
+	 * Checks if the current object or array has more elements.
+	 * 
+	 * @return true if there is another element
+	 * @throws IOException
+	 */
+	public boolean hasNext() throws IOException {
+		Token t = peek();
+		return t != Token.END_OBJECT && t != Token.END_ARRAY
+				&& t != Token.END_DOCUMENT;
+	}
+
+	/**
+	 * Consumes the next property name.
+	 * 
+	 * @return the property name
+	 * @throws IOException
+	 */
+	public String nextName() throws IOException {
+		expect(Token.NAME);
+		pos++;
+		return readString();
+	}
+
+	/**
+	 * Consumes the next scalar value and returns it as a string. Numbers and
+	 * booleans are returned as they appear in the stream.
+	 * 
+	 * @return the value, or null if it is a JSON null
+	 * @throws IOException
+	 */
+	public String nextString() throws IOException {
+		Token t = peek();
+		peeked = null;
+		switch (t) {
+		case STRING:
+			pos++;
+			return readString();
+		case NUMBER:
+			return readLiteral();
+		case BOOLEAN:
+			String b = readLiteral();
+			if (!"true".equals(b) && !"false".equals(b)) {
+				throw syntaxError("Invalid literal " + b);
+			}
+			return b;
+		case NULL:
+			String n = readLiteral();
+			if (!"null".equals(n)) {
+				throw syntaxError("Invalid literal " + n);
+			}
+			return null;
+		default:
+			throw syntaxError("Expected a value but was " + t);
+		}
+	}
+
+	/**
+	 * Consumes the next value as long. Quoted numbers are accepted as well.
+	 * 
+	 * @return the value
+	 * @throws IOException
+	 */
+	public long nextLong() throws IOException {
+		String str = nextString();
+		if (str == null) {
+			throw syntaxError("Expected a number but was null");
+		}
+		try {
+			return Long.parseLong(str);
+		} catch (NumberFormatException e) {
+			try {
+				return (long) Double.parseDouble(str);
+			} catch (NumberFormatException ne) {
+				throw syntaxError("Expected a number but was " + str);
+			}
+		}
+	}
+
+	/**
+	 * Consumes the next value as int. Quoted numbers are accepted as well.
+	 * 
+	 * @return the value
+	 * @throws IOException
+	 */
+	public int nextInt() throws IOException {
+		long l = nextLong();
+		if (l > Integer.MAX_VALUE || l < Integer.MIN_VALUE) {
+			throw syntaxError("Number " + l + " does not fit in int");
+		}
+		return (int) l;
+	}
+
+	/**
+	 * Consumes the next value as boolean.
+	 * 
+	 * @return the value
+	 * @throws IOException
+	 */
+	public boolean nextBoolean() throws IOException {
+		return Boolean.parseBoolean(nextString());
+	}
+
+	/**
+	 * Skips the next value. If it is an object or an array, all the nested
+	 * values are skipped as well.
+	 * 
+	 * @throws IOException
+	 */
+	public void skipValue() throws IOException {
+		int count = 0;
+		do {
+			Token t = peek();
+			switch (t) {
+			case BEGIN_OBJECT:
+				beginObject();
+				count++;
+				break;
+			case BEGIN_ARRAY:
+				beginArray();
+				count++;
+				break;
+			case END_OBJECT:
+				endObject();
+				count--;
+				break;
+			case END_ARRAY:
+				endArray();
+				count--;
+				break;
+			case NAME:
+				nextName();
+				break;
+			case END_DOCUMENT:
+				throw syntaxError("Unexpected end of document");
+			default:
+				nextString();
+			}
+		} while (count > 0);
+	}
+
+	/**
+	 * Consumes the next value and returns its JSON text as it appears in the
+	 * stream. It is used to keep the raw response of a single element.
+	 * 
+	 * @return the JSON text of the next value
+	 * @throws IOException
+	 */
+	public String nextRaw() throws IOException {
+		Token t = peek();
+		if (t == Token.NAME || t == Token.END_OBJECT || t == Token.END_ARRAY
+				|| t == Token.END_DOCUMENT) {
+			throw syntaxError("Expected a value but was " + t);
+		}
+		capture = new StringBuilder();
+		captureStart = pos;
+		try {
+			skipValue();
+			capture.append(buffer, captureStart, pos - captureStart);
+			return capture.toString();
+		} finally {
+			capture = null;
+			captureStart = -1;
+		}
+	}
+
+	/**
+	 * Consumes the next object and returns it as {@link JSONObject}.
+	 * 
+	 * @return the JSONObject
+	 * @throws Exception
+	 */
+	public JSONObject nextJSONObject() throws Exception {
+		return new JSONObject(nextRaw());
+	}
+
+	/**
+	 * Closes the underlying stream. If the stream is a response body, the
+	 * connection is given back to the transport.
+	 */
+	@Override
+	public void close() {
+		peeked = null;
+		stack[0] = NONEMPTY_DOCUMENT;
+		depth = 1;
+		try {
+			in.close();
+		} catch (IOException e) {
+			// nothing to do, stream is no longer used
+		}
+	}
+
+	private void expect(final Token token) throws IOException {
+		Token t = peek();
+		if (t != token) {
+			throw syntaxError("Expected " + token + " but was " + t);
+		}
+		peeked = null;
+	}
+
+	private void push(final int scope) {
+		if (depth == stack.length) {
+			int[] newStack = new int[depth * 2];
+			System.arraycopy(stack, 0, newStack, 0, depth);
+			stack = newStack;
+		}
+		stack[depth++] = scope;
+	}
+
+	private int nextNonWhitespace() throws IOException {
+		while (pos < limit || fill()) {
+			char c = buffer[pos];
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+				pos++;
+			} else {
+				return c;
+			}
+		}
+		return -1;
+	}
+
+	private int read() throws IOException {
+		if (pos < limit || fill()) {
+			return buffer[pos++];
+		}
+		return -1;
+	}
+
+	private boolean fill() throws IOException {
+		if (captureStart != -1) {
+			capture.append(buffer, captureStart, pos - captureStart);
+			captureStart = 0;
+		}
+		consumed += limit;
+		pos = 0;
+		limit = 0;
+		int n = in.read(buffer, 0, buffer.length);
+		if (n <= 0) {
+			return false;
+		}
+		limit = n;
+		return true;
+	}
+
+	private String readString() throws IOException {
+		value.setLength(0);
+		while (true) {
+			int start = pos;
+			while (pos < limit) {
+				char c = buffer[pos];
+				if (c == '"' || c == '\\') {
+					break;
+				}
+				pos++;
+			}
+			value.append(buffer, start, pos - start);
+			int c = read();
+			if (c == '"') {
+				return value.toString();
+			} else if (c == '\\') {
+				value.append(readEscape());
+			} else if (c == -1) {
+				throw syntaxError("Unterminated string");
+			} else {
+				// first character of the refilled buffer
+				value.append((char) c);
+			}
+		}
+	}
+
+	private char readEscape() throws IOException {
+		int c = read();
+		switch (c) {
+		case 'u':
+			int code = 0;
+			for (int i = 0; i < 4; i++) {
+				int h = Character.digit(read(), 16);
+				if (h == -1) {
+					throw syntaxError("Invalid unicode escape");
+				}
+				code = (code << 4) | h;
+			}
+			return (char) code;
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case '"':
+		case '\\':
+		case '/':
+			return (char) c;
+		default:
+			throw syntaxError("Invalid escape sequence");
+		}
+	}
+
+	private String readLiteral() throws IOException {
+		value.setLength(0);
+		while (pos < limit || fill()) {
+			char c = buffer[pos];
+			if (c == ',' || c == '}' || c == ']' || c == ':' || c == ' '
+					|| c == '\n' || c == '\r' || c == '\t') {
+				break;
+			}
+			value.append(c);
+			pos++;
+		}
+		if (value.length() == 0) {
+			throw syntaxError("Expected a literal value");
+		}
+		return value.toString();
+	}
+
+	private IOException syntaxError(final String message) {
+		return new IOException(message + " at character " + (consumed + pos));
+	}
+}
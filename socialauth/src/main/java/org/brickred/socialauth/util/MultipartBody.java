@@ -0,0 +1,199 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+/**
+ * multipart/form-data request body made of one file part followed by text
+ * fields. The file is streamed to the connection in large chunks, and its
+ * size is known up front when it comes from a {@link FileInputStream} or a
+ * {@link ByteArrayInputStream}, so that the request can be sent with a fixed
+ * length instead of being buffered in memory.
+ */
+public class MultipartBody {
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private static final byte[] CRLF = { '\r', '\n' };
+
+	private final String boundary;
+	private final InputStream file;
+	private final String fileName;
+	private final byte[] head;
+	private final byte[] tail;
+	private final long fileLength;
+	private UploadProgressListener listener;
+
+	/**
+	 * @param file
+	 *            content of the file part
+	 * @param fileName
+	 *            the file name
+	 * @param fileParamName
+	 *            name of the file part, or null if the provider does not need
+	 *            one
+	 * @param params
+	 *            the text fields, may be null
+	 */
+	public MultipartBody(final InputStream file, final String fileName,
+			final String fileParamName, final Map<String, String> params)
+			throws IOException {
+		this(file, lengthOf(file), fileName, fileParamName, params);
+	}
+
+	/**
+	 * @param file
+	 *            content of the file part
+	 * @param fileLength
+	 *            number of bytes the file stream gives, or -1 if not known
+	 * @param fileName
+	 *            the file name
+	 * @param fileParamName
+	 *            name of the file part, or null if the provider does not need
+	 *            one
+	 * @param params
+	 *            the text fields, may be null
+	 */
+	public MultipartBody(final InputStream file, final long fileLength,
+			final String fileName, final String fileParamName,
+			final Map<String, String> params) throws IOException {
+		this.boundary = "----Socialauth-posting" + System.currentTimeMillis();
+		this.file = file;
+		this.fileName = fileName;
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("--").append(boundary).append("\r\n");
+		if (fileParamName != null) {
+			sb.append("Content-Disposition: form-data; name=\"")
+					.append(fileParamName).append("\"; filename=\"")
+					.append(fileName).append("\"\r\n");
+		} else {
+			sb.append("Content-Disposition: form-data;  filename=\"")
+					.append(fileName).append("\"\r\n");
+		}
+		sb.append("Content-Type: multipart/form-data\r\n\r\n");
+		head = sb.toString().getBytes(Constants.ENCODING);
+
+		sb.setLength(0);
+		sb.append("\r\n");
+		if (params != null) {
+			for (Map.Entry<String, String> entry : params.entrySet()) {
+				sb.append("--").append(boundary).append("\r\n");
+				sb.append("Content-Disposition: form-data; name=\"")
+						.append(entry.getKey()).append("\"\r\n\r\n");
+				sb.append(entry.getValue()).append("\r\n");
+			}
+		}
+		sb.append("--").append(boundary).append("--\r\n");
+		tail = sb.toString().getBytes(Constants.ENCODING);
+		this.fileLength = fileLength;
+	}
+
+	/**
+	 * @return the value of the Content-Type header
+	 */
+	public String getContentType() {
+		return "multipart/form-data; boundary=" + boundary;
+	}
+
+	/**
+	 * @return the size of the body in bytes, or -1 if the size of the file is
+	 *         not known
+	 */
+	public long getContentLength() {
+		if (fileLength < 0) {
+			return -1;
+		}
+		return head.length + fileLength + tail.length + CRLF.length;
+	}
+
+	public void setProgressListener(final UploadProgressListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Writes the body to given stream. The file stream is read to its end
+	 * but not closed.
+	 */
+	public void writeTo(final OutputStream out) throws IOException {
+		long total = getContentLength();
+		out.write(head);
+		long sent = head.length;
+		if (file instanceof FileInputStream) {
+			FileChannel channel = ((FileInputStream) file).getChannel();
+			WritableByteChannel target = Channels.newChannel(out);
+			long position = channel.position();
+			long end = channel.size();
+			while (position < end) {
+				long n = channel.transferTo(position,
+						Math.min(CHUNK_SIZE, end - position), target);
+				if (n <= 0) {
+					break;
+				}
+				position += n;
+				sent += n;
+				progress(sent, total);
+			}
+			channel.position(position);
+		} else {
+			byte[] buf = new byte[CHUNK_SIZE];
+			int n;
+			while ((n = file.read(buf)) != -1) {
+				out.write(buf, 0, n);
+				sent += n;
+				progress(sent, total);
+			}
+		}
+		out.write(tail);
+		out.write(CRLF);
+		out.flush();
+		progress(sent + tail.length + CRLF.length, total);
+	}
+
+	private void progress(final long sent, final long total) {
+		if (listener != null) {
+			listener.progress(fileName, sent, total);
+		}
+	}
+
+	private static long lengthOf(final InputStream in) throws IOException {
+		if (in instanceof FileInputStream) {
+			FileChannel channel = ((FileInputStream) in).getChannel();
+			return channel.size() - channel.position();
+		}
+		if (in instanceof ByteArrayInputStream) {
+			// available() is the exact number of remaining bytes
+			return in.available();
+		}
+		return -1;
+	}
+}
@@ -87,6 +87,29 @@ public class OAuthConfig implements Serializable {
 		_signatureMethod = Constants.HMACSHA1_SIGNATURE;
 	}
 
+	/**
+	 * Creates a copy of given configuration
+	 * 
+	 * @param config
+	 *            the configuration to copy
+	 */
+	public OAuthConfig(final OAuthConfig config) {
+		_consumerKey = config._consumerKey;
+		_consumerSecret = config._consumerSecret;
+		_signatureMethod = config._signatureMethod;
+		_transportName = config._transportName;
+		id = config.id;
+		providerImplClass = config.providerImplClass;
+		customPermissions = config.customPermissions;
+		requestTokenUrl = config.requestTokenUrl;
+		authenticationUrl = config.authenticationUrl;
+		accessTokenUrl = config.accessTokenUrl;
+		registeredPlugins = config.registeredPlugins;
+		pluginsScopes = config.pluginsScopes;
+		saveRawResponse = config.saveRawResponse;
+		customProperties = config.customProperties;
+	}
+
 	/**
 	 * Retrieves the consumer key
 	 * 
@@ -24,17 +24,15 @@
  */
 package org.brickred.socialauth.util;
 
-import java.io.BufferedReader;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Serializable;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.brickred.socialauth.exception.SignatureException;
@@ -53,6 +51,7 @@ public class OAuthConsumer implements Serializable, Constants {
 	private static final Pattern AMPERSAND = Pattern.compile("&");
 	private final Log LOG = LogFactory.getLog(OAuthConsumer.class);
 	private OAuthConfig config;
+	private transient PrivateKey privateKey;
 
 	/**
 	 * 
@@ -72,7 +71,8 @@ public class OAuthConsumer implements Serializable, Constants {
 	 * concatenated into a normalized string.
 	 * 
 	 * @param signatureType
-	 *            Type of signature. It can be HMAC-SHA1.
+	 *            Type of signature. It can be HMAC-SHA1, HMAC-SHA256,
+	 *            RSA-SHA1 or PLAINTEXT.
 	 * @param method
 	 *            Method type can be GET, POST or PUT
 	 * @param url
@@ -88,23 +88,13 @@ public class OAuthConsumer implements Serializable, Constants {
 			final String method, final String url,
 			final Map<String, String> args, final AccessGrant token)
 			throws Exception {
-		LOG.debug("Generating OAUTH Signature");
-		LOG.debug("Given Signature Type : " + signatureType);
-		LOG.debug("Given Method Type : " + method);
-		LOG.debug("Given URL : " + url);
-		LOG.debug("Given Parameters : " + args);
-		if (HMACSHA1_SIGNATURE.equals(signatureType)) {
-			return getHMACSHA1(method, url, args, token);
-		} else {
-			throw new SignatureException("Signature type not implemented :"
-					+ signatureType);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Generating OAUTH Signature");
+			LOG.debug("Given Signature Type : " + signatureType);
+			LOG.debug("Given Method Type : " + method);
+			LOG.debug("Given URL : " + url);
+			LOG.debug("Given Parameters : " + args);
 		}
-	}
-
-	private String getHMACSHA1(final String method, final String url,
-			final Map<String, String> args, final AccessGrant token)
-			throws Exception {
-
 		if (config.get_consumerSecret().length() == 0) {
 			throw new SignatureException("Please check consumer secret");
 		}
@@ -117,35 +107,43 @@ public class OAuthConsumer implements Serializable, Constants {
 		if (url.length() == 0) {
 			throw new SignatureException("Please check URL");
 		}
-		String key = HttpUtil.encodeURIComponent(config.get_consumerSecret())
-				+ "&";
-		if (token != null && token.getSecret() != null) {
-			key += HttpUtil.encodeURIComponent(token.getSecret());
+		String tokenSecret = token == null ? null : token.getSecret();
+		PrivateKey key = null;
+		if (RSASHA1_SIGNATURE.equals(signatureType)) {
+			key = getPrivateKey();
 		}
-		try {
-			// get an hmac_sha1 key from the raw key bytes
-			SecretKeySpec signingKey = new SecretKeySpec(key.getBytes("UTF-8"),
-					"HMAC-SHA1");
-
-			// get an hmac_sha1 Mac instance and initialize with the signing key
-			Mac mac = Mac.getInstance("HmacSHA1");
-			mac.init(signingKey);
-
-			String data = HttpUtil.encodeURIComponent(method) + "&"
-					+ HttpUtil.encodeURIComponent(url) + "&"
-					+ HttpUtil.encodeURIComponent(HttpUtil.buildParams(args));
-			LOG.debug("Signature data : " + data);
-			// compute the hmac on input data bytes
-			byte[] rawHmac = mac.doFinal(data.getBytes("UTF-8"));
-
-			// base64-encode the hmac
-			LOG.debug("Encoding raw HMAC to Base64");
-			String sig = Base64.encodeBytes(rawHmac);
-
-			return sig;
-		} catch (Exception e) {
-			throw new SignatureException("Unable to generate HMAC-SHA1", e);
+		return OAuthSigner.sign(signatureType, method, url, args,
+				config.get_consumerSecret(), tokenSecret, key);
+	}
+
+	/**
+	 * Sets the private key used for RSA-SHA1 signature. If it is not set, key
+	 * is read from the {@value Constants#RSA_PRIVATE_KEY} custom property of
+	 * provider config.
+	 * 
+	 * @param privateKey
+	 *            the private key
+	 */
+	public void setPrivateKey(final PrivateKey privateKey) {
+		this.privateKey = privateKey;
+	}
+
+	private PrivateKey getPrivateKey() throws SignatureException {
+		if (privateKey == null) {
+			Map<String, String> props = config.getCustomProperties();
+			String encoded = props == null ? null : props.get(RSA_PRIVATE_KEY);
+			if (encoded == null) {
+				throw new SignatureException(
+						"Private key is required for RSA-SHA1 signature");
+			}
+			try {
+				privateKey = KeyFactory.getInstance("RSA").generatePrivate(
+						new PKCS8EncodedKeySpec(Base64.decode(encoded)));
+			} catch (Exception e) {
+				throw new SignatureException("Unable to read private key", e);
+			}
 		}
+		return privateKey;
 	}
 
 	/**
@@ -198,14 +196,18 @@ public class OAuthConsumer implements Serializable, Constants {
 		Response response = HttpUtil.doHttpRequest(reqURL,
 				config.get_transportName(), null, null);
 
-		if (response.getStatus() == 200) {
-			token = new AccessGrant();
-			parse(response.getInputStream(), token);
-		} else {
-			LOG.debug("Error while fetching Request Token");
-			throw new SocialAuthConfigurationException(
-					"Application keys are not correct. "
-							+ "The server running the application should be same that was registered to get the keys.");
+		try {
+			if (response.getStatus() == 200) {
+				token = new AccessGrant();
+				parse(response, token);
+			} else {
+				LOG.debug("Error while fetching Request Token");
+				throw new SocialAuthConfigurationException(
+						"Application keys are not correct. "
+								+ "The server running the application should be same that was registered to get the keys.");
+			}
+		} finally {
+			response.close();
 		}
 		return token;
 	}
@@ -262,13 +264,17 @@ public class OAuthConsumer implements Serializable, Constants {
 			throw new SocialAuthException("Error while getting Access Token", e);
 		}
 
-		if (response.getStatus() == 200) {
-			accessToken = new AccessGrant();
-			parse(response.getInputStream(), accessToken);
-		} else {
-			throw new SocialAuthException(
-					"Unable to retrieve the access token. Status: "
-							+ response.getStatus());
+		try {
+			if (response.getStatus() == 200) {
+				accessToken = new AccessGrant();
+				parse(response, accessToken);
+			} else {
+				throw new SocialAuthException(
+						"Unable to retrieve the access token. Status: "
+								+ response.getStatus());
+			}
+		} finally {
+			response.close();
 		}
 		return accessToken;
 	}
@@ -424,21 +430,16 @@ public class OAuthConsumer implements Serializable, Constants {
 		return HttpUtil.doHttpRequest(url, methodName, body, headerMap);
 	}
 
-	private void parse(final InputStream in, final AccessGrant token)
+	private void parse(final Response response, final AccessGrant token)
 			throws Exception {
-		StringBuffer sb = new StringBuffer();
+		String body;
 		try {
-			BufferedReader reader = new BufferedReader(new InputStreamReader(
-					in, ENCODING));
-			String line = null;
-			while ((line = reader.readLine()) != null) {
-				sb.append(line);
-			}
+			body = response.getResponseBodyAsString(ENCODING).trim();
 		} catch (Exception exc) {
 			throw new SocialAuthException("Failed to parse response");
 		}
 
-		String[] pairs = sb.toString().split("&");
+		String[] pairs = body.split("&");
 		String key = null, secret = null;
 		for (String pair : pairs) {
 			int idx = pair.indexOf('=');
@@ -0,0 +1,237 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.brickred.socialauth.exception.SignatureException;
+
+/**
+ * Computes OAuth 1.0 signatures. Supports HMAC-SHA1, HMAC-SHA256, RSA-SHA1
+ * and PLAINTEXT methods.
+ * 
+ * Initialized {@link Mac} instances are kept per thread and per signing key,
+ * and the signature base string is built in a per thread buffer, so signing a
+ * request with a known key does not allocate a new Mac, key or intermediate
+ * strings.
+ */
+public final class OAuthSigner implements Constants {
+
+	private static final int MAX_CACHED_KEYS = 16;
+
+	private static final ThreadLocal<SignerState> STATE = new ThreadLocal<SignerState>() {
+		@Override
+		protected SignerState initialValue() {
+			return new SignerState();
+		}
+	};
+
+	private OAuthSigner() {
+	}
+
+	/**
+	 * Generates the signature of a request
+	 * 
+	 * @param signatureMethod
+	 *            HMAC-SHA1, HMAC-SHA256, RSA-SHA1 or PLAINTEXT
+	 * @param method
+	 *            HTTP method of request
+	 * @param url
+	 *            URL of request without query string
+	 * @param params
+	 *            OAuth and request parameters
+	 * @param consumerSecret
+	 *            the consumer secret
+	 * @param tokenSecret
+	 *            the token secret, may be null
+	 * @param privateKey
+	 *            private key for RSA-SHA1, not used by other methods
+	 * @return the Base64 encoded signature
+	 * @throws SignatureException
+	 */
+	public static String sign(final String signatureMethod,
+			final String method, final String url,
+			final Map<String, String> params, final String consumerSecret,
+			final String tokenSecret, final PrivateKey privateKey)
+			throws SignatureException {
+		SignerState state = STATE.get();
+		if (PLAINTEXT_SIGNATURE.equals(signatureMethod)) {
+			return buildKey(state.buffer, consumerSecret, tokenSecret);
+		}
+		try {
+			byte[] data = buildBaseString(state, method, url, params);
+			int length = state.buffer.length();
+			byte[] raw;
+			if (HMACSHA1_SIGNATURE.equals(signatureMethod)) {
+				Mac mac = getMac(state, "HmacSHA1", consumerSecret,
+						tokenSecret);
+				mac.update(data, 0, length);
+				raw = mac.doFinal();
+			} else if (HMACSHA256_SIGNATURE.equals(signatureMethod)) {
+				Mac mac = getMac(state, "HmacSHA256", consumerSecret,
+						tokenSecret);
+				mac.update(data, 0, length);
+				raw = mac.doFinal();
+			} else if (RSASHA1_SIGNATURE.equals(signatureMethod)) {
+				if (privateKey == null) {
+					throw new SignatureException(
+							"Private key is required for RSA-SHA1 signature");
+				}
+				if (state.rsa == null) {
+					state.rsa = Signature.getInstance("SHA1withRSA");
+				}
+				state.rsa.initSign(privateKey);
+				state.rsa.update(data, 0, length);
+				raw = state.rsa.sign();
+			} else {
+				throw new SignatureException("Signature type not implemented :"
+						+ signatureMethod);
+			}
+			return Base64.encodeBytes(raw);
+		} catch (SignatureException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SignatureException("Unable to generate "
+					+ signatureMethod, e);
+		}
+	}
+
+	/**
+	 * Builds the signature base string of a request. Parameters with empty
+	 * value are left out.
+	 * 
+	 * @param method
+	 *            HTTP method of request
+	 * @param url
+	 *            URL of request without query string
+	 * @param params
+	 *            OAuth and request parameters
+	 * @return the signature base string
+	 */
+	public static String getBaseString(final String method, final String url,
+			final Map<String, String> params) {
+		SignerState state = STATE.get();
+		buildBaseString(state, method, url, params);
+		return state.buffer.toString();
+	}
+
+	/**
+	 * Builds the base string in the buffer of given state and returns its
+	 * bytes. Base string is plain ASCII after encoding, so chars are copied as
+	 * bytes without a charset encoder.
+	 */
+	private static byte[] buildBaseString(final SignerState state,
+			final String method, final String url,
+			final Map<String, String> params) {
+		StringBuilder sb = state.buffer;
+		sb.setLength(0);
+		appendEncoded(sb, method);
+		sb.append('&');
+		appendEncoded(sb, url);
+		sb.append('&');
+
+		String[] args = new String[params.size()];
+		int n = 0;
+		StringBuilder arg = state.argBuffer;
+		for (Map.Entry<String, String> entry : params.entrySet()) {
+			String val = entry.getValue();
+			if (val != null && val.length() > 0) {
+				arg.setLength(0);
+				arg.append(entry.getKey()).append('=');
+				appendEncoded(arg, val);
+				args[n++] = arg.toString();
+			}
+		}
+		Arrays.sort(args, 0, n);
+		for (int i = 0; i < n; i++) {
+			if (i > 0) {
+				sb.append("%26");
+			}
+			appendEncoded(sb, args[i]);
+		}
+
+		int length = sb.length();
+		if (state.bytes.length < length) {
+			state.bytes = new byte[Math.max(length, state.bytes.length * 2)];
+		}
+		byte[] bytes = state.bytes;
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) sb.charAt(i);
+		}
+		return bytes;
+	}
+
+	private static Mac getMac(final SignerState state, final String algorithm,
+			final String consumerSecret, final String tokenSecret)
+			throws Exception {
+		String key = buildKey(state.keyBuffer, consumerSecret, tokenSecret);
+		String cacheKey = algorithm + '&' + key;
+		Mac mac = state.macs.get(cacheKey);
+		if (mac == null) {
+			mac = Mac.getInstance(algorithm);
+			mac.init(new SecretKeySpec(key.getBytes(ENCODING), algorithm));
+			state.macs.put(cacheKey, mac);
+		}
+		return mac;
+	}
+
+	private static String buildKey(final StringBuilder sb,
+			final String consumerSecret, final String tokenSecret) {
+		sb.setLength(0);
+		appendEncoded(sb, consumerSecret);
+		sb.append('&');
+		appendEncoded(sb, tokenSecret);
+		return sb.toString();
+	}
+
+	private static void appendEncoded(final StringBuilder sb, final String value) {
+		PercentCodec.encode(value, sb);
+	}
+
+	private static class SignerState {
+		private final StringBuilder buffer = new StringBuilder(512);
+		private final StringBuilder argBuffer = new StringBuilder(128);
+		private final StringBuilder keyBuffer = new StringBuilder(96);
+		private byte[] bytes = new byte[512];
+		private Signature rsa;
+		private final Map<String, Mac> macs = new LinkedHashMap<String, Mac>(
+				MAX_CACHED_KEYS, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, Mac> eldest) {
+				return size() > MAX_CACHED_KEYS;
+			}
+		};
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openid4java.consumer.ConsumerException;
+import org.openid4java.consumer.ConsumerManager;
+import org.openid4java.discovery.DiscoveryException;
+import org.openid4java.discovery.DiscoveryInformation;
+
+/**
+ * Application wide OpenID consumer. It holds one {@link ConsumerManager} which
+ * is shared by all the OpenId providers, with a bounded association store, and
+ * caches the discovered endpoint of each identifier, so that repeated logins
+ * with the same identifier skip discovery and association.
+ */
+public final class OpenIdDiscoveryCache {
+
+	/**
+	 * Default time to live of discovered endpoint, 1 hour
+	 */
+	public static final long DEFAULT_DISCOVERY_TTL = 60 * 60 * 1000L;
+
+	/**
+	 * Default maximum number of cached identifiers
+	 */
+	public static final int DEFAULT_MAX_DISCOVERIES = 500;
+
+	private static final Log LOG = LogFactory.getLog(OpenIdDiscoveryCache.class);
+	private static final Map<String, CachedDiscovery> DISCOVERIES = new ConcurrentHashMap<String, CachedDiscovery>();
+
+	private static volatile ConsumerManager manager;
+	private static volatile long discoveryTTL = DEFAULT_DISCOVERY_TTL;
+	private static volatile int maxDiscoveries = DEFAULT_MAX_DISCOVERIES;
+
+	private OpenIdDiscoveryCache() {
+	}
+
+	/**
+	 * Returns the shared consumer manager, creating it on first call.
+	 * 
+	 * @return the consumer manager
+	 * @throws ConsumerException
+	 *             if consumer manager could not be created
+	 */
+	public static ConsumerManager getConsumerManager() throws ConsumerException {
+		ConsumerManager m = manager;
+		if (m == null) {
+			synchronized (OpenIdDiscoveryCache.class) {
+				m = manager;
+				if (m == null) {
+					m = new ConsumerManager();
+					m.setAssociations(new BoundedAssociationStore());
+					manager = m;
+				}
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Sets the consumer manager shared by OpenId providers. It can be used to
+	 * configure an association store or nonce verifier shared by a cluster.
+	 * 
+	 * @param consumerManager
+	 *            the consumer manager
+	 */
+	public static void setConsumerManager(final ConsumerManager consumerManager) {
+		synchronized (OpenIdDiscoveryCache.class) {
+			manager = consumerManager;
+			DISCOVERIES.clear();
+		}
+	}
+
+	/**
+	 * Returns the endpoint to authenticate given identifier with. Discovered
+	 * endpoint is cached, and on a cache hit only the association is checked,
+	 * which does not need a network call while association is valid.
+	 * 
+	 * @param identifier
+	 *            user supplied OpenID identifier
+	 * @return the discovered endpoint
+	 * @throws ConsumerException
+	 * @throws DiscoveryException
+	 *             if identifier could not be discovered
+	 */
+	public static DiscoveryInformation discover(final String identifier)
+			throws ConsumerException, DiscoveryException {
+		ConsumerManager m = getConsumerManager();
+		CachedDiscovery cached = DISCOVERIES.get(identifier);
+		if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+			LOG.debug("Using cached discovery of " + identifier);
+			return m.associate(Collections.singletonList(cached.information));
+		}
+		List<?> discoveries = m.discover(identifier);
+		DiscoveryInformation discovered = m.associate(discoveries);
+		if (discovered != null && discoveryTTL > 0) {
+			if (DISCOVERIES.size() >= maxDiscoveries) {
+				purge();
+			}
+			DISCOVERIES.put(identifier, new CachedDiscovery(discovered,
+					System.currentTimeMillis() + discoveryTTL));
+		}
+		return discovered;
+	}
+
+	/**
+	 * Removes the cached endpoint of given identifier
+	 * 
+	 * @param identifier
+	 *            user supplied OpenID identifier
+	 */
+	public static void evict(final String identifier) {
+		DISCOVERIES.remove(identifier);
+	}
+
+	/**
+	 * @param ttl
+	 *            time to live of discovered endpoint in milliseconds.
+	 *            Discovery is not cached if it is 0.
+	 */
+	public static void setDiscoveryTTL(final long ttl) {
+		discoveryTTL = ttl;
+	}
+
+	/**
+	 * @param max
+	 *            maximum number of cached identifiers
+	 */
+	public static void setMaxDiscoveries(final int max) {
+		maxDiscoveries = max;
+	}
+
+	/**
+	 * Removes expired entries, and if cache is still full, as many entries as
+	 * needed to make room for a new one.
+	 */
+	private static void purge() {
+		long now = System.currentTimeMillis();
+		Iterator<CachedDiscovery> it = DISCOVERIES.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().expiresAt <= now) {
+				it.remove();
+			}
+		}
+		it = DISCOVERIES.values().iterator();
+		while (DISCOVERIES.size() >= maxDiscoveries && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	private static class CachedDiscovery {
+		private final DiscoveryInformation information;
+		private final long expiresAt;
+
+		CachedDiscovery(final DiscoveryInformation information,
+				final long expiresAt) {
+			this.information = information;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,326 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Table driven percent encoding and decoding of URL components, as used for
+ * query strings, form bodies and OAuth signatures.
+ * 
+ * {@link #encode(String)} leaves the RFC 3986 unreserved characters as they
+ * are and encodes everything else as upper case hex escapes of the UTF-8
+ * bytes, which is the encoding OAuth 1.0 requires.
+ * {@link #encodeForm(CharSequence, StringBuilder)} follows
+ * application/x-www-form-urlencoded instead, where space becomes '+' and '*'
+ * is kept. Encoding appends to a builder or buffer given by the caller, and
+ * values which need no escaping are returned as they are, so the common case
+ * does not allocate.
+ */
+public final class PercentCodec {
+
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+	private static final boolean[] UNRESERVED = new boolean[128];
+	private static final boolean[] FORM_SAFE = new boolean[128];
+	private static final byte[] HEX_VALUE = new byte[128];
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	static {
+		for (int c = 0; c < 128; c++) {
+			boolean alnum = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+					|| (c >= '0' && c <= '9');
+			UNRESERVED[c] = alnum || c == '-' || c == '.' || c == '_'
+					|| c == '~';
+			FORM_SAFE[c] = alnum || c == '-' || c == '.' || c == '_'
+					|| c == '*';
+			HEX_VALUE[c] = -1;
+		}
+		for (int i = 0; i < 10; i++) {
+			HEX_VALUE['0' + i] = (byte) i;
+		}
+		for (int i = 0; i < 6; i++) {
+			HEX_VALUE['a' + i] = (byte) (10 + i);
+			HEX_VALUE['A' + i] = (byte) (10 + i);
+		}
+	}
+
+	private PercentCodec() {
+	}
+
+	/**
+	 * Percent encodes given value as per RFC 3986.
+	 * 
+	 * @param value
+	 *            the value to encode
+	 * @return the encoded value, the value itself if nothing had to be escaped
+	 *         or an empty string if value is null
+	 */
+	public static String encode(final String value) {
+		if (value == null) {
+			return "";
+		}
+		int start = firstEscaped(value, UNRESERVED);
+		if (start == value.length()) {
+			return value;
+		}
+		StringBuilder sb = new StringBuilder(value.length() + 16);
+		sb.append(value, 0, start);
+		encode(value, start, sb, UNRESERVED, false);
+		return sb.toString();
+	}
+
+	/**
+	 * Appends the RFC 3986 percent encoding of given value. Nothing is
+	 * appended if value is null.
+	 */
+	public static void encode(final CharSequence value, final StringBuilder sb) {
+		if (value != null) {
+			encode(value, 0, sb, UNRESERVED, false);
+		}
+	}
+
+	/**
+	 * Appends the application/x-www-form-urlencoded encoding of given value.
+	 * Nothing is appended if value is null.
+	 */
+	public static void encodeForm(final CharSequence value,
+			final StringBuilder sb) {
+		if (value != null) {
+			encode(value, 0, sb, FORM_SAFE, true);
+		}
+	}
+
+	/**
+	 * Writes the RFC 3986 percent encoding of given value to the buffer as
+	 * ASCII bytes. Nothing is written if value is null.
+	 * 
+	 * @throws java.nio.BufferOverflowException
+	 *             if the buffer has not enough room, see
+	 *             {@link #encodedLength(CharSequence)}
+	 */
+	public static void encode(final CharSequence value, final ByteBuffer out) {
+		if (value == null) {
+			return;
+		}
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 128 && UNRESERVED[c]) {
+				out.put((byte) c);
+				continue;
+			}
+			int cp = codePoint(value, i, c);
+			if (cp > 0xFFFF) {
+				i++;
+			}
+			if (cp < 0x80) {
+				putByte(out, cp);
+			} else if (cp < 0x800) {
+				putByte(out, 0xC0 | (cp >> 6));
+				putByte(out, 0x80 | (cp & 0x3F));
+			} else if (cp < 0x10000) {
+				putByte(out, 0xE0 | (cp >> 12));
+				putByte(out, 0x80 | ((cp >> 6) & 0x3F));
+				putByte(out, 0x80 | (cp & 0x3F));
+			} else {
+				putByte(out, 0xF0 | (cp >> 18));
+				putByte(out, 0x80 | ((cp >> 12) & 0x3F));
+				putByte(out, 0x80 | ((cp >> 6) & 0x3F));
+				putByte(out, 0x80 | (cp & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * @return the number of characters the RFC 3986 encoding of given value
+	 *         takes
+	 */
+	public static int encodedLength(final CharSequence value) {
+		if (value == null) {
+			return 0;
+		}
+		int n = 0;
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 128) {
+				n += UNRESERVED[c] ? 1 : 3;
+				continue;
+			}
+			int cp = codePoint(value, i, c);
+			if (cp > 0xFFFF) {
+				i++;
+				n += 12;
+			} else if (cp < 0x80) {
+				n += 3;
+			} else {
+				n += cp < 0x800 ? 6 : 9;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Decodes percent escapes and '+' of given value. Escaped bytes are read
+	 * as UTF-8. A '%' not followed by two hex digits is kept as it is.
+	 * 
+	 * @param value
+	 *            the value to decode
+	 * @return the decoded value, the value itself if it has no escapes
+	 */
+	public static String decode(final String value) {
+		if (value == null) {
+			return null;
+		}
+		int length = value.length();
+		int start = 0;
+		while (start < length) {
+			char c = value.charAt(start);
+			if (c == '%' || c == '+') {
+				break;
+			}
+			start++;
+		}
+		if (start == length) {
+			return value;
+		}
+		StringBuilder sb = new StringBuilder(length);
+		sb.append(value, 0, start);
+		byte[] bytes = null;
+		int i = start;
+		while (i < length) {
+			char c = value.charAt(i);
+			if (c == '+') {
+				sb.append(' ');
+				i++;
+			} else if (c == '%' && hexValue(value, i) >= 0) {
+				if (bytes == null) {
+					bytes = new byte[(length - i) / 3];
+				}
+				int n = 0;
+				int b;
+				while (i < length && (b = hexValue(value, i)) >= 0) {
+					bytes[n++] = (byte) b;
+					i += 3;
+				}
+				sb.append(new String(bytes, 0, n, UTF8));
+			} else {
+				sb.append(c);
+				i++;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the byte of the escape at given index, or -1 if there is no
+	 * valid escape.
+	 */
+	private static int hexValue(final String value, final int i) {
+		if (i + 2 >= value.length() || value.charAt(i) != '%') {
+			return -1;
+		}
+		char h = value.charAt(i + 1);
+		char l = value.charAt(i + 2);
+		if (h >= 128 || l >= 128 || HEX_VALUE[h] < 0 || HEX_VALUE[l] < 0) {
+			return -1;
+		}
+		return (HEX_VALUE[h] << 4) | HEX_VALUE[l];
+	}
+
+	private static int firstEscaped(final String value, final boolean[] safe) {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 128 || !safe[c]) {
+				return i;
+			}
+		}
+		return length;
+	}
+
+	private static void encode(final CharSequence value, final int start,
+			final StringBuilder sb, final boolean[] safe, final boolean form) {
+		int length = value.length();
+		for (int i = start; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 128) {
+				if (safe[c]) {
+					sb.append(c);
+				} else if (form && c == ' ') {
+					sb.append('+');
+				} else {
+					appendByte(sb, c);
+				}
+				continue;
+			}
+			int cp = codePoint(value, i, c);
+			if (cp > 0xFFFF) {
+				i++;
+			}
+			if (cp < 0x80) {
+				appendByte(sb, cp);
+			} else if (cp < 0x800) {
+				appendByte(sb, 0xC0 | (cp >> 6));
+				appendByte(sb, 0x80 | (cp & 0x3F));
+			} else if (cp < 0x10000) {
+				appendByte(sb, 0xE0 | (cp >> 12));
+				appendByte(sb, 0x80 | ((cp >> 6) & 0x3F));
+				appendByte(sb, 0x80 | (cp & 0x3F));
+			} else {
+				appendByte(sb, 0xF0 | (cp >> 18));
+				appendByte(sb, 0x80 | ((cp >> 12) & 0x3F));
+				appendByte(sb, 0x80 | ((cp >> 6) & 0x3F));
+				appendByte(sb, 0x80 | (cp & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * Returns the code point starting with given char. Unpaired surrogates
+	 * are replaced by '?', like the JDK UTF-8 encoder does.
+	 */
+	private static int codePoint(final CharSequence value, final int i,
+			final char c) {
+		if (Character.isHighSurrogate(c) && i + 1 < value.length()
+				&& Character.isLowSurrogate(value.charAt(i + 1))) {
+			return Character.toCodePoint(c, value.charAt(i + 1));
+		}
+		if (Character.isSurrogate(c)) {
+			return '?';
+		}
+		return c;
+	}
+
+	private static void appendByte(final StringBuilder sb, final int b) {
+		sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+	}
+
+	private static void putByte(final ByteBuffer out, final int b) {
+		out.put((byte) '%').put((byte) HEX[(b >> 4) & 0xF])
+				.put((byte) HEX[b & 0xF]);
+	}
+}
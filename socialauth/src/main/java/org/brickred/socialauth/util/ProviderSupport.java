@@ -24,6 +24,7 @@
  */
 package org.brickred.socialauth.util;
 
+import java.io.InputStream;
 import java.util.Map;
 
 import org.brickred.socialauth.exception.SocialAuthException;
@@ -100,6 +101,42 @@ public class ProviderSupport {
 		return response;
 	}
 
+	/**
+	 * Makes OAuth signed multipart HTTP request to upload given content.
+	 * 
+	 * @param url
+	 *            URL to make HTTP request.
+	 * @param methodType
+	 *            Method type can be GET, POST or PUT
+	 * @param params
+	 *            Any additional parameters to send as form fields
+	 * @param headerParams
+	 *            Any additional parameters need to pass as Header Parameters
+	 * @param fileName
+	 *            Name of the uploaded content
+	 * @param inputStream
+	 *            Content to upload
+	 * @param fileParamName
+	 *            Form field name of the content
+	 * @return Response object
+	 * @throws Exception
+	 */
+	public Response upload(final String url, final String methodType,
+			final Map<String, String> params,
+			final Map<String, String> headerParams, final String fileName,
+			final InputStream inputStream, final String fileParamName)
+			throws Exception {
+		Response response = null;
+		try {
+			response = authenticationStrategy.uploadImage(url, methodType,
+					params, headerParams, fileName, inputStream, fileParamName);
+		} catch (Exception e) {
+			throw new SocialAuthException("Error while uploading to URL : "
+					+ url, e);
+		}
+		return response;
+	}
+
 	/**
 	 * Retrieves the AccessGrant object.
 	 * 
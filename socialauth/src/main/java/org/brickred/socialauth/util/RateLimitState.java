@@ -0,0 +1,193 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.json.JSONObject;
+
+/**
+ * Rate limit state of a provider as reported in the headers of a response. It
+ * understands the Twitter <code>x-rate-limit-*</code> and GitHub
+ * <code>X-RateLimit-*</code> headers, the Graph API <code>X-App-Usage</code>
+ * header and <code>Retry-After</code>.
+ */
+public class RateLimitState {
+
+	// values smaller than this are seconds from now, not epoch seconds
+	private static final long MIN_EPOCH_SECONDS = 1000000000L;
+
+	private final int limit;
+	private final int remaining;
+	private final long resetTime;
+	private final int usage;
+	private final long retryTime;
+
+	public RateLimitState(final int limit, final int remaining,
+			final long resetTime, final int usage, final long retryTime) {
+		this.limit = limit;
+		this.remaining = remaining;
+		this.resetTime = resetTime;
+		this.usage = usage;
+		this.retryTime = retryTime;
+	}
+
+	/**
+	 * Reads the rate limit headers of given response.
+	 * 
+	 * @param response
+	 *            the response
+	 * @return the rate limit state, or null if response has no rate limit
+	 *         headers
+	 */
+	public static RateLimitState parse(final Response response) {
+		long now = System.currentTimeMillis();
+		int limit = parseInt(header(response, "x-rate-limit-limit",
+				"x-ratelimit-limit"));
+		int remaining = parseInt(header(response, "x-rate-limit-remaining",
+				"x-ratelimit-remaining"));
+		long resetTime = parseTime(header(response, "x-rate-limit-reset",
+				"x-ratelimit-reset"), now);
+		int usage = parseUsage(response.getHeader("x-app-usage"));
+		long retryTime = parseRetryAfter(response.getHeader("retry-after"),
+				now);
+		if (limit < 0 && remaining < 0 && usage < 0 && retryTime == 0) {
+			return null;
+		}
+		return new RateLimitState(limit, remaining, resetTime, usage,
+				retryTime);
+	}
+
+	/**
+	 * @return number of calls allowed in the window, or -1 if not known
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return number of calls left in the window, or -1 if not known
+	 */
+	public int getRemaining() {
+		return remaining;
+	}
+
+	/**
+	 * @return time in milliseconds at which the window resets, or 0 if not
+	 *         known
+	 */
+	public long getResetTime() {
+		return resetTime;
+	}
+
+	/**
+	 * @return used percentage of the application limit as reported in
+	 *         X-App-Usage, or -1 if not known
+	 */
+	public int getUsage() {
+		return usage;
+	}
+
+	/**
+	 * @return time in milliseconds given by Retry-After header, or 0 if not
+	 *         present
+	 */
+	public long getRetryTime() {
+		return retryTime;
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimitState [limit=" + limit + ", remaining=" + remaining
+				+ ", resetTime=" + resetTime + ", usage=" + usage
+				+ ", retryTime=" + retryTime + "]";
+	}
+
+	private static String header(final Response response, final String name,
+			final String alternative) {
+		String value = response.getHeader(name);
+		return value != null ? value : response.getHeader(alternative);
+	}
+
+	private static int parseInt(final String value) {
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static long parseTime(final String value, final long now) {
+		if (value == null) {
+			return 0;
+		}
+		try {
+			long seconds = Long.parseLong(value.trim());
+			return seconds < MIN_EPOCH_SECONDS ? now + seconds * 1000L
+					: seconds * 1000L;
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private static int parseUsage(final String value) {
+		if (value == null) {
+			return -1;
+		}
+		try {
+			JSONObject obj = new JSONObject(value);
+			int usage = Math.max(obj.optInt("call_count", 0),
+					obj.optInt("total_cputime", 0));
+			return Math.max(usage, obj.optInt("total_time", 0));
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	private static long parseRetryAfter(final String value, final long now) {
+		if (value == null) {
+			return 0;
+		}
+		String str = value.trim();
+		try {
+			return now + Long.parseLong(str) * 1000L;
+		} catch (NumberFormatException e) {
+			SimpleDateFormat format = new SimpleDateFormat(
+					"EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+			format.setTimeZone(TimeZone.getTimeZone("GMT"));
+			try {
+				return format.parse(str).getTime();
+			} catch (ParseException pe) {
+				return 0;
+			}
+		}
+	}
+}
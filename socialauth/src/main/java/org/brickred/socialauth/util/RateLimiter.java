@@ -0,0 +1,348 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.brickred.socialauth.exception.RateLimitExceededException;
+
+/**
+ * Keeps a token bucket per provider, access token and endpoint, filled from
+ * the rate limit headers of responses. A call is made right away while the
+ * bucket has plenty of calls left. When the calls left fall below the pace
+ * threshold, the remaining calls are spread evenly till the window resets.
+ * When the bucket is empty the call waits for the reset, or fails with
+ * {@link RateLimitExceededException} if that is longer than the maximum wait.
+ * 
+ * Buckets are kept per endpoint because Twitter counts every endpoint
+ * separately. Providers which count all endpoints together report the same
+ * remaining calls on every endpoint.
+ */
+public class RateLimiter {
+
+	private static final Log LOG = LogFactory.getLog(RateLimiter.class);
+	private static final int TOO_MANY_REQUESTS = 429;
+	private static final RateLimiter DEFAULT = new RateLimiter();
+
+	private final Map<String, Bucket> buckets;
+	private volatile long maxWait = 10000;
+	private volatile double paceThreshold = 0.2;
+	private volatile int maxUsage = 95;
+	private volatile long cooldown = 60000;
+	private volatile boolean enabled = true;
+
+	public RateLimiter() {
+		this(10000);
+	}
+
+	/**
+	 * @param maxBuckets
+	 *            maximum number of buckets to keep, least recently used are
+	 *            removed first
+	 */
+	public RateLimiter(final int maxBuckets) {
+		buckets = new LinkedHashMap<String, Bucket>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, Bucket> eldest) {
+				return size() > maxBuckets;
+			}
+		};
+	}
+
+	/**
+	 * @return the limiter used by the OAuth strategies
+	 */
+	public static RateLimiter getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Builds the bucket key for given provider, access token and URL. Query
+	 * string of the URL is not part of the key.
+	 */
+	public static String key(final String providerId, final String token,
+			final String url) {
+		int end = url.indexOf('?');
+		return providerId + " " + token + " "
+				+ (end == -1 ? url : url.substring(0, end));
+	}
+
+	/**
+	 * Waits for the rate limit, makes the call and updates the bucket from its
+	 * response.
+	 * 
+	 * @param key
+	 *            the bucket key
+	 * @param call
+	 *            makes the request
+	 * @return the response
+	 * @throws Exception
+	 */
+	public Response execute(final String key, final Callable<Response> call)
+			throws Exception {
+		acquire(key);
+		Response response = call.call();
+		if (response != null) {
+			update(key, response);
+		}
+		return response;
+	}
+
+	/**
+	 * Wraps given call so that it is made through {@link #execute}.
+	 * 
+	 * @param key
+	 *            the bucket key
+	 * @param call
+	 *            makes the request
+	 * @return the rate limited call
+	 */
+	public Callable<Response> limit(final String key,
+			final Callable<Response> call) {
+		return new Callable<Response>() {
+			@Override
+			public Response call() throws Exception {
+				return execute(key, call);
+			}
+		};
+	}
+
+	/**
+	 * Takes one call from the bucket of given key, waiting if needed.
+	 * 
+	 * @param key
+	 *            the bucket key
+	 * @throws RateLimitExceededException
+	 *             if the call would have to wait longer than the maximum wait
+	 * @throws InterruptedException
+	 */
+	public void acquire(final String key) throws RateLimitExceededException,
+			InterruptedException {
+		if (!enabled) {
+			return;
+		}
+		Bucket bucket;
+		synchronized (buckets) {
+			bucket = buckets.get(key);
+		}
+		if (bucket == null) {
+			return;
+		}
+		while (true) {
+			long now = System.currentTimeMillis();
+			long wait;
+			boolean granted;
+			synchronized (bucket) {
+				wait = bucket.take(now, maxWait);
+				granted = wait >= 0;
+				wait = Math.abs(wait);
+			}
+			if (wait > maxWait) {
+				throw new RateLimitExceededException("Rate limit of "
+						+ key.substring(0, key.indexOf(' ')) + " is exhausted",
+						now + wait);
+			}
+			if (wait > 0) {
+				LOG.debug("Waiting " + wait + " ms for rate limit");
+				Thread.sleep(wait);
+			}
+			if (granted) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Updates the bucket of given key from the rate limit headers of response.
+	 * 
+	 * @param key
+	 *            the bucket key
+	 * @param response
+	 *            the response
+	 */
+	public void update(final String key, final Response response) {
+		RateLimitState state = response.getRateLimitState();
+		boolean throttled = response.getStatus() == TOO_MANY_REQUESTS;
+		if (state == null && !throttled) {
+			return;
+		}
+		Bucket bucket;
+		synchronized (buckets) {
+			bucket = buckets.get(key);
+			if (bucket == null) {
+				bucket = new Bucket();
+				buckets.put(key, bucket);
+			}
+		}
+		long now = System.currentTimeMillis();
+		synchronized (bucket) {
+			if (state != null) {
+				bucket.update(state, now);
+			}
+			if (throttled && bucket.blockedUntil <= now
+					&& (state == null || state.getResetTime() <= now)) {
+				bucket.blockedUntil = now + cooldown;
+			}
+		}
+	}
+
+	/**
+	 * Removes all buckets.
+	 */
+	public void clear() {
+		synchronized (buckets) {
+			buckets.clear();
+		}
+	}
+
+	/**
+	 * @return the maximum time in milliseconds a call waits for the rate limit
+	 */
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	/**
+	 * @param maxWait
+	 *            the maximum time in milliseconds a call waits for the rate
+	 *            limit, longer waits fail. Default is 10 seconds.
+	 */
+	public void setMaxWait(final long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * @param paceThreshold
+	 *            fraction of the limit below which calls are spread evenly
+	 *            till the reset. 0 makes the calls only wait when the bucket
+	 *            is empty, 1 always spreads them. Default is 0.2.
+	 */
+	public void setPaceThreshold(final double paceThreshold) {
+		this.paceThreshold = paceThreshold;
+	}
+
+	/**
+	 * @param maxUsage
+	 *            percentage of X-App-Usage at which calls are held back for
+	 *            the cooldown. Default is 95.
+	 */
+	public void setMaxUsage(final int maxUsage) {
+		this.maxUsage = maxUsage;
+	}
+
+	/**
+	 * @param cooldown
+	 *            time in milliseconds calls are held back when the provider
+	 *            does not tell when to try again. Default is 60 seconds.
+	 */
+	public void setCooldown(final long cooldown) {
+		this.cooldown = cooldown;
+	}
+
+	/**
+	 * @param enabled
+	 *            false to make calls without waiting for the rate limit
+	 */
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	private class Bucket {
+		private int limit = -1;
+		// -1 if not known
+		private double tokens = -1;
+		private long resetTime;
+		private long blockedUntil;
+		private long nextSlot;
+
+		/**
+		 * Returns the time to wait, negative if the call is not granted and
+		 * has to try again after waiting. The bucket is changed only when the
+		 * call is granted, which never happens for a wait over maxWait.
+		 */
+		long take(final long now, final long maxWait) {
+			if (blockedUntil > now) {
+				return -(blockedUntil - now);
+			}
+			if (resetTime > 0 && now >= resetTime) {
+				tokens = -1;
+				resetTime = 0;
+				nextSlot = 0;
+			}
+			if (tokens < 0) {
+				return 0;
+			}
+			if (tokens < 1) {
+				if (resetTime == 0) {
+					// provider did not say when, hold back and then try
+					blockedUntil = now + cooldown;
+					tokens = -1;
+					return -cooldown;
+				}
+				return -(resetTime - now);
+			}
+			long wait = 0;
+			if (resetTime > 0 && limit > 0 && tokens < limit * paceThreshold) {
+				long slot = Math.max(now, nextSlot);
+				wait = slot - now;
+				if (wait > maxWait) {
+					return -wait;
+				}
+				nextSlot = slot + (long) ((resetTime - slot) / tokens);
+			}
+			tokens--;
+			return wait;
+		}
+
+		void update(final RateLimitState state, final long now) {
+			if (state.getLimit() > 0) {
+				limit = state.getLimit();
+			}
+			int remaining = state.getRemaining();
+			if (remaining >= 0) {
+				// responses may arrive out of order, keep the lowest count of
+				// the current window
+				if (state.getResetTime() != resetTime || tokens < 0
+						|| remaining < tokens) {
+					tokens = remaining;
+					resetTime = state.getResetTime();
+				}
+			}
+			if (state.getUsage() >= maxUsage) {
+				blockedUntil = Math.max(blockedUntil, now + cooldown);
+			}
+			if (state.getRetryTime() > now) {
+				blockedUntil = Math.max(blockedUntil, state.getRetryTime());
+			}
+		}
+	}
+}
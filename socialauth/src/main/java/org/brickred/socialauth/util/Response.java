@@ -24,12 +24,24 @@
  */
 package org.brickred.socialauth.util;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
 import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Encapsulates the HTTP status, headers and the content.
@@ -38,33 +50,178 @@ import java.util.zip.GZIPInputStream;
  * 
  */
 public class Response {
+	private static final int MAX_DRAIN_BYTES = 64 * 1024;
 	private final HttpURLConnection _connection;
+	private final HttpTransport _transport;
+	private final int _status;
+	private final Map<String, String> _headers;
+	private final byte[] _body;
+	private boolean released;
+	private RateLimitState rateLimitState;
+	private boolean rateLimitParsed;
 
 	Response(final HttpURLConnection connection) {
+		this(connection, null);
+	}
+
+	Response(final HttpURLConnection connection, final HttpTransport transport) {
 		_connection = connection;
+		_transport = transport;
+		_status = 0;
+		_headers = null;
+		_body = null;
+	}
+
+	/**
+	 * Creates a response which is already read.
+	 * 
+	 * @param status
+	 *            the HTTP status
+	 * @param headers
+	 *            the response headers
+	 * @param body
+	 *            the decoded response body, or error body if status is 400 or
+	 *            more
+	 */
+	public Response(final int status, final Map<String, String> headers,
+			final byte[] body) {
+		_connection = null;
+		_transport = null;
+		_status = status;
+		_headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+		if (headers != null) {
+			_headers.putAll(headers);
+		}
+		_body = body == null ? new byte[0] : body;
+		released = true;
 	}
 
 	/**
-	 * Closes the connection
+	 * Reads this response fully and returns it as a buffered response, which
+	 * can be read any number of times, also from several threads. The
+	 * connection is given back to the transport. Body is decoded, so the
+	 * buffered response has no content encoding header.
+	 * 
+	 * @return the buffered response, or this response if it is already
+	 *         buffered
+	 * @throws IOException
+	 *             if body could not be read
+	 */
+	public Response buffer() throws IOException {
+		if (isBuffered()) {
+			return this;
+		}
+		int status = getStatus();
+		byte[] body;
+		if (status >= 400) {
+			InputStream in = _connection.getErrorStream();
+			if (in == null) {
+				release(true);
+				body = null;
+			} else {
+				BodyBuffer buf = read(decode(new ReleasingInputStream(in)),
+						HttpUtil.getMaxResponseSize());
+				try {
+					body = buf.toByteArray();
+				} finally {
+					buf.recycle();
+				}
+			}
+		} else {
+			body = getResponseBodyAsBytes();
+		}
+		Map<String, String> headers = new HashMap<String, String>();
+		for (Map.Entry<String, List<String>> entry : _connection
+				.getHeaderFields().entrySet()) {
+			String name = entry.getKey();
+			List<String> values = entry.getValue();
+			if (name == null || values == null || values.isEmpty()
+					|| Constants.CONTENT_ENCODING_HEADER.equalsIgnoreCase(name)
+					|| "Content-Length".equalsIgnoreCase(name)) {
+				continue;
+			}
+			headers.put(name, values.get(values.size() - 1));
+		}
+		return new Response(status, headers, body);
+	}
+
+	/**
+	 * @return true if this response is already read and can be read again
+	 */
+	public boolean isBuffered() {
+		return _connection == null;
+	}
+
+	/**
+	 * Closes the response. If the body has not been read, it is discarded so
+	 * that the connection can be reused by the next request to the same host.
 	 * 
 	 * @throws IOException
 	 */
 	public void close() throws IOException {
-		_connection.disconnect();
+		if (isBuffered() || isReleased()) {
+			return;
+		}
+		InputStream in;
+		try {
+			if (_connection.getResponseCode() >= 400) {
+				in = _connection.getErrorStream();
+			} else {
+				in = _connection.getInputStream();
+			}
+		} catch (IOException e) {
+			release(false);
+			return;
+		}
+		release(in == null || drain(in));
 	}
 
 	public String getHeader(final String name) {
+		if (isBuffered()) {
+			return _headers.get(name);
+		}
 		return _connection.getHeaderField(name);
 	}
 
 	/**
-	 * Gets the response content via InputStream.
+	 * Gets the raw response content via InputStream. Use
+	 * {@link #getResponseBodyAsStream()} to get the content decoded.
 	 * 
 	 * @return response input stream
 	 * @throws IOException
 	 */
 	public InputStream getInputStream() throws IOException {
-		return _connection.getInputStream();
+		if (isBuffered()) {
+			if (_status >= 400) {
+				throw new IOException("Server returned HTTP response code: "
+						+ _status);
+			}
+			return new ByteArrayInputStream(_body);
+		}
+		InputStream in;
+		try {
+			in = _connection.getInputStream();
+		} catch (IOException e) {
+			// error status, the body is read from the error stream so that
+			// the connection goes back to the transport
+			close();
+			throw e;
+		}
+		return new ReleasingInputStream(in);
+	}
+
+	/**
+	 * Gets the rate limit state reported by the provider in the headers of
+	 * this response.
+	 * 
+	 * @return the rate limit state, or null if there are no rate limit headers
+	 */
+	public synchronized RateLimitState getRateLimitState() {
+		if (!rateLimitParsed) {
+			rateLimitState = RateLimitState.parse(this);
+			rateLimitParsed = true;
+		}
+		return rateLimitState;
 	}
 
 	/**
@@ -73,6 +230,9 @@ public class Response {
 	 * @return the HTTP status
 	 */
 	public int getStatus() {
+		if (isBuffered()) {
+			return _status;
+		}
 		try {
 			return _connection.getResponseCode();
 		} catch (IOException e) {
@@ -80,6 +240,86 @@ public class Response {
 		}
 	}
 
+	/**
+	 * Gets the response body as a stream. The content is decoded if the
+	 * provider has sent it with gzip or deflate content encoding. The
+	 * connection is given back to the transport once the stream is read till
+	 * the end or closed.
+	 * 
+	 * @return the decoded response body stream
+	 * @throws IOException
+	 */
+	public InputStream getResponseBodyAsStream() throws IOException {
+		InputStream in = getInputStream();
+		try {
+			return decode(in);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the response body as a character stream using given encoding. The
+	 * content is decoded if the provider has sent it compressed.
+	 * 
+	 * @param encoding
+	 *            the encoding type
+	 * @return the response body reader
+	 * @throws IOException
+	 */
+	public Reader getResponseBodyAsReader(final String encoding)
+			throws IOException {
+		return new InputStreamReader(getResponseBodyAsStream(),
+				Charset.forName(encoding));
+	}
+
+	/**
+	 * Gets the response body as bytes. The size of the body is limited by
+	 * {@link HttpUtil#setMaxResponseSize(int)}.
+	 * 
+	 * @return the response body
+	 * @throws IOException
+	 *             if body could not be read or is bigger than the allowed size
+	 */
+	public byte[] getResponseBodyAsBytes() throws IOException {
+		return getResponseBodyAsBytes(HttpUtil.getMaxResponseSize());
+	}
+
+	/**
+	 * Gets the response body as bytes, reading at most maxSize bytes.
+	 * 
+	 * @param maxSize
+	 *            maximum allowed body size in bytes, 0 for no limit
+	 * @return the response body
+	 * @throws IOException
+	 *             if body could not be read or is bigger than maxSize
+	 */
+	public byte[] getResponseBodyAsBytes(final int maxSize) throws IOException {
+		BodyBuffer buf = read(getResponseBodyAsStream(), maxSize);
+		try {
+			return buf.toByteArray();
+		} finally {
+			buf.recycle();
+		}
+	}
+
+	/**
+	 * Gets the response body as a read only ByteBuffer, reading at most
+	 * maxSize bytes.
+	 * 
+	 * @param maxSize
+	 *            maximum allowed body size in bytes, 0 for no limit
+	 * @return the response body
+	 * @throws IOException
+	 *             if body could not be read or is bigger than maxSize
+	 */
+	public ByteBuffer getResponseBodyAsByteBuffer(final int maxSize)
+			throws IOException {
+		return ByteBuffer.wrap(getResponseBodyAsBytes(maxSize))
+				.asReadOnlyBuffer();
+	}
+
 	/**
 	 * Gets the response content as String using given encoding
 	 * 
@@ -90,23 +330,7 @@ public class Response {
 	 */
 	public String getResponseBodyAsString(final String encoding)
 			throws Exception {
-		String line = null;
-		BufferedReader reader = null;
-		StringBuffer sb = new StringBuffer();
-
-		if (Constants.GZIP_CONTENT_ENCODING.equals(_connection
-				.getHeaderField(Constants.CONTENT_ENCODING_HEADER))) {
-			reader = new BufferedReader(
-					new InputStreamReader(new GZIPInputStream(
-							_connection.getInputStream()), encoding));
-		} else {
-			reader = new BufferedReader(new InputStreamReader(
-					_connection.getInputStream(), encoding));
-		}
-		while ((line = reader.readLine()) != null) {
-			sb.append(line);
-		}
-		return sb.toString();
+		return toString(getResponseBodyAsStream(), encoding);
 	}
 
 	/**
@@ -119,22 +343,151 @@ public class Response {
 	 */
 	public String getErrorStreamAsString(final String encoding)
 			throws Exception {
-		String line = null;
-		BufferedReader reader = null;
-		StringBuffer sb = new StringBuffer();
-
-		if (Constants.GZIP_CONTENT_ENCODING.equals(_connection
-				.getHeaderField(Constants.CONTENT_ENCODING_HEADER))) {
-			reader = new BufferedReader(
-					new InputStreamReader(new GZIPInputStream(
-							_connection.getErrorStream()), encoding));
-		} else {
-			reader = new BufferedReader(new InputStreamReader(
-					_connection.getErrorStream(), encoding));
+		if (isBuffered()) {
+			return new String(_body, Charset.forName(encoding));
+		}
+		InputStream in = _connection.getErrorStream();
+		if (in == null) {
+			release(true);
+			return "";
+		}
+		return toString(decode(new ReleasingInputStream(in)), encoding);
+	}
+
+	private String toString(final InputStream in, final String encoding)
+			throws IOException {
+		BodyBuffer buf = read(in, HttpUtil.getMaxResponseSize());
+		try {
+			return buf.toString(Charset.forName(encoding));
+		} finally {
+			buf.recycle();
+		}
+	}
+
+	private BodyBuffer read(final InputStream in, final int maxSize)
+			throws IOException {
+		BodyBuffer buf = BodyBuffer.get(isBuffered() ? _body.length
+				: _connection.getContentLength(), maxSize);
+		try {
+			buf.readFrom(in, maxSize);
+		} catch (IOException e) {
+			buf.recycle();
+			in.close();
+			throw e;
+		}
+		in.close();
+		return buf;
+	}
+
+	private InputStream decode(final InputStream in) throws IOException {
+		String contentEncoding = getHeader(Constants.CONTENT_ENCODING_HEADER);
+		if (contentEncoding == null) {
+			return in;
+		}
+		contentEncoding = contentEncoding.trim().toLowerCase(Locale.ENGLISH);
+		if (Constants.GZIP_CONTENT_ENCODING.equals(contentEncoding)
+				|| "x-gzip".equals(contentEncoding)) {
+			return new GZIPInputStream(in, BodyBuffer.CHUNK_SIZE);
 		}
-		while ((line = reader.readLine()) != null) {
-			sb.append(line);
+		if (Constants.DEFLATE_CONTENT_ENCODING.equals(contentEncoding)) {
+			// "deflate" is meant to be zlib wrapped, but some servers send a
+			// raw deflate stream. Look at the zlib header to find out.
+			PushbackInputStream pin = new PushbackInputStream(in, 2);
+			int b0 = pin.read();
+			int b1 = pin.read();
+			if (b1 != -1) {
+				pin.unread(b1);
+			}
+			if (b0 != -1) {
+				pin.unread(b0);
+			}
+			boolean zlib = b0 != -1 && b1 != -1 && (b0 & 0x0F) == 8
+					&& ((b0 << 8) | b1) % 31 == 0;
+			final Inflater inflater = new Inflater(!zlib);
+			return new InflaterInputStream(pin, inflater,
+					BodyBuffer.CHUNK_SIZE) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						inflater.end();
+					}
+				}
+			};
+		}
+		return in;
+	}
+
+	private synchronized boolean isReleased() {
+		return released;
+	}
+
+	private synchronized void release(final boolean reusable) {
+		if (released) {
+			return;
+		}
+		released = true;
+		if (_transport != null) {
+			_transport.release(_connection, reusable);
+		} else if (!reusable) {
+			_connection.disconnect();
+		}
+	}
+
+	private static boolean drain(final InputStream in) {
+		try {
+			byte[] buf = new byte[4096];
+			int total = 0;
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				total += n;
+				if (total > MAX_DRAIN_BYTES) {
+					return false;
+				}
+			}
+			in.close();
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Gives back the connection to the transport once the body has been read
+	 * till the end or the stream is closed.
+	 */
+	private class ReleasingInputStream extends FilterInputStream {
+
+		ReleasingInputStream(final InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b == -1) {
+				close();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+				throws IOException {
+			int n = super.read(b, off, len);
+			if (n == -1) {
+				close();
+			}
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (isReleased()) {
+				return;
+			}
+			release(in == null || drain(in));
 		}
-		return sb.toString();
 	}
 }
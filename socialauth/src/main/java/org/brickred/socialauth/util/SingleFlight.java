@@ -0,0 +1,188 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent calls with the same key. The first caller of a key
+ * makes the call, and callers arriving while it is in flight wait for it and
+ * get its result or exception instead of making their own call.
+ * 
+ * If a result can be read only once, like a streamed {@link Response}, a
+ * {@link Sharer} converts it to a shareable value. Sharer is called only if
+ * other callers have joined, so a call without concurrent callers costs
+ * nothing extra.
+ * 
+ * @param <K>
+ *            type of key
+ * @param <V>
+ *            type of result
+ */
+public class SingleFlight<K, V> {
+
+	/**
+	 * Converts a result so that it can be used by several callers
+	 * 
+	 * @param <V>
+	 *            type of result
+	 */
+	public interface Sharer<V> {
+		V share(V value) throws Exception;
+	}
+
+	private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<K, Flight<V>>();
+	private final AtomicLong sharedCount = new AtomicLong();
+
+	/**
+	 * Makes the call, or waits for the call in flight with same key
+	 * 
+	 * @param key
+	 *            the key of call
+	 * @param call
+	 *            the call
+	 * @return result of the call
+	 * @throws Exception
+	 *             exception thrown by the call
+	 */
+	public V execute(final K key, final Callable<V> call) throws Exception {
+		return execute(key, call, null);
+	}
+
+	/**
+	 * Makes the call, or waits for the call in flight with same key
+	 * 
+	 * @param key
+	 *            the key of call
+	 * @param call
+	 *            the call
+	 * @param sharer
+	 *            converts the result if it is shared, may be null
+	 * @return result of the call
+	 * @throws Exception
+	 *             exception thrown by the call
+	 */
+	public V execute(final K key, final Callable<V> call,
+			final Sharer<V> sharer) throws Exception {
+		while (true) {
+			Flight<V> flight = new Flight<V>();
+			Flight<V> existing = flights.putIfAbsent(key, flight);
+			if (existing == null) {
+				return lead(key, flight, call, sharer);
+			}
+			if (existing.join()) {
+				sharedCount.incrementAndGet();
+				return existing.await();
+			}
+			// in flight call is completing, it will not take more callers
+			flights.remove(key, existing);
+		}
+	}
+
+	/**
+	 * @return number of calls which used the result of another call
+	 */
+	public long getSharedCount() {
+		return sharedCount.get();
+	}
+
+	/**
+	 * @return number of calls in flight
+	 */
+	public int getInFlightCount() {
+		return flights.size();
+	}
+
+	private V lead(final K key, final Flight<V> flight, final Callable<V> call,
+			final Sharer<V> sharer) throws Exception {
+		V value = null;
+		Exception error = null;
+		try {
+			value = call.call();
+		} catch (Exception e) {
+			error = e;
+		} catch (Error e) {
+			flight.close();
+			flights.remove(key, flight);
+			flight.complete(null, new IllegalStateException(e));
+			throw e;
+		}
+		int followers = flight.close();
+		flights.remove(key, flight);
+		if (followers > 0 && error == null && sharer != null) {
+			try {
+				value = sharer.share(value);
+			} catch (Exception e) {
+				error = e;
+			}
+		}
+		flight.complete(value, error);
+		if (error != null) {
+			throw error;
+		}
+		return value;
+	}
+
+	private static class Flight<V> {
+		private int followers;
+		private boolean closed;
+		private boolean done;
+		private V value;
+		private Exception error;
+
+		synchronized boolean join() {
+			if (closed) {
+				return false;
+			}
+			followers++;
+			return true;
+		}
+
+		synchronized int close() {
+			closed = true;
+			return followers;
+		}
+
+		synchronized void complete(final V value, final Exception error) {
+			this.value = value;
+			this.error = error;
+			done = true;
+			notifyAll();
+		}
+
+		synchronized V await() throws Exception {
+			while (!done) {
+				wait();
+			}
+			if (error != null) {
+				throw error;
+			}
+			return value;
+		}
+	}
+}
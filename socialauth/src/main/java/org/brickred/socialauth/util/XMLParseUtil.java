@@ -27,11 +27,22 @@ package org.brickred.socialauth.util;
 
 import java.io.File;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -50,6 +61,41 @@ import org.w3c.dom.NodeList;
  */
 public class XMLParseUtil {
 
+	private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY;
+	private static final XMLInputFactory INPUT_FACTORY;
+	private static final XMLOutputFactory OUTPUT_FACTORY;
+
+	private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<DocumentBuilder>() {
+		@Override
+		protected DocumentBuilder initialValue() {
+			try {
+				synchronized (DOCUMENT_BUILDER_FACTORY) {
+					return DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+				}
+			} catch (ParserConfigurationException e) {
+				throw new RuntimeException(e.getMessage(), e);
+			}
+		}
+	};
+
+	static {
+		DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+		DOCUMENT_BUILDER_FACTORY.setNamespaceAware(true);
+		DOCUMENT_BUILDER_FACTORY.setValidating(false);
+
+		INPUT_FACTORY = XMLInputFactory.newInstance();
+		INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE,
+				Boolean.TRUE);
+		INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		INPUT_FACTORY.setProperty(
+				XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+
+		OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+		OUTPUT_FACTORY.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES,
+				Boolean.TRUE);
+	}
+
 	/**
 	 * Static helper function to get the element data of the specified node.
 	 * 
@@ -146,22 +192,191 @@ public class XMLParseUtil {
 
 	/**
 	 * Returns a <code>DocumentBuilder</code>, which is used for parsing XML
-	 * documents.
+	 * documents. The builder is cached per thread and should not be shared
+	 * with other threads.
 	 * 
 	 * @return a <code>DocumentBuilder</code> which is used for parsing XML
 	 *         documents. Never <code>null</code>.
 	 */
 	public static DocumentBuilder getDocumentBuilder() {
-		try {
-			DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-			dbf.setNamespaceAware(true);
-			dbf.setValidating(false);
-
-			return dbf.newDocumentBuilder();
-		} catch (ParserConfigurationException e) {
-			e.printStackTrace();
-			throw new RuntimeException(e.getMessage());
+		DocumentBuilder db = DOCUMENT_BUILDER.get();
+		db.reset();
+		return db;
+	}
+
+	/**
+	 * Creates a streaming reader over the given input stream. Closing the
+	 * returned reader does not close the stream, so the caller should close
+	 * the stream once reading is done.
+	 * 
+	 * @param in
+	 *            Input Stream.
+	 * @return the XMLStreamReader
+	 * @throws XMLStreamException
+	 */
+	public static XMLStreamReader createXMLStreamReader(final InputStream in)
+			throws XMLStreamException {
+		return INPUT_FACTORY.createXMLStreamReader(in);
+	}
+
+	/**
+	 * Creates a streaming reader over the given xml string.
+	 * 
+	 * @param xml
+	 *            the xml string
+	 * @return the XMLStreamReader
+	 * @throws XMLStreamException
+	 */
+	public static XMLStreamReader createXMLStreamReader(final String xml)
+			throws XMLStreamException {
+		return INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+	}
+
+	/**
+	 * Moves the reader to the start of the next element with given local name,
+	 * at any depth.
+	 * 
+	 * @param reader
+	 *            the stream reader
+	 * @param localName
+	 *            the local name of the element
+	 * @return true if the element is found, false if end of document is
+	 *         reached
+	 * @throws XMLStreamException
+	 */
+	public static boolean nextElement(final XMLStreamReader reader,
+			final String localName) throws XMLStreamException {
+		while (reader.hasNext()) {
+			if (reader.next() == XMLStreamConstants.START_ELEMENT
+					&& localName.equals(reader.getLocalName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the value of an attribute of the current element. The name may be
+	 * prefixed like <code>yahoo:uri</code>.
+	 * 
+	 * @param reader
+	 *            the stream reader positioned at a start element
+	 * @param name
+	 *            the qualified name of the attribute
+	 * @return the attribute value or an empty string if the element has no
+	 *         such attribute
+	 */
+	public static String getAttribute(final XMLStreamReader reader,
+			final String name) {
+		int index = name.indexOf(':');
+		String prefix = index == -1 ? "" : name.substring(0, index);
+		String localName = name.substring(index + 1);
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String p = reader.getAttributePrefix(i);
+			if (localName.equals(reader.getAttributeLocalName(i))
+					&& prefix.equals(p == null ? "" : p)) {
+				return reader.getAttributeValue(i);
+			}
+		}
+		return "";
+	}
+
+	/**
+	 * Reads the current element till its end and returns the text of the
+	 * nested elements by their local name. If an element name occurs more
+	 * than once, text of the first one is returned.
+	 * 
+	 * @param reader
+	 *            the stream reader positioned at a start element
+	 * @return map of local name and text of the nested elements
+	 * @throws XMLStreamException
+	 */
+	public static Map<String, String> readElementData(
+			final XMLStreamReader reader) throws XMLStreamException {
+		Map<String, String> data = new HashMap<String, String>();
+		List<StringBuilder> texts = new ArrayList<StringBuilder>();
+		int depth = 1;
+		while (depth > 0) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				depth++;
+				texts.add(new StringBuilder());
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+				if (!texts.isEmpty()) {
+					texts.get(texts.size() - 1).append(reader.getText());
+				}
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				depth--;
+				if (depth > 0) {
+					String text = texts.remove(texts.size() - 1).toString();
+					if (!data.containsKey(reader.getLocalName())) {
+						data.put(reader.getLocalName(), text);
+					}
+				}
+				break;
+			case XMLStreamConstants.END_DOCUMENT:
+				throw new XMLStreamException("Unexpected end of document");
+			default:
+				break;
+			}
 		}
+		return data;
+	}
+
+	/**
+	 * Reads the current element till its end and returns it as xml string. It
+	 * is used to keep the raw response of a single element.
+	 * 
+	 * @param reader
+	 *            the stream reader positioned at a start element
+	 * @return the xml string of the element
+	 * @throws XMLStreamException
+	 */
+	public static String readElementAsString(final XMLStreamReader reader)
+			throws XMLStreamException {
+		StringWriter sw = new StringWriter();
+		XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(sw);
+		int depth = 0;
+		int event = reader.getEventType();
+		do {
+			switch (event) {
+			case XMLStreamConstants.START_ELEMENT:
+				depth++;
+				String prefix = reader.getPrefix();
+				String ns = reader.getNamespaceURI();
+				writer.writeStartElement(prefix == null ? "" : prefix,
+						reader.getLocalName(), ns == null ? "" : ns);
+				for (int i = 0; i < reader.getAttributeCount(); i++) {
+					String ap = reader.getAttributePrefix(i);
+					String ans = reader.getAttributeNamespace(i);
+					writer.writeAttribute(ap == null ? "" : ap,
+							ans == null ? "" : ans,
+							reader.getAttributeLocalName(i),
+							reader.getAttributeValue(i));
+				}
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+				writer.writeCharacters(reader.getText());
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				depth--;
+				writer.writeEndElement();
+				break;
+			case XMLStreamConstants.END_DOCUMENT:
+				throw new XMLStreamException("Unexpected end of document");
+			default:
+				break;
+			}
+			if (depth > 0) {
+				event = reader.next();
+			}
+		} while (depth > 0);
+		writer.close();
+		return sw.toString();
 	}
 
 	public static String getStringFromElement(Element doc)
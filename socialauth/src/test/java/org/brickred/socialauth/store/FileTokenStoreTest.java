@@ -0,0 +1,180 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.brickred.socialauth.util.AccessGrant;
+import org.brickred.socialauth.util.Constants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileTokenStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+	private FileTokenStore store;
+
+	@Before
+	public void setUp() throws Exception {
+		file = new File(folder.getRoot(), "tokens/tokens.log");
+		store = new FileTokenStore(file);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		store.close();
+	}
+
+	@Test
+	public void savesAndRemovesAreReplayed() throws Exception {
+		store.save("u1", grant("facebook", "k1", 3600));
+		store.save("u1", grant("twitter", "k2", 0));
+		store.save("u2", grant("facebook", "k3", 60));
+		store.remove("u1", "twitter");
+		AccessGrant replaced = grant("facebook", "k4", 7200);
+		store.save("u1", replaced);
+
+		FileTokenStore reopened = reopen();
+		assertEquals(2, reopened.size());
+		assertEquals("k4", reopened.load("u1", "facebook").getKey());
+		assertEquals("k3", reopened.load("u2", "facebook").getKey());
+		assertNull(reopened.load("u1", "twitter"));
+		assertEquals(replaced.getExpiresAt(), reopened.load("u1", "facebook")
+				.getExpiresAt());
+
+		List<StoredToken> expiring = reopened
+				.findExpiringBefore(Long.MAX_VALUE);
+		assertEquals(2, expiring.size());
+		assertEquals("u2", expiring.get(0).getUserId());
+		assertEquals("u1", expiring.get(1).getUserId());
+	}
+
+	@Test
+	public void truncatedLastRecordIsDiscarded() throws Exception {
+		store.save("u1", grant("facebook", "k1", 3600));
+		long valid = file.length();
+		store.save("u2", grant("facebook", "k2", 3600));
+		store.close();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(file.length() - 5);
+		} finally {
+			raf.close();
+		}
+
+		FileTokenStore reopened = reopen();
+		assertEquals(1, reopened.size());
+		assertEquals("k1", reopened.load("u1", "facebook").getKey());
+		assertEquals(valid, file.length());
+
+		// records written after the cut are replayed as well
+		reopened.save("u3", grant("twitter", "k3", 0));
+		assertEquals("k3", reopen().load("u3", "twitter").getKey());
+	}
+
+	@Test
+	public void invalidRecordLengthIsDiscarded() throws Exception {
+		store.save("u1", grant("facebook", "k1", 3600));
+		long valid = file.length();
+		store.close();
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file,
+				true));
+		try {
+			out.writeInt(Integer.MAX_VALUE);
+			out.write(new byte[10]);
+		} finally {
+			out.close();
+		}
+
+		FileTokenStore reopened = reopen();
+		assertEquals(1, reopened.size());
+		assertEquals(valid, file.length());
+	}
+
+	@Test
+	public void compactionKeepsLiveGrants() throws Exception {
+		store.setCompactThreshold(10);
+		for (int i = 0; i < 100; i++) {
+			store.save("u" + (i % 3), grant("facebook", "k" + i, 3600));
+		}
+		long before = file.length();
+		store.compact();
+		assertTrue(file.length() <= before);
+
+		FileTokenStore reopened = reopen();
+		assertEquals(3, reopened.size());
+		assertEquals("k99", reopened.load("u0", "facebook").getKey());
+		assertEquals("k97", reopened.load("u1", "facebook").getKey());
+		assertEquals("k98", reopened.load("u2", "facebook").getKey());
+	}
+
+	@Test
+	public void legacyGrantKeepsExpiryOfFirstSave() throws Exception {
+		AccessGrant legacy = new AccessGrant("k1", "s1");
+		legacy.setProviderId("facebook");
+		legacy.setAttribute(Constants.EXPIRES, "3600");
+		store.save("u1", legacy);
+		long expiresAt = store.findExpiringBefore(Long.MAX_VALUE).get(0)
+				.getExpiresAt();
+		Thread.sleep(20);
+		store.save("u1", legacy);
+
+		FileTokenStore reopened = reopen();
+		assertEquals(expiresAt, reopened.findExpiringBefore(Long.MAX_VALUE)
+				.get(0).getExpiresAt());
+		assertEquals(expiresAt, reopened.load("u1", "facebook")
+				.getExpiresAt());
+	}
+
+	private FileTokenStore reopen() throws Exception {
+		store.close();
+		store = new FileTokenStore(file);
+		return store;
+	}
+
+	private static AccessGrant grant(final String providerId,
+			final String key, final int expires) {
+		AccessGrant grant = new AccessGrant(key, "secret");
+		grant.setProviderId(providerId);
+		if (expires > 0) {
+			grant.setExpires(Integer.valueOf(expires));
+		}
+		return grant;
+	}
+}
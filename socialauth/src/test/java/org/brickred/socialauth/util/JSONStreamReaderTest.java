@@ -0,0 +1,310 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.brickred.socialauth.util.JSONStreamReader.Token;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class JSONStreamReaderTest {
+
+	@Test
+	public void readsObjectsArraysAndScalars() throws Exception {
+		JSONStreamReader reader = new JSONStreamReader(
+				"{\"id\": 123, \"name\": \"Jane\", \"verified\": true,"
+						+ " \"email\": null, \"score\": -1.5e2,"
+						+ " \"tags\": [\"a\", \"b\"], \"empty\": {}}");
+		reader.beginObject();
+		assertEquals("id", reader.nextName());
+		assertEquals(123, reader.nextInt());
+		assertEquals("name", reader.nextName());
+		assertEquals("Jane", reader.nextString());
+		assertEquals("verified", reader.nextName());
+		assertTrue(reader.nextBoolean());
+		assertEquals("email", reader.nextName());
+		assertEquals(Token.NULL, reader.peek());
+		assertNull(reader.nextString());
+		assertEquals("score", reader.nextName());
+		assertEquals(-150, reader.nextLong());
+		assertEquals("tags", reader.nextName());
+		reader.beginArray();
+		assertEquals("a", reader.nextString());
+		assertEquals("b", reader.nextString());
+		assertFalse(reader.hasNext());
+		reader.endArray();
+		assertEquals("empty", reader.nextName());
+		reader.beginObject();
+		assertFalse(reader.hasNext());
+		reader.endObject();
+		reader.endObject();
+		assertEquals(Token.END_DOCUMENT, reader.peek());
+	}
+
+	@Test
+	public void decodesEscapes() throws Exception {
+		JSONStreamReader reader = new JSONStreamReader(
+				"[\"a\\\"b\\\\c\\/d\\n\\t\\r\\b\\f\", \"\\u00e9\\uD83D\\uDE00\"]");
+		reader.beginArray();
+		assertEquals("a\"b\\c/d\n\t\r\b\f", reader.nextString());
+		assertEquals("\u00E9\uD83D\uDE00", reader.nextString());
+		reader.endArray();
+	}
+
+	@Test
+	public void quotedNumbersAreAccepted() throws Exception {
+		JSONStreamReader reader = new JSONStreamReader("[\"42\", \"7\"]");
+		reader.beginArray();
+		assertEquals(42, reader.nextInt());
+		assertEquals(7L, reader.nextLong());
+		reader.endArray();
+	}
+
+	@Test
+	public void skipValueSkipsNestedValues() throws Exception {
+		JSONStreamReader reader = new JSONStreamReader(
+				"{\"skip\": {\"a\": [1, {\"b\": [[], {}]}], \"c\": \"}\"},"
+						+ " \"keep\": \"yes\"}");
+		reader.beginObject();
+		assertEquals("skip", reader.nextName());
+		reader.skipValue();
+		assertEquals("keep", reader.nextName());
+		assertEquals("yes", reader.nextString());
+		reader.endObject();
+	}
+
+	@Test
+	public void nextRawKeepsValueTextAcrossBufferRefills() throws Exception {
+		StringBuilder sb = new StringBuilder("{\"id\":\"");
+		for (int i = 0; i < 10000; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		sb.append("\",\"n\":[1,2,{\"x\":null}]}");
+		String element = sb.toString();
+		JSONStreamReader reader = new JSONStreamReader(new OneCharReader(
+				"{\"data\": [" + element + ", 5]}"));
+		reader.beginObject();
+		assertEquals("data", reader.nextName());
+		reader.beginArray();
+		String raw = reader.nextRaw();
+		assertEquals(element, raw);
+		assertEquals(10000, new JSONObject(raw).getString("id").length());
+		assertEquals(5, reader.nextInt());
+		reader.endArray();
+		reader.endObject();
+	}
+
+	@Test
+	public void deepNestingGrowsTheStack() throws Exception {
+		int depth = 200;
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			sb.append("[");
+		}
+		sb.append("1");
+		for (int i = 0; i < depth; i++) {
+			sb.append("]");
+		}
+		JSONStreamReader reader = new JSONStreamReader(sb.toString());
+		for (int i = 0; i < depth; i++) {
+			reader.beginArray();
+		}
+		assertEquals(1, reader.nextInt());
+		for (int i = 0; i < depth; i++) {
+			reader.endArray();
+		}
+		assertEquals(Token.END_DOCUMENT, reader.peek());
+	}
+
+	@Test
+	public void malformedInputFails() throws Exception {
+		String[] inputs = { "{\"a\" 1}", "[1 2]", "{\"a\":tru}", "[\"abc",
+				"{\"a\":\"\\x\"}", "[nul]", "{1:2}" };
+		for (String input : inputs) {
+			try {
+				readTree(new JSONStreamReader(input));
+				fail("Expected syntax error for " + input);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void wrongTokenFails() throws Exception {
+		JSONStreamReader reader = new JSONStreamReader("{\"a\": 1}");
+		try {
+			reader.beginArray();
+			fail("Expected syntax error");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void randomDocumentsMatchTheirModel() throws Exception {
+		Random random = new Random(3);
+		for (int i = 0; i < 300; i++) {
+			Object model = randomValue(random, 0);
+			String json = toJson(model);
+			assertEquals(json, model, readTree(new JSONStreamReader(json)));
+			assertEquals(json, model, readTree(new JSONStreamReader(
+					new OneCharReader(json))));
+		}
+	}
+
+	/**
+	 * Reads the next value into maps, lists, strings and nulls. Numbers and
+	 * booleans are kept as their text.
+	 */
+	private static Object readTree(final JSONStreamReader reader)
+			throws IOException {
+		switch (reader.peek()) {
+		case BEGIN_OBJECT:
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				map.put(name, readTree(reader));
+			}
+			reader.endObject();
+			return map;
+		case BEGIN_ARRAY:
+			List<Object> list = new ArrayList<Object>();
+			reader.beginArray();
+			while (reader.hasNext()) {
+				list.add(readTree(reader));
+			}
+			reader.endArray();
+			return list;
+		default:
+			return reader.nextString();
+		}
+	}
+
+	private static Object randomValue(final Random random, final int depth) {
+		int kind = random.nextInt(depth > 4 ? 4 : 6);
+		switch (kind) {
+		case 0:
+			return null;
+		case 1:
+			return String.valueOf(random.nextInt(2000) - 1000);
+		case 2:
+			return random.nextBoolean() ? "true" : "false";
+		case 3:
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt(10);
+			for (int i = 0; i < length; i++) {
+				sb.append((char) (random.nextBoolean() ? 32 + random
+						.nextInt(95) : random.nextInt(0xD000)));
+			}
+			return sb.toString();
+		case 4:
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			int size = random.nextInt(5);
+			for (int i = 0; i < size; i++) {
+				map.put("k" + i, randomValue(random, depth + 1));
+			}
+			return map;
+		default:
+			List<Object> list = new ArrayList<Object>();
+			int count = random.nextInt(5);
+			for (int i = 0; i < count; i++) {
+				list.add(randomValue(random, depth + 1));
+			}
+			return list;
+		}
+	}
+
+	private static String toJson(final Object value) {
+		if (value == null) {
+			return "null";
+		}
+		if (value instanceof Map) {
+			StringBuilder sb = new StringBuilder("{");
+			for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+				if (sb.length() > 1) {
+					sb.append(", ");
+				}
+				sb.append(JSONObject.quote((String) e.getKey())).append(" :\n")
+						.append(toJson(e.getValue()));
+			}
+			return sb.append("}").toString();
+		}
+		if (value instanceof List) {
+			StringBuilder sb = new StringBuilder("[");
+			for (Object o : (List<?>) value) {
+				if (sb.length() > 1) {
+					sb.append(",\t");
+				}
+				sb.append(toJson(o));
+			}
+			return sb.append("]").toString();
+		}
+		String s = (String) value;
+		if (s.equals("true") || s.equals("false") || s.matches("-?\\d+")) {
+			return s;
+		}
+		return JSONObject.quote(s);
+	}
+
+	/**
+	 * Returns one character per read, so that every token crosses a buffer
+	 * refill.
+	 */
+	private static class OneCharReader extends Reader {
+
+		private final Reader in;
+
+		OneCharReader(final String s) {
+			this.in = new StringReader(s);
+		}
+
+		@Override
+		public int read(final char[] cbuf, final int off, final int len)
+				throws IOException {
+			return in.read(cbuf, off, Math.min(len, 1));
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+}
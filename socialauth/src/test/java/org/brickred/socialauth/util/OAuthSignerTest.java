@@ -0,0 +1,182 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link OAuthSigner} against the signature OAuthConsumer generated
+ * before it, which built the base string with String concatenation and a new
+ * Mac for every request.
+ */
+public class OAuthSignerTest implements Constants {
+
+	@Test
+	public void specExampleSignature() throws Exception {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("file", "vacation.jpg");
+		params.put("size", "original");
+		params.put(OAUTH_CONSUMER_KEY, "dpf43f3p2l4k3l03");
+		params.put(OAUTH_NONCE, "kllo9940pd9333jh");
+		params.put(OAUTH_SIGNATURE_METHOD, HMACSHA1_SIGNATURE);
+		params.put(OAUTH_TIMESTAMP, "1191242096");
+		params.put(OAUTH_TOKEN, "nnch734d00sl2jdk");
+		params.put(OAUTH_VERSION, "1.0");
+		assertEquals("tR3+Ty81lMeYAr/Fid0kMTYa/WM=", OAuthSigner.sign(
+				HMACSHA1_SIGNATURE, "GET", "http://photos.example.net/photos",
+				params, "kd94hf93k423kf44", "pfkkdhi9sl3r4s00", null));
+	}
+
+	@Test
+	public void hmacSha1MatchesOldSignature() throws Exception {
+		Random random = new Random(7);
+		for (int i = 0; i < 500; i++) {
+			Map<String, String> params = randomParams(random);
+			String method = random.nextBoolean() ? "GET" : "POST";
+			String url = "https://api.example.com/1/" + randomValue(random);
+			// few distinct secrets, so cached Macs are reused and switched
+			String consumerSecret = "cs" + random.nextInt(3);
+			String tokenSecret = random.nextInt(4) == 0 ? null : "ts&"
+					+ random.nextInt(3);
+			assertEquals(oldBaseString(method, url, params),
+					OAuthSigner.getBaseString(method, url, params));
+			assertEquals(oldSign("HmacSHA1", method, url, params,
+					consumerSecret, tokenSecret), OAuthSigner.sign(
+					HMACSHA1_SIGNATURE, method, url, params, consumerSecret,
+					tokenSecret, null));
+		}
+	}
+
+	@Test
+	public void hmacSha256UsesSameBaseStringAndKey() throws Exception {
+		Random random = new Random(11);
+		for (int i = 0; i < 100; i++) {
+			Map<String, String> params = randomParams(random);
+			String url = "https://api.example.com/2/items";
+			assertEquals(oldSign("HmacSHA256", "POST", url, params, "c s",
+					"t~s"), OAuthSigner.sign(HMACSHA256_SIGNATURE, "POST",
+					url, params, "c s", "t~s", null));
+		}
+	}
+
+	@Test
+	public void plaintextSignatureIsTheKey() throws Exception {
+		assertEquals("c%26s&t%20s", OAuthSigner.sign(PLAINTEXT_SIGNATURE,
+				"GET", "https://api.example.com/", new HashMap<String, String>(),
+				"c&s", "t s", null));
+		assertEquals("cs&", OAuthSigner.sign(PLAINTEXT_SIGNATURE, "GET",
+				"https://api.example.com/", new HashMap<String, String>(),
+				"cs", null, null));
+	}
+
+	/**
+	 * The signature OAuthConsumer.getHMACSHA1 computed before OAuthSigner,
+	 * generalized to the given Mac algorithm.
+	 */
+	private static String oldSign(final String algorithm, final String method,
+			final String url, final Map<String, String> params,
+			final String consumerSecret, final String tokenSecret)
+			throws Exception {
+		String key = oldEncode(consumerSecret) + "&";
+		if (tokenSecret != null) {
+			key += oldEncode(tokenSecret);
+		}
+		Mac mac = Mac.getInstance(algorithm);
+		mac.init(new SecretKeySpec(key.getBytes("UTF-8"), algorithm));
+		byte[] raw = mac.doFinal(oldBaseString(method, url, params).getBytes(
+				"UTF-8"));
+		return Base64.encodeBytes(raw);
+	}
+
+	private static String oldBaseString(final String method, final String url,
+			final Map<String, String> params) throws Exception {
+		List<String> args = new ArrayList<String>();
+		for (Map.Entry<String, String> entry : params.entrySet()) {
+			String val = entry.getValue();
+			if (val != null && val.length() > 0) {
+				args.add(entry.getKey() + "=" + oldEncode(val));
+			}
+		}
+		Collections.sort(args);
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < args.size(); i++) {
+			if (i > 0) {
+				s.append("&");
+			}
+			s.append(args.get(i));
+		}
+		return oldEncode(method) + "&" + oldEncode(url) + "&"
+				+ oldEncode(s.toString());
+	}
+
+	private static String oldEncode(final String value) throws Exception {
+		return URLEncoder.encode(value, "utf-8").replace("+", "%20")
+				.replace("*", "%2A").replace("%7E", "~");
+	}
+
+	private static Map<String, String> randomParams(final Random random) {
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		params.put(OAUTH_CONSUMER_KEY, "key" + random.nextInt(100));
+		params.put(OAUTH_NONCE, String.valueOf(random.nextLong()));
+		params.put(OAUTH_TIMESTAMP, String.valueOf(1400000000 + random
+				.nextInt(100000000)));
+		params.put(OAUTH_SIGNATURE_METHOD, HMACSHA1_SIGNATURE);
+		int extra = random.nextInt(6);
+		for (int i = 0; i < extra; i++) {
+			String value = random.nextInt(5) == 0 ? "" : randomValue(random);
+			params.put("p" + random.nextInt(10), value);
+		}
+		return params;
+	}
+
+	private static String randomValue(final Random random) {
+		String chars = "aZ09 -._~*+&=%/?\u00E9\u20AC\uD83D\uDE00";
+		StringBuilder sb = new StringBuilder();
+		int length = 1 + random.nextInt(12);
+		for (int i = 0; i < length; i++) {
+			int c = random.nextInt(chars.length());
+			if (Character.isHighSurrogate(chars.charAt(c))) {
+				sb.append(chars, c, c + 2);
+			} else if (!Character.isLowSurrogate(chars.charAt(c))) {
+				sb.append(chars.charAt(c));
+			}
+		}
+		return sb.toString();
+	}
+}
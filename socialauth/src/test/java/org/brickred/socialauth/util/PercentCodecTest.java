@@ -0,0 +1,151 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link PercentCodec} against the URLEncoder based encoding which
+ * HttpUtil used before it, on fixed and random values.
+ */
+public class PercentCodecTest {
+
+	private static final String[] SAMPLES = { "", "abcXYZ019", "-._~",
+			"hello world", "a+b=c&d", "*'()!", "100% sure", "/path?q=1#frag",
+			"\u00E9", "na\u00EFve caf\u00E9", "\u65E5\u672C\u8A9E",
+			"emoji \uD83D\uDE00 \uD83C\uDF89", "\u0000\u001F\u007F",
+			"line\r\nbreak", "%7E~%20",
+			"oauth_callback=http://example.com/cb?x=1&y=2" };
+
+	@Test
+	public void encodeMatchesOldEncoder() throws Exception {
+		for (String value : values()) {
+			assertEquals(value, oldEncode(value), PercentCodec.encode(value));
+		}
+	}
+
+	@Test
+	public void encodeFormMatchesUrlEncoder() throws Exception {
+		for (String value : values()) {
+			StringBuilder sb = new StringBuilder();
+			PercentCodec.encodeForm(value, sb);
+			assertEquals(value, URLEncoder.encode(value, "UTF-8"),
+					sb.toString());
+		}
+	}
+
+	@Test
+	public void bufferAndBuilderEncodingMatchString() throws Exception {
+		for (String value : values()) {
+			String expected = oldEncode(value);
+			StringBuilder sb = new StringBuilder();
+			PercentCodec.encode(value, sb);
+			assertEquals(value, expected, sb.toString());
+
+			int length = PercentCodec.encodedLength(value);
+			assertEquals(value, expected.length(), length);
+			ByteBuffer out = ByteBuffer.allocate(length);
+			PercentCodec.encode(value, out);
+			assertEquals(value, 0, out.remaining());
+			assertEquals(value, expected, new String(out.array(), "US-ASCII"));
+		}
+	}
+
+	@Test
+	public void decodeMatchesUrlDecoder() throws Exception {
+		for (String value : values()) {
+			String encoded = oldEncode(value);
+			assertEquals(value, PercentCodec.decode(encoded));
+			String form = URLEncoder.encode(value, "UTF-8");
+			assertEquals(URLDecoder.decode(form, "UTF-8"),
+					PercentCodec.decode(form));
+		}
+	}
+
+	@Test
+	public void unescapedValuesAreReturnedAsIs() {
+		String value = "plain-value_1.0~";
+		assertSame(value, PercentCodec.encode(value));
+		assertSame(value, PercentCodec.decode(value));
+		assertEquals("", PercentCodec.encode(null));
+	}
+
+	@Test
+	public void invalidEscapesAreKept() {
+		assertEquals("100%", PercentCodec.decode("100%"));
+		assertEquals("%zz a", PercentCodec.decode("%zz+a"));
+		assertEquals("%4", PercentCodec.decode("%4"));
+	}
+
+	/**
+	 * The encoding HttpUtil.encodeURIComponent used before PercentCodec
+	 */
+	private static String oldEncode(final String value) throws Exception {
+		return URLEncoder.encode(value, "utf-8").replace("+", "%20")
+				.replace("*", "%2A").replace("%7E", "~");
+	}
+
+	/**
+	 * Samples and random strings of ASCII, BMP and supplementary characters.
+	 * Unpaired surrogates are left out as URLEncoder replaces them with '?'.
+	 */
+	private static List<String> values() {
+		List<String> values = new ArrayList<String>(Arrays.asList(SAMPLES));
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt(20);
+			for (int j = 0; j < length; j++) {
+				int kind = random.nextInt(10);
+				int cp;
+				if (kind < 6) {
+					cp = random.nextInt(128);
+				} else if (kind < 8) {
+					cp = 0x80 + random.nextInt(0x800 - 0x80);
+				} else if (kind < 9) {
+					do {
+						cp = 0x800 + random.nextInt(0x10000 - 0x800);
+					} while (cp >= 0xD800 && cp <= 0xDFFF);
+				} else {
+					cp = 0x10000 + random.nextInt(0x110000 - 0x10000);
+				}
+				sb.appendCodePoint(cp);
+			}
+			values.add(sb.toString());
+		}
+		return values;
+	}
+}
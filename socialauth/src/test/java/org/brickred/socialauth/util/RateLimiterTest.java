@@ -0,0 +1,124 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.brickred.socialauth.exception.RateLimitExceededException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RateLimiterTest {
+
+	private static final String KEY = RateLimiter.key("twitter", "token",
+			"https://api.twitter.com/1.1/friends/list.json");
+
+	private RateLimiter limiter;
+
+	@Before
+	public void setUp() {
+		limiter = new RateLimiter();
+		limiter.setMaxWait(10000);
+	}
+
+	@Test
+	public void rejectedPacedCallDoesNotMoveLaterSlots() throws Exception {
+		long reset = System.currentTimeMillis() / 1000 + 600;
+		limiter.update(KEY, response(180, 30, reset));
+
+		// first paced call goes right away, the next slot is 20 s later
+		limiter.acquire(KEY);
+
+		long retryTime = 0;
+		for (int i = 0; i < 4; i++) {
+			try {
+				limiter.acquire(KEY);
+				fail("call " + i + " should wait longer than max wait");
+			} catch (RateLimitExceededException e) {
+				if (retryTime == 0) {
+					retryTime = e.getRetryTime();
+				}
+				assertEquals("retry time of call " + i, retryTime,
+						e.getRetryTime());
+			}
+		}
+	}
+
+	@Test
+	public void rejectedPacedCallKeepsItsToken() throws Exception {
+		long reset = System.currentTimeMillis() / 1000 + 600;
+		limiter.update(KEY, response(180, 30, reset));
+		limiter.acquire(KEY);
+		for (int i = 0; i < 4; i++) {
+			try {
+				limiter.acquire(KEY);
+			} catch (RateLimitExceededException e) {
+				// expected
+			}
+		}
+		// all the other 29 calls are still in the budget
+		limiter.setPaceThreshold(0);
+		for (int i = 0; i < 29; i++) {
+			limiter.acquire(KEY);
+		}
+		limiter.setMaxWait(0);
+		try {
+			limiter.acquire(KEY);
+			fail("bucket should be empty");
+		} catch (RateLimitExceededException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void unpacedCallsUseWholeBudget() throws Exception {
+		long reset = System.currentTimeMillis() / 1000 + 600;
+		limiter.update(KEY, response(180, 150, reset));
+		limiter.setPaceThreshold(0);
+		limiter.setMaxWait(0);
+		for (int i = 0; i < 150; i++) {
+			limiter.acquire(KEY);
+		}
+		try {
+			limiter.acquire(KEY);
+			fail("bucket should be empty");
+		} catch (RateLimitExceededException e) {
+			assertEquals(reset * 1000, e.getRetryTime(), 1000);
+		}
+	}
+
+	private static Response response(final int limit, final int remaining,
+			final long reset) {
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("x-rate-limit-limit", String.valueOf(limit));
+		headers.put("x-rate-limit-remaining", String.valueOf(remaining));
+		headers.put("x-rate-limit-reset", String.valueOf(reset));
+		return new Response(200, headers, null);
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ ===========================================================================
+ Copyright (c) 2014 3PillarGlobal
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sub-license, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ===========================================================================
+
+ */
+package org.brickred.socialauth.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+	private static final int CALLERS = 8;
+
+	private SingleFlight<String, String> flight;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		flight = new SingleFlight<String, String>();
+		executor = Executors.newFixedThreadPool(CALLERS);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void concurrentCallsShareOneCall() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		List<Future<String>> results = submit(CALLERS, "key",
+				new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						calls.incrementAndGet();
+						release.await();
+						return "value";
+					}
+				}, null);
+		awaitFollowers(CALLERS - 1);
+		release.countDown();
+		for (Future<String> result : results) {
+			assertEquals("value", result.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, calls.get());
+		assertEquals(0, flight.getInFlightCount());
+	}
+
+	@Test
+	public void exceptionIsSharedWithFollowers() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final Exception failure = new Exception("failed");
+		List<Future<String>> results = submit(CALLERS, "key",
+				new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						release.await();
+						throw failure;
+					}
+				}, null);
+		awaitFollowers(CALLERS - 1);
+		release.countDown();
+		for (Future<String> result : results) {
+			try {
+				result.get(10, TimeUnit.SECONDS);
+				fail("Expected the failure of the call");
+			} catch (ExecutionException e) {
+				assertSame(failure, e.getCause());
+			}
+		}
+		assertEquals(0, flight.getInFlightCount());
+	}
+
+	@Test
+	public void sharerIsCalledOnlyWhenOthersJoined() throws Exception {
+		final AtomicInteger shares = new AtomicInteger();
+		SingleFlight.Sharer<String> sharer = new SingleFlight.Sharer<String>() {
+			@Override
+			public String share(final String value) {
+				shares.incrementAndGet();
+				return "shared " + value;
+			}
+		};
+		assertEquals("alone", flight.execute("key", new Callable<String>() {
+			@Override
+			public String call() {
+				return "alone";
+			}
+		}, sharer));
+		assertEquals(0, shares.get());
+
+		final CountDownLatch release = new CountDownLatch(1);
+		List<Future<String>> results = submit(CALLERS, "key",
+				new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						release.await();
+						return "value";
+					}
+				}, sharer);
+		awaitFollowers(CALLERS - 1);
+		release.countDown();
+		for (Future<String> result : results) {
+			assertEquals("shared value", result.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, shares.get());
+	}
+
+	@Test
+	public void differentKeysAreNotCoalesced() throws Exception {
+		final CountDownLatch started = new CountDownLatch(2);
+		final CountDownLatch release = new CountDownLatch(1);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for (final String key : new String[] { "a", "b" }) {
+			results.addAll(submit(1, key, new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					started.countDown();
+					release.await();
+					return key;
+				}
+			}, null));
+		}
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		assertEquals(2, flight.getInFlightCount());
+		release.countDown();
+		assertEquals("a", results.get(0).get(10, TimeUnit.SECONDS));
+		assertEquals("b", results.get(1).get(10, TimeUnit.SECONDS));
+		assertEquals(0, flight.getSharedCount());
+	}
+
+	@Test
+	public void completedCallIsNotReused() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		Callable<String> call = new Callable<String>() {
+			@Override
+			public String call() {
+				return "call " + calls.incrementAndGet();
+			}
+		};
+		assertEquals("call 1", flight.execute("key", call));
+		assertEquals("call 2", flight.execute("key", call));
+		assertEquals(0, flight.getSharedCount());
+	}
+
+	@Test
+	public void everyCallerGetsAResultUnderContention() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		final int rounds = 2000;
+		List<Future<Integer>> workers = new ArrayList<Future<Integer>>();
+		for (int t = 0; t < CALLERS; t++) {
+			workers.add(executor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					int ok = 0;
+					for (int i = 0; i < rounds; i++) {
+						String value = flight.execute("key" + (i % 4),
+								new Callable<String>() {
+									@Override
+									public String call() {
+										calls.incrementAndGet();
+										return "value";
+									}
+								});
+						if ("value".equals(value)) {
+							ok++;
+						}
+					}
+					return ok;
+				}
+			}));
+		}
+		for (Future<Integer> worker : workers) {
+			assertEquals(rounds, worker.get(60, TimeUnit.SECONDS).intValue());
+		}
+		assertEquals(CALLERS * rounds, calls.get() + flight.getSharedCount());
+		assertEquals(0, flight.getInFlightCount());
+	}
+
+	private List<Future<String>> submit(final int count, final String key,
+			final Callable<String> call,
+			final SingleFlight.Sharer<String> sharer) {
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for (int i = 0; i < count; i++) {
+			results.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return flight.execute(key, call, sharer);
+				}
+			}));
+		}
+		return results;
+	}
+
+	private void awaitFollowers(final long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (flight.getSharedCount() < count) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("Only " + flight.getSharedCount() + " callers joined");
+			}
+			Thread.sleep(5);
+		}
+	}
+}